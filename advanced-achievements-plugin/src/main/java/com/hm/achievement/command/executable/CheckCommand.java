@@ -45,12 +45,14 @@ public class CheckCommand extends AbstractParsableCommand {
 		String achievementName = parseAchievementName(args);
 
 		// Check if achievement exists in database and display message accordingly.
-		if (cacheManager.hasPlayerAchievement(player.getUniqueId(), achievementName)) {
-			sender.sendMessage(StringUtils.replaceEach(langCheckAchievementTrue, new String[] { "PLAYER", "ACH" },
-					new String[] { args[args.length - 1], achievementName }));
-		} else {
-			sender.sendMessage(StringUtils.replaceEach(langCheckAchievementFalse, new String[] { "PLAYER", "ACH" },
-					new String[] { args[args.length - 1], achievementName }));
-		}
+		cacheManager.whenReceivedAchievementsCached(player.getUniqueId(), () -> {
+			if (cacheManager.hasPlayerAchievement(player.getUniqueId(), achievementName)) {
+				sender.sendMessage(StringUtils.replaceEach(langCheckAchievementTrue, new String[] { "PLAYER", "ACH" },
+						new String[] { args[args.length - 1], achievementName }));
+			} else {
+				sender.sendMessage(StringUtils.replaceEach(langCheckAchievementFalse, new String[] { "PLAYER", "ACH" },
+						new String[] { args[args.length - 1], achievementName }));
+			}
+		});
 	}
 }
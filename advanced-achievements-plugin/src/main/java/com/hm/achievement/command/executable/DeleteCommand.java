@@ -56,7 +56,11 @@ public class DeleteCommand extends AbstractParsableCommand {
 	@Override
 	void onExecuteForPlayer(CommandSender sender, String[] args, Player player) {
 		String achievementName = parseAchievementName(args);
+		cacheManager.whenReceivedAchievementsCached(player.getUniqueId(),
+				() -> deleteAchievements(sender, args, player, achievementName));
+	}
 
+	private void deleteAchievements(CommandSender sender, String[] args, Player player, String achievementName) {
 		if (WILDCARD.equals(achievementName)) {
 			cacheManager.removePreviouslyReceivedAchievements(player.getUniqueId(), achievementMap.getAllNames());
 			databaseManager.deleteAllPlayerAchievements(player.getUniqueId());
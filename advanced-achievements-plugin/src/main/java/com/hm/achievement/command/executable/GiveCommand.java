@@ -65,23 +65,31 @@ public class GiveCommand extends AbstractParsableCommand {
 				.findAny();
 
 		if (achievement.isPresent()) {
-			// Check whether player has already received achievement and cannot receive it again.
-			if (!configMultiCommand
-					&& cacheManager.hasPlayerAchievement(player.getUniqueId(), achievement.get().getName())) {
-				sender.sendMessage(StringUtils.replaceOnce(langAchievementAlreadyReceived, "PLAYER", args[2]));
-				return;
-			} else if (!player.hasPermission("achievement." + achievement.get().getName())) {
-				sender.sendMessage(StringUtils.replaceOnce(langAchievementNoPermission, "PLAYER", args[2]));
-				return;
-			}
-
-			Bukkit.getPluginManager().callEvent(new PlayerAdvancedAchievementEvent(player, achievement.get()));
-
-			sender.sendMessage(langAchievementGiven);
+			cacheManager.whenReceivedAchievementsCached(player.getUniqueId(),
+					() -> giveAchievement(sender, args, player, achievement.get()));
 		} else {
 			Set<String> commandKeys = achievementMap.getSubcategoriesForCategory(CommandAchievements.COMMANDS);
 			sender.sendMessage(StringUtils.replaceOnce(langAchievementNotFound, "CLOSEST_MATCH",
 					StringHelper.getClosestMatch(args[1], commandKeys)));
 		}
 	}
+
+	private void giveAchievement(CommandSender sender, String[] args, Player player, Achievement achievement) {
+		if (!player.isOnline()) {
+			// The player disconnected while the received achievements were being retrieved.
+			return;
+		}
+		// Check whether player has already received achievement and cannot receive it again.
+		if (!configMultiCommand && cacheManager.hasPlayerAchievement(player.getUniqueId(), achievement.getName())) {
+			sender.sendMessage(StringUtils.replaceOnce(langAchievementAlreadyReceived, "PLAYER", args[2]));
+			return;
+		} else if (!player.hasPermission("achievement." + achievement.getName())) {
+			sender.sendMessage(StringUtils.replaceOnce(langAchievementNoPermission, "PLAYER", args[2]));
+			return;
+		}
+
+		Bukkit.getPluginManager().callEvent(new PlayerAdvancedAchievementEvent(player, achievement));
+
+		sender.sendMessage(langAchievementGiven);
+	}
 }
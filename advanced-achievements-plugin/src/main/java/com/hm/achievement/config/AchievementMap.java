@@ -1,6 +1,7 @@
 package com.hm.achievement.config;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -16,16 +17,24 @@ import com.hm.achievement.category.Category;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.domain.Achievement;
+import com.hm.achievement.utils.NameInterner;
 import com.hm.achievement.utils.StringHelper;
 
 @Singleton
 public class AchievementMap {
 
+	private static final long[] EMPTY_MASK = new long[0];
+
 	private final Map<String, Achievement> namesToAchievements = new HashMap<>();
 	private final Map<String, Achievement> sanitisedDisplayNamesToAchievements = new HashMap<>();
 	private final Map<Category, List<Achievement>> categoriesToAchievements = new HashMap<>();
 	private final Map<String, List<Achievement>> categoriesSubcategoriesToAchievements = new HashMap<>();
 	private final Map<Category, Set<String>> categoriesToSubcategories = new HashMap<>();
+	// Bitsets of the identifiers of the achievements in each category.
+	private final Map<Category, long[]> categoriesToMasks = new HashMap<>();
+	// Identifiers of achievement names, which remain the same when the plugin is reloaded. Names of achievements that
+	// were received by players but are no longer configured are also given identifiers.
+	private final NameInterner achievementIds = new NameInterner();
 
 	@Inject
 	public AchievementMap() {
@@ -37,6 +46,9 @@ public class AchievementMap {
 		Category category = achievement.getCategory();
 		categoriesToAchievements.computeIfAbsent(category, c -> new ArrayList<>()).add(achievement);
 		categoriesToSubcategories.computeIfAbsent(category, c -> new HashSet<>()).add(achievement.getSubcategory());
+		if (achievement.getName() != null) {
+			addToCategoryMask(category, achievementIds.intern(achievement.getName()));
+		}
 		if (category instanceof NormalAchievements) {
 			categoriesSubcategoriesToAchievements.computeIfAbsent(category.toString(), c -> new ArrayList<>())
 					.add(achievement);
@@ -64,6 +76,7 @@ public class AchievementMap {
 		categoriesToAchievements.clear();
 		categoriesSubcategoriesToAchievements.clear();
 		categoriesToSubcategories.clear();
+		categoriesToMasks.clear();
 	}
 
 	public Achievement getForName(String name) {
@@ -82,6 +95,40 @@ public class AchievementMap {
 		return categoriesSubcategoriesToAchievements.get(category + "." + subcategory);
 	}
 
+	/**
+	 * Returns the identifier of an achievement name, assigning a new one if the name was never seen before.
+	 *
+	 * @param name
+	 * @return the identifier of the achievement
+	 */
+	public int getIdForName(String name) {
+		return achievementIds.intern(name);
+	}
+
+	/**
+	 * Returns the identifier of an achievement name without assigning a new one.
+	 *
+	 * @param name
+	 * @return the identifier of the achievement, or -1 if the name was never seen before
+	 */
+	public int findIdForName(String name) {
+		return achievementIds.find(name);
+	}
+
+	public String getNameForId(int id) {
+		return achievementIds.getName(id);
+	}
+
+	/**
+	 * Returns a bitset in which the bits corresponding to the identifiers of the achievements of a category are set.
+	 *
+	 * @param category
+	 * @return the mask of the category
+	 */
+	public long[] getMaskForCategory(Category category) {
+		return categoriesToMasks.getOrDefault(category, EMPTY_MASK);
+	}
+
 	public Set<String> getSubcategoriesForCategory(Category category) {
 		return categoriesToSubcategories.getOrDefault(category, Collections.emptySet());
 	}
@@ -90,6 +137,15 @@ public class AchievementMap {
 		return categoriesSubcategoriesToAchievements.keySet();
 	}
 
+	private void addToCategoryMask(Category category, int id) {
+		long[] mask = categoriesToMasks.getOrDefault(category, EMPTY_MASK);
+		if (id >>> 6 >= mask.length) {
+			mask = Arrays.copyOf(mask, (id >>> 6) + 1);
+		}
+		mask[id >>> 6] |= 1L << id;
+		categoriesToMasks.put(category, mask);
+	}
+
 	private String sanitise(String displayName) {
 		return StringHelper.removeFormattingCodes(displayName).toLowerCase();
 	}
@@ -10,6 +10,8 @@ import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -18,17 +20,23 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.db.DatabaseWriteQueue.QueuedWrite;
+import com.hm.achievement.db.SQLQueryRegistry.Query;
 import com.hm.achievement.db.data.AwardedDBAchievement;
 import com.hm.achievement.db.data.ConnectionInformation;
 import com.hm.achievement.exception.PluginLoadError;
@@ -41,28 +49,59 @@ import com.hm.achievement.lifecycle.Reloadable;
  */
 public abstract class AbstractDatabaseManager implements Reloadable {
 
+	private static final long BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	// Kinds of the rows returned when retrieving a player's profile.
+	static final int PROFILE_LEGACY_STATISTIC = 0;
+	static final int PROFILE_STATISTIC = 1;
+	static final int PROFILE_ACHIEVEMENT = 2;
+	// Kept below the parameter limits of all supported database types (e.g. 999 for older SQLite versions).
+	private static final int MAX_QUERY_PARAMETERS = 999;
+
 	final YamlConfiguration mainConfig;
 	final Logger logger;
 	final String driverPath;
 	final ExecutorService writeExecutor;
+	final ExecutorService readExecutor;
+	// Narrowed down to the variant supported by the server once connected.
+	volatile DatabaseDialect dialect;
 
 	volatile String prefix;
 
-	// Connection to the database; remains opened and shared.
-	private final AtomicReference<Connection> connectionHolder = new AtomicReference<>();
+	// Pools of connections to the database. Reads and writes use separate lanes so that slow queries, such as the ones
+	// used to compute rankings, do not delay statistic writes and vice versa.
+	private volatile ConnectionPool readPool;
+	private volatile ConnectionPool writePool;
 	private final DatabaseUpdater databaseUpdater;
-
+	private final IdDictionary statisticsDictionary;
+	private final IdDictionary achievementDictionary;
+	private volatile DatabaseWriteQueue writeQueue;
+	// Texts of the queries, computed once the table prefix is known.
+	private volatile SQLQueryRegistry queries;
+
+	// Whether statistics are stored in a single normalised table rather than in one table per category.
+	private volatile boolean normalisedStatistics = false;
+	// Whether statistics missing from the normalised table must be looked up in the per-category tables, as they may
+	// not have been migrated yet.
+	private volatile boolean legacyStatisticsFallback = false;
+	// Thread migrating statistics to the normalised table in the background, if any.
+	private volatile Thread statisticsMigration;
+	// Whether achievements are stored with binary player UUIDs and achievement identifiers rather than names.
+	private volatile boolean compactAchievements = false;
 	private DateFormat dateFormat;
 	private boolean configBookChronologicalOrder;
 	private boolean initialised = false;
 
 	public AbstractDatabaseManager(YamlConfiguration mainConfig, Logger logger, DatabaseUpdater databaseUpdater,
-			String driverPath, ExecutorService writeExecutor) {
+			String driverPath, ExecutorService writeExecutor, ExecutorService readExecutor, DatabaseDialect dialect) {
 		this.mainConfig = mainConfig;
 		this.logger = logger;
 		this.databaseUpdater = databaseUpdater;
 		this.driverPath = driverPath;
 		this.writeExecutor = writeExecutor;
+		this.readExecutor = readExecutor;
+		this.dialect = dialect;
+		this.statisticsDictionary = new IdDictionary(this, "statistics_dictionary");
+		this.achievementDictionary = new IdDictionary(this, "achievement_dictionary");
 	}
 
 	@Override
@@ -87,6 +126,8 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 		logger.info("Initialising " + mainConfig.getString("DatabaseType") + " database...");
 
 		prefix = mainConfig.getString("TablePrefix");
+		int slowQueryThreshold = mainConfig.getInt("DatabaseSlowQueryThreshold", 1000);
+		queries = new SQLQueryRegistry(prefix, dialect, logger, slowQueryThreshold);
 
 		try {
 			performPreliminaryTasks();
@@ -96,18 +137,124 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 			logger.log(Level.SEVERE, "Error while encoding the database URL:", e);
 		}
 
-		// Try to establish connection with database; stays opened until explicitly closed by the plugin.
-		if (getConnection() == null) {
-			throw new PluginLoadError("Failed to establish database connection. Please verify your settings in config.yml.");
+		writeQueue = new DatabaseWriteQueue(logger, this, writeExecutor, Bukkit::isPrimaryThread,
+				mainConfig.getInt("DatabaseWriteQueueCapacity", 10000), mainConfig.getInt("DatabaseWriteBatchSize", 256),
+				mainConfig.getInt("DatabaseWriteLinger", 5));
+
+		long leakDetectionThreshold = TimeUnit.SECONDS.toMillis(mainConfig.getInt("DatabaseLeakDetectionThreshold", 30));
+		boolean leakTraces = mainConfig.getBoolean("DatabaseLeakTraces", false);
+		int statementCacheSize = mainConfig.getInt("DatabaseStatementCacheSize", 64);
+		readPool = new ConnectionPool("read", logger, this::createConnection, mainConfig.getInt("DatabasePoolReadSize", 3),
+				BORROW_TIMEOUT_MILLIS, leakDetectionThreshold, leakTraces, statementCacheSize,
+				sql -> queries.isRegistered(sql), (sql, nanos) -> queries.recordExecution(sql, nanos));
+		writePool = new ConnectionPool("write", logger, this::createConnection, getWritePoolSize(), BORROW_TIMEOUT_MILLIS,
+				leakDetectionThreshold, leakTraces, statementCacheSize, sql -> queries.isRegistered(sql),
+				(sql, nanos) -> queries.recordExecution(sql, nanos));
+
+		// Try to establish connection with database; pooled connections stay opened until the plugin is disabled.
+		try (Connection connection = getWriteConnection()) {
+			// Connection is immediately returned to the pool, where it will be reused by subsequent write operations.
+			DatabaseDialect serverDialect = dialect.forServer(connection.getMetaData());
+			if (serverDialect != dialect) {
+				dialect = serverDialect;
+				queries = new SQLQueryRegistry(prefix, dialect, logger, slowQueryThreshold);
+			}
+		} catch (SQLException e) {
+			throw new PluginLoadError("Failed to establish database connection. Please verify your settings in config.yml.",
+					e);
 		}
 
 		databaseUpdater.renameExistingTables(this);
 		int size = mainConfig.getInt("TableMaxSizeOfGroupedSubcategories");
 		databaseUpdater.initialiseTables(this, size);
 		Arrays.stream(MultipleAchievements.values()).forEach(m -> databaseUpdater.updateOldDBColumnSize(this, m, size));
+		if (mainConfig.getBoolean("NormalisedStatistics", false)) {
+			initialiseNormalisedStatistics(size);
+		}
+		if (mainConfig.getBoolean("CompactAchievementsSchema", false)) {
+			initialiseCompactAchievements(size);
+		}
 		initialised = true;
 	}
 
+	/**
+	 * Switches to the compact achievements schema. Achievements not yet migrated are migrated before the plugin
+	 * finishes loading, as the sets of received achievements cannot be split across both tables.
+	 *
+	 * @param size
+	 * @throws PluginLoadError
+	 */
+	private void initialiseCompactAchievements(int size) throws PluginLoadError {
+		databaseUpdater.initialiseCompactAchievementsTables(this, size);
+		try (Connection connection = getReadConnection()) {
+			achievementDictionary.load(connection);
+		} catch (SQLException e) {
+			throw new PluginLoadError("Error while loading the achievement dictionary.", e);
+		}
+		if (!databaseUpdater.migrateToCompactAchievements(this)) {
+			throw new PluginLoadError("Error while migrating achievements to the compact database schema.");
+		}
+		compactAchievements = true;
+	}
+
+	/**
+	 * Makes sure that all the achievements defined in the configuration have been allocated an identifier in the
+	 * compact achievements schema, so that identifiers do not need to be allocated when players receive achievements.
+	 *
+	 * @param achievementNames
+	 */
+	public void synchroniseAchievementIds(Collection<String> achievementNames) {
+		if (compactAchievements) {
+			List<String> names = new ArrayList<>(achievementNames);
+			((SQLWriteOperation) () -> achievementDictionary.allocateIds(names)).executeOperation(writeExecutor, logger,
+					"synchronising achievement identifiers");
+		}
+	}
+
+	/**
+	 * Switches to the normalised statistics layout. Statistics not yet migrated from the per-category tables are
+	 * migrated in the background, unless additive writes are enabled: deltas cannot be written to the normalised table
+	 * before the statistics they apply to, the migration must therefore complete beforehand.
+	 *
+	 * @param size
+	 * @throws PluginLoadError
+	 */
+	private void initialiseNormalisedStatistics(int size) throws PluginLoadError {
+		databaseUpdater.initialiseNormalisedTables(this, size);
+		try (Connection connection = getReadConnection()) {
+			statisticsDictionary.load(connection);
+		} catch (SQLException e) {
+			throw new PluginLoadError("Error while loading the statistics dictionary.", e);
+		}
+		normalisedStatistics = true;
+		legacyStatisticsFallback = true;
+		if (mainConfig.getBoolean("AdditiveStatisticWrites", false)) {
+			if (!databaseUpdater.migrateToNormalisedStatistics(this)) {
+				throw new PluginLoadError("Error while migrating statistics to the normalised statistics table.");
+			}
+			legacyStatisticsFallback = false;
+		} else {
+			// Runs on its own thread, so that the long migration does not hold one of the write threads.
+			statisticsMigration = new Thread(
+					() -> legacyStatisticsFallback = !databaseUpdater.migrateToNormalisedStatistics(this),
+					"AdvancedAchievements-StatisticsMigration");
+			statisticsMigration.setDaemon(true);
+			statisticsMigration.start();
+		}
+	}
+
+	/**
+	 * Waits for the background migration of statistics to the normalised table to complete, if any.
+	 *
+	 * @throws InterruptedException
+	 */
+	void awaitStatisticsMigration() throws InterruptedException {
+		Thread migration = statisticsMigration;
+		if (migration != null) {
+			migration.join();
+		}
+	}
+
 	public boolean isInitialised() {
 		return initialised;
 	}
@@ -122,50 +269,70 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	abstract void performPreliminaryTasks() throws ClassNotFoundException, PluginLoadError, UnsupportedEncodingException;
 
 	/**
-	 * Shuts the thread pool down and closes connection to database.
+	 * Returns the maximum number of connections used to write to the database.
+	 *
+	 * @return the size of the write pool
+	 */
+	int getWritePoolSize() {
+		return mainConfig.getInt("DatabasePoolWriteSize", 2);
+	}
+
+	/**
+	 * Shuts the thread pool down and closes connections to database.
 	 */
 	public void shutdown() {
+		readExecutor.shutdownNow();
 		writeExecutor.shutdown();
 		try {
 			// Wait a few seconds for remaining tasks to execute.
-			if (!writeExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+			if (!writeExecutor.awaitTermination(mainConfig.getInt("ShutdownFlushTimeout", 10), TimeUnit.SECONDS)) {
 				logger.warning("Some write operations could not be sent to the database during plugin shutdown.");
 			}
 		} catch (InterruptedException e) {
 			logger.log(Level.SEVERE, "Error while waiting for database write operations to complete:", e);
 			Thread.currentThread().interrupt();
 		} finally {
-			try {
-				Connection connection = connectionHolder.get();
-				if (connection != null) {
-					connection.close();
-				}
-			} catch (SQLException e) {
-				logger.log(Level.SEVERE, "Error while closing connection to the database:", e);
+			if (readPool != null) {
+				readPool.close();
+			}
+			if (writePool != null) {
+				writePool.close();
 			}
 		}
 	}
 
 	/**
-	 * Retrieves SQL connection to MySQL, PostgreSQL, H2 or SQLite database.
-	 *
-	 * @return the cached SQL connection or a new one
+	 * Reports the connections of both pools that have been in use for longer than the leak detection threshold.
 	 */
-	Connection getConnection() {
-		Connection currentConnection = connectionHolder.get();
-		try {
-			// Check if Connection was not previously closed.
-			if (currentConnection == null || currentConnection.isClosed()) {
-				Connection newConnection = createConnection();
-				if (!connectionHolder.compareAndSet(currentConnection, newConnection)) {
-					newConnection.close();
-				}
-				return connectionHolder.get();
-			}
-		} catch (SQLException e) {
-			logger.log(Level.SEVERE, "Error while attempting to retrieve a connection to the database:", e);
+	void reportConnectionLeaks() {
+		if (readPool != null) {
+			readPool.reportLeaks();
+		}
+		if (writePool != null) {
+			writePool.reportLeaks();
 		}
-		return currentConnection;
+	}
+
+	/**
+	 * Borrows a pooled SQL connection to MySQL, PostgreSQL, H2 or SQLite database, to be used for read operations. The
+	 * connection must be closed once no longer needed, which returns it to the pool.
+	 *
+	 * @return a pooled SQL connection
+	 * @throws SQLException
+	 */
+	Connection getReadConnection() throws SQLException {
+		return readPool.borrow();
+	}
+
+	/**
+	 * Borrows a pooled SQL connection to MySQL, PostgreSQL, H2 or SQLite database, to be used for write operations. The
+	 * connection must be closed once no longer needed, which returns it to the pool.
+	 *
+	 * @return a pooled SQL connection
+	 * @throws SQLException
+	 */
+	Connection getWriteConnection() throws SQLException {
+		return writePool.borrow();
 	}
 
 	/**
@@ -184,10 +351,11 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 */
 	public Set<String> getPlayerAchievementNames(UUID uuid) {
 		return ((SQLReadOperation<Set<String>>) () -> {
-			String sql = "SELECT achievement FROM " + prefix + "achievements WHERE playername = ?";
+			String sql = queries.get(Query.ACHIEVEMENT_NAMES, compactAchievements);
 			Set<String> achievementNamesList = new HashSet<>();
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-				ps.setString(1, uuid.toString());
+			try (Connection connection = getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
+				setPlayer(ps, 1, uuid);
 				ps.setFetchSize(1000);
 				try (ResultSet rs = ps.executeQuery()) {
 					while (rs.next()) {
@@ -208,10 +376,13 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 */
 	public String getPlayerAchievementDate(UUID uuid, String achName) {
 		return ((SQLReadOperation<String>) () -> {
-			String sql = "SELECT date FROM " + prefix + "achievements WHERE playername = ? AND achievement = ?";
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-				ps.setString(1, uuid.toString());
-				ps.setString(2, achName);
+			String sql = queries.get(Query.ACHIEVEMENT_DATE, compactAchievements);
+			try (Connection connection = getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
+				setPlayer(ps, 1, uuid);
+				if (!setAchievement(connection, ps, 2, achName)) {
+					return null;
+				}
 				try (ResultSet rs = ps.executeQuery()) {
 					if (rs.next()) {
 						return dateFormat.format(new Date(rs.getTimestamp(1).getTime()));
@@ -230,13 +401,14 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 */
 	public Map<UUID, Integer> getPlayersAchievementsAmount() {
 		return ((SQLReadOperation<Map<UUID, Integer>>) () -> {
-			String sql = "SELECT playername, COUNT(*) FROM " + prefix + "achievements GROUP BY playername";
+			String sql = queries.get(Query.ACHIEVEMENT_COUNTS, compactAchievements);
 			Map<UUID, Integer> achievementAmounts = new HashMap<>();
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
+			try (Connection connection = getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
 				ps.setFetchSize(1000);
 				try (ResultSet rs = ps.executeQuery()) {
 					while (rs.next()) {
-						String uuid = rs.getString(1);
+						String uuid = getPlayer(rs, 1);
 						if (StringUtils.isNotEmpty(uuid)) {
 							achievementAmounts.put(UUID.fromString(uuid), rs.getInt(2));
 						}
@@ -256,20 +428,17 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	public Map<String, Integer> getTopList(long start) {
 		return ((SQLReadOperation<Map<String, Integer>>) () -> {
 			// Either consider all the achievements or only those received after the start date.
-			String sql = start == 0L
-					? "SELECT playername, COUNT(*) FROM " + prefix
-							+ "achievements GROUP BY playername ORDER BY COUNT(*) DESC"
-					: "SELECT playername, COUNT(*) FROM " + prefix
-							+ "achievements WHERE date > ? GROUP BY playername ORDER BY COUNT(*) DESC";
+			String sql = queries.get(start == 0L ? Query.TOP_LIST : Query.TOP_LIST_SINCE, compactAchievements);
 			Map<String, Integer> topList = new LinkedHashMap<>();
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
+			try (Connection connection = getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
 				if (start > 0L) {
 					ps.setTimestamp(1, new Timestamp(start));
 				}
 				ps.setFetchSize(1000);
 				try (ResultSet rs = ps.executeQuery()) {
 					while (rs.next()) {
-						topList.put(rs.getString(1), rs.getInt(2));
+						topList.put(getPlayer(rs, 1), rs.getInt(2));
 					}
 				}
 			}
@@ -285,15 +454,15 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 * @param epochMs Moment the achievement was registered at.
 	 */
 	public void registerAchievement(UUID uuid, String achName, long epochMs) {
-		((SQLWriteOperation) () -> {
-			String sql = "REPLACE INTO " + prefix + "achievements VALUES (?,?,?)";
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-				ps.setString(1, uuid.toString());
-				ps.setString(2, achName);
-				ps.setTimestamp(3, new Timestamp(epochMs));
-				ps.execute();
-			}
-		}).executeOperation(writeExecutor, logger, "registering an achievement");
+		String sql = queries.get(Query.REGISTER_ACHIEVEMENT, compactAchievements);
+		SQLWriteOperation preparation = compactAchievements
+				? () -> achievementDictionary.allocateIds(Collections.singleton(achName))
+				: null;
+		writeQueue.submit(new QueuedWrite(getAchievementKey(uuid, achName), false, sql, (connection, ps) -> {
+			setPlayer(ps, 1, uuid);
+			ps.setTimestamp(3, new Timestamp(epochMs));
+			return setAchievement(connection, ps, 2, achName);
+		}, preparation));
 	}
 
 	/**
@@ -305,13 +474,20 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 */
 	public long getNormalAchievementAmount(UUID uuid, NormalAchievements category) {
 		return ((SQLReadOperation<Long>) () -> {
-			String dbName = category.toDBName();
-			String sql = "SELECT " + dbName + " FROM " + prefix + dbName + " WHERE playername = ?";
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-				ps.setString(1, uuid.toString());
-				try (ResultSet rs = ps.executeQuery()) {
-					if (rs.next()) {
-						return rs.getLong(1);
+			try (Connection connection = getReadConnection()) {
+				// Connections are always stored in their own table, along with the date of the last connection.
+				if (isNormalisedStatistics() && category != NormalAchievements.CONNECTIONS) {
+					Long amount = getNormalisedStatistic(connection, uuid, category.toDBName(), null);
+					if (amount != null || !legacyStatisticsFallback) {
+						return amount == null ? 0L : amount;
+					}
+				}
+				try (PreparedStatement ps = connection.prepareStatement(queries.getStatistic(category))) {
+					ps.setString(1, uuid.toString());
+					try (ResultSet rs = ps.executeQuery()) {
+						if (rs.next()) {
+							return rs.getLong(1);
+						}
 					}
 				}
 			}
@@ -329,22 +505,161 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 */
 	public long getMultipleAchievementAmount(UUID uuid, MultipleAchievements category, String subcategory) {
 		return ((SQLReadOperation<Long>) () -> {
-			String dbName = category.toDBName();
-			String sql = "SELECT " + dbName + " FROM " + prefix + dbName + " WHERE playername = ? AND "
-					+ category.toSubcategoryDBName() + " = ?";
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-				ps.setString(1, uuid.toString());
-				ps.setString(2, subcategory);
-				try (ResultSet rs = ps.executeQuery()) {
-					if (rs.next()) {
-						return rs.getLong(1);
+			long defaultAmount = getDefaultAmount(category);
+			try (Connection connection = getReadConnection()) {
+				if (isNormalisedStatistics()) {
+					Long amount = getNormalisedStatistic(connection, uuid, category.toDBName(), subcategory);
+					if (amount != null || !legacyStatisticsFallback) {
+						return amount == null ? defaultAmount : amount;
+					}
+				}
+				try (PreparedStatement ps = connection.prepareStatement(queries.getStatistic(category))) {
+					ps.setString(1, uuid.toString());
+					ps.setString(2, subcategory);
+					try (ResultSet rs = ps.executeQuery()) {
+						if (rs.next()) {
+							return rs.getLong(1);
+						}
 					}
 				}
 			}
-			return category == MultipleAchievements.JOBSREBORN ? 1L : 0L;
+			return defaultAmount;
 		}).executeOperation("retrieving " + category + "." + subcategory + " statistics");
 	}
 
+	/**
+	 * Gets the list of names of all the achievements of a player on the read executor, without waiting for the
+	 * database.
+	 *
+	 * @param uuid
+	 * @return a future completed with the names of the achievements
+	 */
+	public CompletableFuture<Set<String>> getPlayerAchievementNamesAsync(UUID uuid) {
+		return supplyRead(() -> getPlayerAchievementNames(uuid));
+	}
+
+	/**
+	 * Gets a player's NormalAchievement statistic on the read executor, without waiting for the database.
+	 *
+	 * @param uuid
+	 * @param category
+	 * @return a future completed with the statistic
+	 */
+	public CompletableFuture<Long> getNormalAchievementAmountAsync(UUID uuid, NormalAchievements category) {
+		return supplyRead(() -> getNormalAchievementAmount(uuid, category));
+	}
+
+	/**
+	 * Gets a player's MultipleAchievement statistic on the read executor, without waiting for the database.
+	 *
+	 * @param uuid
+	 * @param category
+	 * @param subcategory
+	 * @return a future completed with the statistic
+	 */
+	public CompletableFuture<Long> getMultipleAchievementAmountAsync(UUID uuid, MultipleAchievements category,
+			String subcategory) {
+		return supplyRead(() -> getMultipleAchievementAmount(uuid, category, subcategory));
+	}
+
+	/**
+	 * Performs a read operation on the read executor. If too many reads are already waiting, the returned future fails
+	 * straight away and the data is retrieved again when next needed.
+	 *
+	 * @param read
+	 * @return a future completed with the result of the read
+	 */
+	private <T> CompletableFuture<T> supplyRead(Supplier<T> read) {
+		try {
+			return CompletableFuture.supplyAsync(read, readExecutor);
+		} catch (RejectedExecutionException e) {
+			CompletableFuture<T> rejectedRead = new CompletableFuture<>();
+			rejectedRead.completeExceptionally(e);
+			return rejectedRead;
+		}
+	}
+
+	/**
+	 * Gets all the statistics and received achievements of several players, combining the statistics tables and the
+	 * achievements table with UNION ALL. Players are looked up with IN clauses, in as few queries as the parameter
+	 * limits of the database allow.
+	 *
+	 * @param uuids
+	 * @return the profile of each of the players, empty for players who are not in the database
+	 */
+	Map<UUID, PlayerProfile> getPlayerProfiles(Collection<UUID> uuids) {
+		return ((SQLReadOperation<Map<UUID, PlayerProfile>>) () -> {
+			// Each row contains its kind, a player, a category or achievement name, a subcategory and an amount.
+			// Statistics of the normalised table take precedence over the ones of the per-category tables.
+			// Players of the compact achievements table are stored in a binary form, which cannot be combined with the
+			// textual players of the statistics tables; the achievements are then retrieved in a separate query.
+			boolean legacyStatistics = !isNormalisedStatistics() || legacyStatisticsFallback;
+			List<String> selects = queries.getProfileSelects(isNormalisedStatistics(), legacyStatistics,
+					!compactAchievements);
+			Map<UUID, PlayerProfile> profiles = new HashMap<>();
+			uuids.forEach(uuid -> profiles.put(uuid, new PlayerProfile()));
+			List<UUID> players = new ArrayList<>(profiles.keySet());
+			int playersPerQuery = Math.max(1, MAX_QUERY_PARAMETERS / selects.size());
+			try (Connection connection = getReadConnection()) {
+				for (int from = 0; from < players.size(); from += playersPerQuery) {
+					List<UUID> queriedPlayers = players.subList(from, Math.min(players.size(), from + playersPerQuery));
+					String playerList = "(" + StringUtils.repeat("?", ",", queriedPlayers.size()) + ")";
+					String sql = selects.stream().map(select -> select + playerList)
+							.collect(Collectors.joining(" UNION ALL "));
+					try (PreparedStatement ps = connection.prepareStatement(sql)) {
+						int parameterIndex = 1;
+						for (int select = 0; select < selects.size(); ++select) {
+							for (UUID player : queriedPlayers) {
+								ps.setString(parameterIndex++, player.toString());
+							}
+						}
+						readProfileRows(ps, profiles, false);
+					}
+					if (compactAchievements) {
+						sql = queries.getCompactAchievementsProfileSelect() + playerList;
+						try (PreparedStatement ps = connection.prepareStatement(sql)) {
+							for (int parameterIndex = 0; parameterIndex < queriedPlayers.size(); ++parameterIndex) {
+								setPlayer(ps, parameterIndex + 1, queriedPlayers.get(parameterIndex));
+							}
+							readProfileRows(ps, profiles, true);
+						}
+					}
+				}
+			}
+			return profiles;
+		}).executeOperation("retrieving players' profiles");
+	}
+
+	private void readProfileRows(PreparedStatement ps, Map<UUID, PlayerProfile> profiles, boolean compactPlayers)
+			throws SQLException {
+		ps.setFetchSize(1000);
+		try (ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				String player = compactPlayers ? getPlayer(rs, 2) : rs.getString(2);
+				PlayerProfile profile = profiles.get(UUID.fromString(player.trim()));
+				if (profile == null) {
+					continue;
+				}
+				int kind = rs.getInt(1);
+				if (kind == PROFILE_ACHIEVEMENT) {
+					profile.addAchievement(rs.getString(3));
+				} else {
+					profile.addStatistic(rs.getString(3), rs.getString(4), rs.getLong(5), kind == PROFILE_STATISTIC);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of a Multiple statistic that is not stored in the database.
+	 *
+	 * @param category
+	 * @return the default statistic
+	 */
+	static long getDefaultAmount(MultipleAchievements category) {
+		return category == MultipleAchievements.JOBSREBORN ? 1L : 0L;
+	}
+
 	/**
 	 * Returns a player's last connection data and the total number of connections.
 	 *
@@ -353,9 +668,9 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 */
 	public ConnectionInformation getConnectionInformation(UUID uuid) {
 		return ((SQLReadOperation<ConnectionInformation>) () -> {
-			String dbName = NormalAchievements.CONNECTIONS.toDBName();
-			String sql = "SELECT " + dbName + ", date FROM " + prefix + dbName + " WHERE playername = ?";
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
+			String sql = queries.get(Query.CONNECTION_INFORMATION, false);
+			try (Connection connection = getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
 				ps.setString(1, uuid.toString());
 				try (ResultSet rs = ps.executeQuery()) {
 					if (rs.next()) {
@@ -374,15 +689,14 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 * @param connections
 	 */
 	public void updateConnectionInformation(UUID uuid, long connections) {
-		((SQLWriteOperation) () -> {
-			String sql = "REPLACE INTO " + prefix + NormalAchievements.CONNECTIONS.toDBName() + " VALUES (?,?,?)";
-			try (PreparedStatement writePrep = getConnection().prepareStatement(sql)) {
-				writePrep.setString(1, uuid.toString());
-				writePrep.setLong(2, connections);
-				writePrep.setString(3, ConnectionInformation.today());
-				writePrep.execute();
-			}
-		}).executeOperation(writeExecutor, logger, "updating connection date and count");
+		String sql = queries.get(Query.UPDATE_CONNECTION_INFORMATION, false);
+		String date = ConnectionInformation.today();
+		writeQueue.submit(new QueuedWrite(getConnectionsKey(uuid), false, sql, (connection, ps) -> {
+			ps.setString(1, uuid.toString());
+			ps.setLong(2, connections);
+			ps.setString(3, date);
+			return true;
+		}, null));
 	}
 
 	/**
@@ -392,14 +706,11 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 * @param achName
 	 */
 	public void deletePlayerAchievement(UUID uuid, String achName) {
-		((SQLWriteOperation) () -> {
-			String sql = "DELETE FROM " + prefix + "achievements WHERE playername = ? AND achievement = ?";
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-				ps.setString(1, uuid.toString());
-				ps.setString(2, achName);
-				ps.execute();
-			}
-		}).executeOperation(writeExecutor, logger, "deleting an achievement");
+		String sql = queries.get(Query.DELETE_ACHIEVEMENT, compactAchievements);
+		writeQueue.submit(new QueuedWrite(getAchievementKey(uuid, achName), false, sql, (connection, ps) -> {
+			setPlayer(ps, 1, uuid);
+			return setAchievement(connection, ps, 2, achName);
+		}, null));
 	}
 
 	/**
@@ -408,13 +719,12 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 * @param uuid
 	 */
 	public void deleteAllPlayerAchievements(UUID uuid) {
-		((SQLWriteOperation) () -> {
-			String sql = "DELETE FROM " + prefix + "achievements WHERE playername = ?";
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-				ps.setString(1, uuid.toString());
-				ps.execute();
-			}
-		}).executeOperation(writeExecutor, logger, "deleting all achievements");
+		String sql = queries.get(Query.DELETE_ALL_ACHIEVEMENTS, compactAchievements);
+		// Supersedes any queued write to the achievements of the player.
+		writeQueue.submit(new QueuedWrite("achievements|" + uuid, true, sql, (connection, ps) -> {
+			setPlayer(ps, 1, uuid);
+			return true;
+		}, null));
 	}
 
 	/**
@@ -423,18 +733,173 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 * @param uuid
 	 */
 	public void clearConnection(UUID uuid) {
-		((SQLWriteOperation) () -> {
-			String sql = "DELETE FROM " + prefix + "connections WHERE playername = '" + uuid + "'";
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
-				ps.execute();
+		String sql = queries.get(Query.CLEAR_CONNECTION, false);
+		writeQueue.submit(new QueuedWrite(getConnectionsKey(uuid), false, sql, (connection, ps) -> {
+			ps.setString(1, uuid.toString());
+			return true;
+		}, null));
+	}
+
+	/**
+	 * Returns the write sequences of the statistics of each player last written along with the records of a statistics
+	 * journal. They are only stored with additive writes, as replaying journaled records is otherwise harmless.
+	 *
+	 * @param journal the identifier of the journal
+	 * @return the write sequences by player
+	 */
+	public Map<UUID, Long> getWrittenJournalSequences(String journal) {
+		return ((SQLReadOperation<Map<UUID, Long>>) () -> {
+			String sql = queries.get(Query.WRITTEN_JOURNAL_SEQUENCES, false);
+			Map<UUID, Long> writeSequences = new HashMap<>();
+			try (Connection connection = getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
+				ps.setString(1, journal);
+				ps.setFetchSize(1000);
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						writeSequences.put(UUID.fromString(rs.getString(1)), rs.getLong(2));
+					}
+				}
 			}
-		}).executeOperation(writeExecutor, logger, "clearing connection statistics");
+			return writeSequences;
+		}).executeOperation("retrieving the write sequences of the statistics journal");
+	}
+
+	/**
+	 * Returns the number of ad-hoc writes waiting to be sent to the database; this method is provided as a convenience
+	 * for monitoring purposes.
+	 *
+	 * @return the current depth of the write queue
+	 */
+	public int getWriteQueueDepth() {
+		return writeQueue.getDepth();
+	}
+
+	/**
+	 * Returns the highest number of ad-hoc writes that were waiting to be sent to the database since the plugin was
+	 * enabled; this method is provided as a convenience for monitoring purposes.
+	 *
+	 * @return the maximum depth reached by the write queue
+	 */
+	public int getWriteQueueMaxDepth() {
+		return writeQueue.getMaxDepth();
+	}
+
+	/**
+	 * Registers a multi-row upsert writing a fixed number of statistics, so that its prepared statement is cached.
+	 *
+	 * @param sql
+	 */
+	void registerBatchUpsert(String sql) {
+		queries.registerBatchUpsert(sql);
+	}
+
+	/**
+	 * Returns the number of times each named query was run since the plugin was enabled; this method is provided as a
+	 * convenience for monitoring purposes.
+	 *
+	 * @return the number of executions of each query
+	 */
+	public Map<String, Long> getQueryExecutions() {
+		return queries.getExecutions();
+	}
+
+	/**
+	 * Reads a statistic from the normalised statistics table.
+	 *
+	 * @param connection
+	 * @param uuid
+	 * @param category
+	 * @param subcategory null for Normal categories
+	 * @return the statistic, or null if the table does not contain it
+	 * @throws SQLException
+	 */
+	private Long getNormalisedStatistic(Connection connection, UUID uuid, String category, String subcategory)
+			throws SQLException {
+		Integer categoryId = statisticsDictionary.findId(connection, category);
+		Integer subcategoryId = subcategory == null ? Integer.valueOf(IdDictionary.NO_SUBCATEGORY)
+				: statisticsDictionary.findId(connection, subcategory);
+		if (categoryId == null || subcategoryId == null) {
+			return null;
+		}
+		try (PreparedStatement ps = connection.prepareStatement(queries.get(Query.NORMALISED_STATISTIC, false))) {
+			ps.setString(1, uuid.toString());
+			ps.setInt(2, categoryId);
+			ps.setInt(3, subcategoryId);
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : null;
+			}
+		}
+	}
+
+	private String getAchievementKey(UUID uuid, String achName) {
+		return "achievements|" + uuid + "|" + achName;
+	}
+
+	private String getConnectionsKey(UUID uuid) {
+		return "connections|" + uuid;
+	}
+
+	private void setPlayer(PreparedStatement ps, int parameterIndex, UUID uuid) throws SQLException {
+		if (compactAchievements) {
+			dialect.setUuid(ps, parameterIndex, uuid);
+		} else {
+			ps.setString(parameterIndex, uuid.toString());
+		}
+	}
+
+	private String getPlayer(ResultSet rs, int columnIndex) throws SQLException {
+		return compactAchievements ? dialect.getUuid(rs, columnIndex).toString() : rs.getString(columnIndex);
+	}
+
+	/**
+	 * Binds an achievement, either by name or by identifier in the compact achievements schema.
+	 *
+	 * @param connection
+	 * @param ps
+	 * @param parameterIndex
+	 * @param achName
+	 * @return false if the achievement has no identifier, in which case no player has received it
+	 * @throws SQLException
+	 */
+	private boolean setAchievement(Connection connection, PreparedStatement ps, int parameterIndex, String achName)
+			throws SQLException {
+		if (compactAchievements) {
+			Integer id = achievementDictionary.findId(connection, achName);
+			if (id == null) {
+				return false;
+			}
+			ps.setInt(parameterIndex, id);
+		} else {
+			ps.setString(parameterIndex, achName);
+		}
+		return true;
 	}
 
 	String getPrefix() {
 		return prefix;
 	}
 
+	boolean isNormalisedStatistics() {
+		return normalisedStatistics;
+	}
+
+	IdDictionary getStatisticsDictionary() {
+		return statisticsDictionary;
+	}
+
+	DatabaseWriteQueue getWriteQueue() {
+		return writeQueue;
+	}
+
+	IdDictionary getAchievementDictionary() {
+		return achievementDictionary;
+	}
+
+	DatabaseDialect getDialect() {
+		return dialect;
+	}
+
 	/**
 	 * Returns a list of AwardedDBAchievements get by a player.
 	 *
@@ -444,12 +909,13 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	public List<AwardedDBAchievement> getPlayerAchievementsList(UUID uuid) {
 		return ((SQLReadOperation<List<AwardedDBAchievement>>) () -> {
 			// Either oldest date to newest one or newest date to oldest one.
-			String sql = "SELECT achievement, date FROM " + prefix + "achievements WHERE playername = ? ORDER BY date "
-					+ (configBookChronologicalOrder ? "ASC" : "DESC");
+			String sql = queries.get(configBookChronologicalOrder ? Query.ACHIEVEMENTS_OLDEST_FIRST
+					: Query.ACHIEVEMENTS_NEWEST_FIRST, compactAchievements);
 			List<AwardedDBAchievement> achievements = new ArrayList<>();
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
+			try (Connection connection = getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
 				ps.setFetchSize(1000);
-				ps.setString(1, uuid.toString());
+				setPlayer(ps, 1, uuid);
 				try (ResultSet rs = ps.executeQuery()) {
 					while (rs.next()) {
 						Timestamp dateAwarded = rs.getTimestamp(2);
@@ -471,18 +937,20 @@ public abstract class AbstractDatabaseManager implements Reloadable {
 	 * @return List of AwardedDBAchievement objects, message field is empty to save memory.
 	 */
 	public List<AwardedDBAchievement> getAchievementsRecipientList(String achievementName) {
-		String sql = "SELECT playername, date FROM " + prefix + "achievements WHERE achievement = ?" +
-				" ORDER BY date DESC LIMIT 1000";
 		return ((SQLReadOperation<List<AwardedDBAchievement>>) () -> {
+			String sql = queries.get(Query.ACHIEVEMENT_RECIPIENTS, compactAchievements);
 			List<AwardedDBAchievement> achievements = new ArrayList<>();
-			try (PreparedStatement ps = getConnection().prepareStatement(sql)) {
+			try (Connection connection = getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
 				ps.setFetchSize(1000);
-				ps.setString(1, achievementName);
+				if (!setAchievement(connection, ps, 1, achievementName)) {
+					return achievements;
+				}
 				try (ResultSet rs = ps.executeQuery()) {
 					while (rs.next()) {
 						UUID uuid;
 						try {
-							String uuidString = rs.getString(1);
+							String uuidString = getPlayer(rs, 1);
 							uuid = UUID.fromString(uuidString);
 						} catch (IllegalArgumentException improperUUIDFormatException) {
 							continue;
@@ -33,8 +33,9 @@ public class AbstractFileDatabaseManager extends AbstractDatabaseManager {
 
 	public AbstractFileDatabaseManager(@Named("main") YamlConfiguration mainConfig, Logger logger,
 			DatabaseUpdater databaseUpdater, AdvancedAchievements advancedAchievements,
-			String driverPath, String url, String filename, ExecutorService writeExecutor) {
-		super(mainConfig, logger, databaseUpdater, driverPath, writeExecutor);
+			String driverPath, String url, String filename, ExecutorService writeExecutor, ExecutorService readExecutor,
+			DatabaseDialect dialect) {
+		super(mainConfig, logger, databaseUpdater, driverPath, writeExecutor, readExecutor, dialect);
 		this.advancedAchievements = advancedAchievements;
 		this.url = url;
 		this.filename = filename;
@@ -30,8 +30,9 @@ public class AbstractRemoteDatabaseManager extends AbstractDatabaseManager {
 	private final String databaseType;
 
 	public AbstractRemoteDatabaseManager(@Named("main") YamlConfiguration mainConfig, Logger logger,
-			DatabaseUpdater databaseUpdater, String driverPath, String databaseType, ExecutorService writeExecutor) {
-		super(mainConfig, logger, databaseUpdater, driverPath, writeExecutor);
+			DatabaseUpdater databaseUpdater, String driverPath, String databaseType, ExecutorService writeExecutor,
+			ExecutorService readExecutor, DatabaseDialect dialect) {
+		super(mainConfig, logger, databaseUpdater, driverPath, writeExecutor, readExecutor, dialect);
 		this.databaseType = databaseType;
 	}
 
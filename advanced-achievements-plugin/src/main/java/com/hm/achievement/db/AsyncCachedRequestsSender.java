@@ -1,136 +1,660 @@
 package com.hm.achievement.db;
 
 import java.sql.BatchUpdateException;
-import java.sql.Statement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Logger;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 
-import org.apache.commons.lang3.StringUtils;
+import org.bukkit.configuration.file.YamlConfiguration;
 
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.db.PlayerStatBlock.StatisticVisitor;
 
 /**
  * Class used to write the modified cached statistics to the database.
- * 
+ *
  * @author Pyves
  *
  */
 public class AsyncCachedRequestsSender implements Runnable {
 
+	// Number of rows written by a single execution of a multi-row upsert. Kept low enough to remain well below the
+	// parameter limits of all supported database types (e.g. 999 for older SQLite versions).
+	static final int ROWS_PER_STATEMENT = 128;
+
+	private static final String[] NORMAL_KEY_COLUMNS = { "playername" };
+	private static final String[] NORMALISED_KEY_COLUMNS = { "playername", "category_id", "subcategory_id" };
+	private static final String[] JOURNAL_KEY_COLUMNS = { "journal", "playername" };
+	private static final String[] JOURNAL_VALUE_COLUMNS = { "write_sequence" };
+
+	private final YamlConfiguration mainConfig;
 	private final Logger logger;
 	private final CacheManager cacheManager;
 	private final AbstractDatabaseManager databaseManager;
+	private final StatisticsJournal statisticsJournal;
+	// Held while statistics are being written. The scheduler starts a new run every second even if the previous one is
+	// still in progress: concurrent flushes could write older values after newer ones, and commit journal segments
+	// that still back the statistics of another flush.
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private FlushPolicy flushPolicy;
+	private long lastCleanMillis;
 
 	@Inject
-	public AsyncCachedRequestsSender(Logger logger, CacheManager cacheManager, AbstractDatabaseManager databaseManager) {
+	public AsyncCachedRequestsSender(@Named("main") YamlConfiguration mainConfig, Logger logger,
+			CacheManager cacheManager, AbstractDatabaseManager databaseManager, StatisticsJournal statisticsJournal) {
+		this.mainConfig = mainConfig;
 		this.logger = logger;
 		this.cacheManager = cacheManager;
 		this.databaseManager = databaseManager;
+		this.statisticsJournal = statisticsJournal;
 	}
 
 	/**
-	 * Writes cached statistics to the database, with batched writes for efficiency purposes. If a failure occurs, the
-	 * same queries will be attempted again.
+	 * Writes cached statistics to the database if the flush policy deems it necessary, with batched writes for
+	 * efficiency purposes. If a failure occurs, the same queries will be attempted again. Expected to be called
+	 * frequently, most calls do not result in any database writes. Calls made while a flush is in progress return
+	 * immediately. Also reports database connections that may have leaked, which would otherwise only be noticed the
+	 * next time a connection is borrowed.
 	 */
 	@Override
 	public void run() {
-		sendBatchedRequests();
+		databaseManager.reportConnectionLeaks();
+		if (!flushLock.tryLock()) {
+			return;
+		}
+		try {
+			flushIfNeeded();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void flushIfNeeded() {
+		FlushPolicy policy = getFlushPolicy();
+		long now = System.currentTimeMillis();
+		if (policy.shouldFlush(now, cacheManager.getDirtyCount(), cacheManager.getOldestDirtyMillis())) {
+			long start = System.nanoTime();
+			sendBatchedRequests();
+			long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			long previousInterval = policy.getIntervalMillis();
+			policy.recordFlush(duration);
+			if (policy.getIntervalMillis() > previousInterval) {
+				logger.warning("Writing statistics to the database took " + duration + "ms, statistics will now be written "
+						+ "at most every " + policy.getIntervalMillis() / 1000 + "s.");
+			} else if (policy.getIntervalMillis() < previousInterval) {
+				logger.info("Writing statistics to the database took " + duration + "ms, statistics will now be written "
+						+ "at most every " + policy.getIntervalMillis() / 1000 + "s.");
+			}
+		} else if (now - lastCleanMillis < policy.getBaseIntervalMillis()) {
+			return;
+		}
+		lastCleanMillis = now;
 		cacheManager.cleanStaleCaches();
 	}
 
 	/**
-	 * Writes cached statistics to the database, with batched writes for efficiency purposes. If a failure occurs, the
-	 * same queries will be attempted again.
+	 * Returns the maximum time statistics currently remain in the cache before being written to the database. Increases
+	 * when the database is slow.
+	 *
+	 * @return the current flush interval in milliseconds
+	 */
+	public long getFlushIntervalMillis() {
+		return getFlushPolicy().getIntervalMillis();
+	}
+
+	/**
+	 * Returns the time taken by the last flush triggered by the flush policy.
+	 *
+	 * @return the duration in milliseconds
+	 */
+	public long getLastFlushDurationMillis() {
+		return getFlushPolicy().getLastFlushDurationMillis();
+	}
+
+	private FlushPolicy getFlushPolicy() {
+		if (flushPolicy == null) {
+			// Additive writes do not overwrite other servers' statistics, frequent writes are therefore not needed.
+			boolean frequentWrites = mainConfig.getBoolean("BungeeMode")
+					&& !mainConfig.getBoolean("AdditiveStatisticWrites", false);
+			long baseInterval = TimeUnit.SECONDS.toMillis(frequentWrites ? 2 : 60);
+			flushPolicy = new FlushPolicy(baseInterval, mainConfig.getInt("StatisticsFlushMaxBackoff", 8),
+					mainConfig.getInt("StatisticsFlushDirtyThreshold", 5000),
+					mainConfig.getLong("StatisticsFlushSlowThreshold", 1000));
+		}
+		return flushPolicy;
+	}
+
+	/**
+	 * Writes cached statistics to the database, with batched writes for efficiency purposes. Large numbers of
+	 * statistics are split into bounded chunks, each written in its own transaction, so that the database is never
+	 * locked for long. If a failure occurs, the same queries will be attempted again. If all attempts fail, the
+	 * statistics of the failed chunk and of the following ones are queued for the next call. Waits for any flush in
+	 * progress to complete first.
 	 */
 	public void sendBatchedRequests() {
-		List<String> batchedRequests = new ArrayList<>();
-		for (MultipleAchievements category : MultipleAchievements.values()) {
-			addRequestsForMultipleCategory(batchedRequests, category);
+		flushLock.lock();
+		try {
+			// With additive writes, servers sharing the database add their increments instead of overwriting each
+			// other's.
+			boolean additive = mainConfig.getBoolean("AdditiveStatisticWrites", false);
+			String journalId = additive ? statisticsJournal.getId() : null;
+			cacheManager.resetDirtyTracking();
+			// Statistics journaled before this point are either collected below or were written by previous calls.
+			long journalSequence = statisticsJournal.rotate();
+			if (writeChunks(splitIntoChunks(collectAllWrites()), additive, journalId, () -> false)) {
+				statisticsJournal.commit(journalSequence);
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Writes all cached statistics to the database when the plugin is disabled. Statistics are partitioned by player
+	 * and the partitions are written in parallel, over as many connections as the write pool allows. Statistics that
+	 * could not be written before the configured deadline are spilled to the journal, and restored into the cache the
+	 * next time the plugin starts. A flush in progress is waited for, within the same deadline.
+	 */
+	public void sendRemainingRequests() {
+		long timeoutMillis = TimeUnit.SECONDS.toMillis(mainConfig.getInt("ShutdownFlushTimeout", 10));
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		boolean locked = false;
+		try {
+			locked = flushLock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (!locked) {
+			// The statistics taken by the flush in progress are still backed by the journal segments.
+			logger.warning("Statistics were still being written to the database during plugin shutdown, the remaining "
+					+ "ones will be written when the plugin next starts.");
+			statisticsJournal.spill(cacheManager::journalDirtyStatistics, false);
+			return;
+		}
+		try {
+			sendRemainingRequests(timeoutMillis, deadline);
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void sendRemainingRequests(long timeoutMillis, long deadline) {
+		boolean additive = mainConfig.getBoolean("AdditiveStatisticWrites", false);
+		String journalId = additive ? statisticsJournal.getId() : null;
+		cacheManager.resetDirtyTracking();
+		long journalSequence = statisticsJournal.rotate();
+		List<List<Chunk>> partitions = partition(collectAllWrites(), Math.max(1, databaseManager.getWritePoolSize()));
+		if (partitions.isEmpty()) {
+			statisticsJournal.commit(journalSequence);
+			return;
+		}
+		BooleanSupplier expired = () -> System.nanoTime() - deadline >= 0;
+		ExecutorService executor = Executors.newFixedThreadPool(partitions.size());
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (List<Chunk> partition : partitions) {
+			results.add(executor.submit(() -> writeChunks(splitIntoChunks(partition), additive, journalId, expired)));
+		}
+		executor.shutdown();
+		boolean written = true;
+		try {
+			for (Future<Boolean> result : results) {
+				written &= result.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			written = false;
+		} catch (ExecutionException | TimeoutException e) {
+			written = false;
+		} finally {
+			// Interrupts retries, so that failing writes queue their statistics again before they are spilled.
+			executor.shutdownNow();
+		}
+		if (written) {
+			statisticsJournal.commit(journalSequence);
+			return;
+		}
+		boolean terminated = false;
+		try {
+			// Partitions blocked in a database call are not interrupted, and may still be holding statistics that they
+			// took from the cache.
+			terminated = executor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (!terminated) {
+			logger.warning("Some statistics were still being written to the database during plugin shutdown.");
+		}
+		logger.warning("Statistics could not all be written to the database within " + timeoutMillis / 1000
+				+ "s, the remaining ones will be written when the plugin next starts.");
+		statisticsJournal.spill(cacheManager::journalDirtyStatistics, terminated);
+	}
+
+	/**
+	 * Collects the writes to perform by draining the queue of players with modified statistics.
+	 *
+	 * @return the writes of each player, along with their write sequence
+	 */
+	private Collection<Chunk> collectAllWrites() {
+		Map<UUID, Chunk> playerWrites = new LinkedHashMap<>();
+		Queue<UUID> dirtyPlayers = cacheManager.getDirtyPlayers();
+		UUID player;
+		while ((player = dirtyPlayers.poll()) != null) {
+			UUID dirtyPlayer = player;
+			String uuid = player.toString();
+			Chunk writes = playerWrites.computeIfAbsent(player, p -> new Chunk());
+			long writeSequence = cacheManager.takeDirtyStatistics(player, new StatisticVisitor() {
+
+				@Override
+				public void visit(NormalAchievements category, long value, long delta, boolean overwrite) {
+					writes.add(category, dirtyPlayer, new PendingWrite(new Object[] { uuid }, value, delta, overwrite));
+				}
+
+				@Override
+				public void visit(MultipleAchievements category, int subcategoryId, long value, long delta,
+						boolean overwrite) {
+					String subcategory = cacheManager.getSubcategory(subcategoryId);
+					writes.add(category, new SubcategoryUUID(subcategory, dirtyPlayer),
+							new PendingWrite(new Object[] { uuid, subcategory }, value, delta, overwrite));
+				}
+			});
+			if (writeSequence != 0L) {
+				// A player queued twice is taken twice, the last write sequence covers both.
+				writes.writeSequences.put(player, writeSequence);
+				writes.takenWrites.merge(player, 1, Integer::sum);
+			} else if (writes.size == 0) {
+				playerWrites.remove(player);
+			}
+		}
+		return playerWrites.values();
+	}
+
+	/**
+	 * Writes chunks one after the other, each in its own transaction. If a chunk cannot be written, or if the deadline
+	 * passes, the statistics of the remaining chunks are queued for the next call.
+	 *
+	 * @param chunks
+	 * @param additive
+	 * @param journalId the identifier of the statistics journal whose write sequences must be stored, if any
+	 * @param expired indicates whether the deadline passed, in which case no further chunks are written
+	 * @return true if all chunks were written, false otherwise
+	 */
+	private boolean writeChunks(List<Chunk> chunks, boolean additive, String journalId, BooleanSupplier expired) {
+		for (int i = 0; i < chunks.size(); ++i) {
+			Chunk chunk = chunks.get(i);
+			if (expired.getAsBoolean() || !writeChunk(chunk, additive, journalId)) {
+				chunks.subList(i, chunks.size()).forEach(this::requeue);
+				return false;
+			}
+			completeDatabaseWrites(chunk);
 		}
-		for (NormalAchievements category : NormalAchievements.values()) {
-			addRequestsForNormalCategory(batchedRequests, category);
+		return true;
+	}
+
+	/**
+	 * Partitions the writes by player, so that the statistics of a given player all end up in the same partition.
+	 *
+	 * @param playerWrites
+	 * @param partitionCount
+	 * @return the non-empty partitions
+	 */
+	private List<List<Chunk>> partition(Collection<Chunk> playerWrites, int partitionCount) {
+		List<List<Chunk>> partitions = new ArrayList<>();
+		for (int i = 0; i < partitionCount; ++i) {
+			partitions.add(new ArrayList<>());
 		}
+		for (Chunk writes : playerWrites) {
+			UUID player = writes.writeSequences.keySet().iterator().next();
+			partitions.get(Math.floorMod(player.hashCode(), partitionCount)).add(writes);
+		}
+		partitions.removeIf(List::isEmpty);
+		return partitions;
+	}
 
-		if (!batchedRequests.isEmpty()) {
-			((SQLWriteOperation) () -> {
-				try (Statement st = databaseManager.getConnection().createStatement()) {
-					for (String request : batchedRequests) {
-						st.addBatch(request);
+	/**
+	 * Splits the writes into chunks containing at most the configured number of statistics. The statistics of a given
+	 * player are never split across chunks, so that they are written in the same transaction as their write sequence.
+	 *
+	 * @param playerWrites
+	 * @return the chunks
+	 */
+	private List<Chunk> splitIntoChunks(Collection<Chunk> playerWrites) {
+		int chunkSize = Math.max(1, mainConfig.getInt("StatisticsFlushChunkSize", 2000));
+		List<Chunk> chunks = new ArrayList<>();
+		Chunk chunk = new Chunk();
+		for (Chunk writes : playerWrites) {
+			if (chunk.size > 0 && chunk.size + writes.size > chunkSize) {
+				chunks.add(chunk);
+				chunk = new Chunk();
+			}
+			chunk.addAll(writes);
+		}
+		if (chunk.size > 0) {
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	/**
+	 * Writes a chunk of statistics in a single transaction, so that a retry never applies additive writes twice. The
+	 * write sequences of the players are stored in the same transaction, so that journaled increments included in the
+	 * chunk are not replayed if the server crashes before the journal is discarded.
+	 *
+	 * @param chunk
+	 * @param additive
+	 * @param journalId the identifier of the statistics journal whose write sequences must be stored, if any
+	 * @return true if the chunk was written, false otherwise
+	 */
+	private boolean writeChunk(Chunk chunk, boolean additive, String journalId) {
+		boolean normalised = databaseManager.isNormalisedStatistics();
+		return ((SQLWriteOperation) () -> {
+			if (normalised) {
+				databaseManager.getStatisticsDictionary()
+						.allocateIds(collectNames(chunk.multipleWrites, chunk.normalWrites));
+			}
+			try (Connection connection = databaseManager.getWriteConnection()) {
+				connection.setAutoCommit(false);
+				try {
+					if (normalised) {
+						executeNormalisedWrites(connection, chunk.multipleWrites, chunk.normalWrites, additive);
+					} else {
+						for (Entry<MultipleAchievements, Map<SubcategoryUUID, PendingWrite>> entry : chunk.multipleWrites
+								.entrySet()) {
+							MultipleAchievements category = entry.getKey();
+							executeWrites(connection, category.toDBName(),
+									new String[] { "playername", category.toSubcategoryDBName() }, category.toDBName(),
+									entry.getValue().values(), additive);
+						}
+						for (Entry<NormalAchievements, Map<UUID, PendingWrite>> entry : chunk.normalWrites.entrySet()) {
+							String dbName = entry.getKey().toDBName();
+							executeWrites(connection, dbName, NORMAL_KEY_COLUMNS, dbName, entry.getValue().values(),
+									additive);
+						}
+					}
+					if (journalId != null) {
+						executeJournalSequenceWrites(connection, journalId, chunk.writeSequences);
 					}
-					st.executeBatch();
+					connection.commit();
 				} catch (BatchUpdateException e) { // Attempt to solve issue #309.
-					databaseManager.getConnection().close();
+					// Discard the connection rather than returning it to the pool.
+					connection.abort(Runnable::run);
 					throw e;
 				}
-			}).attemptWrites(logger, "batching statistic updates");
-		}
-	}
-
-	/**
-	 * Adds the database queries to perform for a given Multiple category.
-	 * 
-	 * PostgreSQL has no REPLACE operator. We have to use the INSERT ... ON CONFLICT construct, which is available for
-	 * PostgreSQL 9.5+.
-	 * 
-	 * @param batchedRequests
-	 * @param category
-	 */
-	private void addRequestsForMultipleCategory(List<String> batchedRequests, MultipleAchievements category) {
-		Map<SubcategoryUUID, CachedStatistic> categoryMap = cacheManager.getHashMap(category);
-		for (Entry<SubcategoryUUID, CachedStatistic> entry : categoryMap.entrySet()) {
-			CachedStatistic statistic = entry.getValue();
-			if (!statistic.isDatabaseConsistent()) {
-				// Set flag before writing to database so that concurrent updates are not wrongly marked as consistent.
-				statistic.prepareDatabaseWrite();
-				UUID uuid = entry.getKey().getUUID();
-				String subcategory = StringUtils.replace(entry.getKey().getSubcategory(), "'", "''");
-				if (databaseManager instanceof PostgreSQLDatabaseManager) {
-					batchedRequests.add("INSERT INTO " + databaseManager.getPrefix() + category.toDBName() + " VALUES ('"
-							+ uuid + "', '" + subcategory + "', " + statistic.getValue() + ") ON CONFLICT (playername, "
-							+ category.toSubcategoryDBName() + ") DO UPDATE SET (" + category.toDBName() + ")=("
-							+ statistic.getValue() + ")");
-				} else {
-					batchedRequests.add("REPLACE INTO " + databaseManager.getPrefix() + category.toDBName() + " VALUES ('"
-							+ uuid + "', '" + subcategory + "', " + statistic.getValue() + ")");
-				}
+			}
+		}).attemptWrites(logger, "batching statistic updates");
+	}
+
+	/**
+	 * Queues statistics again after a failed write, unless they were modified and queued in the meantime.
+	 *
+	 * @param chunk
+	 */
+	private void requeue(Chunk chunk) {
+		chunk.multipleWrites.forEach((category, writes) -> writes.forEach((key, write) -> cacheManager
+				.cancelDatabaseWrite(category, key.getSubcategory(), key.getUUID(), write.delta, write.overwrite)));
+		chunk.normalWrites.forEach((category, writes) -> writes.forEach(
+				(player, write) -> cacheManager.cancelDatabaseWrite(category, player, write.delta, write.overwrite)));
+		completeDatabaseWrites(chunk);
+	}
+
+	/**
+	 * Indicates that the outcome of the writes of a chunk is known, so that the blocks of its players can be evicted
+	 * again.
+	 *
+	 * @param chunk
+	 */
+	private void completeDatabaseWrites(Chunk chunk) {
+		chunk.takenWrites.forEach((player, takes) -> {
+			for (int i = 0; i < takes; ++i) {
+				cacheManager.completeDatabaseWrite(player);
+			}
+		});
+	}
+
+	/**
+	 * Collects the category and subcategory names that must have an identifier in the statistics dictionary.
+	 *
+	 * @param multipleWrites
+	 * @param normalWrites
+	 * @return the names
+	 */
+	private Set<String> collectNames(Map<MultipleAchievements, Map<SubcategoryUUID, PendingWrite>> multipleWrites,
+			Map<NormalAchievements, Map<UUID, PendingWrite>> normalWrites) {
+		Set<String> names = new HashSet<>();
+		multipleWrites.forEach((category, writes) -> {
+			names.add(category.toDBName());
+			writes.keySet().forEach(key -> names.add(key.getSubcategory()));
+		});
+		normalWrites.keySet().forEach(category -> names.add(category.toDBName()));
+		return names;
+	}
+
+	/**
+	 * Writes all categories to the normalised statistics table, apart from Connections which are always stored in their
+	 * own table.
+	 *
+	 * @param connection
+	 * @param multipleWrites
+	 * @param normalWrites
+	 * @param additive
+	 * @throws SQLException
+	 */
+	private void executeNormalisedWrites(Connection connection,
+			Map<MultipleAchievements, Map<SubcategoryUUID, PendingWrite>> multipleWrites,
+			Map<NormalAchievements, Map<UUID, PendingWrite>> normalWrites, boolean additive) throws SQLException {
+		IdDictionary dictionary = databaseManager.getStatisticsDictionary();
+		List<PendingWrite> normalisedWrites = new ArrayList<>();
+		multipleWrites.forEach((category, writes) -> {
+			int categoryId = dictionary.getId(category.toDBName());
+			writes.forEach((key, write) -> normalisedWrites.add(write.withKeyValues(key.getUUID().toString(), categoryId,
+					dictionary.getId(key.getSubcategory()))));
+		});
+		for (Entry<NormalAchievements, Map<UUID, PendingWrite>> entry : normalWrites.entrySet()) {
+			String dbName = entry.getKey().toDBName();
+			if (entry.getKey() == NormalAchievements.CONNECTIONS) {
+				executeWrites(connection, dbName, NORMAL_KEY_COLUMNS, dbName, entry.getValue().values(), additive);
+			} else {
+				int categoryId = dictionary.getId(dbName);
+				entry.getValue().forEach((player, write) -> normalisedWrites.add(write.withKeyValues(player.toString(),
+						categoryId, IdDictionary.NO_SUBCATEGORY)));
 			}
 		}
+		executeWrites(connection, "statistics", NORMALISED_KEY_COLUMNS, "amount", normalisedWrites, additive);
+	}
+
+	/**
+	 * Stores the write sequences of the players of a chunk, see {@link StatisticsJournal}.
+	 *
+	 * @param connection
+	 * @param journalId
+	 * @param writeSequences
+	 * @throws SQLException
+	 */
+	private void executeJournalSequenceWrites(Connection connection, String journalId, Map<UUID, Long> writeSequences)
+			throws SQLException {
+		List<Object[]> rows = new ArrayList<>(writeSequences.size());
+		writeSequences.forEach((player, writeSequence) -> rows.add(new Object[] { journalId, player.toString(),
+				writeSequence }));
+		executeUpserts(connection, databaseManager.getPrefix() + "journal_sequences", JOURNAL_KEY_COLUMNS,
+				JOURNAL_VALUE_COLUMNS, rows, databaseManager.getDialect()::upsert);
 	}
 
 	/**
-	 * Adds the database queries to perform for a given Normal category.
-	 * 
-	 * PostgreSQL has no REPLACE operator. We have to use the INSERT ... ON CONFLICT construct, which is available for
-	 * PostgreSQL 9.5+.
-	 * 
-	 * @param batchedRequests
-	 * @param category
-	 */
-	private void addRequestsForNormalCategory(List<String> batchedRequests, NormalAchievements category) {
-		Map<UUID, CachedStatistic> categoryMap = cacheManager.getHashMap(category);
-		for (Entry<UUID, CachedStatistic> entry : categoryMap.entrySet()) {
-			CachedStatistic statistic = entry.getValue();
-			if (!statistic.isDatabaseConsistent()) {
-				// Set flag before writing to database so that concurrent updates are not wrongly marked as consistent.
-				statistic.prepareDatabaseWrite();
-				UUID uuid = entry.getKey();
-				if (databaseManager instanceof PostgreSQLDatabaseManager) {
-					batchedRequests.add("INSERT INTO " + databaseManager.getPrefix() + category.toDBName() + " VALUES ('"
-							+ uuid + "', " + statistic.getValue() + ") ON CONFLICT (playername) DO UPDATE SET ("
-							+ category.toDBName() + ")=(" + statistic.getValue() + ")");
-				} else {
-					batchedRequests.add("REPLACE INTO " + databaseManager.getPrefix() + category.toDBName() + " VALUES ('"
-							+ uuid + "', " + statistic.getValue() + ")");
+	 * Writes to a statistics table. Values are overwritten, unless additive writes are enabled, in which case the
+	 * pending deltas are added to the database values, apart from statistics that must be overwritten, e.g. after a
+	 * reset.
+	 *
+	 * @param connection
+	 * @param tableName the name of the table, without prefix
+	 * @param keyColumns
+	 * @param valueColumn
+	 * @param writes
+	 * @param additive
+	 * @throws SQLException
+	 */
+	private void executeWrites(Connection connection, String tableName, String[] keyColumns, String valueColumn,
+			Collection<PendingWrite> writes, boolean additive) throws SQLException {
+		List<Object[]> overwriteRows = new ArrayList<>();
+		List<Object[]> additiveRows = new ArrayList<>();
+		for (PendingWrite write : writes) {
+			if (!additive || write.overwrite) {
+				overwriteRows.add(write.toRow(write.value));
+			} else if (write.delta != 0) {
+				additiveRows.add(write.toRow(write.delta));
+			}
+		}
+		DatabaseDialect dialect = databaseManager.getDialect();
+		String table = databaseManager.getPrefix() + tableName;
+		String[] valueColumns = { valueColumn };
+		executeUpserts(connection, table, keyColumns, valueColumns, overwriteRows, dialect::upsert);
+		executeUpserts(connection, table, keyColumns, valueColumns, additiveRows, dialect::additiveUpsert);
+	}
+
+	/**
+	 * Writes rows to a statistics table by relying on a single reusable statement per table. Rows are grouped using the
+	 * native multi-row upserts of the database's dialect; a second statement covers the remaining rows, if any. Only
+	 * the prepared statement of the former is cached, the number of remaining rows varies from one write to the next.
+	 *
+	 * @param connection
+	 * @param table the full name of the table, including prefix
+	 * @param keyColumns
+	 * @param valueColumns
+	 * @param rows each row containing the key column values followed by the statistic value
+	 * @param upsert the dialect's function building the statement
+	 * @throws SQLException
+	 */
+	private void executeUpserts(Connection connection, String table, String[] keyColumns, String[] valueColumns,
+			List<Object[]> rows, UpsertBuilder upsert) throws SQLException {
+		int fullStatements = rows.size() / ROWS_PER_STATEMENT;
+		if (fullStatements > 0) {
+			String sql = upsert.build(table, keyColumns, valueColumns, ROWS_PER_STATEMENT);
+			databaseManager.registerBatchUpsert(sql);
+			try (PreparedStatement ps = connection.prepareStatement(sql)) {
+				for (int statement = 0; statement < fullStatements; ++statement) {
+					bindRows(ps, rows.subList(statement * ROWS_PER_STATEMENT, (statement + 1) * ROWS_PER_STATEMENT));
+					ps.addBatch();
 				}
+				ps.executeBatch();
+			}
+		}
+		List<Object[]> remainingRows = rows.subList(fullStatements * ROWS_PER_STATEMENT, rows.size());
+		if (!remainingRows.isEmpty()) {
+			String sql = upsert.build(table, keyColumns, valueColumns, remainingRows.size());
+			try (PreparedStatement ps = connection.prepareStatement(sql)) {
+				bindRows(ps, remainingRows);
+				ps.execute();
+			}
+		}
+	}
+
+	private void bindRows(PreparedStatement ps, List<Object[]> rows) throws SQLException {
+		int parameterIndex = 1;
+		for (Object[] row : rows) {
+			for (Object value : row) {
+				ps.setObject(parameterIndex++, value);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface UpsertBuilder {
+
+		String build(String table, String[] keyColumns, String[] valueColumns, int rows);
+	}
+
+	/**
+	 * Subset of the statistics collected for the next batch.
+	 */
+	private static final class Chunk {
+
+		private final Map<MultipleAchievements, Map<SubcategoryUUID, PendingWrite>> multipleWrites = new EnumMap<>(
+				MultipleAchievements.class);
+		private final Map<NormalAchievements, Map<UUID, PendingWrite>> normalWrites = new EnumMap<>(
+				NormalAchievements.class);
+		private final Map<UUID, Long> writeSequences = new LinkedHashMap<>();
+		// Number of times the statistics of each player were taken from the cache.
+		private final Map<UUID, Integer> takenWrites = new LinkedHashMap<>();
+		private int size;
+
+		// A player modified again while the queue is being drained can be queued twice, only keep one write per key as
+		// some databases refuse to upsert the same row twice in a single statement.
+		private void add(MultipleAchievements category, SubcategoryUUID key, PendingWrite write) {
+			if (multipleWrites.computeIfAbsent(category, c -> new LinkedHashMap<>()).merge(key, write,
+					PendingWrite::merge) == write) {
+				++size;
+			}
+		}
+
+		private void add(NormalAchievements category, UUID key, PendingWrite write) {
+			if (normalWrites.computeIfAbsent(category, c -> new LinkedHashMap<>()).merge(key, write,
+					PendingWrite::merge) == write) {
+				++size;
 			}
 		}
+
+		private void addAll(Chunk other) {
+			other.multipleWrites.forEach((category, writes) -> writes.forEach((key, write) -> add(category, key, write)));
+			other.normalWrites.forEach((category, writes) -> writes.forEach((key, write) -> add(category, key, write)));
+			writeSequences.putAll(other.writeSequences);
+			other.takenWrites.forEach((player, takes) -> takenWrites.merge(player, takes, Integer::sum));
+		}
+	}
+
+	/**
+	 * Statistic collected for the next batch, along with the information needed to write it in either mode.
+	 */
+	private static final class PendingWrite {
+
+		private final Object[] keyValues;
+		private final long value;
+		private final long delta;
+		private final boolean overwrite;
+
+		private PendingWrite(Object[] keyValues, long value, long delta, boolean overwrite) {
+			this.keyValues = keyValues;
+			this.value = value;
+			this.delta = delta;
+			this.overwrite = overwrite;
+		}
+
+		private PendingWrite withKeyValues(Object... keyValues) {
+			return new PendingWrite(keyValues, value, delta, overwrite);
+		}
+
+		private PendingWrite merge(PendingWrite newer) {
+			return new PendingWrite(keyValues, newer.value, delta + newer.delta, overwrite || newer.overwrite);
+		}
+
+		private Object[] toRow(long columnValue) {
+			Object[] row = Arrays.copyOf(keyValues, keyValues.length + 1);
+			row[keyValues.length] = columnValue;
+			return row;
+		}
 	}
 
 }
@@ -1,13 +1,23 @@
 package com.hm.achievement.db;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.EnumMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -16,9 +26,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.bukkit.Bukkit;
 
 import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.Category;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+import com.hm.achievement.db.PlayerStatBlock.StatisticVisitor;
+import com.hm.achievement.domain.Achievement;
 import com.hm.achievement.lifecycle.Cleanable;
+import com.hm.achievement.utils.NameInterner;
 
 /**
  * Class used to provide a cache wrapper for various database statistics, in order to reduce load of database and enable
@@ -32,109 +47,310 @@ public class CacheManager implements Cleanable {
 
 	private final AdvancedAchievements advancedAchievements;
 	private final AbstractDatabaseManager databaseManager;
-	// Statistics of the different players for normal achievements; keys in the inner maps correspond to UUIDs.
-	private final Map<NormalAchievements, Map<UUID, CachedStatistic>> normalAchievementsToPlayerStatistics;
-	// Statistics of the different players for multiple achievements; keys in the inner maps correspond to concatenated
-	// UUIDs and block/entity/command identifiers.
-	private final Map<MultipleAchievements, Map<SubcategoryUUID, CachedStatistic>> multipleAchievementsToPlayerStatistics;
-	// Multimap corresponding to the different achievement names received by players.
-	private final Map<UUID, Set<String>> receivedAchievementsCache;
+	private final StatisticsJournal statisticsJournal;
+	private final AchievementMap achievementMap;
+	private final OfflinePlayerTier offlinePlayerTier;
+	// Players currently connected to the server. The data of other players is tracked by the offline player tier.
+	private final Set<UUID> onlinePlayers;
+	// Players who disconnected since the last cleaning, and players who disconnected and whose statistics must be
+	// removed once they have been written to the database.
+	private final Set<UUID> disconnectedPlayers;
+	private final Set<UUID> stalePlayers;
+	// Statistics of the different players, all categories of a given player being grouped in a single block.
+	private final Map<UUID, PlayerStatBlock> playerStatBlocks;
+	// Identifiers of the block/entity/command subcategories of multiple achievements.
+	private final NameInterner subcategoryInterner;
+	// Players with statistics that were modified since they were last written to the database. A player is only queued
+	// when its block transitions from consistent to inconsistent, flushes therefore scale with the number of changes.
+	private final Queue<UUID> dirtyPlayers;
+	// Approximate number of statistics modified since the last flush and time at which the first of them was modified,
+	// used to decide when the next flush is due. The time is 0 when nothing was modified.
+	private final AtomicInteger dirtyCount = new AtomicInteger();
+	private final AtomicLong firstDirtyMillis = new AtomicLong();
+	// Achievements received by the different players, stored as bitsets of achievement identifiers.
+	private final Map<UUID, ReceivedAchievements> receivedAchievementsCache;
+	// Per player, position in each list of achievements sorted by threshold before which all achievements were
+	// received. Lists are compared by identity and the holders are mutable to avoid boxing.
+	private final Map<UUID, Map<List<Achievement>, int[]>> thresholdCursors;
+	// Statistics and received achievements being retrieved from the database, so that concurrent cache misses for the
+	// same data result in a single query.
+	private final Map<StatisticKey, CompletableFuture<Void>> statisticLoads;
+	private final Map<UUID, CompletableFuture<ReceivedAchievements>> receivedAchievementsLoads;
 
 	@Inject
-	public CacheManager(AdvancedAchievements advancedAchievements, AbstractDatabaseManager databaseManager) {
+	public CacheManager(AdvancedAchievements advancedAchievements, AbstractDatabaseManager databaseManager,
+			StatisticsJournal statisticsJournal, AchievementMap achievementMap, OfflinePlayerTier offlinePlayerTier) {
 		this.advancedAchievements = advancedAchievements;
 		this.databaseManager = databaseManager;
-		normalAchievementsToPlayerStatistics = new EnumMap<>(NormalAchievements.class);
-		multipleAchievementsToPlayerStatistics = new EnumMap<>(MultipleAchievements.class);
+		this.statisticsJournal = statisticsJournal;
+		this.achievementMap = achievementMap;
+		this.offlinePlayerTier = offlinePlayerTier;
+		// ConcurrentHashMaps and ConcurrentLinkedQueues are necessary to guarantee thread safety.
+		onlinePlayers = ConcurrentHashMap.newKeySet();
+		disconnectedPlayers = ConcurrentHashMap.newKeySet();
+		stalePlayers = ConcurrentHashMap.newKeySet();
+		playerStatBlocks = new ConcurrentHashMap<>();
+		subcategoryInterner = new NameInterner();
+		dirtyPlayers = new ConcurrentLinkedQueue<>();
 		receivedAchievementsCache = new ConcurrentHashMap<>();
-
-		// ConcurrentHashMaps are necessary to guarantee thread safety.
-		for (NormalAchievements normalAchievement : NormalAchievements.values()) {
-			normalAchievementsToPlayerStatistics.put(normalAchievement, new ConcurrentHashMap<>());
-		}
-		for (MultipleAchievements multipleAchievement : MultipleAchievements.values()) {
-			multipleAchievementsToPlayerStatistics.put(multipleAchievement, new ConcurrentHashMap<>());
-		}
+		thresholdCursors = new ConcurrentHashMap<>();
+		statisticLoads = new ConcurrentHashMap<>();
+		receivedAchievementsLoads = new ConcurrentHashMap<>();
 	}
 
 	@Override
 	public void cleanPlayerData() {
-		receivedAchievementsCache.keySet().removeIf(player -> !Bukkit.getOfflinePlayer(player).isOnline());
+		// Only the players who disconnected since the last call are visited, all of their cached data being indexed by
+		// their UUID. Players who reconnected in the meantime were removed from the set by the main server thread.
+		for (Iterator<UUID> iterator = disconnectedPlayers.iterator(); iterator.hasNext();) {
+			UUID player = iterator.next();
+			iterator.remove();
+			receivedAchievementsCache.remove(player);
+			thresholdCursors.remove(player);
+			if (playerStatBlocks.containsKey(player)) {
+				// The statistics are removed once they have been written to the database.
+				stalePlayers.add(player);
+			}
+		}
+	}
 
-		// Indicate to the relevant cached statistics that the player has disconnected.
-		for (MultipleAchievements category : MultipleAchievements.values()) {
-			for (Entry<SubcategoryUUID, CachedStatistic> cachedEntry : getHashMap(category).entrySet()) {
-				if (!Bukkit.getOfflinePlayer(cachedEntry.getKey().getUUID()).isOnline()) {
-					cachedEntry.getValue().signalPlayerDisconnection();
-				}
+	/**
+	 * Indicates that a player connected to the server, the player's data is then no longer subject to offline player
+	 * evictions.
+	 *
+	 * @param player
+	 */
+	public void playerConnected(UUID player) {
+		onlinePlayers.add(player);
+		offlinePlayerTier.remove(player);
+		disconnectedPlayers.remove(player);
+		stalePlayers.remove(player);
+	}
+
+	/**
+	 * Indicates that a player disconnected from the server, the player's data is then removed from the cache by the
+	 * next cleaning.
+	 *
+	 * @param player
+	 */
+	public void playerDisconnected(UUID player) {
+		onlinePlayers.remove(player);
+		disconnectedPlayers.add(player);
+	}
+
+	/**
+	 * Removes the cached statistics that have been written to the database and for which the player is no longer
+	 * connected, and evicts the least recently used offline players. Blocks whose statistics are being written are
+	 * kept until the outcome of the write is known, so that a failed write can restore them.
+	 */
+	public void cleanStaleCaches() {
+		offlinePlayerTier.evict(System.currentTimeMillis(), this::evictOfflinePlayer);
+		List<UUID> writtenPlayers = new ArrayList<>();
+		for (UUID player : stalePlayers) {
+			PlayerStatBlock statBlock = playerStatBlocks.get(player);
+			if (statBlock == null) {
+				stalePlayers.remove(player);
+			} else if (!statBlock.isDirty() && !statBlock.isBeingWritten()) {
+				writtenPlayers.add(player);
 			}
 		}
-		for (NormalAchievements category : NormalAchievements.values()) {
-			for (Entry<UUID, CachedStatistic> cachedEntry : getHashMap(category).entrySet()) {
-				if (!Bukkit.getOfflinePlayer(cachedEntry.getKey()).isOnline()) {
-					cachedEntry.getValue().signalPlayerDisconnection();
-				}
+		if (!writtenPlayers.isEmpty()) {
+			// Delegate the removals to the main server thread in a single task, players cannot reconnect while it runs.
+			Bukkit.getScheduler().callSyncMethod(advancedAchievements, () -> {
+				evictStalePlayers(writtenPlayers);
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Removes the cached statistics of players who disconnected. Players who reconnected in the meantime are no longer
+	 * stale and are skipped, players whose statistics were modified again are kept until they are written.
+	 *
+	 * @param players
+	 */
+	void evictStalePlayers(Collection<UUID> players) {
+		for (UUID player : players) {
+			if (!stalePlayers.contains(player)) {
+				continue;
+			}
+			PlayerStatBlock statBlock = playerStatBlocks.get(player);
+			if (statBlock == null) {
+				stalePlayers.remove(player);
+			} else if (statBlock.evict()) {
+				playerStatBlocks.remove(player, statBlock);
+				stalePlayers.remove(player);
 			}
 		}
 	}
 
 	/**
-	 * Removes the cached statistics that have been written to the database and for which the player is no longer
-	 * connected. Can be called from an asyncrhonous thread.
+	 * Retrieves the cached statistics of a player.
+	 *
+	 * @param player
+	 * @return the statistics block of the player, or null if none of the player's statistics are cached
 	 */
-	public void cleanStaleCaches() {
-		for (MultipleAchievements category : MultipleAchievements.values()) {
-			cleanStaleCache(getHashMap(category), SubcategoryUUID::getUUID);
-		}
-		for (NormalAchievements category : NormalAchievements.values()) {
-			cleanStaleCache(getHashMap(category), uuid -> uuid);
-		}
-	}
-
-	private <T> void cleanStaleCache(Map<T, CachedStatistic> categoryMap, Function<T, UUID> keyUuidMapper) {
-		for (Entry<T, CachedStatistic> entry : categoryMap.entrySet()) {
-			T key = entry.getKey();
-			UUID uuid = keyUuidMapper.apply(key);
-			CachedStatistic statistic = entry.getValue();
-			if (statistic.didPlayerDisconnect() && statistic.isDatabaseConsistent()) {
-				// Player was disconnected at some point in the recent past delegate cleaning to the main server thread.
-				Bukkit.getScheduler().callSyncMethod(advancedAchievements, () -> {
-					// Check again whether statistic has been written to the database. This is necessary to cover
-					// cases where the player may have reconnected in the meantime.
-					if (statistic.isDatabaseConsistent()) {
-						categoryMap.remove(key);
-					} else if (Bukkit.getPlayer(uuid) != null) {
-						statistic.resetDisconnection();
-					}
-					return null;
-				});
+	PlayerStatBlock getStatBlock(UUID player) {
+		return playerStatBlocks.get(player);
+	}
+
+	/**
+	 * Retrieves the queue of players whose statistics were modified. Players are removed from the queue when their
+	 * statistics are written to the database.
+	 *
+	 * @return the queue of players with modified statistics
+	 */
+	Queue<UUID> getDirtyPlayers() {
+		return dirtyPlayers;
+	}
+
+	/**
+	 * Retrieves the identifier of a subcategory, which remains the same until the server is restarted.
+	 *
+	 * @param subcategory
+	 * @return the subcategory identifier
+	 */
+	public int getSubcategoryId(String subcategory) {
+		return subcategoryInterner.intern(StringUtils.deleteWhitespace(subcategory));
+	}
+
+	/**
+	 * Retrieves the name of an interned subcategory.
+	 *
+	 * @param subcategoryId
+	 * @return the subcategory name
+	 */
+	String getSubcategory(int subcategoryId) {
+		return subcategoryInterner.getName(subcategoryId);
+	}
+
+	/**
+	 * Passes the statistics of a player that have not been written to the database to the visitor, and considers them
+	 * written. If statistics were taken, {@link #completeDatabaseWrite(UUID)} must be called once the outcome of the
+	 * write is known.
+	 *
+	 * @param player
+	 * @param visitor
+	 * @return the write sequence to store in the database along with the statistics, see {@link StatisticsJournal},
+	 *         or 0 if no statistics were taken
+	 */
+	long takeDirtyStatistics(UUID player, StatisticVisitor visitor) {
+		PlayerStatBlock statBlock = playerStatBlocks.get(player);
+		if (statBlock == null) {
+			return 0L;
+		}
+		synchronized (statBlock) {
+			if (!statBlock.isDirty()) {
+				return 0L;
 			}
+			long writeSequence = statisticsJournal.nextWriteSequence();
+			statBlock.takeDirtyStatistics(visitor, writeSequence);
+			return writeSequence;
 		}
 	}
 
 	/**
-	 * Retrieves a HashMap for a NormalAchievement based on the category.
+	 * Marks a statistic as inconsistent with the database again following a failed write, and queues it for the next
+	 * write unless it was modified and queued in the meantime.
 	 *
 	 * @param category
-	 * @return the map of cached statistics for a Normal category
+	 * @param player
+	 * @param delta the delta that was taken for the failed write
+	 * @param overwrite whether the failed write was meant to overwrite the database value
 	 */
-	public Map<UUID, CachedStatistic> getHashMap(NormalAchievements category) {
-		return normalAchievementsToPlayerStatistics.get(category);
+	void cancelDatabaseWrite(NormalAchievements category, UUID player, long delta, boolean overwrite) {
+		PlayerStatBlock statBlock = playerStatBlocks.get(player);
+		if (statBlock != null) {
+			markDirty(player, statBlock.cancelDatabaseWrite(category, delta, overwrite));
+			if (!statBlock.isLoaded(category)) {
+				// The delta was buffered as a pending increment, which is written once the statistic is retrieved.
+				loadStatistic(category, player, statBlock, true);
+			}
+		}
 	}
 
 	/**
-	 * Retrieves a HashMap for a MultipleAchievement based on the category.
+	 * Marks a statistic as inconsistent with the database again following a failed write, and queues it for the next
+	 * write unless it was modified and queued in the meantime.
 	 *
 	 * @param category
-	 * @return the map of cached statistics for a Multiple category
+	 * @param subcategory
+	 * @param player
+	 * @param delta the delta that was taken for the failed write
+	 * @param overwrite whether the failed write was meant to overwrite the database value
 	 */
-	public Map<SubcategoryUUID, CachedStatistic> getHashMap(MultipleAchievements category) {
-		return multipleAchievementsToPlayerStatistics.get(category);
+	void cancelDatabaseWrite(MultipleAchievements category, String subcategory, UUID player, long delta,
+			boolean overwrite) {
+		PlayerStatBlock statBlock = playerStatBlocks.get(player);
+		if (statBlock != null) {
+			int subcategoryId = subcategoryInterner.intern(subcategory);
+			markDirty(player, statBlock.cancelDatabaseWrite(category, subcategoryId, delta, overwrite));
+			if (!statBlock.isLoaded(category, subcategoryId)) {
+				loadStatistic(category, subcategoryId, player, statBlock, true);
+			}
+		}
+	}
+
+	/**
+	 * Indicates that a write of statistics taken by {@link #takeDirtyStatistics(UUID, StatisticVisitor)} either
+	 * succeeded or was cancelled, in which case the statistics must have been restored beforehand. The player's block
+	 * can then be evicted again.
+	 *
+	 * @param player
+	 */
+	void completeDatabaseWrite(UUID player) {
+		PlayerStatBlock statBlock = playerStatBlocks.get(player);
+		if (statBlock != null) {
+			statBlock.completeDatabaseWrite();
+		}
+	}
+
+	/**
+	 * Returns the number of statistics modified since the last flush started.
+	 *
+	 * @return the number of modified statistics
+	 */
+	public int getDirtyCount() {
+		return dirtyCount.get();
+	}
+
+	/**
+	 * Returns the time at which the first statistic was modified since the last flush started.
+	 *
+	 * @return the time in milliseconds, or 0 if no keys were queued
+	 */
+	public long getOldestDirtyMillis() {
+		return firstDirtyMillis.get();
+	}
+
+	/**
+	 * Resets the dirty statistics tracking, called when a flush starts draining the queue of modified players.
+	 */
+	void resetDirtyTracking() {
+		dirtyCount.set(0);
+		firstDirtyMillis.set(0L);
+	}
+
+	/**
+	 * Tracks a modified statistic, and queues its player so that it is written by the next flush if needed.
+	 *
+	 * @param player
+	 * @param transition value returned by the {@link PlayerStatBlock} method that modified the statistic
+	 */
+	private void markDirty(UUID player, int transition) {
+		if ((transition & PlayerStatBlock.BLOCK_DIRTY) != 0) {
+			dirtyPlayers.add(player);
+		}
+		if ((transition & PlayerStatBlock.STATISTIC_DIRTY) != 0) {
+			dirtyCount.incrementAndGet();
+			firstDirtyMillis.compareAndSet(0L, System.currentTimeMillis());
+		}
 	}
 
 	/**
 	 * Increases the statistic for a NormalAchievement by the given value and returns the updated statistic value. Calls
-	 * the database if not found in the cache.
+	 * the database if not found in the cache, or waits for the statistic if it is already being retrieved. Can be
+	 * called from any thread, concurrent increments are atomic.
 	 *
 	 * @param category
 	 * @param player
@@ -142,21 +358,30 @@ public class CacheManager implements Cleanable {
 	 * @return the updated statistic value
 	 */
 	public long getAndIncrementStatisticAmount(NormalAchievements category, UUID player, int value) {
-		Map<UUID, CachedStatistic> cache = getHashMap(category);
-		CachedStatistic statistic = cache.get(player);
-		if (statistic == null) {
-			statistic = new CachedStatistic(databaseManager.getNormalAchievementAmount(player, category), true);
-			cache.put(player, statistic);
-		}
-		if (value != 0) {
-			statistic.setValue(statistic.getValue() + value);
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			if (!statBlock.isLoaded(category)) {
+				awaitLoad(loadStatistic(category, player, statBlock, false));
+				// Retry, the block may have been evicted before the statistic could be stored in it.
+				continue;
+			}
+			if (value == 0) {
+				return statBlock.getValue(category);
+			}
+			synchronized (statBlock) {
+				// Retry with a new block if this one was evicted since it was retrieved.
+				if (!statBlock.isEvicted()) {
+					updateStatistic(category, player, statBlock, statBlock.getValue(category) + value);
+					return statBlock.getValue(category);
+				}
+			}
 		}
-		return statistic.getValue();
 	}
 
 	/**
 	 * Increases the statistic for a MultipleAchievement by the given value and returns the updated statistic value.
-	 * Calls the database if not found in the cache.
+	 * Calls the database if not found in the cache, or waits for the statistic if it is already being retrieved. Can be
+	 * called from any thread, concurrent increments are atomic.
 	 *
 	 * @param category
 	 * @param subcategory
@@ -165,18 +390,150 @@ public class CacheManager implements Cleanable {
 	 * @return the updated statistic value
 	 */
 	public long getAndIncrementStatisticAmount(MultipleAchievements category, String subcategory, UUID player, int value) {
-		SubcategoryUUID key = new SubcategoryUUID(subcategory, player);
-		Map<SubcategoryUUID, CachedStatistic> cache = getHashMap(category);
-		CachedStatistic statistic = cache.get(key);
-		if (statistic == null) {
-			statistic = new CachedStatistic(databaseManager.getMultipleAchievementAmount(player, category,
-					key.getSubcategory()), true);
-			cache.put(key, statistic);
+		return getAndIncrementStatisticAmount(category, getSubcategoryId(subcategory), player, value);
+	}
+
+	/**
+	 * Increases the statistic for a MultipleAchievement by the given value and returns the updated statistic value.
+	 * Calls the database if not found in the cache. Unlike its String counterpart, this method does not perform any
+	 * string processing nor allocations once the statistic is cached, and is therefore preferred for frequent events.
+	 *
+	 * @param category
+	 * @param subcategoryId identifier returned by {@link #getSubcategoryId(String)}
+	 * @param player
+	 * @param value
+	 * @return the updated statistic value
+	 */
+	public long getAndIncrementStatisticAmount(MultipleAchievements category, int subcategoryId, UUID player, int value) {
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			if (!statBlock.isLoaded(category, subcategoryId)) {
+				awaitLoad(loadStatistic(category, subcategoryId, player, statBlock, false));
+				// Retry, the block may have been evicted before the statistic could be stored in it.
+				continue;
+			}
+			if (value == 0) {
+				return statBlock.getValue(category, subcategoryId);
+			}
+			synchronized (statBlock) {
+				// Retry with a new block if this one was evicted since it was retrieved.
+				if (!statBlock.isEvicted()) {
+					updateStatistic(category, subcategoryId, player, statBlock,
+							statBlock.getValue(category, subcategoryId) + value);
+					return statBlock.getValue(category, subcategoryId);
+				}
+			}
 		}
-		if (value != 0) {
-			statistic.setValue(statistic.getValue() + value);
+	}
+
+	/**
+	 * Increases the statistic for a NormalAchievement by the given value without waiting for the database. If the
+	 * statistic is not cached, it is retrieved asynchronously and the increment is applied once it is loaded; until
+	 * then, the returned value only includes the increments made since the retrieval started. Intended for frequent
+	 * updates on the main server thread, for which a lower bound of the statistic is sufficient to compare it to
+	 * achievement thresholds.
+	 *
+	 * @param category
+	 * @param player
+	 * @param value
+	 * @return the updated statistic value, or a lower bound of it if the statistic is being retrieved
+	 */
+	public long incrementStatisticAmount(NormalAchievements category, UUID player, int value) {
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			synchronized (statBlock) {
+				// Retry with a new block if this one was evicted since it was retrieved.
+				if (statBlock.isEvicted()) {
+					continue;
+				} else if (statBlock.isLoaded(category)) {
+					if (value != 0) {
+						updateStatistic(category, player, statBlock, statBlock.getValue(category) + value);
+					}
+					return statBlock.getValue(category);
+				}
+				statBlock.addPendingIncrement(category, value);
+			}
+			loadStatistic(category, player, statBlock, true);
+			return statBlock.getValue(category);
+		}
+	}
+
+	/**
+	 * Increases the statistic for a MultipleAchievement by the given value without waiting for the database, see
+	 * {@link #incrementStatisticAmount(NormalAchievements, UUID, int)}.
+	 *
+	 * @param category
+	 * @param subcategory
+	 * @param player
+	 * @param value
+	 * @return the updated statistic value, or a lower bound of it if the statistic is being retrieved
+	 */
+	public long incrementStatisticAmount(MultipleAchievements category, String subcategory, UUID player, int value) {
+		return incrementStatisticAmount(category, getSubcategoryId(subcategory), player, value);
+	}
+
+	/**
+	 * Increases the statistic for a MultipleAchievement by the given value without waiting for the database, see
+	 * {@link #incrementStatisticAmount(NormalAchievements, UUID, int)}. Does not perform any string processing nor
+	 * allocations once the statistic is cached.
+	 *
+	 * @param category
+	 * @param subcategoryId identifier returned by {@link #getSubcategoryId(String)}
+	 * @param player
+	 * @param value
+	 * @return the updated statistic value, or a lower bound of it if the statistic is being retrieved
+	 */
+	public long incrementStatisticAmount(MultipleAchievements category, int subcategoryId, UUID player, int value) {
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			synchronized (statBlock) {
+				// Retry with a new block if this one was evicted since it was retrieved.
+				if (statBlock.isEvicted()) {
+					continue;
+				} else if (statBlock.isLoaded(category, subcategoryId)) {
+					if (value != 0) {
+						updateStatistic(category, subcategoryId, player, statBlock,
+								statBlock.getValue(category, subcategoryId) + value);
+					}
+					return statBlock.getValue(category, subcategoryId);
+				}
+				statBlock.addPendingIncrement(category, subcategoryId, value);
+			}
+			loadStatistic(category, subcategoryId, player, statBlock, true);
+			return statBlock.getValue(category, subcategoryId);
+		}
+	}
+
+	/**
+	 * Retrieves all the statistics and received achievements of several players from the database in batched queries,
+	 * so that none of them have to be retrieved individually later on. Statistics that are already cached are kept, as
+	 * they are more recent than the database values. Expected to be called asynchronously before the players join.
+	 *
+	 * @param players
+	 */
+	public void loadPlayerProfiles(Collection<UUID> players) {
+		databaseManager.getPlayerProfiles(players).forEach(this::loadPlayerProfile);
+	}
+
+	private void loadPlayerProfile(UUID player, PlayerProfile profile) {
+		receivedAchievementsCache.computeIfAbsent(player,
+				p -> new ReceivedAchievements(achievementMap, profile.getAchievementNames()));
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			synchronized (statBlock) {
+				if (!statBlock.isEvicted()) {
+					for (NormalAchievements category : NormalAchievements.values()) {
+						storeLoadedStatistic(category, player, statBlock, profile.getNormalAmount(category));
+					}
+					for (MultipleAchievements category : MultipleAchievements.values()) {
+						profile.getMultipleAmounts(category).forEach((subcategory, amount) -> storeLoadedStatistic(
+								category, getSubcategoryId(subcategory), player, statBlock, amount));
+					}
+					statBlock.markProfileLoaded();
+					return;
+				}
+			}
 		}
-		return statistic.getValue();
 	}
 
 	/**
@@ -187,7 +544,46 @@ public class CacheManager implements Cleanable {
 	 * @return true if achievement received by player, false otherwise
 	 */
 	public boolean hasPlayerAchievement(UUID player, String name) {
-		return receivedAchievementsCache.computeIfAbsent(player, databaseManager::getPlayerAchievementNames).contains(name);
+		return getReceivedAchievements(player).contains(name);
+	}
+
+	/**
+	 * Returns whether the achievements received by a player are cached and can be checked without waiting for the
+	 * database. If they are not, they are retrieved asynchronously.
+	 *
+	 * @param player
+	 * @return true if the received achievements are cached, false if they are being retrieved
+	 */
+	public boolean requestReceivedAchievements(UUID player) {
+		recordAccess(player);
+		if (receivedAchievementsCache.containsKey(player)) {
+			return true;
+		}
+		loadReceivedAchievements(player, true);
+		return receivedAchievementsCache.containsKey(player);
+	}
+
+	/**
+	 * Runs a task on the main server thread once the achievements received by a player are cached. The task is run
+	 * immediately if they already are; otherwise they are retrieved asynchronously, so that the main server thread
+	 * never waits for the database. The task is not run if they could not be retrieved.
+	 *
+	 * @param player
+	 * @param task
+	 */
+	public void whenReceivedAchievementsCached(UUID player, Runnable task) {
+		if (requestReceivedAchievements(player)) {
+			task.run();
+			return;
+		}
+		loadReceivedAchievements(player, true).whenComplete((receivedAchievements, failure) -> {
+			if (failure == null) {
+				Bukkit.getScheduler().runTask(advancedAchievements, task);
+			} else {
+				advancedAchievements.getLogger().log(Level.WARNING,
+						"Could not retrieve the achievements received by player " + player + ":", failure);
+			}
+		});
 	}
 
 	/**
@@ -197,7 +593,18 @@ public class CacheManager implements Cleanable {
 	 * @return the achievement names received by the player
 	 */
 	public Set<String> getPlayerAchievements(UUID player) {
-		return receivedAchievementsCache.computeIfAbsent(player, databaseManager::getPlayerAchievementNames);
+		return getReceivedAchievements(player);
+	}
+
+	/**
+	 * Returns the number of achievements of a category received by a player.
+	 *
+	 * @param player
+	 * @param category
+	 * @return the number of achievements received in the category
+	 */
+	public int getPlayerAchievementCount(UUID player, Category category) {
+		return getReceivedAchievements(player).count(achievementMap.getMaskForCategory(category));
 	}
 
 	/**
@@ -208,7 +615,7 @@ public class CacheManager implements Cleanable {
 	 * @param achievementName
 	 */
 	public void registerNewlyReceivedAchievement(UUID player, String achievementName) {
-		receivedAchievementsCache.computeIfAbsent(player, databaseManager::getPlayerAchievementNames).add(achievementName);
+		getReceivedAchievements(player).add(achievementName);
 	}
 
 	/**
@@ -218,8 +625,45 @@ public class CacheManager implements Cleanable {
 	 * @param achievementNames
 	 */
 	public void removePreviouslyReceivedAchievements(UUID player, Collection<String> achievementNames) {
-		receivedAchievementsCache.computeIfAbsent(player, databaseManager::getPlayerAchievementNames)
-				.removeAll(achievementNames);
+		getReceivedAchievements(player).removeAll(achievementNames);
+		thresholdCursors.remove(player);
+	}
+
+	/**
+	 * Returns the position, in a list of achievements sorted by threshold, from which the statistic of a player must be
+	 * compared to the thresholds: all the achievements before that position were received by the player.
+	 *
+	 * @param player
+	 * @param achievements
+	 * @return the position of the first achievement that may not have been received
+	 */
+	public int getThresholdCursor(UUID player, List<Achievement> achievements) {
+		Map<List<Achievement>, int[]> cursors = thresholdCursors.get(player);
+		if (cursors == null) {
+			return 0;
+		}
+		int[] cursor = cursors.get(achievements);
+		return cursor == null ? 0 : cursor[0];
+	}
+
+	/**
+	 * Moves the threshold cursor of a player forward. All the achievements before the new position must have been
+	 * received by the player.
+	 *
+	 * @param player
+	 * @param achievements
+	 * @param position
+	 */
+	public void setThresholdCursor(UUID player, List<Achievement> achievements, int position) {
+		thresholdCursors.computeIfAbsent(player, p -> Collections.synchronizedMap(new IdentityHashMap<>()))
+				.computeIfAbsent(achievements, a -> new int[1])[0] = position;
+	}
+
+	/**
+	 * Discards all threshold cursors, for instance because the lists of achievements were replaced.
+	 */
+	public void resetThresholdCursors() {
+		thresholdCursors.clear();
 	}
 
 	/**
@@ -233,29 +677,387 @@ public class CacheManager implements Cleanable {
 			if (categoryWithSubcategory.contains(".")) {
 				String category = StringUtils.substringBefore(categoryWithSubcategory, ".");
 				String subcategory = StringUtils.substringAfter(categoryWithSubcategory, ".");
-				SubcategoryUUID key = new SubcategoryUUID(subcategory, uuid);
-				Map<SubcategoryUUID, CachedStatistic> cache = getHashMap(MultipleAchievements.getByName(category));
-				CachedStatistic statistic = cache.get(key);
-				if (statistic == null) {
-					cache.put(key, new CachedStatistic(0L, false));
-				} else {
-					statistic.setValue(0L);
-				}
+				overwriteStatistic(MultipleAchievements.getByName(category), subcategory, uuid, 0L);
 			} else {
 				NormalAchievements category = NormalAchievements.getByName(categoryWithSubcategory);
 				if (category == NormalAchievements.CONNECTIONS) {
 					databaseManager.clearConnection(uuid);
 				} else {
-					Map<UUID, CachedStatistic> cache = getHashMap(category);
-					CachedStatistic statistic = cache.get(uuid);
-					if (statistic == null) {
-						cache.put(uuid, new CachedStatistic(0L, false));
-					} else {
-						statistic.setValue(0L);
-					}
+					overwriteStatistic(category, uuid, 0L);
 				}
 			}
 		});
 	}
 
+	/**
+	 * Restores the statistics that were journaled but not written to the database before the plugin was last stopped.
+	 */
+	public void replayJournal() {
+		statisticsJournal.open(this, databaseManager::getWrittenJournalSequences);
+	}
+
+	/**
+	 * Journals all the statistics that have not been written to the database, along with their pending deltas.
+	 */
+	void journalDirtyStatistics() {
+		playerStatBlocks.forEach((player, statBlock) -> statBlock.visitDirtyStatistics(new StatisticVisitor() {
+
+			@Override
+			public void visit(NormalAchievements category, long value, long delta, boolean overwrite) {
+				statisticsJournal.append(category, player, value, delta, statBlock.getWriteSequence());
+			}
+
+			@Override
+			public void visit(MultipleAchievements category, int subcategoryId, long value, long delta,
+					boolean overwrite) {
+				statisticsJournal.append(category, subcategoryId, getSubcategory(subcategoryId), player, value, delta,
+						statBlock.getWriteSequence());
+			}
+		}));
+	}
+
+	/**
+	 * Restores a journaled value of the statistic for a NormalAchievement, without calling the database.
+	 *
+	 * @param category
+	 * @param player
+	 * @param value
+	 * @param delta the difference with the previous value of the statistic
+	 */
+	void restoreStatistic(NormalAchievements category, UUID player, long value, long delta) {
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			synchronized (statBlock) {
+				if (!statBlock.isEvicted()) {
+					statBlock.load(category, value - delta);
+					updateStatistic(category, player, statBlock, value);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Restores a journaled value of the statistic for a MultipleAchievement, without calling the database.
+	 *
+	 * @param category
+	 * @param subcategory
+	 * @param player
+	 * @param value
+	 * @param delta the difference with the previous value of the statistic
+	 */
+	void restoreStatistic(MultipleAchievements category, String subcategory, UUID player, long value, long delta) {
+		int subcategoryId = subcategoryInterner.intern(StringUtils.deleteWhitespace(subcategory));
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			synchronized (statBlock) {
+				if (!statBlock.isEvicted()) {
+					statBlock.load(category, subcategoryId, value - delta);
+					updateStatistic(category, subcategoryId, player, statBlock, value);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the data of a player who is not connected from the cache, unless some of the statistics have not been
+	 * written to the database.
+	 *
+	 * @param player
+	 * @return true if the player's data is no longer cached, false otherwise
+	 */
+	private boolean evictOfflinePlayer(UUID player) {
+		if (onlinePlayers.contains(player)) {
+			// The player connected in the meantime, the data is no longer tracked by the offline player tier.
+			return true;
+		}
+		PlayerStatBlock statBlock = playerStatBlocks.get(player);
+		if (statBlock != null) {
+			if (!statBlock.evict()) {
+				return false;
+			}
+			playerStatBlocks.remove(player, statBlock);
+		}
+		receivedAchievementsCache.remove(player);
+		thresholdCursors.remove(player);
+		return true;
+	}
+
+	private void recordAccess(UUID player) {
+		if (!onlinePlayers.contains(player)) {
+			offlinePlayerTier.recordAccess(player, System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Returns the achievements received by a player. The plugin only calls this once they are cached, see
+	 * {@link #whenReceivedAchievementsCached(UUID, Runnable)}; they are retrieved on the calling thread if they are
+	 * not, which only happens for the synchronous API methods or if they were evicted in the meantime.
+	 *
+	 * @param player
+	 * @return the achievements received by the player
+	 */
+	private ReceivedAchievements getReceivedAchievements(UUID player) {
+		recordAccess(player);
+		ReceivedAchievements receivedAchievements = receivedAchievementsCache.get(player);
+		return receivedAchievements == null ? awaitLoad(loadReceivedAchievements(player, false)) : receivedAchievements;
+	}
+
+	/**
+	 * Retrieves the achievements received by a player from the database and caches them, unless they are already
+	 * being retrieved.
+	 *
+	 * @param player
+	 * @param async whether to retrieve them on the read executor rather than on the calling thread
+	 * @return a future completed once the achievements are cached
+	 */
+	private CompletableFuture<ReceivedAchievements> loadReceivedAchievements(UUID player, boolean async) {
+		CompletableFuture<ReceivedAchievements> load = new CompletableFuture<>();
+		CompletableFuture<ReceivedAchievements> existingLoad = receivedAchievementsLoads.putIfAbsent(player, load);
+		if (existingLoad != null) {
+			return existingLoad;
+		}
+		CompletableFuture<Set<String>> achievementNames = async ? databaseManager.getPlayerAchievementNamesAsync(player)
+				: readNow(() -> databaseManager.getPlayerAchievementNames(player));
+		achievementNames.whenComplete((names, failure) -> {
+			ReceivedAchievements receivedAchievements = null;
+			if (failure == null) {
+				// The player may have disconnected in the meantime, in which case the data is tracked as offline data.
+				recordAccess(player);
+				receivedAchievements = receivedAchievementsCache.computeIfAbsent(player,
+						p -> new ReceivedAchievements(achievementMap, names));
+			}
+			receivedAchievementsLoads.remove(player, load);
+			complete(load, receivedAchievements, failure);
+		});
+		return load;
+	}
+
+	/**
+	 * Retrieves a statistic for a NormalAchievement from the database and stores it in the block, unless it is already
+	 * being retrieved.
+	 *
+	 * @param category
+	 * @param player
+	 * @param statBlock
+	 * @param async whether to retrieve it on the read executor rather than on the calling thread
+	 * @return a future completed once the statistic is stored
+	 */
+	private CompletableFuture<Void> loadStatistic(NormalAchievements category, UUID player, PlayerStatBlock statBlock,
+			boolean async) {
+		StatisticKey key = new StatisticKey(statBlock, category, 0);
+		CompletableFuture<Void> load = new CompletableFuture<>();
+		CompletableFuture<Void> existingLoad = statisticLoads.putIfAbsent(key, load);
+		if (existingLoad != null) {
+			return existingLoad;
+		}
+		CompletableFuture<Long> amount = async ? databaseManager.getNormalAchievementAmountAsync(player, category)
+				: readNow(() -> databaseManager.getNormalAchievementAmount(player, category));
+		amount.whenComplete((value, failure) -> {
+			if (failure == null) {
+				storeLoadedStatistic(category, player, statBlock, value);
+			}
+			statisticLoads.remove(key, load);
+			complete(load, null, failure);
+		});
+		return load;
+	}
+
+	/**
+	 * Retrieves a statistic for a MultipleAchievement from the database and stores it in the block, unless it is
+	 * already being retrieved. The database is not called if the player's profile was loaded.
+	 *
+	 * @param category
+	 * @param subcategoryId
+	 * @param player
+	 * @param statBlock
+	 * @param async whether to retrieve it on the read executor rather than on the calling thread
+	 * @return a future completed once the statistic is stored
+	 */
+	private CompletableFuture<Void> loadStatistic(MultipleAchievements category, int subcategoryId, UUID player,
+			PlayerStatBlock statBlock, boolean async) {
+		StatisticKey key = new StatisticKey(statBlock, category, subcategoryId);
+		CompletableFuture<Void> load = new CompletableFuture<>();
+		CompletableFuture<Void> existingLoad = statisticLoads.putIfAbsent(key, load);
+		if (existingLoad != null) {
+			return existingLoad;
+		}
+		String subcategory = getSubcategory(subcategoryId);
+		CompletableFuture<Long> amount;
+		if (statBlock.isProfileLoaded()) {
+			amount = CompletableFuture.completedFuture(AbstractDatabaseManager.getDefaultAmount(category));
+		} else if (async) {
+			amount = databaseManager.getMultipleAchievementAmountAsync(player, category, subcategory);
+		} else {
+			amount = readNow(() -> databaseManager.getMultipleAchievementAmount(player, category, subcategory));
+		}
+		amount.whenComplete((value, failure) -> {
+			if (failure == null) {
+				storeLoadedStatistic(category, subcategoryId, player, statBlock, value);
+			}
+			statisticLoads.remove(key, load);
+			complete(load, null, failure);
+		});
+		return load;
+	}
+
+	/**
+	 * Stores a statistic retrieved from the database and applies the increments that were made while it was being
+	 * retrieved. The statistic is discarded if the block was evicted in the meantime, it is then retrieved again when
+	 * needed.
+	 *
+	 * @param category
+	 * @param player
+	 * @param statBlock
+	 * @param amount
+	 */
+	private void storeLoadedStatistic(NormalAchievements category, UUID player, PlayerStatBlock statBlock,
+			long amount) {
+		synchronized (statBlock) {
+			if (!statBlock.isEvicted()) {
+				long pendingIncrements = statBlock.load(category, amount);
+				if (pendingIncrements != 0L) {
+					updateStatistic(category, player, statBlock, amount + pendingIncrements);
+				}
+			}
+		}
+	}
+
+	private void storeLoadedStatistic(MultipleAchievements category, int subcategoryId, UUID player,
+			PlayerStatBlock statBlock, long amount) {
+		synchronized (statBlock) {
+			if (!statBlock.isEvicted()) {
+				long pendingIncrements = statBlock.load(category, subcategoryId, amount);
+				if (pendingIncrements != 0L) {
+					updateStatistic(category, subcategoryId, player, statBlock, amount + pendingIncrements);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Performs a read operation on the calling thread.
+	 *
+	 * @param read
+	 * @return a future completed with the result of the read
+	 */
+	private static <T> CompletableFuture<T> readNow(Supplier<T> read) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		try {
+			result.complete(read.get());
+		} catch (RuntimeException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	private static <T> void complete(CompletableFuture<T> future, T value, Throwable failure) {
+		if (failure == null) {
+			future.complete(value);
+		} else {
+			future.completeExceptionally(failure instanceof CompletionException ? failure.getCause() : failure);
+		}
+	}
+
+	/**
+	 * Waits for data to be retrieved from the database.
+	 *
+	 * @param load
+	 * @return the retrieved data
+	 */
+	private static <T> T awaitLoad(CompletableFuture<T> load) {
+		try {
+			return load.join();
+		} catch (CompletionException e) {
+			// Rethrow the error of the read operation, such as a DatabaseReadError.
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+	}
+
+	private PlayerStatBlock getOrCreateStatBlock(UUID player) {
+		recordAccess(player);
+		// Avoid computeIfAbsent when the block exists, it locks the map's bin in Java 8.
+		PlayerStatBlock statBlock = playerStatBlocks.get(player);
+		return statBlock == null ? playerStatBlocks.computeIfAbsent(player,
+				p -> new PlayerStatBlock(statisticsJournal.getWriteSequence())) : statBlock;
+	}
+
+	private void updateStatistic(NormalAchievements category, UUID player, PlayerStatBlock statBlock, long value) {
+		long delta = value - statBlock.getValue(category);
+		markDirty(player, statBlock.setValue(category, value));
+		statisticsJournal.append(category, player, value, delta, statBlock.getWriteSequence());
+	}
+
+	private void updateStatistic(MultipleAchievements category, int subcategoryId, UUID player,
+			PlayerStatBlock statBlock, long value) {
+		long delta = value - statBlock.getValue(category, subcategoryId);
+		markDirty(player, statBlock.setValue(category, subcategoryId, value));
+		statisticsJournal.append(category, subcategoryId, getSubcategory(subcategoryId), player, value, delta,
+				statBlock.getWriteSequence());
+	}
+
+	private void overwriteStatistic(NormalAchievements category, UUID player, long value) {
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			synchronized (statBlock) {
+				if (!statBlock.isEvicted()) {
+					long delta = statBlock.isLoaded(category) ? value - statBlock.getValue(category) : 0L;
+					markDirty(player, statBlock.overwriteValue(category, value));
+					statisticsJournal.append(category, player, value, delta, statBlock.getWriteSequence());
+					return;
+				}
+			}
+		}
+	}
+
+	private void overwriteStatistic(MultipleAchievements category, String subcategory, UUID player, long value) {
+		String normalisedSubcategory = StringUtils.deleteWhitespace(subcategory);
+		int subcategoryId = subcategoryInterner.intern(normalisedSubcategory);
+		while (true) {
+			PlayerStatBlock statBlock = getOrCreateStatBlock(player);
+			synchronized (statBlock) {
+				if (!statBlock.isEvicted()) {
+					long delta = statBlock.isLoaded(category, subcategoryId)
+							? value - statBlock.getValue(category, subcategoryId)
+							: 0L;
+					markDirty(player, statBlock.overwriteValue(category, subcategoryId, value));
+					statisticsJournal.append(category, subcategoryId, normalisedSubcategory, player, value, delta,
+							statBlock.getWriteSequence());
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Identifies a statistic being retrieved for a given block. Blocks are compared by identity, a new block created
+	 * after an eviction therefore triggers a new retrieval.
+	 */
+	private static final class StatisticKey {
+
+		private final PlayerStatBlock statBlock;
+		private final Category category;
+		private final int subcategoryId;
+
+		StatisticKey(PlayerStatBlock statBlock, Category category, int subcategoryId) {
+			this.statBlock = statBlock;
+			this.category = category;
+			this.subcategoryId = subcategoryId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof StatisticKey)) {
+				return false;
+			}
+			StatisticKey other = (StatisticKey) obj;
+			return statBlock == other.statBlock && category == other.category && subcategoryId == other.subcategoryId;
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(statBlock) * 31 + category.hashCode()) * 31 + subcategoryId;
+		}
+	}
 }
@@ -0,0 +1,508 @@
+package com.hm.achievement.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Minimal bounded pool of JDBC connections. Borrowed connections are proxies that return the underlying connection to
+ * the pool when closed, callers are therefore expected to use try-with-resources blocks. Connections that have been
+ * idle for a while are validated before being handed out again, and connections held for too long are reported as
+ * potential leaks. Prepared statements of queries that are run repeatedly are cached for each connection and reused
+ * across borrows; they are closed along with their connection, for instance when it is replaced after a connection
+ * error. Other statements, such as the ones with a variable number of parameters, are prepared each time so that they
+ * do not evict cached ones.
+ *
+ * @author Pyves
+ */
+class ConnectionPool {
+
+	// Connections that were used recently are trusted without a round trip to the database.
+	private static final long VALIDATION_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+	private final String name;
+	private final Logger logger;
+	private final ConnectionFactory connectionFactory;
+	private final long borrowTimeoutMillis;
+	private final long leakDetectionThresholdMillis;
+	private final boolean leakTraces;
+	private final int statementCacheSize;
+	private final Predicate<String> cacheableStatements;
+	private final ExecutionListener executionListener;
+	private final Semaphore permits;
+	private final BlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+	private final Set<LeasedConnection> leasedConnections = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean closed = false;
+
+	/**
+	 * Functional interface used to open new physical connections to the database.
+	 */
+	@FunctionalInterface
+	interface ConnectionFactory {
+
+		Connection create() throws SQLException;
+	}
+
+	/**
+	 * Functional interface notified each time a prepared statement is executed.
+	 */
+	@FunctionalInterface
+	interface ExecutionListener {
+
+		void executed(String sql, long nanos);
+	}
+
+	/**
+	 * @param name
+	 * @param logger
+	 * @param connectionFactory
+	 * @param maxSize
+	 * @param borrowTimeoutMillis
+	 * @param leakDetectionThresholdMillis 0 to disable leak detection
+	 * @param leakTraces whether to capture the stack trace of each borrow, so that leaks report where the connection
+	 *            was borrowed
+	 * @param statementCacheSize maximum number of prepared statements cached for each connection, 0 to disable caching
+	 * @param cacheableStatements indicates whether the prepared statement of an SQL text can be cached
+	 * @param executionListener
+	 */
+	ConnectionPool(String name, Logger logger, ConnectionFactory connectionFactory, int maxSize,
+			long borrowTimeoutMillis, long leakDetectionThresholdMillis, boolean leakTraces, int statementCacheSize,
+			Predicate<String> cacheableStatements, ExecutionListener executionListener) {
+		this.name = name;
+		this.logger = logger;
+		this.connectionFactory = connectionFactory;
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+		this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+		this.leakTraces = leakTraces;
+		this.statementCacheSize = Math.max(0, statementCacheSize);
+		this.cacheableStatements = cacheableStatements;
+		this.executionListener = executionListener;
+		this.permits = new Semaphore(Math.max(1, maxSize), true);
+	}
+
+	/**
+	 * Borrows a connection from the pool, opening a new one if none is idle and the pool has not reached its maximum
+	 * size. Blocks if all connections are in use.
+	 *
+	 * @return a connection that must be closed once no longer used
+	 * @throws SQLException
+	 */
+	Connection borrow() throws SQLException {
+		if (closed) {
+			throw new SQLException("The " + name + " connection pool has been closed.");
+		}
+		reportLeaks();
+		try {
+			if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+						+ "ms while waiting for a " + name + " database connection.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a " + name + " database connection.",
+					e);
+		}
+		try {
+			return lease(takeValidConnection());
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Closes all idle connections. Connections currently in use are closed as soon as they are returned.
+	 */
+	void close() {
+		closed = true;
+		PooledConnection idleConnection;
+		while ((idleConnection = idleConnections.pollFirst()) != null) {
+			idleConnection.close();
+		}
+	}
+
+	int getIdleCount() {
+		return idleConnections.size();
+	}
+
+	int getLeasedCount() {
+		return leasedConnections.size();
+	}
+
+	private PooledConnection takeValidConnection() throws SQLException {
+		PooledConnection idleConnection;
+		// Most recently used connections are handed out first so that rarely used ones can be validated less often.
+		while ((idleConnection = idleConnections.pollFirst()) != null) {
+			if (System.currentTimeMillis() - idleConnection.lastUsed < VALIDATION_INTERVAL_MILLIS
+					|| isValid(idleConnection.connection)) {
+				return idleConnection;
+			}
+			idleConnection.close();
+		}
+		return new PooledConnection(connectionFactory.create());
+	}
+
+	private boolean isValid(Connection connection) {
+		try {
+			return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private Connection lease(PooledConnection connection) {
+		// Capturing a stack trace is costly, only the borrowing thread is recorded by default.
+		LeasedConnection leasedConnection = new LeasedConnection(connection, leakDetectionThresholdMillis > 0 && leakTraces
+				? new Exception("Database connection borrowed from the " + name + " pool at:")
+				: null);
+		leasedConnections.add(leasedConnection);
+		leasedConnection.proxy = (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, leasedConnection);
+		return leasedConnection.proxy;
+	}
+
+	private void release(LeasedConnection leasedConnection) {
+		leasedConnections.remove(leasedConnection);
+		PooledConnection pooledConnection = leasedConnection.pooledConnection;
+		Connection connection = pooledConnection.connection;
+		try {
+			if (closed || leasedConnection.broken || connection.isClosed()) {
+				pooledConnection.close();
+			} else {
+				if (!connection.getAutoCommit()) {
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				pooledConnection.discardStatementsInUse();
+				pooledConnection.lastUsed = System.currentTimeMillis();
+				idleConnections.offerFirst(pooledConnection);
+				if (closed) {
+					// Pool was closed concurrently, make sure the connection does not linger.
+					close();
+				}
+			}
+		} catch (SQLException e) {
+			pooledConnection.close();
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Logs a warning for each connection that has been in use for longer than the leak detection threshold, once per
+	 * connection. Called when borrowing and periodically, so that leaks are also reported when the pool is quiet.
+	 */
+	void reportLeaks() {
+		if (leakDetectionThresholdMillis <= 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		for (LeasedConnection leasedConnection : leasedConnections) {
+			if (!leasedConnection.leakReported && now - leasedConnection.leasedAt > leakDetectionThresholdMillis) {
+				leasedConnection.leakReported = true;
+				logger.log(Level.WARNING, "A " + name + " database connection borrowed by thread "
+						+ leasedConnection.borrowingThread + " has been in use for more than " + leakDetectionThresholdMillis
+						+ "ms, this may indicate a leak." + (leasedConnection.borrowSite == null
+								? " Enable DatabaseLeakTraces to log where it was borrowed."
+								: ""),
+						leasedConnection.borrowSite);
+			}
+		}
+	}
+
+	private void closeQuietly(AutoCloseable resource) {
+		try {
+			resource.close();
+		} catch (Exception e) {
+			logger.log(Level.FINE, "Error while closing a " + name + " database resource:", e);
+		}
+	}
+
+	private static boolean isConnectionError(Throwable throwable) {
+		if (throwable instanceof SQLException) {
+			String sqlState = ((SQLException) throwable).getSQLState();
+			// SQL states of class 08 correspond to connection exceptions.
+			return sqlState != null && sqlState.startsWith("08");
+		}
+		return false;
+	}
+
+	/**
+	 * Physical connection to the database, along with its cached prepared statements. Only the thread that borrowed
+	 * the connection accesses the statements.
+	 */
+	private final class PooledConnection {
+
+		private final Connection connection;
+		// Statements by SQL text, least recently used first.
+		private final Map<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+		private volatile long lastUsed;
+
+		private PooledConnection(Connection connection) {
+			this.connection = connection;
+			this.lastUsed = System.currentTimeMillis();
+		}
+
+		/**
+		 * Returns the cached statement for the given SQL text, preparing it if needed. A separate statement is prepared
+		 * if the cached one is already in use, for instance by an enclosing query, or if the SQL text is not cacheable.
+		 *
+		 * @param sql
+		 * @param leasedConnection
+		 * @return a statement that must be closed once no longer used
+		 * @throws SQLException
+		 */
+		private PreparedStatement prepareStatement(String sql, LeasedConnection leasedConnection) throws SQLException {
+			CachedStatement cachedStatement = statements.get(sql);
+			if (cachedStatement == null && statementCacheSize > 0 && cacheableStatements.test(sql)) {
+				cachedStatement = new CachedStatement(sql, connection.prepareStatement(sql));
+				statements.put(sql, cachedStatement);
+				evictStatements();
+			}
+			StatementLease statementLease;
+			if (cachedStatement == null || cachedStatement.inUse) {
+				statementLease = new StatementLease(sql, connection.prepareStatement(sql), null, leasedConnection);
+			} else {
+				cachedStatement.inUse = true;
+				statementLease = new StatementLease(sql, cachedStatement.statement, cachedStatement, leasedConnection);
+			}
+			return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, statementLease);
+		}
+
+		private void evictStatements() {
+			Iterator<CachedStatement> iterator = statements.values().iterator();
+			while (statements.size() > statementCacheSize && iterator.hasNext()) {
+				CachedStatement eldestStatement = iterator.next();
+				iterator.remove();
+				eldestStatement.evicted = true;
+				if (!eldestStatement.inUse) {
+					closeQuietly(eldestStatement.statement);
+				}
+			}
+		}
+
+		/**
+		 * Closes the statements that were not closed by the previous borrower, so that they cannot interfere with the
+		 * next one.
+		 */
+		private void discardStatementsInUse() {
+			Iterator<CachedStatement> iterator = statements.values().iterator();
+			while (iterator.hasNext()) {
+				CachedStatement cachedStatement = iterator.next();
+				if (cachedStatement.inUse) {
+					iterator.remove();
+					cachedStatement.evicted = true;
+					closeQuietly(cachedStatement.statement);
+				}
+			}
+		}
+
+		private void release(CachedStatement cachedStatement) {
+			if (!cachedStatement.evicted) {
+				try {
+					cachedStatement.statement.clearParameters();
+					cachedStatement.statement.clearBatch();
+					cachedStatement.inUse = false;
+					return;
+				} catch (SQLException e) {
+					statements.remove(cachedStatement.sql, cachedStatement);
+				}
+			}
+			closeQuietly(cachedStatement.statement);
+		}
+
+		private void discard(CachedStatement cachedStatement) {
+			statements.remove(cachedStatement.sql, cachedStatement);
+			cachedStatement.evicted = true;
+		}
+
+		private void close() {
+			statements.values().forEach(cachedStatement -> closeQuietly(cachedStatement.statement));
+			statements.clear();
+			closeQuietly(connection);
+		}
+	}
+
+	private static final class CachedStatement {
+
+		private final String sql;
+		private final PreparedStatement statement;
+
+		private boolean inUse = false;
+		private boolean evicted = false;
+
+		private CachedStatement(String sql, PreparedStatement statement) {
+			this.sql = sql;
+			this.statement = statement;
+		}
+	}
+
+	/**
+	 * Handler of the statement proxies handed out by pooled connections. Closing the proxy returns cached statements
+	 * to their connection's cache, executions are timed and reported to the pool's listener.
+	 */
+	private final class StatementLease implements InvocationHandler {
+
+		private final String sql;
+		private final PreparedStatement statement;
+		private final CachedStatement cachedStatement;
+		private final LeasedConnection leasedConnection;
+
+		private boolean closed = false;
+
+		private StatementLease(String sql, PreparedStatement statement, CachedStatement cachedStatement,
+				LeasedConnection leasedConnection) {
+			this.sql = sql;
+			this.statement = statement;
+			this.cachedStatement = cachedStatement;
+			this.leasedConnection = leasedConnection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!closed) {
+						closed = true;
+						if (cachedStatement == null) {
+							statement.close();
+						} else {
+							leasedConnection.pooledConnection.release(cachedStatement);
+						}
+					}
+					return null;
+				case "isClosed":
+					return closed || statement.isClosed();
+				case "getConnection":
+					return leasedConnection.proxy;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled statement wrapping " + statement;
+				default:
+					break;
+			}
+			if (closed) {
+				throw new SQLException("Statement has already been closed.");
+			}
+			boolean execution = method.getName().startsWith("execute");
+			long start = execution ? System.nanoTime() : 0L;
+			try {
+				return method.invoke(statement, args);
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof SQLException && cachedStatement != null) {
+					// The statement may no longer be usable, prepare a new one next time.
+					leasedConnection.pooledConnection.discard(cachedStatement);
+				}
+				if (isConnectionError(cause)) {
+					leasedConnection.broken = true;
+				}
+				throw cause;
+			} finally {
+				if (execution) {
+					executionListener.executed(sql, System.nanoTime() - start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Handler of the proxies handed out by the pool. Closing the proxy returns the connection to the pool, aborting it
+	 * discards the connection. Connection errors reported by the driver also lead to the connection being discarded.
+	 */
+	private final class LeasedConnection implements InvocationHandler {
+
+		private final PooledConnection pooledConnection;
+		private final Connection connection;
+		private final Exception borrowSite;
+		private final String borrowingThread;
+		private final long leasedAt;
+
+		private Connection proxy;
+
+		private volatile boolean returned = false;
+		private volatile boolean broken = false;
+		private volatile boolean leakReported = false;
+
+		private LeasedConnection(PooledConnection pooledConnection, Exception borrowSite) {
+			this.pooledConnection = pooledConnection;
+			this.connection = pooledConnection.connection;
+			this.borrowSite = borrowSite;
+			this.borrowingThread = Thread.currentThread().getName();
+			this.leasedAt = System.currentTimeMillis();
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!returned) {
+						returned = true;
+						release(this);
+					}
+					return null;
+				case "abort":
+					broken = true;
+					if (!returned) {
+						returned = true;
+						release(this);
+					}
+					return null;
+				case "isClosed":
+					return returned || connection.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled " + name + " connection wrapping " + connection;
+				default:
+					break;
+			}
+			if (returned) {
+				throw new SQLException("Connection has already been returned to the " + name + " pool.");
+			}
+			try {
+				if ("prepareStatement".equals(method.getName()) && args.length == 1) {
+					return pooledConnection.prepareStatement((String) args[0], this);
+				}
+				return method.invoke(connection, args);
+			} catch (SQLException e) {
+				if (isConnectionError(e)) {
+					broken = true;
+				}
+				throw e;
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (isConnectionError(cause)) {
+					broken = true;
+				}
+				throw cause;
+			}
+		}
+	}
+}
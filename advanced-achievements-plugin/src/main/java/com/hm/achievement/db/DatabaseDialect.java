@@ -0,0 +1,394 @@
+package com.hm.achievement.db;
+
+import java.nio.ByteBuffer;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL dialects spoken by the supported database types. Each dialect knows how to express a parameterised multi-row
+ * upsert, i.e. an insert that overwrites the value columns of rows whose primary key already exists, as well as an
+ * additive upsert, which adds to the value columns instead of overwriting them, and an insert that skips rows whose
+ * primary key already exists. Dialects also define how player UUIDs are stored by the compact database schema. Some
+ * database types have several dialects, the one matching the server version is selected once connected.
+ *
+ * @author Pyves
+ */
+enum DatabaseDialect {
+
+	/**
+	 * MySQL and MariaDB: INSERT ... ON DUPLICATE KEY UPDATE, referring to the inserted values with VALUES().
+	 */
+	MYSQL {
+		@Override
+		String upsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return onDuplicateKey(table, keyColumns, valueColumns, rows, false, null);
+		}
+
+		@Override
+		String additiveUpsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return onDuplicateKey(table, keyColumns, valueColumns, rows, true, null);
+		}
+
+		@Override
+		String insertIgnore(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return insertIgnoreInto(table, keyColumns, valueColumns, rows);
+		}
+
+		@Override
+		DatabaseDialect forServer(DatabaseMetaData metaData) throws SQLException {
+			String version = metaData.getDatabaseProductVersion();
+			// MariaDB servers may report a MySQL compatible version, e.g. 5.5.5-10.6.12-MariaDB.
+			return !version.contains("MariaDB") && isAtLeast(version, 8, 0, 19) ? MYSQL_ROW_ALIAS : this;
+		}
+	},
+
+	/**
+	 * MySQL 8.0.19+: INSERT ... AS new ON DUPLICATE KEY UPDATE, as VALUES() is deprecated in favour of row aliases.
+	 */
+	MYSQL_ROW_ALIAS {
+		@Override
+		String upsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return onDuplicateKey(table, keyColumns, valueColumns, rows, false, "new");
+		}
+
+		@Override
+		String additiveUpsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return onDuplicateKey(table, keyColumns, valueColumns, rows, true, "new");
+		}
+
+		@Override
+		String insertIgnore(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return insertIgnoreInto(table, keyColumns, valueColumns, rows);
+		}
+	},
+
+	/**
+	 * PostgreSQL 9.5+: INSERT ... ON CONFLICT.
+	 */
+	POSTGRESQL {
+		@Override
+		String upsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return onConflict(table, keyColumns, valueColumns, rows, "EXCLUDED", null);
+		}
+
+		@Override
+		String additiveUpsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			// The existing row must be qualified with the table name to avoid ambiguous column references.
+			return onConflict(table, keyColumns, valueColumns, rows, "EXCLUDED", table + ".");
+		}
+
+		@Override
+		String insertIgnore(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return insertInto(table, keyColumns, valueColumns, rows).append(" ON CONFLICT DO NOTHING").toString();
+		}
+
+		@Override
+		String uuidType() {
+			return "UUID";
+		}
+
+		@Override
+		void setUuid(PreparedStatement ps, int parameterIndex, UUID uuid) throws SQLException {
+			ps.setObject(parameterIndex, uuid);
+		}
+
+		@Override
+		UUID getUuid(ResultSet rs, int columnIndex) throws SQLException {
+			return rs.getObject(columnIndex, UUID.class);
+		}
+	},
+
+	/**
+	 * SQLite 3.24+: INSERT ... ON CONFLICT, same as PostgreSQL.
+	 */
+	SQLITE {
+		@Override
+		String upsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return onConflict(table, keyColumns, valueColumns, rows, "excluded", null);
+		}
+
+		@Override
+		String additiveUpsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return onConflict(table, keyColumns, valueColumns, rows, "excluded", "");
+		}
+
+		@Override
+		String insertIgnore(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return "INSERT OR IGNORE" + insertInto(table, keyColumns, valueColumns, rows).substring("INSERT".length());
+		}
+
+		@Override
+		String uuidType() {
+			return "BLOB";
+		}
+
+		@Override
+		DatabaseDialect forServer(DatabaseMetaData metaData) throws SQLException {
+			return isAtLeast(metaData.getDatabaseProductVersion(), 3, 24, 0) ? this : SQLITE_LEGACY;
+		}
+	},
+
+	/**
+	 * SQLite before 3.24: INSERT OR REPLACE, which deletes existing rows before inserting new ones. Upserts always
+	 * write every column of their table, so nothing else is lost. Additive upserts read the existing values with a join
+	 * on the key columns, rows being provided by a compound select instead of a VALUES clause.
+	 */
+	SQLITE_LEGACY {
+		@Override
+		String upsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return "INSERT OR REPLACE" + insertInto(table, keyColumns, valueColumns, rows).substring("INSERT".length());
+		}
+
+		@Override
+		String additiveUpsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			StringBuilder sql = new StringBuilder("INSERT OR REPLACE INTO ").append(table).append(" (");
+			appendColumns(sql, keyColumns, valueColumns);
+			sql.append(") SELECT ");
+			for (String keyColumn : keyColumns) {
+				sql.append("n.").append(keyColumn).append(',');
+			}
+			for (int i = 0; i < valueColumns.length; ++i) {
+				if (i > 0) {
+					sql.append(',');
+				}
+				sql.append("n.").append(valueColumns[i]).append("+COALESCE(t.").append(valueColumns[i]).append(",0)");
+			}
+			sql.append(" FROM (SELECT ");
+			String[] columns = new String[keyColumns.length + valueColumns.length];
+			System.arraycopy(keyColumns, 0, columns, 0, keyColumns.length);
+			System.arraycopy(valueColumns, 0, columns, keyColumns.length, valueColumns.length);
+			for (int column = 0; column < columns.length; ++column) {
+				sql.append(column == 0 ? "? AS " : ",? AS ").append(columns[column]);
+			}
+			for (int row = 1; row < rows; ++row) {
+				sql.append(" UNION ALL SELECT ");
+				for (int column = 0; column < columns.length; ++column) {
+					sql.append(column == 0 ? "?" : ",?");
+				}
+			}
+			sql.append(") n LEFT JOIN ").append(table).append(" t ON ");
+			for (int i = 0; i < keyColumns.length; ++i) {
+				if (i > 0) {
+					sql.append(" AND ");
+				}
+				sql.append("t.").append(keyColumns[i]).append("=n.").append(keyColumns[i]);
+			}
+			return sql.toString();
+		}
+
+		@Override
+		String insertIgnore(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return SQLITE.insertIgnore(table, keyColumns, valueColumns, rows);
+		}
+
+		@Override
+		String uuidType() {
+			return SQLITE.uuidType();
+		}
+	},
+
+	/**
+	 * H2: MERGE INTO ... KEY. Additive upserts and ignored inserts rely on the MySQL constructs, available as the
+	 * database is opened in MySQL mode.
+	 */
+	H2 {
+		@Override
+		String upsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			StringBuilder sql = new StringBuilder("MERGE INTO ").append(table).append(" (");
+			appendColumns(sql, keyColumns, valueColumns);
+			sql.append(") KEY (").append(String.join(",", keyColumns)).append(") VALUES ");
+			appendPlaceholders(sql, keyColumns.length + valueColumns.length, rows);
+			return sql.toString();
+		}
+
+		@Override
+		String additiveUpsert(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return onDuplicateKey(table, keyColumns, valueColumns, rows, true, null);
+		}
+
+		@Override
+		String insertIgnore(String table, String[] keyColumns, String[] valueColumns, int rows) {
+			return insertIgnoreInto(table, keyColumns, valueColumns, rows);
+		}
+	};
+
+	private static final Pattern VERSION = Pattern.compile("(\\d+)(?:\\.(\\d+))?(?:\\.(\\d+))?");
+
+	/**
+	 * Builds a parameterised statement writing several rows at once. Parameters must be bound row by row, key columns
+	 * first followed by value columns, in the order they were provided.
+	 *
+	 * @param table the full name of the table, including prefix
+	 * @param keyColumns the columns forming the primary key of the table
+	 * @param valueColumns the columns to overwrite if a row with the same key already exists
+	 * @param rows the number of rows written by a single execution of the statement
+	 * @return the SQL statement
+	 */
+	abstract String upsert(String table, String[] keyColumns, String[] valueColumns, int rows);
+
+	/**
+	 * Builds a parameterised statement writing several rows at once. The bound values are added to the value columns of
+	 * rows whose key already exists. Parameters must be bound in the same way as for
+	 * {@link #upsert(String, String[], String[], int)}.
+	 *
+	 * @param table the full name of the table, including prefix
+	 * @param keyColumns the columns forming the primary key of the table
+	 * @param valueColumns the columns to increment if a row with the same key already exists
+	 * @param rows the number of rows written by a single execution of the statement
+	 * @return the SQL statement
+	 */
+	abstract String additiveUpsert(String table, String[] keyColumns, String[] valueColumns, int rows);
+
+	/**
+	 * Builds a parameterised statement writing several rows at once. Rows whose key already exists are left untouched.
+	 * Parameters must be bound in the same way as for {@link #upsert(String, String[], String[], int)}.
+	 *
+	 * @param table the full name of the table, including prefix
+	 * @param keyColumns the columns forming the primary key of the table
+	 * @param valueColumns the other columns of the table
+	 * @param rows the number of rows written by a single execution of the statement
+	 * @return the SQL statement
+	 */
+	abstract String insertIgnore(String table, String[] keyColumns, String[] valueColumns, int rows);
+
+	/**
+	 * Returns the dialect supported by the database server described by the metadata, which may be a variant of this
+	 * dialect if the server is more recent or older than the one this dialect targets.
+	 *
+	 * @param metaData
+	 * @return the dialect to use with the server
+	 * @throws SQLException
+	 */
+	DatabaseDialect forServer(DatabaseMetaData metaData) throws SQLException {
+		return this;
+	}
+
+	/**
+	 * Returns the column type used to store player UUIDs in the compact database schema.
+	 *
+	 * @return the SQL type
+	 */
+	String uuidType() {
+		return "BINARY(16)";
+	}
+
+	/**
+	 * Binds a player UUID stored in a column of type {@link #uuidType()}.
+	 *
+	 * @param ps
+	 * @param parameterIndex
+	 * @param uuid
+	 * @throws SQLException
+	 */
+	void setUuid(PreparedStatement ps, int parameterIndex, UUID uuid) throws SQLException {
+		ps.setBytes(parameterIndex, ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits())
+				.putLong(uuid.getLeastSignificantBits()).array());
+	}
+
+	/**
+	 * Reads a player UUID stored in a column of type {@link #uuidType()}.
+	 *
+	 * @param rs
+	 * @param columnIndex
+	 * @return the UUID
+	 * @throws SQLException
+	 */
+	UUID getUuid(ResultSet rs, int columnIndex) throws SQLException {
+		ByteBuffer bytes = ByteBuffer.wrap(rs.getBytes(columnIndex));
+		return new UUID(bytes.getLong(), bytes.getLong());
+	}
+
+	/**
+	 * Compares the leading numbers of a version string, e.g. 8.0.35 or 3.36.0.3, with a minimum version.
+	 *
+	 * @param version
+	 * @param minimum the major, minor and patch numbers of the minimum version
+	 * @return true if the version is greater or equal to the minimum, false otherwise or if it could not be parsed
+	 */
+	static boolean isAtLeast(String version, int... minimum) {
+		Matcher matcher = VERSION.matcher(version);
+		if (!matcher.find()) {
+			return false;
+		}
+		for (int i = 0; i < minimum.length; ++i) {
+			String group = matcher.group(i + 1);
+			int number = group == null ? 0 : Integer.parseInt(group);
+			if (number != minimum[i]) {
+				return number > minimum[i];
+			}
+		}
+		return true;
+	}
+
+	private static String insertIgnoreInto(String table, String[] keyColumns, String[] valueColumns, int rows) {
+		return "INSERT IGNORE" + insertInto(table, keyColumns, valueColumns, rows).substring("INSERT".length());
+	}
+
+	private static String onDuplicateKey(String table, String[] keyColumns, String[] valueColumns, int rows,
+			boolean additive, String rowAlias) {
+		StringBuilder sql = insertInto(table, keyColumns, valueColumns, rows);
+		if (rowAlias != null) {
+			sql.append(" AS ").append(rowAlias);
+		}
+		sql.append(" ON DUPLICATE KEY UPDATE ");
+		for (int i = 0; i < valueColumns.length; ++i) {
+			if (i > 0) {
+				sql.append(',');
+			}
+			sql.append(valueColumns[i]).append('=');
+			if (additive) {
+				sql.append(valueColumns[i]).append('+');
+			}
+			if (rowAlias == null) {
+				sql.append("VALUES(").append(valueColumns[i]).append(')');
+			} else {
+				sql.append(rowAlias).append('.').append(valueColumns[i]);
+			}
+		}
+		return sql.toString();
+	}
+
+	private static String onConflict(String table, String[] keyColumns, String[] valueColumns, int rows,
+			String excludedTable, String existingRow) {
+		StringBuilder sql = insertInto(table, keyColumns, valueColumns, rows).append(" ON CONFLICT (")
+				.append(String.join(",", keyColumns)).append(") DO UPDATE SET ");
+		for (int i = 0; i < valueColumns.length; ++i) {
+			if (i > 0) {
+				sql.append(',');
+			}
+			sql.append(valueColumns[i]).append('=');
+			if (existingRow != null) {
+				sql.append(existingRow).append(valueColumns[i]).append('+');
+			}
+			sql.append(excludedTable).append('.').append(valueColumns[i]);
+		}
+		return sql.toString();
+	}
+
+	private static StringBuilder insertInto(String table, String[] keyColumns, String[] valueColumns, int rows) {
+		StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+		appendColumns(sql, keyColumns, valueColumns);
+		sql.append(") VALUES ");
+		appendPlaceholders(sql, keyColumns.length + valueColumns.length, rows);
+		return sql;
+	}
+
+	private static void appendColumns(StringBuilder sql, String[] keyColumns, String[] valueColumns) {
+		sql.append(String.join(",", keyColumns)).append(',').append(String.join(",", valueColumns));
+	}
+
+	private static void appendPlaceholders(StringBuilder sql, int columns, int rows) {
+		for (int row = 0; row < rows; ++row) {
+			sql.append(row == 0 ? "(" : ",(");
+			for (int column = 0; column < columns; ++column) {
+				sql.append(column == 0 ? "?" : ",?");
+			}
+			sql.append(')');
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package com.hm.achievement.db;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * Executor running database operations on a bounded number of named threads, with a bounded number of tasks waiting
+ * for a thread. The threads are only started once the first task is submitted, after the configuration was loaded.
+ * On Java 21 or later, they can be virtual threads: each task then gets its own virtual thread, the number of tasks
+ * running at the same time being limited instead. Platform threads are used on older Java versions.
+ *
+ * @author Pyves
+ */
+public class DatabaseExecutor extends AbstractExecutorService {
+
+	/**
+	 * Operations run by an executor, which determine its configuration parameters and what happens to tasks submitted
+	 * while the queue is full.
+	 */
+	public enum Type {
+
+		// Reads are retried when the data is next needed: they fail fast when the database is lagging behind.
+		READ("Read", 3, false),
+		// Writes must not be lost: they are performed by the thread submitting them when the database is lagging
+		// behind, which slows the producers down. The main server thread must never wait for the database, its writes
+		// are queued beyond the limit instead.
+		WRITE("Write", 2, true);
+
+		private final String parameterName;
+		private final int defaultThreads;
+		private final boolean acceptedWhenFull;
+
+		Type(String parameterName, int defaultThreads, boolean acceptedWhenFull) {
+			this.parameterName = parameterName;
+			this.defaultThreads = defaultThreads;
+			this.acceptedWhenFull = acceptedWhenFull;
+		}
+	}
+
+	private final Type type;
+	private final YamlConfiguration mainConfig;
+	private final Logger logger;
+	private final BooleanSupplier primaryThread;
+	private final LongAdder completedTasks = new LongAdder();
+	private final LongAdder rejectedTasks = new LongAdder();
+	private final LongAdder callerRunTasks = new LongAdder();
+	private final LongAdder overflowTasks = new LongAdder();
+	private final LongAdder busyNanos = new LongAdder();
+	private final LongAdder queueWaitNanos = new LongAdder();
+	private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+	private final AtomicInteger queuedTasks = new AtomicInteger();
+	private final AtomicInteger activeTasks = new AtomicInteger();
+
+	private volatile ExecutorService backend;
+	private volatile boolean shutdown;
+	// Tasks that are either running or waiting, and tasks that are running when each task has its own virtual thread.
+	private Semaphore admissions;
+	private Semaphore concurrency;
+	private long startNanos;
+	private int threads;
+
+	public DatabaseExecutor(Type type, YamlConfiguration mainConfig, Logger logger) {
+		this(type, mainConfig, logger, Bukkit::isPrimaryThread);
+	}
+
+	/**
+	 * @param type
+	 * @param mainConfig
+	 * @param logger
+	 * @param primaryThread indicates whether the calling thread is the main server thread, which must never run tasks
+	 */
+	DatabaseExecutor(Type type, YamlConfiguration mainConfig, Logger logger, BooleanSupplier primaryThread) {
+		this.type = type;
+		this.mainConfig = mainConfig;
+		this.logger = logger;
+		this.primaryThread = primaryThread;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		ExecutorService executor = getBackend();
+		boolean admitted = admissions.tryAcquire();
+		if (!admitted) {
+			if (shutdown) {
+				throw new RejectedExecutionException("The database executor was shut down.");
+			}
+			rejectedTasks.increment();
+			if (!type.acceptedWhenFull) {
+				throw new RejectedExecutionException("Too many database operations are waiting.");
+			}
+			if (!primaryThread.getAsBoolean()) {
+				callerRunTasks.increment();
+				command.run();
+				return;
+			}
+			overflowTasks.increment();
+		}
+		long submissionNanos = System.nanoTime();
+		queuedTasks.incrementAndGet();
+		try {
+			executor.execute(() -> run(command, submissionNanos, admitted));
+		} catch (RejectedExecutionException e) {
+			queuedTasks.decrementAndGet();
+			if (admitted) {
+				admissions.release();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public synchronized void shutdown() {
+		shutdown = true;
+		if (backend != null) {
+			backend.shutdown();
+		}
+	}
+
+	@Override
+	public synchronized List<Runnable> shutdownNow() {
+		shutdown = true;
+		return backend == null ? Collections.emptyList() : backend.shutdownNow();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		ExecutorService executor = backend;
+		return executor == null ? shutdown : executor.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		ExecutorService executor = backend;
+		return executor == null ? shutdown : executor.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * @return the number of threads currently running a task
+	 */
+	public int getActiveThreads() {
+		return activeTasks.get();
+	}
+
+	/**
+	 * @return the number of tasks waiting for a thread
+	 */
+	public int getQueuedTasks() {
+		return queuedTasks.get();
+	}
+
+	public long getCompletedTasks() {
+		return completedTasks.sum();
+	}
+
+	/**
+	 * @return the number of tasks that were refused, run by the submitting thread or queued beyond the limit for
+	 *         writes, as the queue was full
+	 */
+	public long getRejectedTasks() {
+		return rejectedTasks.sum();
+	}
+
+	/**
+	 * @return the number of tasks run by the submitting thread as the queue was full
+	 */
+	public long getCallerRunTasks() {
+		return callerRunTasks.sum();
+	}
+
+	/**
+	 * @return the number of tasks submitted by the main server thread and queued beyond the limit as the queue was full
+	 */
+	public long getOverflowTasks() {
+		return overflowTasks.sum();
+	}
+
+	/**
+	 * @return the fraction of the time of the threads that was spent running tasks since they were started
+	 */
+	public double getUtilisation() {
+		if (backend == null) {
+			return 0.0;
+		}
+		long elapsedNanos = System.nanoTime() - startNanos;
+		return elapsedNanos <= 0L ? 0.0 : Math.min(1.0, busyNanos.sum() / ((double) elapsedNanos * threads));
+	}
+
+	/**
+	 * @return the average time tasks waited for a thread, in milliseconds
+	 */
+	public double getAverageQueueWaitMillis() {
+		long tasks = completedTasks.sum();
+		return tasks == 0L ? 0.0 : queueWaitNanos.sum() / (tasks * 1_000_000.0);
+	}
+
+	/**
+	 * @return the longest time a task waited for a thread, in milliseconds
+	 */
+	public long getMaxQueueWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos.get());
+	}
+
+	private void run(Runnable command, long submissionNanos, boolean admitted) {
+		if (concurrency != null) {
+			// Virtual threads are cheap to park, they wait for their turn here rather than in a queue.
+			concurrency.acquireUninterruptibly();
+		}
+		long startedNanos = System.nanoTime();
+		long waitNanos = startedNanos - submissionNanos;
+		queueWaitNanos.add(waitNanos);
+		maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+		queuedTasks.decrementAndGet();
+		activeTasks.incrementAndGet();
+		try {
+			command.run();
+		} finally {
+			busyNanos.add(System.nanoTime() - startedNanos);
+			completedTasks.increment();
+			activeTasks.decrementAndGet();
+			if (concurrency != null) {
+				concurrency.release();
+			}
+			if (admitted) {
+				admissions.release();
+			}
+		}
+	}
+
+	private ExecutorService getBackend() {
+		ExecutorService executor = backend;
+		if (executor == null) {
+			synchronized (this) {
+				if (shutdown) {
+					throw new RejectedExecutionException("The database executor was shut down.");
+				}
+				if (backend == null) {
+					threads = Math.max(1,
+							mainConfig.getInt("Database" + type.parameterName + "Threads", type.defaultThreads));
+					int queueSize = Math.max(1,
+							mainConfig.getInt("Database" + type.parameterName + "TaskQueueSize", 1000));
+					admissions = new Semaphore(threads + queueSize);
+					startNanos = System.nanoTime();
+					backend = createBackend(mainConfig.getBoolean("DatabaseVirtualThreads", false));
+				}
+				executor = backend;
+			}
+		}
+		return executor;
+	}
+
+	private ExecutorService createBackend(boolean virtualThreads) {
+		String prefix = "AdvancedAchievements-Database" + type.parameterName + "-";
+		if (virtualThreads) {
+			try {
+				// Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory()), which is not part
+				// of the Java 8 API the plugin targets.
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+				ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+				ExecutorService executor = (ExecutorService) Executors.class
+						.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+				concurrency = new Semaphore(threads);
+				return executor;
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				logger.warning("Virtual threads require Java 21 or later, database operations will use platform threads.");
+			}
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		// The number of waiting tasks is bounded by the admissions, the queue itself does not need to be.
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+				runnable -> new Thread(runnable, prefix + threadCount.incrementAndGet()));
+	}
+}
@@ -1,10 +1,21 @@
 package com.hm.achievement.db;
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -24,6 +35,15 @@ import com.hm.achievement.exception.PluginLoadError;
 @Singleton
 public class DatabaseUpdater {
 
+	// Number of rows copied by each step of the statistics migration.
+	static final int MIGRATION_BATCH_SIZE = 500;
+
+	private static final String[] STATISTICS_KEY_COLUMNS = { "playername", "category_id", "subcategory_id" };
+	private static final String[] STATISTICS_VALUE_COLUMNS = { "amount" };
+	private static final String[] COMPACT_ACHIEVEMENTS_KEY_COLUMNS = { "playername", "achievement_id" };
+	private static final String[] COMPACT_ACHIEVEMENTS_VALUE_COLUMNS = { "date" };
+	private static final String COMPACT_ACHIEVEMENTS_MIGRATION = "achievements";
+
 	private final Logger logger;
 
 	@Inject
@@ -41,12 +61,13 @@ public class DatabaseUpdater {
 	void renameExistingTables(AbstractDatabaseManager databaseManager) throws PluginLoadError {
 		// If a prefix is set in the config, check whether the tables with the default names exist. If so do renaming.
 		if (StringUtils.isNotBlank(databaseManager.getPrefix())) {
-			try (ResultSet rs = databaseManager.getConnection().getMetaData().getTables(null, null, "achievements", null)) {
+			try (Connection connection = databaseManager.getWriteConnection();
+					ResultSet rs = connection.getMetaData().getTables(null, null, "achievements", null)) {
 				// If the achievements table still has its default name (ie. no prefix), but a prefix is set in the
 				// configuration, do a renaming of all tables.
 				if (rs.next()) {
 					logger.info("Adding " + databaseManager.getPrefix() + " prefix to database table names, please wait...");
-					try (Statement st = databaseManager.getConnection().createStatement()) {
+					try (Statement st = connection.createStatement()) {
 						st.addBatch("ALTER TABLE achievements RENAME TO " + databaseManager.getPrefix() + "achievements");
 						for (NormalAchievements category : NormalAchievements.values()) {
 							st.addBatch("ALTER TABLE " + category.toDBName() + " RENAME TO " + databaseManager.getPrefix()
@@ -74,7 +95,8 @@ public class DatabaseUpdater {
 	 * @throws PluginLoadError
 	 */
 	void initialiseTables(AbstractDatabaseManager databaseManager, int size) throws PluginLoadError {
-		try (Statement st = databaseManager.getConnection().createStatement()) {
+		try (Connection connection = databaseManager.getWriteConnection();
+				Statement st = connection.createStatement()) {
 			st.addBatch("CREATE TABLE IF NOT EXISTS " + databaseManager.getPrefix()
 					+ "achievements (playername char(36),achievement varchar(64),date TIMESTAMP,PRIMARY KEY (playername, achievement))");
 
@@ -94,6 +116,11 @@ public class DatabaseUpdater {
 							+ " (playername char(36)," + category.toDBName() + " BIGINT,PRIMARY KEY (playername))");
 				}
 			}
+
+			// Write sequences of the statistics journals, used to identify journaled increments written additively.
+			st.addBatch("CREATE TABLE IF NOT EXISTS " + databaseManager.getPrefix()
+					+ "journal_sequences (journal char(36),playername char(36),write_sequence BIGINT,"
+					+ "PRIMARY KEY (journal, playername))");
 			st.executeBatch();
 		} catch (SQLException e) {
 			throw new PluginLoadError("Error while initialising database tables.", e);
@@ -111,7 +138,8 @@ public class DatabaseUpdater {
 	void updateOldDBColumnSize(AbstractDatabaseManager databaseManager, MultipleAchievements category, int size) {
 		// SQLite ignores size for varchar datatype.
 		if (!(databaseManager instanceof SQLiteDatabaseManager)) {
-			try (Statement st = databaseManager.getConnection().createStatement();
+			try (Connection connection = databaseManager.getWriteConnection();
+					Statement st = connection.createStatement();
 					ResultSet rs = st.executeQuery("SELECT " + category.toSubcategoryDBName() + " FROM "
 							+ databaseManager.getPrefix() + category.toDBName() + " LIMIT 1")) {
 				if (rs.getMetaData().getPrecision(1) < size) {
@@ -126,4 +154,301 @@ public class DatabaseUpdater {
 			}
 		}
 	}
+
+	/**
+	 * Initialises the tables of the normalised statistics layout, which stores the statistics of all categories apart
+	 * from Connections in a single table.
+	 * 
+	 * @param databaseManager
+	 * @param size
+	 * @throws PluginLoadError
+	 */
+	void initialiseNormalisedTables(AbstractDatabaseManager databaseManager, int size) throws PluginLoadError {
+		String prefix = databaseManager.getPrefix();
+		try (Connection connection = databaseManager.getWriteConnection();
+				Statement st = connection.createStatement()) {
+			st.addBatch("CREATE TABLE IF NOT EXISTS " + prefix + "statistics (playername char(36),category_id INT,"
+					+ "subcategory_id INT,amount BIGINT,PRIMARY KEY (playername, category_id, subcategory_id))");
+			st.addBatch("CREATE TABLE IF NOT EXISTS " + prefix + "statistics_dictionary (id INT,name varchar(" + size
+					+ "),PRIMARY KEY (id),UNIQUE (name))");
+			addMigrationProgressTable(st, prefix, size);
+			st.executeBatch();
+		} catch (SQLException e) {
+			throw new PluginLoadError("Error while initialising normalised statistics tables.", e);
+		}
+	}
+
+	/**
+	 * Copies the statistics of the per-category tables to the normalised statistics table. Rows are copied in small
+	 * batches, each batch committing its progress along with the copied rows, so that the migration can run while the
+	 * server is in use and resume after a restart. Rows already present in the normalised table are more recent and are
+	 * left untouched.
+	 * 
+	 * @param databaseManager
+	 * @return true if all statistics have been migrated, false if the migration was interrupted by an error
+	 */
+	boolean migrateToNormalisedStatistics(AbstractDatabaseManager databaseManager) {
+		try {
+			Set<String> completedMigrations = getCompletedMigrations(databaseManager);
+			List<MultipleAchievements> multipleCategories = Arrays.stream(MultipleAchievements.values())
+					.filter(category -> !completedMigrations.contains(category.toDBName())).collect(Collectors.toList());
+			List<NormalAchievements> normalCategories = Arrays.stream(NormalAchievements.values())
+					.filter(category -> category != NormalAchievements.CONNECTIONS
+							&& !completedMigrations.contains(category.toDBName()))
+					.collect(Collectors.toList());
+			if (multipleCategories.isEmpty() && normalCategories.isEmpty()) {
+				return true;
+			}
+			logger.info("Migrating statistics to the normalised statistics table, this will continue in the background...");
+			for (MultipleAchievements category : multipleCategories) {
+				migrateCategory(databaseManager, category.toDBName(), category.toSubcategoryDBName());
+			}
+			for (NormalAchievements category : normalCategories) {
+				migrateCategory(databaseManager, category.toDBName(), null);
+			}
+			logger.info("Migration to the normalised statistics table complete.");
+			return true;
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "Database error while migrating statistics, the migration will resume on next start:",
+					e);
+			return false;
+		}
+	}
+
+
+	private void migrateCategory(AbstractDatabaseManager databaseManager, String dbName, String subcategoryDBName)
+			throws SQLException {
+		String prefix = databaseManager.getPrefix();
+		String[] progress = getMigrationProgress(databaseManager, dbName);
+		String lastPlayer = progress[0];
+		String lastSubcategory = progress[1];
+
+		// Keyset pagination, the position is given by the last key copied.
+		String sql = subcategoryDBName == null
+				? "SELECT playername, " + dbName + " FROM " + prefix + dbName
+						+ " WHERE playername > ? ORDER BY playername LIMIT " + MIGRATION_BATCH_SIZE
+				: "SELECT playername, " + subcategoryDBName + ", " + dbName + " FROM " + prefix + dbName
+						+ " WHERE playername > ? OR (playername = ? AND " + subcategoryDBName + " > ?) ORDER BY playername, "
+						+ subcategoryDBName + " LIMIT " + MIGRATION_BATCH_SIZE;
+		IdDictionary dictionary = databaseManager.getStatisticsDictionary();
+		List<Object[]> batch;
+		do {
+			batch = new ArrayList<>();
+			try (Connection connection = databaseManager.getReadConnection();
+					PreparedStatement ps = connection.prepareStatement(sql)) {
+				ps.setString(1, lastPlayer);
+				if (subcategoryDBName != null) {
+					ps.setString(2, lastPlayer);
+					ps.setString(3, lastSubcategory);
+				}
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						batch.add(subcategoryDBName == null
+								? new Object[] { rs.getString(1), null, rs.getLong(2) }
+								: new Object[] { rs.getString(1), rs.getString(2), rs.getLong(3) });
+					}
+				}
+			}
+			if (!batch.isEmpty()) {
+				Object[] lastRow = batch.get(batch.size() - 1);
+				lastPlayer = (String) lastRow[0];
+				lastSubcategory = StringUtils.defaultString((String) lastRow[1]);
+			}
+			Set<String> names = new HashSet<>();
+			names.add(dbName);
+			batch.stream().filter(row -> row[1] != null).forEach(row -> names.add((String) row[1]));
+			dictionary.allocateIds(names);
+			copyBatch(databaseManager, dbName, batch, lastPlayer, lastSubcategory, batch.size() < MIGRATION_BATCH_SIZE);
+		} while (batch.size() == MIGRATION_BATCH_SIZE);
+	}
+
+	private void copyBatch(AbstractDatabaseManager databaseManager, String dbName, List<Object[]> batch,
+			String lastPlayer, String lastSubcategory, boolean completed) throws SQLException {
+		DatabaseDialect dialect = databaseManager.getDialect();
+		IdDictionary dictionary = databaseManager.getStatisticsDictionary();
+		try (Connection connection = databaseManager.getWriteConnection()) {
+			connection.setAutoCommit(false);
+			if (!batch.isEmpty()) {
+				try (PreparedStatement ps = connection.prepareStatement(dialect.insertIgnore(databaseManager.getPrefix()
+						+ "statistics", STATISTICS_KEY_COLUMNS, STATISTICS_VALUE_COLUMNS, batch.size()))) {
+					int parameterIndex = 1;
+					for (Object[] row : batch) {
+						ps.setString(parameterIndex++, (String) row[0]);
+						ps.setInt(parameterIndex++, dictionary.getId(dbName));
+						ps.setInt(parameterIndex++, row[1] == null ? IdDictionary.NO_SUBCATEGORY
+								: dictionary.getId((String) row[1]));
+						ps.setLong(parameterIndex++, (Long) row[2]);
+					}
+					ps.execute();
+				}
+			}
+			updateMigrationProgress(databaseManager, connection, dbName, lastPlayer, lastSubcategory, completed);
+			connection.commit();
+		}
+	}
+
+	/**
+	 * Initialises the tables of the compact achievements schema, which stores player UUIDs in binary form and
+	 * references achievements by an identifier rather than by their name.
+	 * 
+	 * @param databaseManager
+	 * @param size
+	 * @throws PluginLoadError
+	 */
+	void initialiseCompactAchievementsTables(AbstractDatabaseManager databaseManager, int size) throws PluginLoadError {
+		String prefix = databaseManager.getPrefix();
+		try (Connection connection = databaseManager.getWriteConnection();
+				Statement st = connection.createStatement()) {
+			DatabaseMetaData metaData = connection.getMetaData();
+			String tableName = prefix + "achievements_compact";
+			boolean tableExists;
+			try (ResultSet rs = metaData.getTables(null, null,
+					metaData.storesLowerCaseIdentifiers() ? tableName.toLowerCase() : tableName, null)) {
+				tableExists = rs.next();
+			}
+			if (!tableExists) {
+				st.addBatch("CREATE TABLE " + tableName + " (playername " + databaseManager.getDialect().uuidType()
+						+ ",achievement_id SMALLINT,date TIMESTAMP,PRIMARY KEY (playername, achievement_id))");
+				// Used to look up the most recent recipients of an achievement.
+				st.addBatch("CREATE INDEX " + tableName + "_recipients ON " + tableName + " (achievement_id, date)");
+			}
+			st.addBatch("CREATE TABLE IF NOT EXISTS " + prefix
+					+ "achievement_dictionary (id SMALLINT,name varchar(64),PRIMARY KEY (id),UNIQUE (name))");
+			addMigrationProgressTable(st, prefix, size);
+			st.executeBatch();
+		} catch (SQLException e) {
+			throw new PluginLoadError("Error while initialising compact achievements tables.", e);
+		}
+	}
+
+	/**
+	 * Copies the achievements table to the compact achievements table. Rows are copied in small batches, each batch
+	 * committing its progress along with the copied rows, so that the migration can resume after a restart. Rows with
+	 * a malformed player UUID cannot be represented in the compact schema and are skipped.
+	 * 
+	 * @param databaseManager
+	 * @return true if all achievements have been migrated, false if the migration was interrupted by an error
+	 */
+	boolean migrateToCompactAchievements(AbstractDatabaseManager databaseManager) {
+		try {
+			if (getCompletedMigrations(databaseManager).contains(COMPACT_ACHIEVEMENTS_MIGRATION)) {
+				return true;
+			}
+			logger.info("Migrating achievements to the compact database schema, please wait...");
+			String[] progress = getMigrationProgress(databaseManager, COMPACT_ACHIEVEMENTS_MIGRATION);
+			String lastPlayer = progress[0];
+			String lastAchievement = progress[1];
+			String sql = "SELECT playername, achievement, date FROM " + databaseManager.getPrefix()
+					+ "achievements WHERE playername > ? OR (playername = ? AND achievement > ?) "
+					+ "ORDER BY playername, achievement LIMIT " + MIGRATION_BATCH_SIZE;
+			IdDictionary dictionary = databaseManager.getAchievementDictionary();
+			int batchSize;
+			int skippedRows = 0;
+			do {
+				List<Object[]> batch = new ArrayList<>();
+				batchSize = 0;
+				try (Connection connection = databaseManager.getReadConnection();
+						PreparedStatement ps = connection.prepareStatement(sql)) {
+					ps.setString(1, lastPlayer);
+					ps.setString(2, lastPlayer);
+					ps.setString(3, lastAchievement);
+					try (ResultSet rs = ps.executeQuery()) {
+						while (rs.next()) {
+							++batchSize;
+							lastPlayer = rs.getString(1);
+							lastAchievement = rs.getString(2);
+							try {
+								batch.add(new Object[] { UUID.fromString(lastPlayer), lastAchievement, rs.getTimestamp(3) });
+							} catch (IllegalArgumentException e) {
+								++skippedRows;
+							}
+						}
+					}
+				}
+				dictionary.allocateIds(batch.stream().map(row -> (String) row[1]).collect(Collectors.toSet()));
+				copyAchievementsBatch(databaseManager, batch, lastPlayer, lastAchievement,
+						batchSize < MIGRATION_BATCH_SIZE);
+			} while (batchSize == MIGRATION_BATCH_SIZE);
+			if (skippedRows > 0) {
+				logger.warning("Skipped " + skippedRows + " achievements with a malformed player UUID.");
+			}
+			logger.info("Migration to the compact database schema complete.");
+			return true;
+		} catch (SQLException e) {
+			logger.log(Level.SEVERE, "Database error while migrating achievements, the migration will resume on next start:",
+					e);
+			return false;
+		}
+	}
+
+	private void copyAchievementsBatch(AbstractDatabaseManager databaseManager, List<Object[]> batch,
+			String lastPlayer, String lastAchievement, boolean completed) throws SQLException {
+		DatabaseDialect dialect = databaseManager.getDialect();
+		IdDictionary dictionary = databaseManager.getAchievementDictionary();
+		try (Connection connection = databaseManager.getWriteConnection()) {
+			connection.setAutoCommit(false);
+			if (!batch.isEmpty()) {
+				try (PreparedStatement ps = connection.prepareStatement(dialect.insertIgnore(databaseManager.getPrefix()
+						+ "achievements_compact", COMPACT_ACHIEVEMENTS_KEY_COLUMNS, COMPACT_ACHIEVEMENTS_VALUE_COLUMNS,
+						batch.size()))) {
+					int parameterIndex = 1;
+					for (Object[] row : batch) {
+						dialect.setUuid(ps, parameterIndex++, (UUID) row[0]);
+						ps.setInt(parameterIndex++, dictionary.getId((String) row[1]));
+						ps.setTimestamp(parameterIndex++, (Timestamp) row[2]);
+					}
+					ps.execute();
+				}
+			}
+			updateMigrationProgress(databaseManager, connection, COMPACT_ACHIEVEMENTS_MIGRATION, lastPlayer,
+					lastAchievement, completed);
+			connection.commit();
+		}
+	}
+
+	private void addMigrationProgressTable(Statement st, String prefix, int size) throws SQLException {
+		// The last key column holds either subcategory or achievement names.
+		st.addBatch("CREATE TABLE IF NOT EXISTS " + prefix + "migration_progress (name varchar(32),last_player char(36),"
+				+ "last_key varchar(" + Math.max(size, 64) + "),completed SMALLINT,PRIMARY KEY (name))");
+	}
+
+	private Set<String> getCompletedMigrations(AbstractDatabaseManager databaseManager) throws SQLException {
+		Set<String> completedMigrations = new HashSet<>();
+		try (Connection connection = databaseManager.getReadConnection();
+				Statement st = connection.createStatement();
+				ResultSet rs = st.executeQuery("SELECT name FROM " + databaseManager.getPrefix()
+						+ "migration_progress WHERE completed = 1")) {
+			while (rs.next()) {
+				completedMigrations.add(rs.getString(1));
+			}
+		}
+		return completedMigrations;
+	}
+
+	private String[] getMigrationProgress(AbstractDatabaseManager databaseManager, String name) throws SQLException {
+		try (Connection connection = databaseManager.getReadConnection();
+				PreparedStatement ps = connection.prepareStatement("SELECT last_player, last_key FROM "
+						+ databaseManager.getPrefix() + "migration_progress WHERE name = ?")) {
+			ps.setString(1, name);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (rs.next()) {
+					return new String[] { rs.getString(1), StringUtils.defaultString(rs.getString(2)) };
+				}
+			}
+		}
+		return new String[] { "", "" };
+	}
+
+	private void updateMigrationProgress(AbstractDatabaseManager databaseManager, Connection connection, String name,
+			String lastPlayer, String lastKey, boolean completed) throws SQLException {
+		try (PreparedStatement ps = connection.prepareStatement(databaseManager.getDialect().upsert(
+				databaseManager.getPrefix() + "migration_progress", new String[] { "name" },
+				new String[] { "last_player", "last_key", "completed" }, 1))) {
+			ps.setString(1, name);
+			ps.setString(2, lastPlayer);
+			ps.setString(3, lastKey);
+			ps.setInt(4, completed ? 1 : 0);
+			ps.execute();
+		}
+	}
 }
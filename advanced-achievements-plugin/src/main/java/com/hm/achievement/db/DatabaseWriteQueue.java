@@ -0,0 +1,317 @@
+package com.hm.achievement.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded queue of ad-hoc database writes, such as achievement registrations or connection updates. Writes are
+ * consumed by a single task at a time, which groups them into batched transactions. Writes targeting the same row are
+ * coalesced, only the most recent one being sent to the database; writes are otherwise applied in the order they were
+ * submitted. Submitters wait for a bounded time when the queue is full, so that memory usage remains bounded if the
+ * database cannot keep up. The main server thread never waits: its writes are accepted past the capacity of the queue,
+ * as are the writes of other threads once they have waited long enough. Writes are therefore never lost. If a batch
+ * cannot be written, its writes are attempted again one by one and only the failing ones are discarded.
+ *
+ * @author Pyves
+ */
+class DatabaseWriteQueue {
+
+	/**
+	 * Binds the parameters of a queued write.
+	 */
+	@FunctionalInterface
+	interface StatementBinder {
+
+		/**
+		 * @param connection
+		 * @param ps
+		 * @return false if there is nothing to write
+		 * @throws SQLException
+		 */
+		boolean bind(Connection connection, PreparedStatement ps) throws SQLException;
+	}
+
+	/**
+	 * Write operation targeting a single row, identified by its key. Player-wide writes, such as the deletion of all
+	 * the achievements of a player, target all the rows whose key starts with their own key followed by a '|'.
+	 */
+	static final class QueuedWrite {
+
+		private final String key;
+		private final boolean playerWide;
+		private final String sql;
+		private final StatementBinder binder;
+		private final SQLWriteOperation preparation;
+		// Whether the write holds one of the permits of the queue, false if it was accepted past its capacity.
+		private boolean withinCapacity;
+
+		/**
+		 * @param key
+		 * @param playerWide
+		 * @param sql
+		 * @param binder
+		 * @param preparation write performed before the batch transaction starts, can be null
+		 */
+		QueuedWrite(String key, boolean playerWide, String sql, StatementBinder binder, SQLWriteOperation preparation) {
+			this.key = key;
+			this.playerWide = playerWide;
+			this.sql = sql;
+			this.binder = binder;
+			this.preparation = preparation;
+		}
+	}
+
+	private static final long SUBMISSION_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(1);
+	private static final long OVERFLOW_WARNING_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private final Logger logger;
+	private final AbstractDatabaseManager databaseManager;
+	private final Executor executor;
+	private final BooleanSupplier primaryThread;
+	private final BlockingQueue<QueuedWrite> queue = new LinkedBlockingQueue<>();
+	private final Semaphore permits;
+	private final int maxBatchSize;
+	private final long lingerNanos;
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	private final AtomicInteger maxDepth = new AtomicInteger();
+	private final AtomicLong coalescedWrites = new AtomicLong();
+	private final AtomicLong throttledSubmissions = new AtomicLong();
+	private final AtomicLong overflowedSubmissions = new AtomicLong();
+	private final AtomicLong lastOverflowWarningNanos = new AtomicLong(System.nanoTime() - OVERFLOW_WARNING_INTERVAL_NANOS);
+	private final AtomicLong batches = new AtomicLong();
+
+	/**
+	 * @param logger
+	 * @param databaseManager
+	 * @param executor
+	 * @param primaryThread indicates whether the calling thread is the main server thread, which must never wait
+	 * @param capacity
+	 * @param maxBatchSize
+	 * @param lingerMillis
+	 */
+	DatabaseWriteQueue(Logger logger, AbstractDatabaseManager databaseManager, Executor executor,
+			BooleanSupplier primaryThread, int capacity, int maxBatchSize, long lingerMillis) {
+		this.logger = logger;
+		this.databaseManager = databaseManager;
+		this.executor = executor;
+		this.primaryThread = primaryThread;
+		this.permits = new Semaphore(Math.max(1, capacity));
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+	}
+
+	/**
+	 * Adds a write to the queue. If the queue is full, threads other than the main server thread wait for a bounded
+	 * time until space is available; the write is then accepted past the capacity of the queue.
+	 *
+	 * @param write
+	 */
+	void submit(QueuedWrite write) {
+		write.withinCapacity = permits.tryAcquire();
+		if (!write.withinCapacity) {
+			throttledSubmissions.incrementAndGet();
+			if (!primaryThread.getAsBoolean()) {
+				try {
+					write.withinCapacity = permits.tryAcquire(SUBMISSION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					// Keep the write, the interruption is handled by the caller.
+					Thread.currentThread().interrupt();
+				}
+			}
+			if (!write.withinCapacity) {
+				warnOverflow();
+			}
+		}
+		queue.add(write);
+		maxDepth.accumulateAndGet(queue.size(), Math::max);
+		scheduleDrain();
+	}
+
+	int getDepth() {
+		return queue.size();
+	}
+
+	int getMaxDepth() {
+		return maxDepth.get();
+	}
+
+	long getCoalescedWrites() {
+		return coalescedWrites.get();
+	}
+
+	long getThrottledSubmissions() {
+		return throttledSubmissions.get();
+	}
+
+	long getOverflowedSubmissions() {
+		return overflowedSubmissions.get();
+	}
+
+	long getBatches() {
+		return batches.get();
+	}
+
+	private void warnOverflow() {
+		long overflowed = overflowedSubmissions.incrementAndGet();
+		long lastWarningNanos = lastOverflowWarningNanos.get();
+		long nowNanos = System.nanoTime();
+		if (nowNanos - lastWarningNanos >= OVERFLOW_WARNING_INTERVAL_NANOS
+				&& lastOverflowWarningNanos.compareAndSet(lastWarningNanos, nowNanos)) {
+			logger.warning("The database cannot keep up with the writes of the plugin, " + overflowed
+					+ " writes were queued past the capacity of the write queue so far. Consider increasing"
+					+ " DatabaseWriteQueueCapacity or DatabaseWriteThreads, or checking the health of your database.");
+		}
+	}
+
+	private void scheduleDrain() {
+		if (draining.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				// Executor shut down during plugin disable: write on the calling thread instead.
+				drain();
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			List<QueuedWrite> batch = new ArrayList<>(maxBatchSize);
+			while (fillBatch(batch)) {
+				releasePermits(batch);
+				writeBatch(coalesce(batch));
+				batch.clear();
+			}
+		} finally {
+			draining.set(false);
+		}
+		// Writes may have been submitted after the queue was last polled, but before the draining flag was cleared.
+		if (!queue.isEmpty()) {
+			scheduleDrain();
+		}
+	}
+
+	private boolean fillBatch(List<QueuedWrite> batch) {
+		queue.drainTo(batch, maxBatchSize);
+		if (batch.isEmpty()) {
+			return false;
+		}
+		// Linger a little so that writes submitted in quick succession share the same transaction.
+		long deadline = System.nanoTime() + lingerNanos;
+		try {
+			while (batch.size() < maxBatchSize) {
+				QueuedWrite write = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				if (write == null) {
+					break;
+				}
+				batch.add(write);
+				queue.drainTo(batch, maxBatchSize - batch.size());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return true;
+	}
+
+	private void releasePermits(List<QueuedWrite> batch) {
+		int released = 0;
+		for (QueuedWrite write : batch) {
+			if (write.withinCapacity) {
+				++released;
+			}
+		}
+		permits.release(released);
+	}
+
+	private Collection<QueuedWrite> coalesce(List<QueuedWrite> batch) {
+		Map<String, QueuedWrite> writes = new LinkedHashMap<>();
+		for (QueuedWrite write : batch) {
+			if (write.playerWide) {
+				String rowKeyPrefix = write.key + "|";
+				writes.keySet().removeIf(key -> key.startsWith(rowKeyPrefix));
+			}
+			// Remove before putting so that the write takes the position of the most recent one.
+			writes.remove(write.key);
+			writes.put(write.key, write);
+		}
+		coalescedWrites.addAndGet(batch.size() - writes.size());
+		return writes.values();
+	}
+
+	private void writeBatch(Collection<QueuedWrite> writes) {
+		for (QueuedWrite write : writes) {
+			// Preparations borrow their own connection, they cannot run while the batch transaction holds one.
+			if (write.preparation != null) {
+				write.preparation.attemptWrites(logger, "preparing a queued write");
+			}
+		}
+		if (!transaction(writes).attemptWrites(logger, "writing " + writes.size() + " queued operations")
+				&& writes.size() > 1) {
+			// Use one transaction per operation, so that a failing one does not cause the others to be lost.
+			logger.warning("Writing the " + writes.size() + " queued operations one by one, failing ones are discarded.");
+			for (QueuedWrite write : writes) {
+				try {
+					transaction(Collections.singletonList(write)).performWrite();
+				} catch (SQLException e) {
+					logger.log(Level.SEVERE, "Database write error while writing queued operation " + write.key
+							+ ", it was discarded:", e);
+				}
+			}
+		}
+		batches.incrementAndGet();
+	}
+
+	private SQLWriteOperation transaction(Collection<QueuedWrite> writes) {
+		return () -> {
+			try (Connection connection = databaseManager.getWriteConnection()) {
+				connection.setAutoCommit(false);
+				PreparedStatement ps = null;
+				try {
+					String sql = null;
+					for (QueuedWrite write : writes) {
+						// Consecutive writes sharing the same statement are sent as a single JDBC batch.
+						if (!write.sql.equals(sql)) {
+							if (ps != null) {
+								ps.executeBatch();
+								ps.close();
+							}
+							sql = write.sql;
+							ps = connection.prepareStatement(sql);
+						}
+						if (write.binder.bind(connection, ps)) {
+							ps.addBatch();
+						}
+					}
+					if (ps != null) {
+						ps.executeBatch();
+					}
+				} finally {
+					if (ps != null) {
+						ps.close();
+					}
+				}
+				connection.commit();
+			}
+		};
+	}
+}
@@ -0,0 +1,76 @@
+package com.hm.achievement.db;
+
+/**
+ * Decides when cached statistics should be written to the database. Statistics are written once the oldest modified
+ * one has been waiting for the current interval, or earlier if many statistics were modified. The interval increases
+ * when flushes are slow, to relieve an overloaded database, and decreases back to its base value once flushes are fast
+ * again.
+ *
+ * @author Pyves
+ */
+class FlushPolicy {
+
+	private final long baseIntervalMillis;
+	private final long maxIntervalMillis;
+	private final int dirtyThreshold;
+	private final long slowFlushMillis;
+
+	private volatile long intervalMillis;
+	private volatile long lastFlushDurationMillis;
+
+	/**
+	 * @param baseIntervalMillis
+	 * @param maxBackoff maximum factor by which the base interval can be multiplied
+	 * @param dirtyThreshold number of modified statistics triggering a flush at the base interval
+	 * @param slowFlushMillis duration above which a flush is considered slow
+	 */
+	FlushPolicy(long baseIntervalMillis, int maxBackoff, int dirtyThreshold, long slowFlushMillis) {
+		this.baseIntervalMillis = baseIntervalMillis;
+		this.maxIntervalMillis = baseIntervalMillis * Math.max(1, maxBackoff);
+		this.dirtyThreshold = Math.max(1, dirtyThreshold);
+		this.slowFlushMillis = slowFlushMillis;
+		this.intervalMillis = baseIntervalMillis;
+	}
+
+	/**
+	 * @param nowMillis
+	 * @param dirtyCount number of statistics modified since the last flush
+	 * @param oldestDirtyMillis time at which the first of these statistics was modified
+	 * @return true if a flush should start now
+	 */
+	boolean shouldFlush(long nowMillis, int dirtyCount, long oldestDirtyMillis) {
+		if (dirtyCount == 0) {
+			return false;
+		}
+		long interval = intervalMillis;
+		// The threshold scales with the backoff, a slow database should not be flushed early repeatedly.
+		return dirtyCount >= (long) dirtyThreshold * (interval / baseIntervalMillis)
+				|| nowMillis - oldestDirtyMillis >= interval;
+	}
+
+	/**
+	 * Adapts the interval based on the duration of the flush that just completed.
+	 *
+	 * @param durationMillis
+	 */
+	void recordFlush(long durationMillis) {
+		lastFlushDurationMillis = durationMillis;
+		if (durationMillis > slowFlushMillis) {
+			intervalMillis = Math.min(maxIntervalMillis, intervalMillis * 2);
+		} else {
+			intervalMillis = Math.max(baseIntervalMillis, intervalMillis / 2);
+		}
+	}
+
+	long getBaseIntervalMillis() {
+		return baseIntervalMillis;
+	}
+
+	long getIntervalMillis() {
+		return intervalMillis;
+	}
+
+	long getLastFlushDurationMillis() {
+		return lastFlushDurationMillis;
+	}
+}
@@ -19,10 +19,11 @@ import com.hm.achievement.AdvancedAchievements;
 public class H2DatabaseManager extends AbstractFileDatabaseManager {
 
 	public H2DatabaseManager(@Named("main") YamlConfiguration mainConfig, Logger logger, DatabaseUpdater databaseUpdater,
-			AdvancedAchievements advancedAchievements, ExecutorService writeExecutor) {
+			AdvancedAchievements advancedAchievements, ExecutorService writeExecutor, ExecutorService readExecutor) {
 		super(mainConfig, logger, databaseUpdater, advancedAchievements, "org.h2.Driver", "jdbc:h2:./"
 				+ new File(advancedAchievements.getDataFolder(), "achievements")
-				+ ";DATABASE_TO_UPPER=false;MODE=MySQL", "achievements.mv.db", writeExecutor);
+				+ ";DATABASE_TO_UPPER=false;MODE=MySQL", "achievements.mv.db", writeExecutor, readExecutor,
+				DatabaseDialect.H2);
 
 		// Convince Maven Shade that H2 is used to prevent full exclusion during minimisation.
 		@SuppressWarnings("unused")
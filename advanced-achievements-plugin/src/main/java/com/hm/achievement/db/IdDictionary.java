@@ -0,0 +1,136 @@
+package com.hm.achievement.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of names referenced by compact database tables, such as the category and subcategory names of the
+ * normalised statistics table or the achievement names of the compact achievements table. Names are mapped to integer
+ * identifiers, which are allocated on first use and shared by all servers using the same database.
+ *
+ * @author Pyves
+ */
+class IdDictionary {
+
+	// Identifier used in the subcategory column for Normal categories, which have no subcategory.
+	static final int NO_SUBCATEGORY = 0;
+
+	private static final int MAX_ALLOCATION_ATTEMPTS = 5;
+
+	private final Map<String, Integer> namesToIds = new ConcurrentHashMap<>();
+	private final AbstractDatabaseManager databaseManager;
+	private final String tableName;
+
+	IdDictionary(AbstractDatabaseManager databaseManager, String tableName) {
+		this.databaseManager = databaseManager;
+		this.tableName = tableName;
+	}
+
+	/**
+	 * Loads all the identifiers stored in the database.
+	 *
+	 * @param connection
+	 * @throws SQLException
+	 */
+	void load(Connection connection) throws SQLException {
+		try (Statement st = connection.createStatement();
+				ResultSet rs = st.executeQuery("SELECT id, name FROM " + getTable())) {
+			while (rs.next()) {
+				namesToIds.put(rs.getString(2), rs.getInt(1));
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the identifier of a name, looking it up in the database if it is not known locally, as it may have been
+	 * allocated by another server.
+	 *
+	 * @param connection
+	 * @param name
+	 * @return the identifier, or null if the name has not been allocated an identifier
+	 * @throws SQLException
+	 */
+	Integer findId(Connection connection, String name) throws SQLException {
+		Integer id = namesToIds.get(name);
+		if (id == null) {
+			try (PreparedStatement ps = connection.prepareStatement("SELECT id FROM " + getTable() + " WHERE name = ?")) {
+				ps.setString(1, name);
+				try (ResultSet rs = ps.executeQuery()) {
+					if (rs.next()) {
+						id = rs.getInt(1);
+						namesToIds.put(name, id);
+					}
+				}
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Retrieves the identifier of a name that is known to have been allocated.
+	 *
+	 * @param name
+	 * @return the identifier
+	 */
+	int getId(String name) {
+		return namesToIds.get(name);
+	}
+
+	/**
+	 * Makes sure that all the given names have been allocated an identifier. Uses its own connection, as a failed
+	 * allocation must not interfere with an ongoing transaction.
+	 *
+	 * @param names
+	 * @throws SQLException
+	 */
+	void allocateIds(Collection<String> names) throws SQLException {
+		if (namesToIds.keySet().containsAll(names)) {
+			return;
+		}
+		try (Connection connection = databaseManager.getWriteConnection()) {
+			for (String name : names) {
+				if (!namesToIds.containsKey(name)) {
+					allocateId(connection, name);
+				}
+			}
+		}
+	}
+
+	private synchronized void allocateId(Connection connection, String name) throws SQLException {
+		SQLException cause = null;
+		for (int attempt = 1; attempt <= MAX_ALLOCATION_ATTEMPTS; ++attempt) {
+			if (findId(connection, name) != null) {
+				return;
+			}
+			int id = NO_SUBCATEGORY + 1;
+			try (Statement st = connection.createStatement();
+					ResultSet rs = st.executeQuery("SELECT MAX(id) FROM " + getTable())) {
+				if (rs.next()) {
+					id = Math.max(id, rs.getInt(1) + 1);
+				}
+			}
+			try (PreparedStatement ps = connection.prepareStatement("INSERT INTO " + getTable()
+					+ " (id, name) VALUES (?,?)")) {
+				ps.setInt(1, id);
+				ps.setString(2, name);
+				ps.execute();
+				namesToIds.put(name, id);
+				return;
+			} catch (SQLException e) {
+				// Identifier or name concurrently allocated by another server, try again.
+				cause = e;
+			}
+		}
+		throw cause;
+	}
+
+	private String getTable() {
+		return databaseManager.getPrefix() + tableName;
+	}
+}
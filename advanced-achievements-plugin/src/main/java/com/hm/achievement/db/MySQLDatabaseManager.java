@@ -17,8 +17,9 @@ import org.bukkit.configuration.file.YamlConfiguration;
 public class MySQLDatabaseManager extends AbstractRemoteDatabaseManager {
 
 	public MySQLDatabaseManager(@Named("main") YamlConfiguration mainConfig, Logger logger,
-			DatabaseUpdater databaseUpdater, ExecutorService writeExecutor) {
-		super(mainConfig, logger, databaseUpdater, "com.mysql.jdbc.Driver", "mysql", writeExecutor);
+			DatabaseUpdater databaseUpdater, ExecutorService writeExecutor, ExecutorService readExecutor) {
+		super(mainConfig, logger, databaseUpdater, "com.mysql.jdbc.Driver", "mysql", writeExecutor, readExecutor,
+				DatabaseDialect.MYSQL);
 	}
 
 	@Override
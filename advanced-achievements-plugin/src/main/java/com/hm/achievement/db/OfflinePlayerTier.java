@@ -0,0 +1,135 @@
+package com.hm.achievement.db;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.hm.achievement.lifecycle.Reloadable;
+
+/**
+ * Class keeping track of the players whose data was pulled into the cache while they were not connected, for instance
+ * by the API, placeholders or commands. Such players are kept in least recently used order, and the oldest ones are
+ * evicted from the cache once there are too many of them or once they were not accessed for a while.
+ *
+ * @author Pyves
+ *
+ */
+@Singleton
+public class OfflinePlayerTier implements Reloadable {
+
+	private final YamlConfiguration mainConfig;
+	// Time of the last access of each offline player, iterated from the least recently used player. The holders are
+	// mutable to avoid boxing on every access.
+	private final Map<UUID, long[]> accessMillis = new LinkedHashMap<>(16, 0.75f, true);
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	private volatile int maxEntries = 10000;
+	private volatile long expiryMillis = TimeUnit.MINUTES.toMillis(5);
+
+	@Inject
+	public OfflinePlayerTier(@Named("main") YamlConfiguration mainConfig) {
+		this.mainConfig = mainConfig;
+	}
+
+	@Override
+	public void extractConfigurationParameters() {
+		maxEntries = Math.max(0, mainConfig.getInt("OfflineCacheMaxEntries", 10000));
+		expiryMillis = TimeUnit.SECONDS.toMillis(Math.max(0, mainConfig.getInt("OfflineCacheExpiry", 300)));
+	}
+
+	/**
+	 * Records an access to the cached data of a player who is not connected.
+	 *
+	 * @param player
+	 * @param now the current time in milliseconds
+	 */
+	synchronized void recordAccess(UUID player, long now) {
+		long[] lastAccess = accessMillis.get(player);
+		if (lastAccess == null) {
+			accessMillis.put(player, new long[] { now });
+			misses.incrementAndGet();
+		} else {
+			lastAccess[0] = now;
+			hits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Stops tracking a player, for instance because the player connected to the server.
+	 *
+	 * @param player
+	 */
+	synchronized void remove(UUID player) {
+		accessMillis.remove(player);
+	}
+
+	/**
+	 * Evicts the least recently used players until there are no more than the configured maximum number of players
+	 * and none of the remaining ones expired. Players for which the eviction function returns false, for instance
+	 * because some of their statistics have not been written to the database yet, are kept until the next call.
+	 *
+	 * @param now the current time in milliseconds
+	 * @param evictor function attempting to remove the data of a player from the cache
+	 * @return the number of evicted players
+	 */
+	synchronized int evict(long now, Predicate<UUID> evictor) {
+		int evicted = 0;
+		int size = accessMillis.size();
+		Iterator<Entry<UUID, long[]>> iterator = accessMillis.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<UUID, long[]> entry = iterator.next();
+			boolean expired = now - entry.getValue()[0] >= expiryMillis;
+			if (!expired && size - evicted <= maxEntries) {
+				// Subsequent players were accessed more recently, and therefore did not expire either.
+				break;
+			}
+			if (evictor.test(entry.getKey())) {
+				iterator.remove();
+				++evicted;
+			}
+		}
+		evictions.addAndGet(evicted);
+		return evicted;
+	}
+
+	/**
+	 * @return the number of tracked offline players
+	 */
+	public synchronized int size() {
+		return accessMillis.size();
+	}
+
+	/**
+	 * @return the number of accesses to offline players that were already cached
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * @return the number of accesses to offline players that were not cached
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * @return the number of offline players evicted from the cache
+	 */
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+}
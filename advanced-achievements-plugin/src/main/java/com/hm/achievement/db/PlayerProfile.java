@@ -0,0 +1,78 @@
+package com.hm.achievement.db;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+
+/**
+ * All the statistics and received achievements of a player, as retrieved from the database when the player logs in.
+ * Statistics that are not part of the profile have their default value.
+ *
+ * @author Pyves
+ */
+class PlayerProfile {
+
+	private static final Map<String, NormalAchievements> NORMAL_CATEGORIES_BY_DB_NAME = new HashMap<>();
+	private static final Map<String, MultipleAchievements> MULTIPLE_CATEGORIES_BY_DB_NAME = new HashMap<>();
+
+	static {
+		for (NormalAchievements category : NormalAchievements.values()) {
+			NORMAL_CATEGORIES_BY_DB_NAME.put(category.toDBName(), category);
+		}
+		for (MultipleAchievements category : MultipleAchievements.values()) {
+			MULTIPLE_CATEGORIES_BY_DB_NAME.put(category.toDBName(), category);
+		}
+	}
+
+	private final Map<NormalAchievements, Long> normalAmounts = new EnumMap<>(NormalAchievements.class);
+	private final Map<MultipleAchievements, Map<String, Long>> multipleAmounts = new EnumMap<>(
+			MultipleAchievements.class);
+	private final Set<String> achievementNames = new HashSet<>();
+
+	/**
+	 * Adds a statistic retrieved from the database. Statistics of unknown categories are ignored.
+	 *
+	 * @param category the database name of the category
+	 * @param subcategory null for Normal categories
+	 * @param amount
+	 * @param replace whether to replace a statistic of the same category and subcategory that was already added
+	 */
+	void addStatistic(String category, String subcategory, long amount, boolean replace) {
+		if (subcategory == null) {
+			NormalAchievements normalCategory = NORMAL_CATEGORIES_BY_DB_NAME.get(category);
+			if (normalCategory != null && (replace || !normalAmounts.containsKey(normalCategory))) {
+				normalAmounts.put(normalCategory, amount);
+			}
+		} else {
+			MultipleAchievements multipleCategory = MULTIPLE_CATEGORIES_BY_DB_NAME.get(category);
+			if (multipleCategory != null) {
+				Map<String, Long> amounts = multipleAmounts.computeIfAbsent(multipleCategory, c -> new HashMap<>());
+				if (replace || !amounts.containsKey(subcategory)) {
+					amounts.put(subcategory, amount);
+				}
+			}
+		}
+	}
+
+	void addAchievement(String achievementName) {
+		achievementNames.add(achievementName);
+	}
+
+	long getNormalAmount(NormalAchievements category) {
+		return normalAmounts.getOrDefault(category, 0L);
+	}
+
+	Map<String, Long> getMultipleAmounts(MultipleAchievements category) {
+		return multipleAmounts.getOrDefault(category, Collections.emptyMap());
+	}
+
+	Set<String> getAchievementNames() {
+		return achievementNames;
+	}
+}
@@ -0,0 +1,512 @@
+package com.hm.achievement.db;
+
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+
+/**
+ * Cached statistics of a single player. Normal statistics are stored in primitive arrays indexed by category ordinal,
+ * with bitmasks tracking which of them are loaded, modified since last written to the database or due to overwrite the
+ * database value. Multiple statistics are stored in an open-addressing table keyed by category ordinal and interned
+ * subcategory identifier. Updating a statistic therefore does not allocate any objects once it is cached.
+ *
+ * All methods are synchronised on the block; contention only arises with the thread writing statistics to the database.
+ * Sequences of calls that must be atomic, such as reading a value and setting its incremented value, are performed by
+ * {@link CacheManager} while holding the block's lock: statistics taken for a database write therefore always include
+ * complete increments, and increments made by concurrent threads are never lost.
+ *
+ * Increments of statistics that are still being retrieved from the database are buffered as pending increments. They
+ * are not written to the database, and prevent the block from being evicted, until the statistic is loaded.
+ *
+ * @author Pyves
+ */
+class PlayerStatBlock {
+
+	/**
+	 * Returned by the methods modifying a statistic if the statistic was previously consistent with the database.
+	 */
+	static final int STATISTIC_DIRTY = 1;
+	/**
+	 * Returned by the methods modifying a statistic if all the statistics of the block were previously consistent with
+	 * the database, in which case the player must be queued for the next database write.
+	 */
+	static final int BLOCK_DIRTY = 2;
+
+	/**
+	 * Receives the statistics of a block that have not been written to the database.
+	 */
+	interface StatisticVisitor {
+
+		void visit(NormalAchievements category, long value, long delta, boolean overwrite);
+
+		void visit(MultipleAchievements category, int subcategoryId, long value, long delta, boolean overwrite);
+	}
+
+	private static final NormalAchievements[] NORMAL_CATEGORIES = NormalAchievements.values();
+	private static final MultipleAchievements[] MULTIPLE_CATEGORIES = MultipleAchievements.values();
+	private static final int INITIAL_CAPACITY = 8;
+	private static final byte SLOT_DIRTY = 1;
+	private static final byte SLOT_OVERWRITE = 2;
+	private static final byte SLOT_PENDING = 4;
+
+	static {
+		if (NORMAL_CATEGORIES.length > Long.SIZE) {
+			throw new IllegalStateException("Normal categories no longer fit in a long bitmask.");
+		}
+	}
+
+	private final long[] normalValues = new long[NORMAL_CATEGORIES.length];
+	// Difference between the in-memory values and the values last written to the database, used for additive writes.
+	private final long[] normalDeltas = new long[NORMAL_CATEGORIES.length];
+	private long loadedMask;
+	private long dirtyMask;
+	private long overwriteMask;
+	// Statistics that are not loaded yet, whose values are the sum of the increments made while they were loading.
+	private long pendingMask;
+
+	// Multiple statistics, allocated when the first one is cached. A key of 0 denotes an empty slot.
+	private long[] slotKeys;
+	private long[] slotValues;
+	private long[] slotDeltas;
+	private byte[] slotFlags;
+	private int slotCount;
+	private int dirtySlotCount;
+	private int pendingSlotCount;
+
+	// Indicates whether the block was removed from the cache, in which case it must no longer be modified.
+	private boolean evicted;
+	// Indicates whether all the statistics of the player were loaded at once, in which case Multiple statistics that
+	// are not cached are not stored in the database either.
+	private boolean profileLoaded;
+	// Sequence number of the last database write that took the statistics of the block, see StatisticsJournal.
+	private long writeSequence;
+	// Number of database writes that took statistics of the block and whose outcome is not known yet.
+	private int writesInFlight;
+
+	/**
+	 * @param writeSequence the initial write sequence, lower than the sequence numbers of all future writes
+	 */
+	PlayerStatBlock(long writeSequence) {
+		this.writeSequence = writeSequence;
+	}
+
+	synchronized boolean isLoaded(NormalAchievements category) {
+		return (loadedMask & bit(category)) != 0;
+	}
+
+	synchronized long getValue(NormalAchievements category) {
+		return normalValues[category.ordinal()];
+	}
+
+	/**
+	 * Sets the value of a statistic retrieved from the database, unless the statistic is already cached. Pending
+	 * increments are removed and returned, they must then be applied to the loaded value.
+	 *
+	 * @param category
+	 * @param value
+	 * @return the sum of the pending increments of the statistic
+	 */
+	synchronized long load(NormalAchievements category, long value) {
+		if (isLoaded(category)) {
+			return 0L;
+		}
+		int index = category.ordinal();
+		long pendingIncrements = (pendingMask & bit(category)) == 0L ? 0L : normalValues[index];
+		normalValues[index] = value;
+		loadedMask |= bit(category);
+		pendingMask &= ~bit(category);
+		return pendingIncrements;
+	}
+
+	/**
+	 * Buffers an increment of a statistic that is not loaded yet.
+	 *
+	 * @param category
+	 * @param value
+	 */
+	synchronized void addPendingIncrement(NormalAchievements category, long value) {
+		if (!isLoaded(category)) {
+			normalValues[category.ordinal()] += value;
+			pendingMask |= bit(category);
+		}
+	}
+
+	/**
+	 * Updates the value of a statistic and marks it as no longer consistent with the database.
+	 *
+	 * @param category
+	 * @param value
+	 * @return a combination of {@link #STATISTIC_DIRTY} and {@link #BLOCK_DIRTY}
+	 */
+	synchronized int setValue(NormalAchievements category, long value) {
+		int index = category.ordinal();
+		normalDeltas[index] += value - normalValues[index];
+		normalValues[index] = value;
+		loadedMask |= bit(category);
+		return markDirty(category);
+	}
+
+	/**
+	 * Updates the value of a statistic and marks it as no longer consistent with the database. The value will
+	 * overwrite the database value even with additive writes.
+	 *
+	 * @param category
+	 * @param value
+	 * @return a combination of {@link #STATISTIC_DIRTY} and {@link #BLOCK_DIRTY}
+	 */
+	synchronized int overwriteValue(NormalAchievements category, long value) {
+		int index = category.ordinal();
+		normalDeltas[index] = 0L;
+		normalValues[index] = value;
+		loadedMask |= bit(category);
+		overwriteMask |= bit(category);
+		pendingMask &= ~bit(category);
+		return markDirty(category);
+	}
+
+	/**
+	 * Marks a statistic as inconsistent with the database again, following a failed write. If the statistic is not
+	 * loaded, the delta is buffered as a pending increment instead, and applied once the statistic is loaded.
+	 *
+	 * @param category
+	 * @param delta the delta that was taken for the failed write
+	 * @param overwrite whether the failed write was meant to overwrite the database value
+	 * @return a combination of {@link #STATISTIC_DIRTY} and {@link #BLOCK_DIRTY}
+	 */
+	synchronized int cancelDatabaseWrite(NormalAchievements category, long delta, boolean overwrite) {
+		if (!isLoaded(category)) {
+			addPendingIncrement(category, delta);
+			return 0;
+		}
+		normalDeltas[category.ordinal()] += delta;
+		if (overwrite) {
+			overwriteMask |= bit(category);
+		}
+		return markDirty(category);
+	}
+
+	synchronized boolean isDirty(NormalAchievements category) {
+		return (dirtyMask & bit(category)) != 0;
+	}
+
+	synchronized boolean isLoaded(MultipleAchievements category, int subcategoryId) {
+		int slot = findSlot(key(category, subcategoryId));
+		return slot >= 0 && (slotFlags[slot] & SLOT_PENDING) == 0;
+	}
+
+	synchronized long getValue(MultipleAchievements category, int subcategoryId) {
+		int slot = findSlot(key(category, subcategoryId));
+		return slot < 0 ? 0L : slotValues[slot];
+	}
+
+	/**
+	 * Sets the value of a statistic retrieved from the database, unless the statistic is already cached. Pending
+	 * increments are removed and returned, they must then be applied to the loaded value.
+	 *
+	 * @param category
+	 * @param subcategoryId
+	 * @param value
+	 * @return the sum of the pending increments of the statistic
+	 */
+	synchronized long load(MultipleAchievements category, int subcategoryId, long value) {
+		long key = key(category, subcategoryId);
+		int slot = findSlot(key);
+		if (slot < 0) {
+			slotValues[insertSlot(key)] = value;
+			return 0L;
+		} else if ((slotFlags[slot] & SLOT_PENDING) == 0) {
+			return 0L;
+		}
+		long pendingIncrements = slotValues[slot];
+		slotValues[slot] = value;
+		slotFlags[slot] &= ~SLOT_PENDING;
+		--pendingSlotCount;
+		return pendingIncrements;
+	}
+
+	/**
+	 * Buffers an increment of a statistic that is not loaded yet.
+	 *
+	 * @param category
+	 * @param subcategoryId
+	 * @param value
+	 */
+	synchronized void addPendingIncrement(MultipleAchievements category, int subcategoryId, long value) {
+		long key = key(category, subcategoryId);
+		int slot = findSlot(key);
+		if (slot < 0) {
+			slot = insertSlot(key);
+			slotFlags[slot] = SLOT_PENDING;
+			++pendingSlotCount;
+		}
+		if ((slotFlags[slot] & SLOT_PENDING) != 0) {
+			slotValues[slot] += value;
+		}
+	}
+
+	/**
+	 * Updates the value of a statistic and marks it as no longer consistent with the database.
+	 *
+	 * @param category
+	 * @param subcategoryId
+	 * @param value
+	 * @return a combination of {@link #STATISTIC_DIRTY} and {@link #BLOCK_DIRTY}
+	 */
+	synchronized int setValue(MultipleAchievements category, int subcategoryId, long value) {
+		int slot = getOrInsertSlot(key(category, subcategoryId));
+		slotDeltas[slot] += value - slotValues[slot];
+		slotValues[slot] = value;
+		return markDirty(slot);
+	}
+
+	/**
+	 * Updates the value of a statistic and marks it as no longer consistent with the database. The value will
+	 * overwrite the database value even with additive writes.
+	 *
+	 * @param category
+	 * @param subcategoryId
+	 * @param value
+	 * @return a combination of {@link #STATISTIC_DIRTY} and {@link #BLOCK_DIRTY}
+	 */
+	synchronized int overwriteValue(MultipleAchievements category, int subcategoryId, long value) {
+		int slot = getOrInsertSlot(key(category, subcategoryId));
+		if ((slotFlags[slot] & SLOT_PENDING) != 0) {
+			slotFlags[slot] &= ~SLOT_PENDING;
+			--pendingSlotCount;
+		}
+		slotDeltas[slot] = 0L;
+		slotValues[slot] = value;
+		slotFlags[slot] |= SLOT_OVERWRITE;
+		return markDirty(slot);
+	}
+
+	/**
+	 * Marks a statistic as inconsistent with the database again, following a failed write. If the statistic is not
+	 * loaded, the delta is buffered as a pending increment instead, and applied once the statistic is loaded.
+	 *
+	 * @param category
+	 * @param subcategoryId
+	 * @param delta the delta that was taken for the failed write
+	 * @param overwrite whether the failed write was meant to overwrite the database value
+	 * @return a combination of {@link #STATISTIC_DIRTY} and {@link #BLOCK_DIRTY}
+	 */
+	synchronized int cancelDatabaseWrite(MultipleAchievements category, int subcategoryId, long delta,
+			boolean overwrite) {
+		int slot = findSlot(key(category, subcategoryId));
+		if (slot < 0 || (slotFlags[slot] & SLOT_PENDING) != 0) {
+			addPendingIncrement(category, subcategoryId, delta);
+			return 0;
+		}
+		slotDeltas[slot] += delta;
+		if (overwrite) {
+			slotFlags[slot] |= SLOT_OVERWRITE;
+		}
+		return markDirty(slot);
+	}
+
+	synchronized boolean isDirty(MultipleAchievements category, int subcategoryId) {
+		int slot = findSlot(key(category, subcategoryId));
+		return slot >= 0 && (slotFlags[slot] & SLOT_DIRTY) != 0;
+	}
+
+	/**
+	 * @return true if any statistic of the block has not been written to the database
+	 */
+	synchronized boolean isDirty() {
+		return dirtyMask != 0L || dirtySlotCount > 0;
+	}
+
+	/**
+	 * @return true if increments of statistics that are not loaded yet are buffered in the block
+	 */
+	synchronized boolean hasPendingIncrements() {
+		return pendingMask != 0L || pendingSlotCount > 0;
+	}
+
+	/**
+	 * Passes the statistics that have not been written to the database to the visitor, and considers them written.
+	 * Their pending deltas and overwrite flags are reset. The block cannot be evicted until
+	 * {@link #completeDatabaseWrite()} is called, once the outcome of the write is known.
+	 *
+	 * @param visitor
+	 * @param writeSequence the sequence number of the database write
+	 */
+	synchronized void takeDirtyStatistics(StatisticVisitor visitor, long writeSequence) {
+		this.writeSequence = writeSequence;
+		++writesInFlight;
+		visitDirtyStatistics(visitor);
+		for (long mask = dirtyMask; mask != 0L; mask &= mask - 1) {
+			normalDeltas[Long.numberOfTrailingZeros(mask)] = 0L;
+		}
+		dirtyMask = 0L;
+		overwriteMask = 0L;
+		for (int slot = 0; dirtySlotCount > 0 && slot < slotKeys.length; ++slot) {
+			if ((slotFlags[slot] & SLOT_DIRTY) != 0) {
+				slotDeltas[slot] = 0L;
+				slotFlags[slot] = 0;
+				--dirtySlotCount;
+			}
+		}
+	}
+
+	/**
+	 * Indicates that a write of statistics taken by {@link #takeDirtyStatistics(StatisticVisitor, long)} either
+	 * succeeded or was cancelled, the statistics of failed writes having been restored beforehand.
+	 */
+	synchronized void completeDatabaseWrite() {
+		--writesInFlight;
+	}
+
+	/**
+	 * @return true if statistics of the block were taken by database writes whose outcome is not known yet
+	 */
+	synchronized boolean isBeingWritten() {
+		return writesInFlight > 0;
+	}
+
+	/**
+	 * Passes the statistics that have not been written to the database to the visitor, without modifying them.
+	 *
+	 * @param visitor
+	 */
+	synchronized void visitDirtyStatistics(StatisticVisitor visitor) {
+		for (long mask = dirtyMask; mask != 0L; mask &= mask - 1) {
+			int index = Long.numberOfTrailingZeros(mask);
+			visitor.visit(NORMAL_CATEGORIES[index], normalValues[index], normalDeltas[index],
+					(overwriteMask & (1L << index)) != 0L);
+		}
+		for (int slot = 0, remaining = dirtySlotCount; remaining > 0; ++slot) {
+			if ((slotFlags[slot] & SLOT_DIRTY) != 0) {
+				long key = slotKeys[slot];
+				visitor.visit(MULTIPLE_CATEGORIES[(int) (key >>> Integer.SIZE) - 1], (int) key, slotValues[slot],
+						slotDeltas[slot], (slotFlags[slot] & SLOT_OVERWRITE) != 0);
+				--remaining;
+			}
+		}
+	}
+
+	/**
+	 * Marks the block as removed from the cache, unless some of its statistics have not been written to the database,
+	 * are being written or are still being loaded.
+	 * Callers modifying statistics must check {@link #isEvicted()} while holding the block's lock, and retrieve a new
+	 * block if needed.
+	 *
+	 * @return true if the block can be removed from the cache, false otherwise
+	 */
+	synchronized boolean evict() {
+		if (isDirty() || isBeingWritten() || hasPendingIncrements()) {
+			return false;
+		}
+		evicted = true;
+		return true;
+	}
+
+	synchronized boolean isEvicted() {
+		return evicted;
+	}
+
+	synchronized void markProfileLoaded() {
+		profileLoaded = true;
+	}
+
+	synchronized long getWriteSequence() {
+		return writeSequence;
+	}
+
+	synchronized boolean isProfileLoaded() {
+		return profileLoaded;
+	}
+
+	private int markDirty(NormalAchievements category) {
+		if ((dirtyMask & bit(category)) != 0L) {
+			return 0;
+		}
+		int transition = isDirty() ? STATISTIC_DIRTY : STATISTIC_DIRTY | BLOCK_DIRTY;
+		dirtyMask |= bit(category);
+		return transition;
+	}
+
+	private int markDirty(int slot) {
+		if ((slotFlags[slot] & SLOT_DIRTY) != 0) {
+			return 0;
+		}
+		int transition = isDirty() ? STATISTIC_DIRTY : STATISTIC_DIRTY | BLOCK_DIRTY;
+		slotFlags[slot] |= SLOT_DIRTY;
+		++dirtySlotCount;
+		return transition;
+	}
+
+	private int getOrInsertSlot(long key) {
+		int slot = findSlot(key);
+		return slot < 0 ? insertSlot(key) : slot;
+	}
+
+	private int findSlot(long key) {
+		if (slotKeys == null) {
+			return -1;
+		}
+		int mask = slotKeys.length - 1;
+		for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+			if (slotKeys[slot] == key) {
+				return slot;
+			} else if (slotKeys[slot] == 0L) {
+				return -1;
+			}
+		}
+	}
+
+	private int insertSlot(long key) {
+		if (slotKeys == null) {
+			allocateSlots(INITIAL_CAPACITY);
+		} else if (2 * (slotCount + 1) > slotKeys.length) {
+			// Keep the load factor below 0.5 so that probe sequences remain short.
+			long[] oldKeys = slotKeys;
+			long[] oldValues = slotValues;
+			long[] oldDeltas = slotDeltas;
+			byte[] oldFlags = slotFlags;
+			allocateSlots(oldKeys.length * 2);
+			for (int oldSlot = 0; oldSlot < oldKeys.length; ++oldSlot) {
+				if (oldKeys[oldSlot] != 0L) {
+					int slot = emptySlot(oldKeys[oldSlot]);
+					slotKeys[slot] = oldKeys[oldSlot];
+					slotValues[slot] = oldValues[oldSlot];
+					slotDeltas[slot] = oldDeltas[oldSlot];
+					slotFlags[slot] = oldFlags[oldSlot];
+				}
+			}
+		}
+		int slot = emptySlot(key);
+		slotKeys[slot] = key;
+		++slotCount;
+		return slot;
+	}
+
+	private int emptySlot(long key) {
+		int mask = slotKeys.length - 1;
+		int slot = hash(key) & mask;
+		while (slotKeys[slot] != 0L) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void allocateSlots(int capacity) {
+		slotKeys = new long[capacity];
+		slotValues = new long[capacity];
+		slotDeltas = new long[capacity];
+		slotFlags = new byte[capacity];
+	}
+
+	private static long bit(NormalAchievements category) {
+		return 1L << category.ordinal();
+	}
+
+	private static long key(MultipleAchievements category, int subcategoryId) {
+		// Offset the ordinal so that no key is 0.
+		return (long) (category.ordinal() + 1) << Integer.SIZE | (subcategoryId & 0xFFFFFFFFL);
+	}
+
+	private static int hash(long key) {
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> Integer.SIZE));
+	}
+}
@@ -0,0 +1,141 @@
+package com.hm.achievement.db;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.hm.achievement.lifecycle.Reloadable;
+
+/**
+ * Class in charge of loading the data of players while they log in. Players logging in within a short window of each
+ * other, for instance when a proxy sends many players back to a restarted server, are gathered and their data is
+ * retrieved in batches, on a bounded number of threads, rather than with separate queries for each player.
+ *
+ * @author Pyves
+ *
+ */
+@Singleton
+public class ProfilePreloader implements Reloadable {
+
+	private final YamlConfiguration mainConfig;
+	private final Logger logger;
+	private final CacheManager cacheManager;
+	// Players waiting for the next batch, in login order. Guarded by this.
+	private final Map<UUID, CompletableFuture<Void>> pendingPlayers = new LinkedHashMap<>();
+
+	private volatile ScheduledExecutorService executor;
+	private volatile long windowMillis = 50L;
+	private volatile int batchSize = 100;
+	private volatile long timeoutMillis = 5000L;
+
+	@Inject
+	public ProfilePreloader(@Named("main") YamlConfiguration mainConfig, Logger logger, CacheManager cacheManager) {
+		this.mainConfig = mainConfig;
+		this.logger = logger;
+		this.cacheManager = cacheManager;
+	}
+
+	@Override
+	public void extractConfigurationParameters() {
+		windowMillis = Math.max(0, mainConfig.getInt("ProfilePreloadWindow", 50));
+		batchSize = Math.max(1, mainConfig.getInt("ProfilePreloadBatchSize", 100));
+		timeoutMillis = Math.max(0, mainConfig.getInt("ProfilePreloadTimeout", 5000));
+		if (executor == null) {
+			// The threads bound the number of batches concurrently retrieved from the database.
+			ScheduledThreadPoolExecutor threadPool = new ScheduledThreadPoolExecutor(
+					Math.max(1, mainConfig.getInt("ProfilePreloadThreads", 2)), runnable -> {
+						Thread thread = new Thread(runnable, "AdvancedAchievements-ProfilePreloader");
+						thread.setDaemon(true);
+						return thread;
+					});
+			threadPool.setRemoveOnCancelPolicy(true);
+			executor = threadPool;
+		}
+	}
+
+	/**
+	 * Loads the data of a player logging in and waits for it, up to the configured timeout. If the data could not be
+	 * loaded in time, it is loaded once needed instead. Expected to be called asynchronously.
+	 *
+	 * @param player
+	 */
+	public void preloadAndWait(UUID player) {
+		try {
+			preload(player).get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (TimeoutException e) {
+			logger.warning("Data of player " + player + " took too long to load, it will be loaded once needed.");
+		} catch (ExecutionException e) {
+			// Already logged when the batch failed.
+		}
+	}
+
+	/**
+	 * Adds a player to the next batch. The batch is retrieved once it is full or once the window of the first player
+	 * of the batch elapsed.
+	 *
+	 * @param player
+	 * @return a future completed once the player's data is in the cache
+	 */
+	CompletableFuture<Void> preload(UUID player) {
+		synchronized (this) {
+			CompletableFuture<Void> future = pendingPlayers.get(player);
+			if (future == null) {
+				future = new CompletableFuture<>();
+				pendingPlayers.put(player, future);
+				if (pendingPlayers.size() >= batchSize) {
+					submitPendingPlayers();
+				} else if (pendingPlayers.size() == 1) {
+					executor.schedule(this::submitPendingPlayers, windowMillis, TimeUnit.MILLISECONDS);
+				}
+			}
+			return future;
+		}
+	}
+
+	/**
+	 * Stops the threads loading batches. Players still waiting for their data are released.
+	 */
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+		synchronized (this) {
+			pendingPlayers.values().forEach(future -> future.complete(null));
+			pendingPlayers.clear();
+		}
+	}
+
+	private synchronized void submitPendingPlayers() {
+		if (!pendingPlayers.isEmpty()) {
+			Map<UUID, CompletableFuture<Void>> batch = new LinkedHashMap<>(pendingPlayers);
+			pendingPlayers.clear();
+			executor.execute(() -> loadBatch(batch));
+		}
+	}
+
+	private void loadBatch(Map<UUID, CompletableFuture<Void>> batch) {
+		try {
+			cacheManager.loadPlayerProfiles(batch.keySet());
+			batch.values().forEach(future -> future.complete(null));
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Failed to load the data of " + batch.size() + " players logging in:", e);
+			batch.values().forEach(future -> future.completeExceptionally(e));
+		}
+	}
+}
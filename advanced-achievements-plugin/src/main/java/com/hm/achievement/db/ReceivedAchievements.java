@@ -0,0 +1,108 @@
+package com.hm.achievement.db;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.hm.achievement.config.AchievementMap;
+
+/**
+ * Achievements received by a player, stored as a bitset indexed by the identifiers assigned by the achievement map. The
+ * class can be used as a set of achievement names; iterating over it is done on a snapshot of its contents.
+ *
+ * @author Pyves
+ */
+class ReceivedAchievements extends AbstractSet<String> {
+
+	private final AchievementMap achievementMap;
+	private long[] bits = new long[1];
+	private int size;
+
+	ReceivedAchievements(AchievementMap achievementMap, Collection<String> achievementNames) {
+		this.achievementMap = achievementMap;
+		achievementNames.forEach(this::add);
+	}
+
+	@Override
+	public synchronized boolean add(String achievementName) {
+		int id = achievementMap.getIdForName(achievementName);
+		int word = id >>> 6;
+		if (word >= bits.length) {
+			bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+		} else if ((bits[word] & 1L << id) != 0) {
+			return false;
+		}
+		bits[word] |= 1L << id;
+		++size;
+		return true;
+	}
+
+	@Override
+	public synchronized boolean remove(Object achievementName) {
+		int id = achievementName instanceof String ? achievementMap.findIdForName((String) achievementName) : -1;
+		if (id < 0 || (id >>> 6) >= bits.length || (bits[id >>> 6] & 1L << id) == 0) {
+			return false;
+		}
+		bits[id >>> 6] &= ~(1L << id);
+		--size;
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> achievementNames) {
+		boolean modified = false;
+		for (Object achievementName : achievementNames) {
+			modified |= remove(achievementName);
+		}
+		return modified;
+	}
+
+	@Override
+	public boolean contains(Object achievementName) {
+		return achievementName instanceof String && contains(achievementMap.findIdForName((String) achievementName));
+	}
+
+	/**
+	 * @param id
+	 * @return true if the achievement with the given identifier was received
+	 */
+	synchronized boolean contains(int id) {
+		return id >= 0 && (id >>> 6) < bits.length && (bits[id >>> 6] & 1L << id) != 0;
+	}
+
+	/**
+	 * Counts the received achievements whose bits are set in a mask, for instance the achievements of a category.
+	 *
+	 * @param mask
+	 * @return the number of received achievements in the mask
+	 */
+	synchronized int count(long[] mask) {
+		int count = 0;
+		for (int word = 0; word < Math.min(mask.length, bits.length); ++word) {
+			count += Long.bitCount(bits[word] & mask[word]);
+		}
+		return count;
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized Iterator<String> iterator() {
+		List<String> achievementNames = new ArrayList<>(size);
+		for (int word = 0; word < bits.length; ++word) {
+			long remainingBits = bits[word];
+			while (remainingBits != 0) {
+				achievementNames.add(achievementMap.getNameForId((word << 6) + Long.numberOfTrailingZeros(remainingBits)));
+				remainingBits &= remainingBits - 1;
+			}
+		}
+		return Collections.unmodifiableList(achievementNames).iterator();
+	}
+}
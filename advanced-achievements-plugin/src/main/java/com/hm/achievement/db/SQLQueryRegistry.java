@@ -0,0 +1,298 @@
+package com.hm.achievement.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+
+/**
+ * Texts of the SQL queries run by the database manager, computed once for a given table prefix. Each query is
+ * registered under a name, which is used to keep track of the number of executions and of the time spent running it,
+ * and to identify slow queries in the logs.
+ *
+ * @author Pyves
+ */
+class SQLQueryRegistry {
+
+	/**
+	 * Queries that do not depend on a category. Each of them exists in two variants, depending on whether achievements
+	 * are stored in the compact schema.
+	 */
+	enum Query {
+		ACHIEVEMENT_NAMES,
+		ACHIEVEMENT_DATE,
+		ACHIEVEMENT_COUNTS,
+		TOP_LIST,
+		TOP_LIST_SINCE,
+		REGISTER_ACHIEVEMENT,
+		DELETE_ACHIEVEMENT,
+		DELETE_ALL_ACHIEVEMENTS,
+		ACHIEVEMENTS_OLDEST_FIRST,
+		ACHIEVEMENTS_NEWEST_FIRST,
+		ACHIEVEMENT_RECIPIENTS,
+		CONNECTION_INFORMATION,
+		UPDATE_CONNECTION_INFORMATION,
+		CLEAR_CONNECTION,
+		NORMALISED_STATISTIC,
+		WRITTEN_JOURNAL_SEQUENCES
+	}
+
+	// Name under which executions of queries that were not registered, such as the ones with IN clauses, are recorded.
+	static final String UNREGISTERED = "unregistered";
+	// Name of the statements writing a fixed number of statistics at once.
+	static final String BATCH_UPSERT = "batch_upsert";
+
+	private final Logger logger;
+	private final long slowQueryThresholdNanos;
+	private final Map<Query, String> queries = new EnumMap<>(Query.class);
+	private final Map<Query, String> compactQueries = new EnumMap<>(Query.class);
+	private final Map<NormalAchievements, String> normalStatisticQueries = new EnumMap<>(NormalAchievements.class);
+	private final Map<MultipleAchievements, String> multipleStatisticQueries = new EnumMap<>(
+			MultipleAchievements.class);
+	private final Map<NormalAchievements, String> normalProfileSelects = new EnumMap<>(NormalAchievements.class);
+	private final Map<MultipleAchievements, String> multipleProfileSelects = new EnumMap<>(MultipleAchievements.class);
+	// Batch upserts are registered as they are built.
+	private final Map<String, String> namesBySql = new ConcurrentHashMap<>();
+	private final Map<String, QueryTiming> timings = new ConcurrentHashMap<>();
+	private final String normalisedProfileSelect;
+	private final String achievementsProfileSelect;
+	private final String compactAchievementsProfileSelect;
+
+	/**
+	 * @param prefix
+	 * @param dialect
+	 * @param logger
+	 * @param slowQueryThresholdMillis queries running for longer are logged, 0 to disable
+	 */
+	SQLQueryRegistry(String prefix, DatabaseDialect dialect, Logger logger, long slowQueryThresholdMillis) {
+		this.logger = logger;
+		this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+		String achievements = prefix + "achievements";
+		String compactAchievements = prefix + "achievements_compact";
+		String compactAchievementsWithNames = compactAchievements + " a JOIN " + prefix
+				+ "achievement_dictionary d ON a.achievement_id = d.id";
+		String connectionsName = NormalAchievements.CONNECTIONS.toDBName();
+		String connections = prefix + connectionsName;
+
+		register(Query.ACHIEVEMENT_NAMES, "SELECT achievement FROM " + achievements + " WHERE playername = ?",
+				"SELECT d.name FROM " + compactAchievementsWithNames + " WHERE a.playername = ?");
+		register(Query.ACHIEVEMENT_DATE, "SELECT date FROM " + achievements + " WHERE playername = ? AND achievement = ?",
+				"SELECT date FROM " + compactAchievements + " WHERE playername = ? AND achievement_id = ?");
+		register(Query.ACHIEVEMENT_COUNTS, "SELECT playername, COUNT(*) FROM " + achievements + " GROUP BY playername",
+				"SELECT playername, COUNT(*) FROM " + compactAchievements + " GROUP BY playername");
+		register(Query.TOP_LIST,
+				"SELECT playername, COUNT(*) FROM " + achievements + " GROUP BY playername ORDER BY COUNT(*) DESC",
+				"SELECT playername, COUNT(*) FROM " + compactAchievements + " GROUP BY playername ORDER BY COUNT(*) DESC");
+		register(Query.TOP_LIST_SINCE,
+				"SELECT playername, COUNT(*) FROM " + achievements
+						+ " WHERE date > ? GROUP BY playername ORDER BY COUNT(*) DESC",
+				"SELECT playername, COUNT(*) FROM " + compactAchievements
+						+ " WHERE date > ? GROUP BY playername ORDER BY COUNT(*) DESC");
+		register(Query.REGISTER_ACHIEVEMENT,
+				dialect.upsert(achievements, new String[] { "playername", "achievement" }, new String[] { "date" }, 1),
+				dialect.upsert(compactAchievements, new String[] { "playername", "achievement_id" },
+						new String[] { "date" }, 1));
+		register(Query.DELETE_ACHIEVEMENT, "DELETE FROM " + achievements + " WHERE playername = ? AND achievement = ?",
+				"DELETE FROM " + compactAchievements + " WHERE playername = ? AND achievement_id = ?");
+		register(Query.DELETE_ALL_ACHIEVEMENTS, "DELETE FROM " + achievements + " WHERE playername = ?",
+				"DELETE FROM " + compactAchievements + " WHERE playername = ?");
+		register(Query.ACHIEVEMENTS_OLDEST_FIRST,
+				"SELECT achievement, date FROM " + achievements + " WHERE playername = ? ORDER BY date ASC",
+				"SELECT d.name, a.date FROM " + compactAchievementsWithNames
+						+ " WHERE a.playername = ? ORDER BY a.date ASC");
+		register(Query.ACHIEVEMENTS_NEWEST_FIRST,
+				"SELECT achievement, date FROM " + achievements + " WHERE playername = ? ORDER BY date DESC",
+				"SELECT d.name, a.date FROM " + compactAchievementsWithNames
+						+ " WHERE a.playername = ? ORDER BY a.date DESC");
+		register(Query.ACHIEVEMENT_RECIPIENTS,
+				"SELECT playername, date FROM " + achievements + " WHERE achievement = ? ORDER BY date DESC LIMIT 1000",
+				"SELECT playername, date FROM " + compactAchievements
+						+ " WHERE achievement_id = ? ORDER BY date DESC LIMIT 1000");
+		// Connections and normalised statistics do not depend on the achievements schema.
+		String connectionInformation = "SELECT " + connectionsName + ", date FROM " + connections
+				+ " WHERE playername = ?";
+		register(Query.CONNECTION_INFORMATION, connectionInformation, connectionInformation);
+		String updateConnectionInformation = dialect.upsert(connections, new String[] { "playername" },
+				new String[] { connectionsName, "date" }, 1);
+		register(Query.UPDATE_CONNECTION_INFORMATION, updateConnectionInformation, updateConnectionInformation);
+		String clearConnection = "DELETE FROM " + connections + " WHERE playername = ?";
+		register(Query.CLEAR_CONNECTION, clearConnection, clearConnection);
+		String normalisedStatistic = "SELECT amount FROM " + prefix
+				+ "statistics WHERE playername = ? AND category_id = ? AND subcategory_id = ?";
+		register(Query.NORMALISED_STATISTIC, normalisedStatistic, normalisedStatistic);
+		String writtenJournalSequences = "SELECT playername, write_sequence FROM " + prefix
+				+ "journal_sequences WHERE journal = ?";
+		register(Query.WRITTEN_JOURNAL_SEQUENCES, writtenJournalSequences, writtenJournalSequences);
+
+		for (NormalAchievements category : NormalAchievements.values()) {
+			String dbName = category.toDBName();
+			String sql = "SELECT " + dbName + " FROM " + prefix + dbName + " WHERE playername = ?";
+			normalStatisticQueries.put(category, sql);
+			namesBySql.put(sql, "statistic_" + dbName);
+			int kind = category == NormalAchievements.CONNECTIONS ? AbstractDatabaseManager.PROFILE_STATISTIC
+					: AbstractDatabaseManager.PROFILE_LEGACY_STATISTIC;
+			normalProfileSelects.put(category, "SELECT " + kind + ", playername, '" + dbName + "', NULL, " + dbName
+					+ " FROM " + prefix + dbName + " WHERE playername IN ");
+		}
+		for (MultipleAchievements category : MultipleAchievements.values()) {
+			String dbName = category.toDBName();
+			String sql = "SELECT " + dbName + " FROM " + prefix + dbName + " WHERE playername = ? AND "
+					+ category.toSubcategoryDBName() + " = ?";
+			multipleStatisticQueries.put(category, sql);
+			namesBySql.put(sql, "statistic_" + dbName);
+			multipleProfileSelects.put(category, "SELECT " + AbstractDatabaseManager.PROFILE_LEGACY_STATISTIC
+					+ ", playername, '" + dbName + "', " + category.toSubcategoryDBName() + ", " + dbName + " FROM "
+					+ prefix + dbName + " WHERE playername IN ");
+		}
+		normalisedProfileSelect = "SELECT " + AbstractDatabaseManager.PROFILE_STATISTIC
+				+ ", st.playername, c.name, s.name, st.amount FROM " + prefix + "statistics st JOIN " + prefix
+				+ "statistics_dictionary c ON st.category_id = c.id LEFT JOIN " + prefix
+				+ "statistics_dictionary s ON st.subcategory_id = s.id WHERE st.playername IN ";
+		achievementsProfileSelect = "SELECT " + AbstractDatabaseManager.PROFILE_ACHIEVEMENT
+				+ ", playername, achievement, NULL, 0 FROM " + achievements + " WHERE playername IN ";
+		compactAchievementsProfileSelect = "SELECT " + AbstractDatabaseManager.PROFILE_ACHIEVEMENT
+				+ ", a.playername, d.name, NULL, 0 FROM " + compactAchievementsWithNames + " WHERE a.playername IN ";
+	}
+
+	/**
+	 * @param query
+	 * @param compact whether achievements are stored in the compact schema
+	 * @return the text of the query
+	 */
+	String get(Query query, boolean compact) {
+		return compact ? compactQueries.get(query) : queries.get(query);
+	}
+
+	String getStatistic(NormalAchievements category) {
+		return normalStatisticQueries.get(category);
+	}
+
+	String getStatistic(MultipleAchievements category) {
+		return multipleStatisticQueries.get(category);
+	}
+
+	/**
+	 * Returns the selects of the queries retrieving the profiles of players, up to their IN clause.
+	 *
+	 * @param normalised whether to include the normalised statistics table
+	 * @param legacy whether to include the per-category statistics tables
+	 * @param achievements whether to include the achievements table, which is not possible with the compact schema
+	 * @return the selects, to be combined with UNION ALL
+	 */
+	List<String> getProfileSelects(boolean normalised, boolean legacy, boolean achievements) {
+		List<String> selects = new ArrayList<>();
+		if (normalised) {
+			selects.add(normalisedProfileSelect);
+		}
+		for (NormalAchievements category : NormalAchievements.values()) {
+			// Connections are always stored in their own table.
+			if (legacy || category == NormalAchievements.CONNECTIONS) {
+				selects.add(normalProfileSelects.get(category));
+			}
+		}
+		if (legacy) {
+			selects.addAll(multipleProfileSelects.values());
+		}
+		if (achievements) {
+			selects.add(achievementsProfileSelect);
+		}
+		return selects;
+	}
+
+	/**
+	 * @return the select of the query retrieving the compact achievements of players, up to its IN clause
+	 */
+	String getCompactAchievementsProfileSelect() {
+		return compactAchievementsProfileSelect;
+	}
+
+	/**
+	 * Registers a multi-row upsert writing a fixed number of rows, which is run repeatedly with different values.
+	 *
+	 * @param sql
+	 */
+	void registerBatchUpsert(String sql) {
+		namesBySql.putIfAbsent(sql, BATCH_UPSERT);
+	}
+
+	/**
+	 * @param sql
+	 * @return whether the query was registered, in which case it is run often enough for its prepared statement to be
+	 *         cached
+	 */
+	boolean isRegistered(String sql) {
+		return namesBySql.containsKey(sql);
+	}
+
+	/**
+	 * Records an execution of a query and logs it if it was slow.
+	 *
+	 * @param sql
+	 * @param nanos time spent running the query
+	 */
+	void recordExecution(String sql, long nanos) {
+		String name = namesBySql.getOrDefault(sql, UNREGISTERED);
+		timings.computeIfAbsent(name, n -> new QueryTiming()).record(nanos);
+		if (slowQueryThresholdNanos > 0 && nanos >= slowQueryThresholdNanos) {
+			logger.warning("Database query " + name + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms: " + sql);
+		}
+	}
+
+	/**
+	 * @return the names of the queries that were executed, along with their number of executions
+	 */
+	Map<String, Long> getExecutions() {
+		Map<String, Long> executions = new HashMap<>();
+		timings.forEach((name, timing) -> executions.put(name, timing.executions.sum()));
+		return Collections.unmodifiableMap(executions);
+	}
+
+	/**
+	 * @param name
+	 * @return the total time spent running the query, in milliseconds
+	 */
+	long getExecutionMillis(String name) {
+		QueryTiming timing = timings.get(name);
+		return timing == null ? 0L : TimeUnit.NANOSECONDS.toMillis(timing.nanos.sum());
+	}
+
+	/**
+	 * @param name
+	 * @return the longest execution of the query, in milliseconds
+	 */
+	long getMaxExecutionMillis(String name) {
+		QueryTiming timing = timings.get(name);
+		return timing == null ? 0L : TimeUnit.NANOSECONDS.toMillis(timing.maxNanos.get());
+	}
+
+	private void register(Query query, String sql, String compactSql) {
+		String name = query.name().toLowerCase();
+		queries.put(query, sql);
+		compactQueries.put(query, compactSql);
+		namesBySql.put(sql, name);
+		namesBySql.putIfAbsent(compactSql, name + "_compact");
+	}
+
+	private static final class QueryTiming {
+
+		private final LongAdder executions = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private void record(long executionNanos) {
+			executions.increment();
+			nanos.add(executionNanos);
+			maxNanos.accumulateAndGet(executionNanos, Math::max);
+		}
+	}
+}
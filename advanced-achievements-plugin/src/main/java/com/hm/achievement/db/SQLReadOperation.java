@@ -14,6 +14,7 @@ import java.sql.SQLException;
 public interface SQLReadOperation<T> {
 
 	int MAX_ATTEMPTS = 3;
+	long INITIAL_BACKOFF_MILLIS = 50L;
 
 	/**
 	 * Performs a single read operation on the database.
@@ -25,7 +26,8 @@ public interface SQLReadOperation<T> {
 
 	/**
 	 * Calls {@code performRead} repeatedly until the read succeeds or {@code MAX_ATTEMPTS} is reached, in which case a
-	 * runtime exception is thrown.
+	 * runtime exception is thrown. The wait between attempts doubles after each failure, so that a database that is
+	 * briefly unavailable is not immediately hit again.
 	 *
 	 * @param operationMessage
 	 * @return the result of a successful read operation
@@ -38,7 +40,26 @@ public interface SQLReadOperation<T> {
 			} catch (SQLException e) {
 				cause = e;
 			}
+			if (attempt < MAX_ATTEMPTS && !sleepBeforeRetry(attempt)) {
+				break;
+			}
 		}
 		throw new DatabaseReadError("Database read error while " + operationMessage + ".", cause);
 	}
+
+	/**
+	 * Sleeps before the next attempt.
+	 *
+	 * @param attempt number of the failed attempt
+	 * @return true if the next attempt can be made, false if the thread was interrupted
+	 */
+	default boolean sleepBeforeRetry(int attempt) {
+		try {
+			Thread.sleep(INITIAL_BACKOFF_MILLIS << (attempt - 1));
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
 }
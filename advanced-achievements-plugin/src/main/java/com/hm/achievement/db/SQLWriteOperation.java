@@ -38,13 +38,14 @@ public interface SQLWriteOperation {
 	 *
 	 * @param logger
 	 * @param operationMessage
+	 * @return true if the write succeeded, false otherwise
 	 */
-	default void attemptWrites(Logger logger, String operationMessage) {
+	default boolean attemptWrites(Logger logger, String operationMessage) {
 		for (int attempt = 1; attempt <= MAX_ATTEMPTS; ++attempt) {
 			try {
 				performWrite();
 				// Operation succeeded: return immediately.
-				return;
+				return true;
 			} catch (SQLException e) {
 				if (attempt == MAX_ATTEMPTS) {
 					// Final attempt: log error.
@@ -55,6 +56,7 @@ public interface SQLWriteOperation {
 				}
 			}
 		}
+		return false;
 	}
 
 	/**
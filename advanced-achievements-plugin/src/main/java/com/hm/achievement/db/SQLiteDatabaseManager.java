@@ -1,6 +1,9 @@
 package com.hm.achievement.db;
 
 import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
@@ -18,9 +21,31 @@ import com.hm.achievement.AdvancedAchievements;
  */
 public class SQLiteDatabaseManager extends AbstractFileDatabaseManager {
 
+	private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
 	public SQLiteDatabaseManager(@Named("main") YamlConfiguration mainConfig, Logger logger, DatabaseUpdater databaseUpdater,
-			AdvancedAchievements advancedAchievements, ExecutorService writeExecutor) {
+			AdvancedAchievements advancedAchievements, ExecutorService writeExecutor, ExecutorService readExecutor) {
 		super(mainConfig, logger, databaseUpdater, advancedAchievements, "org.sqlite.JDBC", "jdbc:sqlite:"
-				+ new File(advancedAchievements.getDataFolder(), "achievements.db"), "achievements.db", writeExecutor);
+				+ new File(advancedAchievements.getDataFolder(), "achievements.db"), "achievements.db", writeExecutor,
+				readExecutor, DatabaseDialect.SQLITE);
+	}
+
+	@Override
+	int getWritePoolSize() {
+		// SQLite only supports a single writer at a time, additional writers would simply wait on the database lock.
+		return 1;
+	}
+
+	@Override
+	Connection createConnection() throws SQLException {
+		Connection connection = super.createConnection();
+		try (Statement st = connection.createStatement()) {
+			// Let readers wait for the writer to release its lock instead of immediately failing with SQLITE_BUSY.
+			st.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		return connection;
 	}
 }
@@ -0,0 +1,720 @@
+package com.hm.achievement.db;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.exception.DatabaseReadError;
+
+/**
+ * Append-only journal of the statistics modified in the cache but not yet written to the database. Records are first
+ * staged in memory, in stripes selected by player so that appending threads rarely contend and the records of a given
+ * player remain ordered. Stripes are moved to memory-mapped segment files when they are full and by the periodic
+ * synchronisation, which also forces the segments to disk. Segments are recycled once their statistics have been
+ * written to the database; the remaining ones are replayed into the cache when the plugin starts. Segment files start
+ * with their sequence number, so that they can be reused without being renamed or deleted while mapped.
+ *
+ * Records contain both the updated value of a statistic and the difference with its previous value. Replaying a record
+ * several times is harmless when absolute values are written to the database, but not with additive writes. Records
+ * therefore also contain the write sequence of the player's statistics: each time the statistics of a player are taken
+ * from the cache to be written to the database, they are allocated a new sequence number, which is stored in the
+ * database in the same transaction as the statistics. Records whose sequence number is lower than the one stored in the
+ * database were included in a committed write, and are not replayed.
+ *
+ * @author Pyves
+ */
+@Singleton
+public class StatisticsJournal {
+
+	static final int SEGMENT_SIZE = 1 << 20;
+
+	private static final String SEGMENT_PREFIX = "statistics-";
+	private static final String SEGMENT_SUFFIX = ".journal";
+	private static final String CHECKPOINT_FILE = "checkpoint";
+	private static final String ID_FILE = "id";
+	// Sequence number of the segment, 0 if the segment is not in use.
+	private static final int HEADER_SIZE = 8;
+	private static final byte NORMAL_RECORD = 1;
+	private static final byte MULTIPLE_RECORD = 2;
+	private static final int MAX_SUBCATEGORY_LENGTH = 0xFFFF;
+	// Type, category length, UUID, value, delta, write sequence and checksum, followed by the category and by the
+	// subcategory length and subcategory for Multiple records.
+	private static final int FIXED_RECORD_SIZE = 1 + 1 + 16 + 8 + 8 + 8 + 4;
+	private static final int STRIPE_COUNT = 16;
+	private static final int STRIPE_SIZE = 8192;
+	// Committed segments kept for reuse, further ones are deleted.
+	private static final int MAX_SPARE_SEGMENTS = 2;
+	private static final byte[] ZEROS = new byte[8192];
+
+	private final Map<NormalAchievements, byte[]> normalCategoryNames = new EnumMap<>(NormalAchievements.class);
+	private final Map<MultipleAchievements, byte[]> multipleCategoryNames = new EnumMap<>(MultipleAchievements.class);
+	private final YamlConfiguration mainConfig;
+	private final Logger logger;
+	private final AdvancedAchievements advancedAchievements;
+	private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+	// Segments whose statistics may not have been written to the database, including the current one, by sequence.
+	private final TreeMap<Long, Segment> segments = new TreeMap<>();
+	// Segments mapped in advance or recycled, used by the next segments so that appends do not wait for new files.
+	private final Deque<Segment> spareSegments = new ArrayDeque<>();
+	// Segments that are no longer appended to but that have not yet been forced to disk.
+	private final List<MappedByteBuffer> unsyncedSegments = new ArrayList<>();
+	// Derived from the clock so that it remains greater than the sequence numbers allocated during previous runs.
+	private final AtomicLong writeSequence = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+	private File directory;
+	private String id;
+	private volatile boolean enabled = false;
+	private long currentSequence;
+	private Segment currentSegment;
+	private int nextFileIndex;
+	private volatile boolean unsyncedRecords = false;
+
+	@Inject
+	public StatisticsJournal(@Named("main") YamlConfiguration mainConfig, Logger logger,
+			AdvancedAchievements advancedAchievements) {
+		this.mainConfig = mainConfig;
+		this.logger = logger;
+		this.advancedAchievements = advancedAchievements;
+		for (NormalAchievements category : NormalAchievements.values()) {
+			normalCategoryNames.put(category, category.toDBName().getBytes(StandardCharsets.UTF_8));
+		}
+		for (MultipleAchievements category : MultipleAchievements.values()) {
+			multipleCategoryNames.put(category, category.toDBName().getBytes(StandardCharsets.UTF_8));
+		}
+		for (int i = 0; i < STRIPE_COUNT; ++i) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * Replays the records of the segments that were not discarded during the previous run, and starts a new segment.
+	 * Failures are logged and result in the journal being disabled, they do not prevent the plugin from loading. If
+	 * journaling is disabled, statistics spilled during the previous shutdown are still replayed.
+	 *
+	 * @param cacheManager the cache in which journaled statistics are restored
+	 * @param writtenSequences function returning the write sequences stored in the database for the given journal
+	 *            identifier, by player
+	 */
+	public synchronized void open(CacheManager cacheManager, Function<String, Map<UUID, Long>> writtenSequences) {
+		if (enabled) {
+			return;
+		}
+		directory = new File(advancedAchievements.getDataFolder(), "journal");
+		boolean journaling = mainConfig.getBoolean("StatisticsJournal", true);
+		if (!journaling && !directory.isDirectory()) {
+			return;
+		}
+		try {
+			Files.createDirectories(directory.toPath());
+			id = readId();
+			Map<UUID, Long> playerSequences = writtenSequences.apply(id);
+			playerSequences.values().forEach(sequence -> writeSequence.accumulateAndGet(sequence, Math::max));
+			long checkpoint = readCheckpoint();
+			long lastSequence = checkpoint;
+			List<File> files = listSegments();
+			Map<Long, File> replayedSegments = new TreeMap<>();
+			List<File> unusedSegments = new ArrayList<>();
+			for (File file : files) {
+				long sequence = readSequence(file);
+				lastSequence = Math.max(lastSequence, sequence);
+				if (sequence > 0L && sequence >= checkpoint) {
+					replayedSegments.put(sequence, file);
+				} else {
+					unusedSegments.add(file);
+				}
+			}
+			int replayedRecords = 0;
+			for (File file : replayedSegments.values()) {
+				replayedRecords += replaySegment(file, cacheManager, playerSequences);
+			}
+			if (replayedRecords > 0) {
+				logger.info("Restored " + replayedRecords + " statistic updates that were not written to the database.");
+			}
+			currentSequence = lastSequence;
+			if (journaling) {
+				for (Map.Entry<Long, File> replayedSegment : replayedSegments.entrySet()) {
+					// Kept until the replayed statistics are written to the database, then entirely cleared.
+					Segment segment = mapSegment(replayedSegment.getValue());
+					segment.buffer.position(segment.buffer.limit());
+					segments.put(replayedSegment.getKey(), segment);
+				}
+				List<Segment> recycledSegments = new ArrayList<>();
+				for (File file : unusedSegments) {
+					Segment segment = mapSegment(file);
+					segment.buffer.position(segment.buffer.limit());
+					recycledSegments.add(segment);
+				}
+				recycle(recycledSegments);
+				startNextSegment();
+				enabled = true;
+			} else {
+				// The replayed statistics are only kept in the cache from now on.
+				for (File file : files) {
+					if (!file.delete()) {
+						logger.fine("Could not delete statistics journal segment " + file.getName() + ".");
+					}
+				}
+			}
+		} catch (IOException | DatabaseReadError e) {
+			// Segments are kept, they will be replayed the next time the journal is successfully opened.
+			logger.log(Level.SEVERE, "Error while opening the statistics journal, it will be disabled:", e);
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the identifier under which the write sequences of the statistics journaled by this server are stored in
+	 * the database, which may be shared with other servers.
+	 *
+	 * @return the identifier, or null if journaling is disabled
+	 */
+	public String getId() {
+		return enabled ? id : null;
+	}
+
+	/**
+	 * Allocates the sequence number of a write of the statistics of a player. Must be called while holding the lock of
+	 * the player's statistics, right before taking them from the cache.
+	 *
+	 * @return a sequence number greater than those of all the records journaled for the player beforehand
+	 */
+	long nextWriteSequence() {
+		return writeSequence.incrementAndGet();
+	}
+
+	/**
+	 * @return the write sequence of the statistics of players that were never taken from the cache
+	 */
+	long getWriteSequence() {
+		return writeSequence.get();
+	}
+
+	/**
+	 * Journals the updated value of a Normal statistic.
+	 *
+	 * @param category
+	 * @param player
+	 * @param value
+	 * @param delta the difference with the previous value of the statistic
+	 * @param writeSequence the sequence number of the last write that took the statistics of the player
+	 */
+	public void append(NormalAchievements category, UUID player, long value, long delta, long writeSequence) {
+		if (enabled) {
+			append(NORMAL_RECORD, normalCategoryNames.get(category), player, value, delta, writeSequence, -1, null);
+		}
+	}
+
+	/**
+	 * Journals the updated value of a Multiple statistic.
+	 *
+	 * @param category
+	 * @param subcategoryId the identifier of the subcategory interned by the cache
+	 * @param subcategory
+	 * @param player
+	 * @param value
+	 * @param delta the difference with the previous value of the statistic
+	 * @param writeSequence the sequence number of the last write that took the statistics of the player
+	 */
+	public void append(MultipleAchievements category, int subcategoryId, String subcategory, UUID player, long value,
+			long delta, long writeSequence) {
+		if (enabled) {
+			append(MULTIPLE_RECORD, multipleCategoryNames.get(category), player, value, delta, writeSequence,
+					subcategoryId, subcategory);
+		}
+	}
+
+	/**
+	 * Starts a new segment, unless the current one is still empty. Must be called before collecting the statistics to
+	 * write to the database: all statistics journaled beforehand are then contained in segments older than the returned
+	 * sequence number.
+	 *
+	 * @return the sequence number to pass to {@link #commit(long)} once the collected statistics have been written
+	 */
+	public long rotate() {
+		drainStripes();
+		MappedByteBuffer retiredSegment;
+		long sequence;
+		synchronized (this) {
+			if (!enabled || currentSegment.buffer.position() == HEADER_SIZE) {
+				return currentSequence;
+			}
+			retiredSegment = currentSegment.buffer;
+			try {
+				startNextSegment();
+			} catch (IOException e) {
+				disable(e);
+				return currentSequence;
+			}
+			// Stripes may start further segments once the lock is released.
+			sequence = currentSequence;
+		}
+		force(retiredSegment);
+		prepareSpareSegment();
+		return sequence;
+	}
+
+	/**
+	 * Recycles all segments older than the given sequence number, their statistics having been written to the
+	 * database.
+	 *
+	 * @param sequence
+	 */
+	public void commit(long sequence) {
+		if (!enabled || !writeCheckpoint(sequence)) {
+			return;
+		}
+		List<Segment> committedSegments = new ArrayList<>();
+		synchronized (this) {
+			Iterator<Segment> iterator = segments.headMap(sequence).values().iterator();
+			while (iterator.hasNext()) {
+				committedSegments.add(iterator.next());
+				iterator.remove();
+			}
+		}
+		recycle(committedSegments);
+	}
+
+	private boolean writeCheckpoint(long sequence) {
+		try {
+			File temporaryCheckpoint = new File(directory, CHECKPOINT_FILE + ".tmp");
+			try (FileChannel channel = FileChannel.open(temporaryCheckpoint.toPath(), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.UTF_8)));
+				channel.force(true);
+			}
+			Files.move(temporaryCheckpoint.toPath(), new File(directory, CHECKPOINT_FILE).toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Error while updating the statistics journal checkpoint:", e);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces the contents of the journal by the records written by the given task, and forces them to disk. Used
+	 * during shutdown to keep the statistics that could not be written to the database, even if journaling is
+	 * disabled. Older segments are only discarded if none of their statistics can still be written to the database
+	 * concurrently: statistics already taken from the cache by a write that is still in progress are not part of the
+	 * spilled records, and are only kept by the segments they were initially journaled in.
+	 *
+	 * @param recordWriter task appending records for the statistics to keep
+	 * @param discardOlderSegments whether all statistics taken from the cache were either written to the database or
+	 *            put back in the cache
+	 */
+	public void spill(Runnable recordWriter, boolean discardOlderSegments) {
+		synchronized (this) {
+			if (!enabled) {
+				// Segments left over if the journal could not be opened have not been replayed yet.
+				discardOlderSegments = false;
+				try {
+					directory = new File(advancedAchievements.getDataFolder(), "journal");
+					Files.createDirectories(directory.toPath());
+					currentSequence = readCheckpoint();
+					for (File file : listSegments()) {
+						currentSequence = Math.max(currentSequence, readSequence(file));
+					}
+					startNextSegment();
+					enabled = true;
+				} catch (IOException e) {
+					logger.log(Level.SEVERE, "Error while spilling statistics to the journal, they will be lost:", e);
+					return;
+				}
+			}
+		}
+		long sequence = rotate();
+		recordWriter.run();
+		sync();
+		if (discardOlderSegments) {
+			// Older segments only contain records superseded by the ones that were just written.
+			commit(sequence);
+		}
+	}
+
+	/**
+	 * Moves the staged records to the segments and forces them to disk. Called periodically so that several records
+	 * share the cost of a single synchronisation. Also maps the next segment in advance if needed.
+	 */
+	public void sync() {
+		drainStripes();
+		prepareSpareSegment();
+		if (!unsyncedRecords) {
+			return;
+		}
+		List<MappedByteBuffer> segmentsToSync;
+		synchronized (this) {
+			unsyncedRecords = false;
+			segmentsToSync = new ArrayList<>(unsyncedSegments);
+			unsyncedSegments.clear();
+			if (currentSegment != null) {
+				segmentsToSync.add(currentSegment.buffer);
+			}
+		}
+		segmentsToSync.forEach(this::force);
+	}
+
+	/**
+	 * Forces remaining records to disk and stops journaling. Segments are kept so that they can be replayed if the
+	 * statistics they contain were not written to the database.
+	 */
+	public void close() {
+		sync();
+		synchronized (this) {
+			enabled = false;
+			currentSegment = null;
+			segments.clear();
+			spareSegments.clear();
+			unsyncedSegments.clear();
+		}
+	}
+
+	private void append(byte type, byte[] category, UUID player, long value, long delta, long writeSequence,
+			int subcategoryId, String subcategory) {
+		Stripe stripe = stripes[player.hashCode() & (STRIPE_COUNT - 1)];
+		synchronized (stripe) {
+			byte[] subcategoryBytes = null;
+			int recordSize = FIXED_RECORD_SIZE + category.length;
+			if (subcategory != null) {
+				subcategoryBytes = stripe.encodeSubcategory(subcategoryId, subcategory);
+				if (subcategoryBytes.length > MAX_SUBCATEGORY_LENGTH) {
+					return;
+				}
+				recordSize += 2 + subcategoryBytes.length;
+			}
+			if (stripe.records.remaining() < recordSize) {
+				drain(stripe);
+				if (stripe.records.capacity() < recordSize) {
+					stripe.records = ByteBuffer.allocate(recordSize);
+				}
+			}
+			ByteBuffer records = stripe.records;
+			int start = records.position();
+			records.put(type).put((byte) category.length).put(category);
+			records.putLong(player.getMostSignificantBits()).putLong(player.getLeastSignificantBits()).putLong(value);
+			records.putLong(delta).putLong(writeSequence);
+			if (subcategoryBytes != null) {
+				records.putShort((short) subcategoryBytes.length).put(subcategoryBytes);
+			}
+			stripe.checksum.reset();
+			stripe.checksum.update(records.array(), start, records.position() - start);
+			records.putInt((int) stripe.checksum.getValue());
+		}
+	}
+
+	private void drainStripes() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				drain(stripe);
+			}
+		}
+	}
+
+	/**
+	 * Moves the records staged in a stripe to the current segment. Must be called while holding the stripe's lock.
+	 *
+	 * @param stripe
+	 */
+	private void drain(Stripe stripe) {
+		ByteBuffer records = stripe.records;
+		if (records.position() == 0) {
+			return;
+		}
+		records.flip();
+		synchronized (this) {
+			if (enabled) {
+				try {
+					if (currentSegment.buffer.remaining() < records.remaining()) {
+						unsyncedSegments.add(currentSegment.buffer);
+						startNextSegment();
+					}
+					currentSegment.buffer.put(records);
+					unsyncedRecords = true;
+				} catch (IOException e) {
+					disable(e);
+				}
+			}
+		}
+		records.clear();
+	}
+
+	/**
+	 * Starts the next segment, preferably with a spare one. Must be called while holding the journal's lock.
+	 *
+	 * @throws IOException
+	 */
+	private void startNextSegment() throws IOException {
+		Segment segment = spareSegments.poll();
+		if (segment == null) {
+			// No segment was prepared in time.
+			segment = mapSegment(new File(directory, SEGMENT_PREFIX + nextFileIndex++ + SEGMENT_SUFFIX));
+		}
+		segment.buffer.clear();
+		segment.buffer.putLong(currentSequence + 1);
+		++currentSequence;
+		segments.put(currentSequence, segment);
+		currentSegment = segment;
+	}
+
+	/**
+	 * Maps a new segment file if there are no spare segments, so that it is ready when the current segment is full.
+	 */
+	private void prepareSpareSegment() {
+		File file;
+		synchronized (this) {
+			if (!enabled || !spareSegments.isEmpty()) {
+				return;
+			}
+			file = new File(directory, SEGMENT_PREFIX + nextFileIndex++ + SEGMENT_SUFFIX);
+		}
+		try {
+			Segment segment = mapSegment(file);
+			synchronized (this) {
+				spareSegments.add(segment);
+			}
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Error while preparing a statistics journal segment:", e);
+		}
+	}
+
+	/**
+	 * Clears segments whose statistics were written to the database and keeps some of them for reuse. The others are
+	 * deleted; if they cannot be deleted yet (e.g. still mapped on Windows), they are reused when the plugin restarts.
+	 *
+	 * @param recycledSegments segments that are no longer referenced by the journal
+	 */
+	private void recycle(List<Segment> recycledSegments) {
+		for (Segment segment : recycledSegments) {
+			ByteBuffer buffer = segment.buffer;
+			int used = buffer.position();
+			buffer.clear();
+			while (buffer.position() < used) {
+				buffer.put(ZEROS, 0, Math.min(ZEROS.length, used - buffer.position()));
+			}
+		}
+		List<Segment> deletedSegments = new ArrayList<>();
+		synchronized (this) {
+			for (Segment segment : recycledSegments) {
+				if (spareSegments.size() < MAX_SPARE_SEGMENTS) {
+					spareSegments.add(segment);
+				} else {
+					deletedSegments.add(segment);
+				}
+			}
+		}
+		for (Segment segment : deletedSegments) {
+			if (!segment.file.delete()) {
+				logger.fine("Could not delete statistics journal segment " + segment.file.getName() + ".");
+			}
+		}
+	}
+
+	private Segment mapSegment(File file) throws IOException {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			// The mapping remains valid once the channel is closed. The file is zero-filled, which marks its end.
+			return new Segment(file, randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE));
+		}
+	}
+
+	private long readSequence(File segment) throws IOException {
+		try (DataInputStream input = new DataInputStream(new FileInputStream(segment))) {
+			return input.readLong();
+		} catch (EOFException e) {
+			return 0L;
+		}
+	}
+
+	private int replaySegment(File segment, CacheManager cacheManager, Map<UUID, Long> playerSequences)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment.toPath()));
+		buffer.position(HEADER_SIZE);
+		CRC32 checksum = new CRC32();
+		Map<String, NormalAchievements> normalCategories = new HashMap<>();
+		Map<String, MultipleAchievements> multipleCategories = new HashMap<>();
+		normalCategoryNames.keySet().forEach(c -> normalCategories.put(c.toDBName(), c));
+		multipleCategoryNames.keySet().forEach(c -> multipleCategories.put(c.toDBName(), c));
+		int records = 0;
+		try {
+			while (buffer.hasRemaining()) {
+				int start = buffer.position();
+				byte type = buffer.get();
+				if (type != NORMAL_RECORD && type != MULTIPLE_RECORD) {
+					// End of the segment, or record truncated by a crash.
+					break;
+				}
+				byte[] categoryBytes = new byte[buffer.get() & 0xFF];
+				buffer.get(categoryBytes);
+				UUID player = new UUID(buffer.getLong(), buffer.getLong());
+				long value = buffer.getLong();
+				long delta = buffer.getLong();
+				long recordSequence = buffer.getLong();
+				String subcategory = null;
+				if (type == MULTIPLE_RECORD) {
+					byte[] subcategoryBytes = new byte[buffer.getShort() & 0xFFFF];
+					buffer.get(subcategoryBytes);
+					subcategory = new String(subcategoryBytes, StandardCharsets.UTF_8);
+				}
+				checksum.reset();
+				checksum.update(buffer.array(), start, buffer.position() - start);
+				if ((int) checksum.getValue() != buffer.getInt()) {
+					logger.warning("Ignoring corrupted end of statistics journal segment " + segment.getName() + ".");
+					break;
+				}
+				writeSequence.accumulateAndGet(recordSequence, Math::max);
+				if (recordSequence < playerSequences.getOrDefault(player, Long.MIN_VALUE)) {
+					// Already written to the database.
+					continue;
+				}
+				String category = new String(categoryBytes, StandardCharsets.UTF_8);
+				if (type == NORMAL_RECORD && normalCategories.containsKey(category)) {
+					cacheManager.restoreStatistic(normalCategories.get(category), player, value, delta);
+				} else if (type == MULTIPLE_RECORD && multipleCategories.containsKey(category)) {
+					cacheManager.restoreStatistic(multipleCategories.get(category), subcategory, player, value, delta);
+				}
+				++records;
+			}
+		} catch (RuntimeException e) {
+			// Buffer underflow, the last record was only partially written.
+			logger.warning("Ignoring truncated end of statistics journal segment " + segment.getName() + ".");
+		}
+		return records;
+	}
+
+	private String readId() throws IOException {
+		File idFile = new File(directory, ID_FILE);
+		if (idFile.exists()) {
+			return new String(Files.readAllBytes(idFile.toPath()), StandardCharsets.UTF_8).trim();
+		}
+		String newId = UUID.randomUUID().toString();
+		Files.write(idFile.toPath(), newId.getBytes(StandardCharsets.UTF_8));
+		return newId;
+	}
+
+	private long readCheckpoint() throws IOException {
+		File checkpoint = new File(directory, CHECKPOINT_FILE);
+		if (!checkpoint.exists()) {
+			return 0L;
+		}
+		try {
+			return Long.parseLong(new String(Files.readAllBytes(checkpoint.toPath()), StandardCharsets.UTF_8).trim());
+		} catch (NumberFormatException e) {
+			logger.warning("Ignoring invalid statistics journal checkpoint.");
+			return 0L;
+		}
+	}
+
+	/**
+	 * Lists the segment files of the journal, and ensures that new segment files do not reuse their names.
+	 *
+	 * @return the segment files
+	 */
+	private List<File> listSegments() {
+		List<File> segmentFiles = new ArrayList<>();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+					try {
+						int index = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+								name.length() - SEGMENT_SUFFIX.length()));
+						nextFileIndex = Math.max(nextFileIndex, index + 1);
+						segmentFiles.add(file);
+					} catch (NumberFormatException e) {
+						// Not a journal segment.
+					}
+				}
+			}
+		}
+		return segmentFiles;
+	}
+
+	private void force(MappedByteBuffer segment) {
+		try {
+			segment.force();
+		} catch (RuntimeException e) {
+			logger.log(Level.WARNING, "Error while synchronising the statistics journal to disk:", e);
+		}
+	}
+
+	private void disable(IOException e) {
+		enabled = false;
+		logger.log(Level.SEVERE, "Error while writing to the statistics journal, it will be disabled:", e);
+	}
+
+	/**
+	 * Records staged by the threads appending statistics of the players mapped to the stripe.
+	 */
+	private static final class Stripe {
+
+		private final CRC32 checksum = new CRC32();
+		private ByteBuffer records = ByteBuffer.allocate(STRIPE_SIZE);
+		// Encoded subcategory names, indexed by the identifiers interned by the cache.
+		private byte[][] subcategoryNames = new byte[64][];
+
+		private byte[] encodeSubcategory(int subcategoryId, String subcategory) {
+			if (subcategoryId >= subcategoryNames.length) {
+				subcategoryNames = Arrays.copyOf(subcategoryNames,
+						Math.max(subcategoryId + 1, subcategoryNames.length * 2));
+			}
+			byte[] subcategoryBytes = subcategoryNames[subcategoryId];
+			if (subcategoryBytes == null) {
+				subcategoryBytes = subcategory.getBytes(StandardCharsets.UTF_8);
+				subcategoryNames[subcategoryId] = subcategoryBytes;
+			}
+			return subcategoryBytes;
+		}
+	}
+
+	/**
+	 * Memory-mapped segment file, reused once its statistics have been written to the database.
+	 */
+	private static final class Segment {
+
+		private final File file;
+		private final MappedByteBuffer buffer;
+
+		private Segment(File file, MappedByteBuffer buffer) {
+			this.file = file;
+			this.buffer = buffer;
+		}
+	}
+}
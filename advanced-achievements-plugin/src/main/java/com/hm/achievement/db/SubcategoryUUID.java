@@ -25,7 +25,8 @@ public class SubcategoryUUID {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(subcategory, uuid);
+		// Avoid Objects.hash, which allocates an array.
+		return 31 * Objects.hashCode(subcategory) + Objects.hashCode(uuid);
 	}
 
 	@Override
@@ -69,11 +69,20 @@ public class MainGUI implements Reloadable {
 	}
 
 	/**
-	 * Displays the main GUI to a player.
+	 * Displays the main GUI to a player. If the player's received achievements are not cached, the GUI is displayed
+	 * once they have been retrieved.
 	 *
 	 * @param player
 	 */
 	public void displayMainGUI(Player player) {
+		cacheManager.whenReceivedAchievementsCached(player.getUniqueId(), () -> {
+			if (player.isOnline()) {
+				openMainGUI(player);
+			}
+		});
+	}
+
+	private void openMainGUI(Player player) {
 		int totalEnabledCategories = MultipleAchievements.values().length + NormalAchievements.values().length + 1
 				- disabledCategories.size();
 		AchievementInventoryHolder inventoryHolder = new AchievementInventoryHolder();
@@ -119,9 +128,7 @@ public class MainGUI implements Reloadable {
 	 * @param position
 	 */
 	private void displayCategory(ItemStack item, Inventory gui, Player player, Category category, int position) {
-		long receivedAmount = achievementMap.getForCategory(category).stream()
-				.filter(a -> cacheManager.hasPlayerAchievement(player.getUniqueId(), a.getName()))
-				.count();
+		int receivedAmount = cacheManager.getPlayerAchievementCount(player.getUniqueId(), category);
 		if (!configHideNotReceivedCategories || receivedAmount > 0) {
 			int totalAmount = achievementMap.getForCategory(category).size();
 			String message = totalAmount > 1 ? langListAchievementsInCategoryPlural : langListAchievementInCategorySingular;
@@ -28,10 +28,15 @@ import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.config.ConfigurationParser;
 import com.hm.achievement.db.AbstractDatabaseManager;
 import com.hm.achievement.db.AsyncCachedRequestsSender;
+import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.db.ProfilePreloader;
+import com.hm.achievement.db.StatisticsJournal;
 import com.hm.achievement.exception.PluginLoadError;
 import com.hm.achievement.listener.JoinListener;
 import com.hm.achievement.listener.ListGUIListener;
+import com.hm.achievement.listener.PermissionCacheListener;
 import com.hm.achievement.listener.PlayerAdvancedAchievementListener;
+import com.hm.achievement.listener.PlayerCacheListener;
 import com.hm.achievement.listener.TeleportListener;
 import com.hm.achievement.listener.statistics.AbstractListener;
 import com.hm.achievement.placeholder.AchievementPlaceholderHook;
@@ -56,6 +61,8 @@ public class PluginLoader {
 
 	// Listeners, to monitor various events.
 	private final JoinListener joinListener;
+	private final PermissionCacheListener permissionCacheListener;
+	private final PlayerCacheListener playerCacheListener;
 	private final ListGUIListener listGUIListener;
 	private final PlayerAdvancedAchievementListener playerAdvancedAchievementListener;
 	private final TeleportListener teleportListener;
@@ -66,6 +73,9 @@ public class PluginLoader {
 	// Database related.
 	private final AbstractDatabaseManager databaseManager;
 	private final AsyncCachedRequestsSender asyncCachedRequestsSender;
+	private final CacheManager cacheManager;
+	private final StatisticsJournal statisticsJournal;
+	private final ProfilePreloader profilePreloader;
 
 	// Various other fields and parameters.
 	private final PluginCommandExecutor pluginCommandExecutor;
@@ -84,6 +94,7 @@ public class PluginLoader {
 	private BukkitTask playedTimeTask;
 	private BukkitTask distanceTask;
 	private BukkitTask cleanerTask;
+	private BukkitTask statisticsJournalTask;
 
 	@Inject
 	public PluginLoader(AdvancedAchievements advancedAchievements, Logger logger, Set<Reloadable> reloadables,
@@ -94,7 +105,9 @@ public class PluginLoader {
 			CommandTabCompleter commandTabCompleter, Set<Category> disabledCategories,
 			@Named("main") YamlConfiguration mainConfig, ConfigurationParser configurationParser,
 			AchieveDistanceRunnable distanceRunnable, AchievePlayTimeRunnable playTimeRunnable, ReloadCommand reloadCommand,
-			AchievementMap achievementMap) {
+			AchievementMap achievementMap, CacheManager cacheManager, StatisticsJournal statisticsJournal,
+			PermissionCacheListener permissionCacheListener, PlayerCacheListener playerCacheListener,
+			ProfilePreloader profilePreloader) {
 		this.advancedAchievements = advancedAchievements;
 		this.logger = logger;
 		this.reloadables = reloadables;
@@ -115,6 +128,11 @@ public class PluginLoader {
 		this.playTimeRunnable = playTimeRunnable;
 		this.reloadCommand = reloadCommand;
 		this.achievementMap = achievementMap;
+		this.cacheManager = cacheManager;
+		this.statisticsJournal = statisticsJournal;
+		this.permissionCacheListener = permissionCacheListener;
+		this.playerCacheListener = playerCacheListener;
+		this.profilePreloader = profilePreloader;
 	}
 
 	/**
@@ -127,7 +145,11 @@ public class PluginLoader {
 		registerListeners();
 		if (!databaseManager.isInitialised()) {
 			databaseManager.initialise();
+			// Restore statistics that did not make it to the database, apart from the ones whose write sequences show
+			// that they were written additively.
+			cacheManager.replayJournal();
 		}
+		databaseManager.synchroniseAchievementIds(achievementMap.getAllNames());
 		initialiseCommands();
 		launchScheduledTasks();
 		registerPermissions();
@@ -152,9 +174,15 @@ public class PluginLoader {
 		if (distanceTask != null) {
 			distanceTask.cancel();
 		}
+		if (statisticsJournalTask != null) {
+			statisticsJournalTask.cancel();
+		}
 
-		// Send remaining statistics to the database and close DatabaseManager.
-		asyncCachedRequestsSender.sendBatchedRequests();
+		// Send remaining statistics to the database and close DatabaseManager. Cancelling the sender's task does not
+		// interrupt a flush already in progress, sendRemainingRequests waits for it to complete.
+		profilePreloader.shutdown();
+		asyncCachedRequestsSender.sendRemainingRequests();
+		statisticsJournal.close();
 		databaseManager.shutdown();
 
 		logger.info("Remaining requests sent to the database, plugin successfully disabled.");
@@ -177,6 +205,10 @@ public class PluginLoader {
 			}
 		});
 		pluginManager.registerEvents(joinListener, advancedAchievements);
+		pluginManager.registerEvents(permissionCacheListener, advancedAchievements);
+		pluginManager.registerEvents(playerCacheListener, advancedAchievements);
+		// Players may already be connected, for instance if the plugin was loaded by a plugin manager.
+		Bukkit.getOnlinePlayers().forEach(player -> cacheManager.playerConnected(player.getUniqueId()));
 		pluginManager.registerEvents(listGUIListener, advancedAchievements);
 		pluginManager.registerEvents(playerAdvancedAchievementListener, advancedAchievements);
 		pluginManager.registerEvents(teleportListener, advancedAchievements);
@@ -201,9 +233,16 @@ public class PluginLoader {
 
 		// Schedule a repeating task to group database queries when statistics are modified.
 		if (asyncCachedRequestsSenderTask == null) {
-			long taskPeriod = mainConfig.getBoolean("BungeeMode") ? 40L : 1200L;
+			// Checked every second, the sender decides whether statistics are due to be written.
 			asyncCachedRequestsSenderTask = Bukkit.getScheduler().runTaskTimerAsynchronously(advancedAchievements,
-					asyncCachedRequestsSender, taskPeriod, taskPeriod);
+					asyncCachedRequestsSender, 20L, 20L);
+		}
+
+		// Schedule a repeating task to synchronise statistics journaled by several events to disk at once.
+		if (statisticsJournalTask == null && statisticsJournal.isEnabled()) {
+			long taskPeriod = Math.max(1, mainConfig.getInt("StatisticsJournalSyncInterval", 10));
+			statisticsJournalTask = Bukkit.getScheduler().runTaskTimerAsynchronously(advancedAchievements,
+					statisticsJournal::sync, taskPeriod, taskPeriod);
 		}
 
 		if (cleanerTask == null) {
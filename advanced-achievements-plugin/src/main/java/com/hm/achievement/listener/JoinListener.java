@@ -39,21 +39,9 @@ public class JoinListener implements Listener {
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onPlayerJoin(PlayerJoinEvent event) {
-		scheduleReceivedCacheLoad(event.getPlayer());
 		scheduleAwardAdvancements(event.getPlayer());
 	}
 
-	/**
-	 * Schedules an asynchronous task to load the received achievement cache.
-	 * 
-	 * @param player
-	 */
-	private void scheduleReceivedCacheLoad(Player player) {
-		Bukkit.getScheduler().runTaskAsynchronously(advancedAchievements,
-				() -> cacheManager.getPlayerAchievements(player.getUniqueId()));
-
-	}
-
 	/**
 	 * Schedules a delayed task to award advancements created by Advanced Achievements. This method can be seen as a
 	 * synchronisation to give advancements which were generated after the corresponding achievement was received for a
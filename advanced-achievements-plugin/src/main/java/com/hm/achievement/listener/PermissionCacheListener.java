@@ -0,0 +1,46 @@
+package com.hm.achievement.listener;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import com.hm.achievement.utils.PermissionCache;
+
+/**
+ * Listener class to discard cached permissions when they are likely to have changed, for instance because permission
+ * plugins commonly grant different permissions in different worlds.
+ *
+ * @author Pyves
+ *
+ */
+@Singleton
+public class PermissionCacheListener implements Listener {
+
+	private final PermissionCache permissionCache;
+
+	@Inject
+	public PermissionCacheListener(PermissionCache permissionCache) {
+		this.permissionCache = permissionCache;
+	}
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	public void onPlayerJoin(PlayerJoinEvent event) {
+		permissionCache.invalidate(event.getPlayer().getUniqueId());
+	}
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+		permissionCache.invalidate(event.getPlayer().getUniqueId());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event) {
+		permissionCache.invalidate(event.getPlayer().getUniqueId());
+	}
+}
@@ -171,6 +171,36 @@ public class PlayerAdvancedAchievementListener implements Listener, Reloadable {
 	public void onPlayerAdvancedAchievementReception(PlayerAdvancedAchievementEvent event) {
 		Achievement achievement = event.getAchievement();
 		Player player = event.getPlayer();
+		// The received achievements are usually cached, as they were checked before the event was called. If they are
+		// not, the reception is recorded in the cache once they have been retrieved, without waiting for the database.
+		boolean receivedAchievementsCached = cacheManager.requestReceivedAchievements(player.getUniqueId());
+		if (receivedAchievementsCached) {
+			registerNewlyReceivedAchievement(player, achievement);
+		}
+		databaseManager.registerAchievement(player.getUniqueId(), achievement.getName(), System.currentTimeMillis());
+
+		achievement.getRewards().forEach(r -> r.getRewarder().accept(player));
+		displayAchievement(player, achievement);
+
+		if (receivedAchievementsCached) {
+			checkAllAchievementsReceived(player);
+		} else {
+			cacheManager.whenReceivedAchievementsCached(player.getUniqueId(), () -> {
+				registerNewlyReceivedAchievement(player, achievement);
+				if (player.isOnline()) {
+					checkAllAchievementsReceived(player);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Records a received achievement in the cache and awards the matching advancement.
+	 *
+	 * @param player
+	 * @param achievement
+	 */
+	private void registerNewlyReceivedAchievement(Player player, Achievement achievement) {
 		// Achievement could have already been received if MultiCommand is set to true in the configuration.
 		if (!cacheManager.hasPlayerAchievement(player.getUniqueId(), achievement.getName())) {
 			cacheManager.registerNewlyReceivedAchievement(player.getUniqueId(), achievement.getName());
@@ -178,15 +208,13 @@ public class PlayerAdvancedAchievementListener implements Listener, Reloadable {
 			Advancement advancement = Bukkit.getAdvancement(new NamespacedKey(advancedAchievements,
 					AdvancementManager.getKey(achievement.getName())));
 			// Matching advancement might not exist if user has not called /aach generate.
-			if (advancement != null) {
+			if (advancement != null && player.isOnline()) {
 				player.getAdvancementProgress(advancement).awardCriteria(AchievementAdvancement.CRITERIA_NAME);
 			}
 		}
-		databaseManager.registerAchievement(player.getUniqueId(), achievement.getName(), System.currentTimeMillis());
-
-		achievement.getRewards().forEach(r -> r.getRewarder().accept(player));
-		displayAchievement(player, achievement);
+	}
 
+	private void checkAllAchievementsReceived(Player player) {
 		if (cacheManager.getPlayerAchievements(player.getUniqueId()).size() == achievementMap.getAll().size()) {
 			handleAllAchievementsReceived(player);
 		}
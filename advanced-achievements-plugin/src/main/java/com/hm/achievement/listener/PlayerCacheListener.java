@@ -0,0 +1,54 @@
+package com.hm.achievement.listener;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent.Result;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.db.ProfilePreloader;
+
+/**
+ * Listener class to inform the cache of the players who are connected, whose data is not subject to the eviction of
+ * offline players. The data of a player is loaded while the player logs in, together with the data of other players
+ * logging in at the same time, so that the main server thread does not have to wait for the database once the player
+ * has joined.
+ *
+ * @author Pyves
+ *
+ */
+@Singleton
+public class PlayerCacheListener implements Listener {
+
+	private final CacheManager cacheManager;
+	private final ProfilePreloader profilePreloader;
+
+	@Inject
+	public PlayerCacheListener(CacheManager cacheManager, ProfilePreloader profilePreloader) {
+		this.cacheManager = cacheManager;
+		this.profilePreloader = profilePreloader;
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+		if (event.getLoginResult() == Result.ALLOWED) {
+			profilePreloader.preloadAndWait(event.getUniqueId());
+		}
+	}
+
+	@EventHandler(priority = EventPriority.LOWEST)
+	public void onPlayerJoin(PlayerJoinEvent event) {
+		cacheManager.playerConnected(event.getPlayer().getUniqueId());
+	}
+
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerQuit(PlayerQuitEvent event) {
+		cacheManager.playerDisconnected(event.getPlayer().getUniqueId());
+	}
+}
@@ -1,9 +1,15 @@
 package com.hm.achievement.listener.statistics;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
@@ -13,6 +19,7 @@ import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 import com.hm.achievement.utils.StatisticIncreaseHandler;
 
 /**
@@ -22,12 +29,34 @@ import com.hm.achievement.utils.StatisticIncreaseHandler;
  */
 public abstract class AbstractListener extends StatisticIncreaseHandler implements Listener {
 
+	/**
+	 * Sub-categories matched by an enum constant, such as a Material or an EntityType, along with the permission
+	 * required to increase their statistics.
+	 */
+	static final class MatchedSubcategories {
+
+		final String permission;
+		final String[] subcategories;
+		final int[] subcategoryIds;
+
+		MatchedSubcategories(String permission, String[] subcategories, int[] subcategoryIds) {
+			this.permission = permission;
+			this.subcategories = subcategories;
+			this.subcategoryIds = subcategoryIds;
+		}
+	}
+
 	final Category category;
 	List<String> subcategories;
+	// Identifiers of the subcategories, which avoid string processing when incrementing statistics.
+	Map<String, Integer> subcategoryIds;
+	// Maps each member of a group of sub-categories, e.g. 'zombie' in 'zombie|pig_zombie', to the sub-categories that
+	// contain it.
+	private Map<String, List<String>> subcategoriesByMember;
 
 	AbstractListener(Category category, YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(mainConfig, achievementMap, cacheManager, permissionCache);
 		this.category = category;
 	}
 
@@ -35,6 +64,44 @@ public abstract class AbstractListener extends StatisticIncreaseHandler implemen
 	public void extractConfigurationParameters() {
 		super.extractConfigurationParameters();
 		subcategories = new ArrayList<>(achievementMap.getSubcategoriesForCategory(category));
+		subcategoryIds = new HashMap<>();
+		subcategories.forEach(subcategory -> subcategoryIds.put(subcategory, cacheManager.getSubcategoryId(subcategory)));
+		subcategoriesByMember = new HashMap<>();
+		for (String subcategory : subcategories) {
+			for (String member : StringUtils.splitPreserveAllTokens(subcategory, '|')) {
+				List<String> memberSubcategories = subcategoriesByMember.computeIfAbsent(member, m -> new ArrayList<>());
+				if (!memberSubcategories.contains(subcategory)) {
+					memberSubcategories.add(subcategory);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Precomputes the sub-categories matched by each constant of an enum, using the lower case name of the constant as
+	 * identifier. Constants that do not match any sub-category are left out of the table, so that events involving them
+	 * can be discarded with a single lookup.
+	 * 
+	 * @param enumType
+	 * @return a table from enum constants to matched sub-categories
+	 */
+	<E extends Enum<E>> Map<E, MatchedSubcategories> buildMatchedSubcategories(Class<E> enumType) {
+		Map<E, MatchedSubcategories> matchedSubcategories = new EnumMap<>(enumType);
+		for (E constant : enumType.getEnumConstants()) {
+			String id = constant.name().toLowerCase();
+			Set<String> matchingSubcategories = new HashSet<>();
+			addMatchingSubcategories(matchingSubcategories, id);
+			if (!matchingSubcategories.isEmpty()) {
+				String[] subcategoryArray = matchingSubcategories.toArray(new String[0]);
+				int[] subcategoryIdArray = new int[subcategoryArray.length];
+				for (int i = 0; i < subcategoryArray.length; ++i) {
+					subcategoryIdArray[i] = subcategoryIds.get(subcategoryArray[i]);
+				}
+				matchedSubcategories.put(constant,
+						new MatchedSubcategories(category.toChildPermName(id), subcategoryArray, subcategoryIdArray));
+			}
+		}
+		return matchedSubcategories;
 	}
 
 	public Category getCategory() {
@@ -50,7 +117,7 @@ public abstract class AbstractListener extends StatisticIncreaseHandler implemen
 	 */
 	void updateStatisticAndAwardAchievementsIfAvailable(Player player, int incrementValue) {
 		if (shouldIncreaseBeTakenIntoAccount(player, category)) {
-			long amount = cacheManager.getAndIncrementStatisticAmount((NormalAchievements) category, player.getUniqueId(),
+			long amount = cacheManager.incrementStatisticAmount((NormalAchievements) category, player.getUniqueId(),
 					incrementValue);
 			checkThresholdsAndAchievements(player, category, amount);
 		}
@@ -67,13 +134,36 @@ public abstract class AbstractListener extends StatisticIncreaseHandler implemen
 	void updateStatisticAndAwardAchievementsIfAvailable(Player player, Set<String> subcategories, int incrementValue) {
 		if (shouldIncreaseBeTakenIntoAccount(player, category)) {
 			subcategories.forEach(subcategory -> {
-				long amount = cacheManager.getAndIncrementStatisticAmount((MultipleAchievements) category, subcategory,
-						player.getUniqueId(), incrementValue);
+				Integer subcategoryId = subcategoryIds.get(subcategory);
+				long amount = subcategoryId == null
+						? cacheManager.incrementStatisticAmount((MultipleAchievements) category, subcategory,
+								player.getUniqueId(), incrementValue)
+						: cacheManager.incrementStatisticAmount((MultipleAchievements) category, subcategoryId,
+								player.getUniqueId(), incrementValue);
 				checkThresholdsAndAchievements(player, category, subcategory, amount);
 			});
 		}
 	}
 
+	/**
+	 * Updates the statistics in the database for precomputed MultipleAchievement sub-categories and awards achievements
+	 * if available ones are found.
+	 * 
+	 * @param player
+	 * @param matchedSubcategories
+	 * @param incrementValue
+	 */
+	void updateStatisticAndAwardAchievementsIfAvailable(Player player, MatchedSubcategories matchedSubcategories,
+			int incrementValue) {
+		if (shouldIncreaseBeTakenIntoAccount(player, category)) {
+			for (int i = 0; i < matchedSubcategories.subcategories.length; ++i) {
+				long amount = cacheManager.incrementStatisticAmount((MultipleAchievements) category,
+						matchedSubcategories.subcategoryIds[i], player.getUniqueId(), incrementValue);
+				checkThresholdsAndAchievements(player, category, matchedSubcategories.subcategories[i], amount);
+			}
+		}
+	}
+
 	/**
 	 * Adds all sub-categories that match the identifier to the provided Set. This methods accounts for groups of
 	 * sub-categories, e.g. 'zombie|pig_zombie|zombie_horse|zombie_villager'.
@@ -82,6 +172,11 @@ public abstract class AbstractListener extends StatisticIncreaseHandler implemen
 	 * @param id the identifier to match
 	 */
 	void addMatchingSubcategories(Set<String> matchingSubcategories, String id) {
+		if (id.indexOf('|') < 0) {
+			matchingSubcategories.addAll(subcategoriesByMember.getOrDefault(id, Collections.emptyList()));
+			return;
+		}
+		// Identifiers such as custom names may themselves span several members of a group.
 		String pipedId = '|' + id + '|';
 		for (String subcategory : subcategories) {
 			if (('|' + subcategory + '|').contains(pipedId)) {
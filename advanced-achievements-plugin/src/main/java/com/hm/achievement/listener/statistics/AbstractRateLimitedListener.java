@@ -17,6 +17,7 @@ import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
 import com.hm.achievement.domain.Achievement;
 import com.hm.achievement.lifecycle.Cleanable;
+import com.hm.achievement.utils.PermissionCache;
 
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.TextComponent;
@@ -39,8 +40,9 @@ public class AbstractRateLimitedListener extends AbstractListener implements Cle
 	private String langStatisticCooldown;
 
 	AbstractRateLimitedListener(Category category, YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager, AdvancedAchievements advancedAchievements, YamlConfiguration langConfig) {
-		super(category, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache, AdvancedAchievements advancedAchievements,
+			YamlConfiguration langConfig) {
+		super(category, mainConfig, achievementMap, cacheManager, permissionCache);
 		this.advancedAchievements = advancedAchievements;
 		this.langConfig = langConfig;
 	}
@@ -86,7 +88,7 @@ public class AbstractRateLimitedListener extends AbstractListener implements Cle
 	 */
 	private boolean isInCooldownPeriod(Player player, int slotNumber) {
 		UUID uuid = player.getUniqueId();
-		long currentPlayerStatistic = cacheManager.getAndIncrementStatisticAmount((NormalAchievements) category, uuid, 0);
+		long currentPlayerStatistic = cacheManager.incrementStatisticAmount((NormalAchievements) category, uuid, 0);
 		// Ignore cooldown if player has received all achievements in the category.
 		if (currentPlayerStatistic >= hardestCategoryThreshold) {
 			return false;
@@ -12,6 +12,7 @@ import org.bukkit.event.player.PlayerAdvancementDoneEvent;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Advancement achievements.
@@ -24,8 +25,8 @@ public class AdvancementsCompletedListener extends AbstractListener {
 
 	@Inject
 	public AdvancementsCompletedListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.ADVANCEMENTSCOMPLETED, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.ADVANCEMENTSCOMPLETED, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -18,6 +18,7 @@ import org.bukkit.inventory.ItemStack;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with AnvilsUsed achievements.
@@ -30,8 +31,8 @@ public class AnvilsListener extends AbstractListener {
 
 	@Inject
 	public AnvilsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.ANVILS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.ANVILS, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -13,6 +13,7 @@ import org.bukkit.event.entity.EntityShootBowEvent;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Arrows achievements.
@@ -25,8 +26,8 @@ public class ArrowsListener extends AbstractListener {
 
 	@Inject
 	public ArrowsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.ARROWS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.ARROWS, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
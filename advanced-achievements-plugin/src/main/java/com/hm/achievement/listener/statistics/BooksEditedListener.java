@@ -13,6 +13,7 @@ import com.hm.achievement.AdvancedAchievements;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with BooksEdited achievements.
@@ -25,9 +26,10 @@ public class BooksEditedListener extends AbstractRateLimitedListener {
 
 	@Inject
 	public BooksEditedListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager, AdvancedAchievements advancedAchievements,
+			CacheManager cacheManager, PermissionCache permissionCache, AdvancedAchievements advancedAchievements,
 			@Named("lang") YamlConfiguration langConfig) {
-		super(NormalAchievements.BOOKSEDITED, mainConfig, achievementMap, cacheManager, advancedAchievements, langConfig);
+		super(NormalAchievements.BOOKSEDITED, mainConfig, achievementMap, cacheManager, permissionCache,
+				advancedAchievements, langConfig);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
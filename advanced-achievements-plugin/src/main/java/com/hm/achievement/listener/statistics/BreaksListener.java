@@ -3,12 +3,14 @@ package com.hm.achievement.listener.statistics;
 import static org.bukkit.enchantments.Enchantment.SILK_TOUCH;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.bukkit.Material;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
@@ -19,6 +21,7 @@ import org.bukkit.event.block.BlockBreakEvent;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Breaks achievements.
@@ -30,20 +33,22 @@ import com.hm.achievement.db.CacheManager;
 public class BreaksListener extends AbstractListener {
 
 	private Set<String> oreBlocks;
+	private Map<Material, MatchedSubcategories> materialSubcategories;
 
 	private boolean disableSilkTouchBreaks;
 	private boolean disableSilkTouchOreBreaks;
 
 	@Inject
 	public BreaksListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(MultipleAchievements.BREAKS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(MultipleAchievements.BREAKS, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@Override
 	public void extractConfigurationParameters() {
 		super.extractConfigurationParameters();
 
+		materialSubcategories = buildMatchedSubcategories(Material.class);
 		disableSilkTouchBreaks = mainConfig.getBoolean("DisableSilkTouchBreaks");
 		disableSilkTouchOreBreaks = mainConfig.getBoolean("DisableSilkTouchOreBreaks");
 		oreBlocks = new HashSet<>();
@@ -54,8 +59,13 @@ public class BreaksListener extends AbstractListener {
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
 	public void onBlockBreak(BlockBreakEvent event) {
-		Player player = event.getPlayer();
 		Block block = event.getBlock();
+		MatchedSubcategories matchedSubcategories = materialSubcategories.get(block.getType());
+		if (matchedSubcategories == null) {
+			return;
+		}
+
+		Player player = event.getPlayer();
 		if (disableSilkTouchBreaks || disableSilkTouchOreBreaks) {
 			if (player.getInventory().getItemInMainHand().containsEnchantment(SILK_TOUCH)
 					&& (disableSilkTouchBreaks || oreBlocks.contains(block.getType().name()))) {
@@ -63,13 +73,10 @@ public class BreaksListener extends AbstractListener {
 			}
 		}
 
-		String blockName = block.getType().name().toLowerCase();
-		if (!player.hasPermission(category.toChildPermName(blockName))) {
+		if (!permissionCache.hasPermission(player, matchedSubcategories.permission)) {
 			return;
 		}
 
-		Set<String> subcategories = new HashSet<>();
-		addMatchingSubcategories(subcategories, blockName);
-		updateStatisticAndAwardAchievementsIfAvailable(player, subcategories, 1);
+		updateStatisticAndAwardAchievementsIfAvailable(player, matchedSubcategories, 1);
 	}
 }
@@ -1,13 +1,13 @@
 package com.hm.achievement.listener.statistics;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -16,6 +16,7 @@ import org.bukkit.event.entity.EntityBreedEvent;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Breeding achievements.
@@ -23,10 +24,19 @@ import com.hm.achievement.db.CacheManager;
 @Singleton
 public class BreedingListener extends AbstractListener {
 
+	private Map<EntityType, MatchedSubcategories> entitySubcategories;
+
 	@Inject
 	public BreedingListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(MultipleAchievements.BREEDING, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(MultipleAchievements.BREEDING, mainConfig, achievementMap, cacheManager, permissionCache);
+	}
+
+	@Override
+	public void extractConfigurationParameters() {
+		super.extractConfigurationParameters();
+
+		entitySubcategories = buildMatchedSubcategories(EntityType.class);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -35,13 +45,12 @@ public class BreedingListener extends AbstractListener {
 			return;
 		}
 
-		String mobName = event.getMother().getType().name().toLowerCase();
-		if (!event.getBreeder().hasPermission(category.toChildPermName(mobName))) {
+		Player breeder = (Player) event.getBreeder();
+		MatchedSubcategories matchedSubcategories = entitySubcategories.get(event.getMother().getType());
+		if (matchedSubcategories == null || !permissionCache.hasPermission(breeder, matchedSubcategories.permission)) {
 			return;
 		}
 
-		Set<String> subcategories = new HashSet<>();
-		addMatchingSubcategories(subcategories, mobName);
-		updateStatisticAndAwardAchievementsIfAvailable((Player) event.getBreeder(), subcategories, 1);
+		updateStatisticAndAwardAchievementsIfAvailable(breeder, matchedSubcategories, 1);
 	}
 }
@@ -21,6 +21,7 @@ import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
 import com.hm.achievement.utils.InventoryHelper;
 import com.hm.achievement.utils.MaterialHelper;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Brewing achievements.
@@ -35,9 +36,10 @@ public class BrewingListener extends AbstractRateLimitedListener {
 
 	@Inject
 	public BrewingListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager, AdvancedAchievements advancedAchievements,
+			CacheManager cacheManager, PermissionCache permissionCache, AdvancedAchievements advancedAchievements,
 			@Named("lang") YamlConfiguration langConfig, MaterialHelper materialHelper) {
-		super(NormalAchievements.BREWING, mainConfig, achievementMap, cacheManager, advancedAchievements, langConfig);
+		super(NormalAchievements.BREWING, mainConfig, achievementMap, cacheManager, permissionCache, advancedAchievements,
+				langConfig);
 		this.materialHelper = materialHelper;
 	}
 
@@ -19,6 +19,7 @@ import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.AbstractDatabaseManager;
 import com.hm.achievement.db.CacheManager;
 import com.hm.achievement.db.data.ConnectionInformation;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Connections achievements. This class uses delays processing of tasks to avoid spamming a
@@ -35,8 +36,9 @@ public class ConnectionsListener extends AbstractListener {
 
 	@Inject
 	public ConnectionsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager, AdvancedAchievements advancedAchievements, AbstractDatabaseManager databaseManager) {
-		super(NormalAchievements.CONNECTIONS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache, AdvancedAchievements advancedAchievements,
+			AbstractDatabaseManager databaseManager) {
+		super(NormalAchievements.CONNECTIONS, mainConfig, achievementMap, cacheManager, permissionCache);
 		this.advancedAchievements = advancedAchievements;
 		this.databaseManager = databaseManager;
 	}
@@ -13,6 +13,7 @@ import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
 import com.hm.achievement.utils.MaterialHelper;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with ConsumedPotions achievements.
@@ -27,8 +28,8 @@ public class ConsumedPotionsListener extends AbstractListener {
 
 	@Inject
 	public ConsumedPotionsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager, MaterialHelper materialHelper) {
-		super(NormalAchievements.CONSUMEDPOTIONS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache, MaterialHelper materialHelper) {
+		super(NormalAchievements.CONSUMEDPOTIONS, mainConfig, achievementMap, cacheManager, permissionCache);
 		this.materialHelper = materialHelper;
 	}
 
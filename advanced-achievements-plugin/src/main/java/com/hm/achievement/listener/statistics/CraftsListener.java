@@ -1,9 +1,8 @@
 package com.hm.achievement.listener.statistics;
 
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -26,6 +25,7 @@ import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
 import com.hm.achievement.utils.InventoryHelper;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Crafts achievements.
@@ -36,10 +36,19 @@ import com.hm.achievement.utils.InventoryHelper;
 @Singleton
 public class CraftsListener extends AbstractListener {
 
+	private Map<Material, MatchedSubcategories> materialSubcategories;
+
 	@Inject
 	public CraftsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(MultipleAchievements.CRAFTS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(MultipleAchievements.CRAFTS, mainConfig, achievementMap, cacheManager, permissionCache);
+	}
+
+	@Override
+	public void extractConfigurationParameters() {
+		super.extractConfigurationParameters();
+
+		materialSubcategories = buildMatchedSubcategories(Material.class);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -52,14 +61,11 @@ public class CraftsListener extends AbstractListener {
 
 		Player player = (Player) event.getWhoClicked();
 		ItemStack item = event.getCurrentItem();
-		String craftName = item.getType().name().toLowerCase();
-		if (!player.hasPermission(category.toChildPermName(craftName))) {
+		MatchedSubcategories matchedSubcategories = materialSubcategories.get(item.getType());
+		if (matchedSubcategories == null || !permissionCache.hasPermission(player, matchedSubcategories.permission)) {
 			return;
 		}
 
-		Set<String> subcategories = new HashSet<>();
-		addMatchingSubcategories(subcategories, craftName);
-
 		int eventAmount = item.getAmount();
 		if (event.isShiftClick()) {
 			int maxAmount = event.getInventory().getMaxStackSize();
@@ -79,7 +85,7 @@ public class CraftsListener extends AbstractListener {
 			}
 		}
 
-		updateStatisticAndAwardAchievementsIfAvailable(player, subcategories, eventAmount);
+		updateStatisticAndAwardAchievementsIfAvailable(player, matchedSubcategories, eventAmount);
 	}
 
 	/**
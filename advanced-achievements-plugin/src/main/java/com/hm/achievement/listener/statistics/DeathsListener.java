@@ -12,6 +12,7 @@ import org.bukkit.event.entity.PlayerDeathEvent;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Deaths achievements.
@@ -24,8 +25,8 @@ public class DeathsListener extends AbstractListener {
 
 	@Inject
 	public DeathsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.DEATHS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.DEATHS, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -12,6 +12,7 @@ import org.bukkit.event.player.PlayerDropItemEvent;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with ItemDrops achievements.
@@ -24,8 +25,8 @@ public class DropsListener extends AbstractListener {
 
 	@Inject
 	public DropsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.DROPS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.DROPS, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -16,14 +16,15 @@ import org.bukkit.event.entity.EntityPotionEffectEvent;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 @Singleton
 public class EffectsHeldListener extends AbstractListener {
 
 	@Inject
 	public EffectsHeldListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(MultipleAchievements.EFFECTSHELD, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(MultipleAchievements.EFFECTSHELD, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -34,7 +35,7 @@ public class EffectsHeldListener extends AbstractListener {
 
 		Player player = (Player) event.getEntity();
 		String effectName = event.getNewEffect().getType().getName().toLowerCase();
-		if (!player.hasPermission(category.toChildPermName(effectName))) {
+		if (!permissionCache.hasPermission(player, category.toChildPermName(effectName))) {
 			return;
 		}
 
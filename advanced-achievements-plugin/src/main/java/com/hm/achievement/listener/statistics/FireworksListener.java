@@ -21,6 +21,7 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Fireworks achievements.
@@ -37,8 +38,8 @@ public class FireworksListener extends AbstractListener {
 
 	@Inject
 	public FireworksListener(@Named("main") YamlConfiguration mainConfig, int serverVersion, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.FIREWORKS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.FIREWORKS, mainConfig, achievementMap, cacheManager, permissionCache);
 		this.serverVersion = serverVersion;
 	}
 
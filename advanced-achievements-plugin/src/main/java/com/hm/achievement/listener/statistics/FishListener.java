@@ -16,6 +16,7 @@ import org.bukkit.event.player.PlayerFishEvent;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Fish achievements.
@@ -30,8 +31,8 @@ public class FishListener extends AbstractListener {
 
 	@Inject
 	public FishListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.FISH, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.FISH, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@Override
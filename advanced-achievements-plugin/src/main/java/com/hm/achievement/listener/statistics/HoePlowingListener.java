@@ -19,6 +19,7 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with HoePlowings achievements.
@@ -33,8 +34,8 @@ public class HoePlowingListener extends AbstractListener {
 
 	@Inject
 	public HoePlowingListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.HOEPLOWING, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.HOEPLOWING, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@Override
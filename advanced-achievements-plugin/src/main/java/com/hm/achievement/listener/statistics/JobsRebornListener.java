@@ -17,6 +17,7 @@ import com.gamingmesh.jobs.api.JobsLevelUpEvent;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Jobs Reborn achievements.
@@ -26,8 +27,8 @@ public class JobsRebornListener extends AbstractListener {
 
 	@Inject
 	public JobsRebornListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(MultipleAchievements.JOBSREBORN, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(MultipleAchievements.JOBSREBORN, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -39,7 +40,7 @@ public class JobsRebornListener extends AbstractListener {
 		}
 
 		String jobName = event.getJob().getJobFullName().toLowerCase();
-		if (!player.hasPermission(category.toChildPermName(jobName))) {
+		if (!permissionCache.hasPermission(player, category.toChildPermName(jobName))) {
 			return;
 		}
 
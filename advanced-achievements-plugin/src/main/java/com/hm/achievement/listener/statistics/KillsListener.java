@@ -1,6 +1,8 @@
 package com.hm.achievement.listener.statistics;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -11,6 +13,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Creeper;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -19,6 +22,7 @@ import org.bukkit.event.entity.EntityDeathEvent;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Kills achievements.
@@ -29,10 +33,19 @@ import com.hm.achievement.db.CacheManager;
 @Singleton
 public class KillsListener extends AbstractListener {
 
+	private Map<EntityType, MatchedSubcategories> entitySubcategories;
+
 	@Inject
 	public KillsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(MultipleAchievements.KILLS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(MultipleAchievements.KILLS, mainConfig, achievementMap, cacheManager, permissionCache);
+	}
+
+	@Override
+	public void extractConfigurationParameters() {
+		super.extractConfigurationParameters();
+
+		entitySubcategories = buildMatchedSubcategories(EntityType.class);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -43,13 +56,17 @@ public class KillsListener extends AbstractListener {
 		}
 
 		Entity entity = event.getEntity();
-		String mobType = (entity instanceof Creeper && ((Creeper) entity).isPowered()) ? "poweredcreeper"
-				: entity.getType().name().toLowerCase();
-
 		Set<String> subcategories = new HashSet<>();
 
-		if (player.hasPermission(category.toChildPermName(mobType))) {
-			addMatchingSubcategories(subcategories, mobType);
+		if (entity instanceof Creeper && ((Creeper) entity).isPowered()) {
+			if (permissionCache.hasPermission(player, category.toChildPermName("poweredcreeper"))) {
+				addMatchingSubcategories(subcategories, "poweredcreeper");
+			}
+		} else {
+			MatchedSubcategories matchedSubcategories = entitySubcategories.get(entity.getType());
+			if (matchedSubcategories != null && permissionCache.hasPermission(player, matchedSubcategories.permission)) {
+				Collections.addAll(subcategories, matchedSubcategories.subcategories);
+			}
 		}
 
 		if (entity.getCustomName() != null
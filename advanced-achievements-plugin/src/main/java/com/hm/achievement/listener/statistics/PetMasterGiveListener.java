@@ -12,6 +12,7 @@ import org.bukkit.event.EventPriority;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 import com.hm.mcshared.event.PlayerChangeAnimalOwnershipEvent;
 
 /**
@@ -25,8 +26,8 @@ public class PetMasterGiveListener extends AbstractListener {
 
 	@Inject
 	public PetMasterGiveListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.PETMASTERGIVE, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.PETMASTERGIVE, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -1,6 +1,8 @@
 package com.hm.achievement.listener.statistics;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -8,6 +10,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.StringUtils;
+import org.bukkit.Material;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -19,6 +22,7 @@ import org.bukkit.inventory.meta.ItemMeta;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Places achievements.
@@ -29,10 +33,19 @@ import com.hm.achievement.db.CacheManager;
 @Singleton
 public class PlacesListener extends AbstractListener {
 
+	private Map<Material, MatchedSubcategories> materialSubcategories;
+
 	@Inject
 	public PlacesListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(MultipleAchievements.PLACES, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(MultipleAchievements.PLACES, mainConfig, achievementMap, cacheManager, permissionCache);
+	}
+
+	@Override
+	public void extractConfigurationParameters() {
+		super.extractConfigurationParameters();
+
+		materialSubcategories = buildMatchedSubcategories(Material.class);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -42,9 +55,9 @@ public class PlacesListener extends AbstractListener {
 
 		Set<String> subcategories = new HashSet<>();
 
-		String blockName = placedItem.getType().name().toLowerCase();
-		if (player.hasPermission(category.toChildPermName(blockName))) {
-			addMatchingSubcategories(subcategories, blockName);
+		MatchedSubcategories matchedSubcategories = materialSubcategories.get(placedItem.getType());
+		if (matchedSubcategories != null && permissionCache.hasPermission(player, matchedSubcategories.permission)) {
+			Collections.addAll(subcategories, matchedSubcategories.subcategories);
 		}
 
 		ItemMeta itemMeta = placedItem.getItemMeta();
@@ -22,14 +22,15 @@ import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import com.hm.achievement.category.MultipleAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 @Singleton
 public class PlayerCommandsListener extends AbstractListener {
 
 	@Inject
 	public PlayerCommandsListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(MultipleAchievements.PLAYERCOMMANDS, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(MultipleAchievements.PLAYERCOMMANDS, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -39,7 +40,7 @@ public class PlayerCommandsListener extends AbstractListener {
 		Set<String> matchingSubcategories = new HashSet<>();
 		for (String groupedPrefixes : subcategories) {
 			for (String prefix : StringUtils.split(groupedPrefixes, '|')) {
-				if (player.hasPermission(category.toChildPermName(StringUtils.deleteWhitespace(prefix)))) {
+				if (permissionCache.hasPermission(player, category.toChildPermName(StringUtils.deleteWhitespace(prefix)))) {
 					for (String equivalentCommand : equivalentCommands) {
 						if (equivalentCommand.startsWith(prefix)) {
 							matchingSubcategories.add(groupedPrefixes);
@@ -16,6 +16,7 @@ import org.bukkit.event.player.PlayerFishEvent;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 
 /**
  * Listener class to deal with Treasures achievements.
@@ -30,8 +31,8 @@ public class TreasuresListener extends AbstractListener {
 
 	@Inject
 	public TreasuresListener(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(NormalAchievements.TREASURES, mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(NormalAchievements.TREASURES, mainConfig, achievementMap, cacheManager, permissionCache);
 	}
 
 	@Override
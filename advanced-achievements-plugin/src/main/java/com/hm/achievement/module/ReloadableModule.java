@@ -6,6 +6,8 @@ import com.hm.achievement.advancement.AdvancementManager;
 import com.hm.achievement.command.executable.AbstractCommand;
 import com.hm.achievement.command.executor.PluginCommandExecutor;
 import com.hm.achievement.db.AbstractDatabaseManager;
+import com.hm.achievement.db.OfflinePlayerTier;
+import com.hm.achievement.db.ProfilePreloader;
 import com.hm.achievement.gui.CategoryGUI;
 import com.hm.achievement.gui.GUIItems;
 import com.hm.achievement.gui.MainGUI;
@@ -57,6 +59,7 @@ import com.hm.achievement.listener.statistics.WaterBucketsListener;
 import com.hm.achievement.listener.statistics.WinRaidListener;
 import com.hm.achievement.runnable.AchieveDistanceRunnable;
 import com.hm.achievement.runnable.AchievePlayTimeRunnable;
+import com.hm.achievement.utils.PermissionCache;
 import com.hm.achievement.utils.StatisticIncreaseHandler;
 
 import dagger.Binds;
@@ -286,4 +289,16 @@ public interface ReloadableModule {
 	@Binds
 	@IntoSet
 	Reloadable bindEffectsHeldListener(EffectsHeldListener effectsHeldListener);
+
+	@Binds
+	@IntoSet
+	Reloadable bindPermissionCache(PermissionCache permissionCache);
+
+	@Binds
+	@IntoSet
+	Reloadable bindOfflinePlayerTier(OfflinePlayerTier offlinePlayerTier);
+
+	@Binds
+	@IntoSet
+	Reloadable bindProfilePreloader(ProfilePreloader profilePreloader);
 }
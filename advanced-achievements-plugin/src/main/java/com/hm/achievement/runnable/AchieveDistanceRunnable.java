@@ -21,6 +21,7 @@ import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
 import com.hm.achievement.lifecycle.Cleanable;
+import com.hm.achievement.utils.PermissionCache;
 import com.hm.achievement.utils.StatisticIncreaseHandler;
 
 /**
@@ -39,8 +40,8 @@ public class AchieveDistanceRunnable extends StatisticIncreaseHandler implements
 
 	@Inject
 	public AchieveDistanceRunnable(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager, Set<Category> disabledCategories) {
-		super(mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache, Set<Category> disabledCategories) {
+		super(mainConfig, achievementMap, cacheManager, permissionCache);
 		this.disabledCategories = disabledCategories;
 	}
 
@@ -138,7 +139,7 @@ public class AchieveDistanceRunnable extends StatisticIncreaseHandler implements
 			return;
 		}
 
-		long distance = cacheManager.getAndIncrementStatisticAmount(category, player.getUniqueId(), difference);
+		long distance = cacheManager.incrementStatisticAmount(category, player.getUniqueId(), difference);
 		checkThresholdsAndAchievements(player, category, distance);
 	}
 }
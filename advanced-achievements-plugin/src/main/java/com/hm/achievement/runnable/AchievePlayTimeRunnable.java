@@ -14,6 +14,7 @@ import com.earth2me.essentials.Essentials;
 import com.hm.achievement.category.NormalAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.utils.PermissionCache;
 import com.hm.achievement.utils.StatisticIncreaseHandler;
 
 /**
@@ -34,8 +35,8 @@ public class AchievePlayTimeRunnable extends StatisticIncreaseHandler implements
 
 	@Inject
 	public AchievePlayTimeRunnable(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
-		super(mainConfig, achievementMap, cacheManager);
+			CacheManager cacheManager, PermissionCache permissionCache) {
+		super(mainConfig, achievementMap, cacheManager, permissionCache);
 
 		if (Bukkit.getPluginManager().isPluginEnabled("Essentials")) {
 			essentials = (Essentials) Bukkit.getPluginManager().getPlugin("Essentials");
@@ -75,7 +76,7 @@ public class AchievePlayTimeRunnable extends StatisticIncreaseHandler implements
 			return;
 		}
 
-		long totalMillis = cacheManager.getAndIncrementStatisticAmount(NormalAchievements.PLAYEDTIME, player.getUniqueId(),
+		long totalMillis = cacheManager.incrementStatisticAmount(NormalAchievements.PLAYEDTIME, player.getUniqueId(),
 				millisSincePreviousRun);
 		// Thresholds in the configuration are in hours.
 		checkThresholdsAndAchievements(player, NormalAchievements.PLAYEDTIME, totalMillis / MILLIS_PER_HOUR);
@@ -0,0 +1,65 @@
+package com.hm.achievement.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns dense integer identifiers to names, such as subcategories or achievements, so that data can be keyed by
+ * primitive values rather than by strings. Identifiers are only meaningful within the current run of the plugin, they
+ * are never stored.
+ *
+ * @author Pyves
+ */
+public class NameInterner {
+
+	private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+	private volatile String[] names = new String[64];
+	private int size;
+
+	/**
+	 * Returns the identifier of a name, assigning a new one if the name was never seen before.
+	 *
+	 * @param name
+	 * @return the identifier of the name
+	 */
+	public int intern(String name) {
+		Integer id = ids.get(name);
+		return id == null ? assignId(name) : id;
+	}
+
+	/**
+	 * Returns the identifier of a name without assigning a new one.
+	 *
+	 * @param name
+	 * @return the identifier of the name, or -1 if the name was never seen before
+	 */
+	public int find(String name) {
+		Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @param id
+	 * @return the name corresponding to the identifier
+	 */
+	public String getName(int id) {
+		return names[id];
+	}
+
+	private synchronized int assignId(String name) {
+		Integer id = ids.get(name);
+		if (id != null) {
+			return id;
+		}
+		String[] currentNames = names;
+		if (size == currentNames.length) {
+			currentNames = Arrays.copyOf(currentNames, size * 2);
+		}
+		currentNames[size] = name;
+		// Publish the name before the identifier, so that any thread obtaining the identifier can resolve it.
+		names = currentNames;
+		ids.put(name, size);
+		return size++;
+	}
+}
@@ -0,0 +1,143 @@
+package com.hm.achievement.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import com.hm.achievement.lifecycle.Reloadable;
+
+/**
+ * Class in charge of remembering the permissions checked when increasing statistics. Resolving a permission can be
+ * expensive with some permission plugins; each node is therefore given an index, and the result of the first check of
+ * each node is stored in a per-player snapshot. Snapshots are discarded when players join or change world, when the
+ * plugin is reloaded and once they have expired.
+ *
+ * @author Pyves
+ */
+@Singleton
+public class PermissionCache implements Reloadable {
+
+	// Nodes beyond this limit, e.g. unusual custom names, are always checked directly against the player.
+	static final int MAX_NODES = 4096;
+
+	private final YamlConfiguration mainConfig;
+	private final Map<String, Integer> nodeIndices = new ConcurrentHashMap<>();
+	private final Map<String, String> achievementNodes = new ConcurrentHashMap<>();
+	private final Map<UUID, PermissionSnapshot> snapshots = new ConcurrentHashMap<>();
+	private final AtomicInteger nodeCount = new AtomicInteger();
+
+	private long snapshotDurationMillis;
+
+	@Inject
+	public PermissionCache(@Named("main") YamlConfiguration mainConfig) {
+		this.mainConfig = mainConfig;
+	}
+
+	@Override
+	public void extractConfigurationParameters() {
+		snapshotDurationMillis = TimeUnit.SECONDS.toMillis(mainConfig.getInt("PermissionCacheDuration", 30));
+		snapshots.clear();
+	}
+
+	/**
+	 * Checks whether a player has a permission, using the player's snapshot if caching is enabled.
+	 *
+	 * @param player
+	 * @param node
+	 * @return true if the player has the permission, false otherwise
+	 */
+	public boolean hasPermission(Player player, String node) {
+		if (snapshotDurationMillis <= 0) {
+			return player.hasPermission(node);
+		}
+		int index = getNodeIndex(node);
+		if (index >= MAX_NODES) {
+			return player.hasPermission(node);
+		}
+		long now = System.currentTimeMillis();
+		PermissionSnapshot snapshot = snapshots.get(player.getUniqueId());
+		if (snapshot == null || now - snapshot.creationMillis >= snapshotDurationMillis) {
+			snapshot = new PermissionSnapshot(now);
+			snapshots.put(player.getUniqueId(), snapshot);
+		}
+		return snapshot.hasPermission(player, node, index);
+	}
+
+	/**
+	 * Checks whether a player has the permission to receive an achievement.
+	 *
+	 * @param player
+	 * @param achievementName
+	 * @return true if the player has the permission, false otherwise
+	 */
+	public boolean hasAchievementPermission(Player player, String achievementName) {
+		String node = achievementNodes.get(achievementName);
+		if (node == null) {
+			node = achievementNodes.computeIfAbsent(achievementName, name -> "achievement." + name);
+		}
+		return hasPermission(player, node);
+	}
+
+	/**
+	 * Discards the permission snapshot of a player, for instance because the player's permissions may have changed.
+	 *
+	 * @param uuid
+	 */
+	public void invalidate(UUID uuid) {
+		snapshots.remove(uuid);
+	}
+
+	private int getNodeIndex(String node) {
+		Integer index = nodeIndices.get(node);
+		if (index == null) {
+			if (nodeCount.get() >= MAX_NODES) {
+				return MAX_NODES;
+			}
+			index = nodeIndices.computeIfAbsent(node, n -> nodeCount.getAndIncrement());
+		}
+		return index;
+	}
+
+	/**
+	 * Permissions of a single player, stored as two bitsets indexed by node: whether the node was checked, and if so
+	 * whether the player has it.
+	 */
+	private static final class PermissionSnapshot {
+
+		private final long creationMillis;
+		private long[] checked = new long[1];
+		private long[] granted = new long[1];
+
+		PermissionSnapshot(long creationMillis) {
+			this.creationMillis = creationMillis;
+		}
+
+		synchronized boolean hasPermission(Player player, String node, int index) {
+			int word = index >>> 6;
+			long bit = 1L << index;
+			if (word >= checked.length) {
+				int length = Math.max(word + 1, checked.length * 2);
+				checked = Arrays.copyOf(checked, length);
+				granted = Arrays.copyOf(granted, length);
+			} else if ((checked[word] & bit) != 0) {
+				return (granted[word] & bit) != 0;
+			}
+			checked[word] |= bit;
+			if (player.hasPermission(node)) {
+				granted[word] |= bit;
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -3,6 +3,7 @@ package com.hm.achievement.utils;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -31,6 +32,7 @@ public class StatisticIncreaseHandler implements Reloadable {
 	protected final YamlConfiguration mainConfig;
 	protected final AchievementMap achievementMap;
 	protected final CacheManager cacheManager;
+	protected final PermissionCache permissionCache;
 
 	private boolean configRestrictCreative;
 	private boolean configRestrictSpectator;
@@ -39,10 +41,11 @@ public class StatisticIncreaseHandler implements Reloadable {
 
 	@Inject
 	public StatisticIncreaseHandler(@Named("main") YamlConfiguration mainConfig, AchievementMap achievementMap,
-			CacheManager cacheManager) {
+			CacheManager cacheManager, PermissionCache permissionCache) {
 		this.mainConfig = mainConfig;
 		this.achievementMap = achievementMap;
 		this.cacheManager = cacheManager;
+		this.permissionCache = permissionCache;
 	}
 
 	@Override
@@ -51,6 +54,8 @@ public class StatisticIncreaseHandler implements Reloadable {
 		configRestrictSpectator = mainConfig.getBoolean("RestrictSpectator");
 		configRestrictAdventure = mainConfig.getBoolean("RestrictAdventure");
 		configExcludedWorlds = new HashSet<>(mainConfig.getStringList("ExcludedWorlds"));
+		// Lists of achievements are replaced when the configuration is parsed.
+		cacheManager.resetThresholdCursors();
 	}
 
 	/**
@@ -81,15 +86,27 @@ public class StatisticIncreaseHandler implements Reloadable {
 	}
 
 	private void checkThresholdsAndAchievements(Player player, List<Achievement> achievements, long currentValue) {
-		for (Achievement achievement : achievements) {
+		UUID uuid = player.getUniqueId();
+		// Achievements before the cursor were all received, usually only the next threshold needs to be compared.
+		int cursor = cacheManager.getThresholdCursor(uuid, achievements);
+		for (int i = cursor; i < achievements.size(); ++i) {
+			Achievement achievement = achievements.get(i);
 			// Check whether player has met the threshold.
 			if (currentValue < achievement.getThreshold()) {
 				// Entries in List sorted in increasing order, all subsequent thresholds will fail the condition.
 				return;
 			}
+			// Received achievements are retrieved asynchronously if needed, thresholds are compared again on the next
+			// statistic increase.
+			if (!cacheManager.requestReceivedAchievements(uuid)) {
+				return;
+			}
 			// Check whether player has received the achievement and has permission to do so.
-			if (!cacheManager.hasPlayerAchievement(player.getUniqueId(), achievement.getName())
-					&& player.hasPermission("achievement." + achievement.getName())) {
+			if (cacheManager.hasPlayerAchievement(uuid, achievement.getName())) {
+				if (i == cursor) {
+					cacheManager.setThresholdCursor(uuid, achievements, ++cursor);
+				}
+			} else if (permissionCache.hasAchievementPermission(player, achievement.getName())) {
 				Bukkit.getPluginManager().callEvent(new PlayerAdvancedAchievementEvent(player, achievement));
 			}
 		}
@@ -105,7 +122,7 @@ public class StatisticIncreaseHandler implements Reloadable {
 	protected boolean shouldIncreaseBeTakenIntoAccount(Player player, Category category) {
 		GameMode gameMode = player.getGameMode();
 		return !player.hasMetadata("NPC")
-				&& player.hasPermission(category.toPermName())
+				&& permissionCache.hasPermission(player, category.toPermName())
 				&& (!configRestrictCreative || gameMode != GameMode.CREATIVE)
 				&& (!configRestrictSpectator || gameMode != GameMode.SPECTATOR)
 				&& (!configRestrictAdventure || gameMode != GameMode.ADVENTURE)
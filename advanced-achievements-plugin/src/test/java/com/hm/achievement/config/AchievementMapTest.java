@@ -1,5 +1,6 @@
 package com.hm.achievement.config;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -179,6 +180,43 @@ class AchievementMapTest {
 		assertTrue(underTest.getForCategory(MultipleAchievements.KILLS).isEmpty());
 		assertTrue(underTest.getSubcategoriesForCategory(MultipleAchievements.KILLS).isEmpty());
 		assertTrue(underTest.getCategorySubcategories().isEmpty());
+		assertEquals(0, underTest.getMaskForCategory(MultipleAchievements.KILLS).length);
+	}
+
+	@Test
+	void shouldKeepAchievementIdentifiersWhenCleared() {
+		Achievement achievement1 = new AchievementBuilder().category(MultipleAchievements.KILLS).subcategory("skeleton")
+				.name("ach1").displayName("Display 1").build();
+		Achievement achievement2 = new AchievementBuilder().category(NormalAchievements.ANVILS).name("ach2")
+				.displayName("Display 2").build();
+
+		underTest.put(achievement1);
+		underTest.put(achievement2);
+		int id2 = underTest.getIdForName("ach2");
+		underTest.clearAll();
+		underTest.put(achievement2);
+
+		assertEquals(id2, underTest.getIdForName("ach2"));
+		assertEquals("ach2", underTest.getNameForId(id2));
+		assertEquals(-1, underTest.findIdForName("ach3"));
+		assertArrayEquals(new long[] { 1L << id2 }, underTest.getMaskForCategory(NormalAchievements.ANVILS));
+	}
+
+	@Test
+	void shouldReturnMaskOfAchievementsInCategory() {
+		for (int i = 0; i < 100; ++i) {
+			underTest.put(new AchievementBuilder().category(i % 2 == 0 ? NormalAchievements.BEDS : NormalAchievements.EGGS)
+					.name("ach" + i).displayName("Display " + i).build());
+		}
+
+		long[] mask = underTest.getMaskForCategory(NormalAchievements.BEDS);
+		int count = 0;
+		for (long word : mask) {
+			count += Long.bitCount(word);
+		}
+		assertEquals(50, count);
+		int id = underTest.getIdForName("ach42");
+		assertTrue((mask[id >>> 6] & 1L << id) != 0);
 	}
 
 }
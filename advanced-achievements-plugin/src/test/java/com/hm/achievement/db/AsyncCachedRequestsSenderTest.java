@@ -0,0 +1,340 @@
+package com.hm.achievement.db;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+
+/**
+ * Class for testing the batched statistic writes against a H2 database.
+ *
+ * @author Pyves
+ */
+class AsyncCachedRequestsSenderTest {
+
+	private static final Logger LOGGER = Logger.getLogger("DBTestLogger");
+
+	private static AdvancedAchievements plugin;
+	private static H2DatabaseManager db;
+
+	private YamlConfiguration mainConfig;
+	private CacheManager cacheManager;
+	private AsyncCachedRequestsSender underTest;
+
+	@BeforeAll
+	static void setUpClass(@TempDir Path tempDir) throws Exception {
+		plugin = mock(AdvancedAchievements.class);
+		when(plugin.getDataFolder()).thenReturn(tempDir.relativize(Paths.get("").toAbsolutePath()).toFile());
+		YamlConfiguration config = YamlConfiguration.loadConfiguration(
+				new InputStreamReader(AsyncCachedRequestsSenderTest.class.getResourceAsStream("/config-h2.yml")));
+		db = new H2DatabaseManager(config, LOGGER, new DatabaseUpdater(LOGGER), plugin, newDirectExecutorService(),
+				newDirectExecutorService());
+		db.initialise();
+		db.extractConfigurationParameters();
+	}
+
+	@BeforeEach
+	void setUp() {
+		mainConfig = new YamlConfiguration();
+		StatisticsJournal statisticsJournal = new StatisticsJournal(mainConfig, LOGGER, plugin);
+		cacheManager = new CacheManager(plugin, db, statisticsJournal, new AchievementMap(),
+				new OfflinePlayerTier(mainConfig));
+		underTest = new AsyncCachedRequestsSender(mainConfig, LOGGER, cacheManager, db, statisticsJournal);
+	}
+
+	@AfterAll
+	static void tearDownClass() {
+		db.shutdown();
+	}
+
+	@Test
+	void shouldWriteMoreRowsThanFitInASingleStatement() {
+		List<UUID> players = new ArrayList<>();
+		for (int i = 0; i < 2 * AsyncCachedRequestsSender.ROWS_PER_STATEMENT + 3; ++i) {
+			UUID player = UUID.randomUUID();
+			players.add(player);
+			cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, player, i + 1);
+			cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.CRAFTS, "diamond_axe", player, i + 2);
+		}
+
+		underTest.sendBatchedRequests();
+
+		for (int i = 0; i < players.size(); ++i) {
+			UUID player = players.get(i);
+			assertEquals(i + 1, db.getNormalAchievementAmount(player, NormalAchievements.BEDS));
+			assertEquals(i + 2, db.getMultipleAchievementAmount(player, MultipleAchievements.CRAFTS, "diamond_axe"));
+		}
+	}
+
+	@Test
+	void shouldOverwritePreviouslyWrittenValues() {
+		UUID player = UUID.randomUUID();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.ARROWS, player, 3);
+		cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, "zombie", player, 4);
+		underTest.sendBatchedRequests();
+
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.ARROWS, player, 2);
+		cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, "zombie", player, 6);
+		underTest.sendBatchedRequests();
+
+		assertEquals(5, db.getNormalAchievementAmount(player, NormalAchievements.ARROWS));
+		assertEquals(10, db.getMultipleAchievementAmount(player, MultipleAchievements.KILLS, "zombie"));
+	}
+
+	@Test
+	void shouldOnlyWriteStatisticsOnce() {
+		UUID player = UUID.randomUUID();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.EGGS, player, 7);
+		underTest.sendBatchedRequests();
+
+		assertFalse(cacheManager.getStatBlock(player).isDirty(NormalAchievements.EGGS));
+		assertEquals(7, db.getNormalAchievementAmount(player, NormalAchievements.EGGS));
+	}
+
+	@Test
+	void shouldDrainDirtyPlayersAndOnlyQueuePlayersOncePerFlush() {
+		UUID player = UUID.randomUUID();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.FISH, player, 1);
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.FISH, player, 1);
+		cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.BREAKS, "stone", player, 1);
+		cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.BREAKS, "stone", player, 1);
+		assertEquals(1, cacheManager.getDirtyPlayers().size());
+		assertEquals(2, cacheManager.getDirtyCount());
+
+		underTest.sendBatchedRequests();
+
+		assertTrue(cacheManager.getDirtyPlayers().isEmpty());
+		assertFalse(cacheManager.getStatBlock(player).isDirty());
+		assertEquals(2, db.getNormalAchievementAmount(player, NormalAchievements.FISH));
+		assertEquals(2, db.getMultipleAchievementAmount(player, MultipleAchievements.BREAKS, "stone"));
+
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.FISH, player, 0);
+		assertTrue(cacheManager.getDirtyPlayers().isEmpty());
+	}
+
+	@Test
+	void shouldWriteStatisticsInSeveralChunks() {
+		mainConfig.set("StatisticsFlushChunkSize", 3);
+		List<UUID> players = new ArrayList<>();
+		for (int i = 0; i < 10; ++i) {
+			UUID player = UUID.randomUUID();
+			players.add(player);
+			cacheManager.getAndIncrementStatisticAmount(NormalAchievements.PETMASTERGIVE, player, i + 1);
+			cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.TARGETSSHOT, "zombie", player, i + 2);
+		}
+		assertEquals(20, cacheManager.getDirtyCount());
+
+		underTest.sendBatchedRequests();
+
+		assertEquals(0, cacheManager.getDirtyCount());
+		assertEquals(0L, cacheManager.getOldestDirtyMillis());
+		for (int i = 0; i < players.size(); ++i) {
+			UUID player = players.get(i);
+			assertEquals(i + 1, db.getNormalAchievementAmount(player, NormalAchievements.PETMASTERGIVE));
+			assertEquals(i + 2, db.getMultipleAchievementAmount(player, MultipleAchievements.TARGETSSHOT, "zombie"));
+		}
+	}
+
+	@Test
+	void shouldOnlyFlushOnceEnoughStatisticsWereModified() {
+		mainConfig.set("StatisticsFlushDirtyThreshold", 2);
+		UUID player = UUID.randomUUID();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.LEVELS, player, 1);
+		underTest.run();
+
+		assertEquals(0, db.getNormalAchievementAmount(player, NormalAchievements.LEVELS));
+
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.ENCHANTMENTS, player, 1);
+		underTest.run();
+
+		assertEquals(1, db.getNormalAchievementAmount(player, NormalAchievements.LEVELS));
+		assertEquals(1, db.getNormalAchievementAmount(player, NormalAchievements.ENCHANTMENTS));
+		assertEquals(60000L, underTest.getFlushIntervalMillis());
+	}
+
+	@Test
+	void shouldWriteRemainingStatisticsInParallelPartitions() {
+		mainConfig.set("StatisticsFlushChunkSize", 2);
+		List<UUID> players = new ArrayList<>();
+		for (int i = 0; i < 10; ++i) {
+			UUID player = UUID.randomUUID();
+			players.add(player);
+			cacheManager.getAndIncrementStatisticAmount(NormalAchievements.MILKS, player, i + 1);
+			cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.BREEDING, "cow", player, i + 2);
+		}
+
+		underTest.sendRemainingRequests();
+
+		for (int i = 0; i < players.size(); ++i) {
+			UUID player = players.get(i);
+			assertEquals(i + 1, db.getNormalAchievementAmount(player, NormalAchievements.MILKS));
+			assertEquals(i + 2, db.getMultipleAchievementAmount(player, MultipleAchievements.BREEDING, "cow"));
+		}
+	}
+
+	@Test
+	void shouldSpillRemainingStatisticsWhenShutdownDeadlinePasses(@TempDir Path journalDir) {
+		AdvancedAchievements spillingPlugin = mock(AdvancedAchievements.class);
+		when(spillingPlugin.getDataFolder()).thenReturn(journalDir.toFile());
+		mainConfig.set("StatisticsJournal", false);
+		mainConfig.set("ShutdownFlushTimeout", 0);
+		StatisticsJournal statisticsJournal = new StatisticsJournal(mainConfig, LOGGER, spillingPlugin);
+		CacheManager spillingCacheManager = new CacheManager(spillingPlugin, db, statisticsJournal,
+				new AchievementMap(), new OfflinePlayerTier(mainConfig));
+		UUID player = UUID.randomUUID();
+		spillingCacheManager.getAndIncrementStatisticAmount(NormalAchievements.SHEARS, player, 3);
+		spillingCacheManager.getAndIncrementStatisticAmount(MultipleAchievements.CRAFTS, "iron_ingot", player, 4);
+
+		new AsyncCachedRequestsSender(mainConfig, LOGGER, spillingCacheManager, db, statisticsJournal)
+				.sendRemainingRequests();
+		statisticsJournal.close();
+
+		assertEquals(0, db.getNormalAchievementAmount(player, NormalAchievements.SHEARS));
+		CacheManager restartedCacheManager = new CacheManager(spillingPlugin, db,
+				new StatisticsJournal(mainConfig, LOGGER, spillingPlugin), new AchievementMap(),
+				new OfflinePlayerTier(mainConfig));
+		restartedCacheManager.replayJournal();
+		PlayerStatBlock statBlock = restartedCacheManager.getStatBlock(player);
+		assertEquals(3, statBlock.getValue(NormalAchievements.SHEARS));
+		assertTrue(statBlock.isDirty(NormalAchievements.SHEARS));
+		assertEquals(4,
+				restartedCacheManager.getAndIncrementStatisticAmount(MultipleAchievements.CRAFTS, "iron_ingot", player, 0));
+		assertTrue(restartedCacheManager.getDirtyPlayers().contains(player));
+	}
+
+	@Test
+	void shouldAddIncrementsOfServersSharingTheDatabaseWhenAdditiveWritesEnabled() {
+		mainConfig.set("AdditiveStatisticWrites", true);
+		UUID player = UUID.randomUUID();
+		StatisticsJournal otherJournal = new StatisticsJournal(mainConfig, LOGGER, plugin);
+		CacheManager otherCacheManager = new CacheManager(plugin, db, otherJournal, new AchievementMap(),
+				new OfflinePlayerTier(mainConfig));
+		AsyncCachedRequestsSender otherSender = new AsyncCachedRequestsSender(mainConfig, LOGGER, otherCacheManager, db,
+				otherJournal);
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.SNOWBALLS, player, 3);
+		cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.PLACES, "dirt", player, 5);
+		otherCacheManager.getAndIncrementStatisticAmount(NormalAchievements.SNOWBALLS, player, 4);
+		otherCacheManager.getAndIncrementStatisticAmount(MultipleAchievements.PLACES, "dirt", player, 6);
+
+		underTest.sendBatchedRequests();
+		otherSender.sendBatchedRequests();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.SNOWBALLS, player, 1);
+		underTest.sendBatchedRequests();
+
+		assertEquals(8, db.getNormalAchievementAmount(player, NormalAchievements.SNOWBALLS));
+		assertEquals(11, db.getMultipleAchievementAmount(player, MultipleAchievements.PLACES, "dirt"));
+	}
+
+	@Test
+	void shouldNotReplayJournaledIncrementsAlreadyWrittenWhenAdditiveWritesEnabled(@TempDir Path dataFolder)
+			throws IOException {
+		mainConfig.set("AdditiveStatisticWrites", true);
+		AdvancedAchievements journalingPlugin = mock(AdvancedAchievements.class);
+		when(journalingPlugin.getDataFolder()).thenReturn(dataFolder.toFile());
+		StatisticsJournal statisticsJournal = new StatisticsJournal(mainConfig, LOGGER, journalingPlugin);
+		CacheManager journalingCacheManager = new CacheManager(journalingPlugin, db, statisticsJournal,
+				new AchievementMap(), new OfflinePlayerTier(mainConfig));
+		journalingCacheManager.replayJournal();
+		UUID player = UUID.randomUUID();
+		journalingCacheManager.getAndIncrementStatisticAmount(NormalAchievements.DROPS, player, 3);
+		journalingCacheManager.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, "creeper", player, 4);
+		statisticsJournal.sync();
+		File journalDirectory = new File(dataFolder.toFile(), "journal");
+		Path backup = Files.createDirectories(dataFolder.resolve("backup"));
+		for (File file : journalDirectory.listFiles()) {
+			Files.copy(file.toPath(), backup.resolve(file.getName()));
+		}
+
+		new AsyncCachedRequestsSender(mainConfig, LOGGER, journalingCacheManager, db, statisticsJournal)
+				.sendBatchedRequests();
+		journalingCacheManager.getAndIncrementStatisticAmount(NormalAchievements.DROPS, player, 2);
+		statisticsJournal.close();
+		// Crash right after the statistics were written, before the journal was discarded.
+		for (File file : backup.toFile().listFiles()) {
+			Files.copy(file.toPath(), journalDirectory.toPath().resolve(file.getName()),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+		Files.deleteIfExists(journalDirectory.toPath().resolve("checkpoint"));
+		StatisticsJournal restartedJournal = new StatisticsJournal(mainConfig, LOGGER, journalingPlugin);
+		CacheManager restartedCacheManager = new CacheManager(journalingPlugin, db, restartedJournal,
+				new AchievementMap(), new OfflinePlayerTier(mainConfig));
+		restartedCacheManager.replayJournal();
+		new AsyncCachedRequestsSender(mainConfig, LOGGER, restartedCacheManager, db, restartedJournal)
+				.sendBatchedRequests();
+		restartedJournal.close();
+
+		assertEquals(5, db.getNormalAchievementAmount(player, NormalAchievements.DROPS));
+		assertEquals(4, db.getMultipleAchievementAmount(player, MultipleAchievements.KILLS, "creeper"));
+	}
+
+	@Test
+	void shouldOverwriteResetStatisticsWhenAdditiveWritesEnabled() {
+		mainConfig.set("AdditiveStatisticWrites", true);
+		UUID player = UUID.randomUUID();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.TRADES, player, 9);
+		underTest.sendBatchedRequests();
+
+		cacheManager.resetPlayerStatistics(player, Collections.singletonList("Trades"));
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.TRADES, player, 2);
+		underTest.sendBatchedRequests();
+
+		assertEquals(2, db.getNormalAchievementAmount(player, NormalAchievements.TRADES));
+	}
+
+	@Test
+	void shouldSkipRunsWhileFlushIsInProgress() throws Exception {
+		mainConfig.set("StatisticsFlushDirtyThreshold", 1);
+		CacheManager slowCacheManager = mock(CacheManager.class);
+		when(slowCacheManager.getDirtyCount()).thenReturn(1);
+		CountDownLatch flushStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(slowCacheManager.getDirtyPlayers()).then(invocation -> {
+			flushStarted.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return new ConcurrentLinkedQueue<UUID>();
+		});
+		AsyncCachedRequestsSender sender = new AsyncCachedRequestsSender(mainConfig, LOGGER, slowCacheManager, db,
+				new StatisticsJournal(mainConfig, LOGGER, plugin));
+		Thread flushingThread = new Thread(sender);
+		flushingThread.start();
+		assertTrue(flushStarted.await(5, TimeUnit.SECONDS));
+
+		sender.run();
+		release.countDown();
+		flushingThread.join(TimeUnit.SECONDS.toMillis(5));
+
+		verify(slowCacheManager, times(1)).getDirtyPlayers();
+	}
+}
@@ -0,0 +1,307 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+
+/**
+ * Class for testing the cleaning of the cache and the consistency of concurrent statistic updates.
+ *
+ * @author Pyves
+ */
+class CacheManagerTest {
+
+	private static final UUID PLAYER_UUID = UUID.randomUUID();
+	private static final UUID OTHER_PLAYER_UUID = UUID.randomUUID();
+
+	private final AbstractDatabaseManager databaseManager = mock(AbstractDatabaseManager.class);
+	private CacheManager underTest;
+
+	@BeforeEach
+	void setUp() {
+		AdvancedAchievements plugin = mock(AdvancedAchievements.class);
+		YamlConfiguration mainConfig = new YamlConfiguration();
+		underTest = new CacheManager(plugin, databaseManager,
+				new StatisticsJournal(mainConfig, Logger.getLogger("CacheTestLogger"), plugin), new AchievementMap(),
+				new OfflinePlayerTier(mainConfig));
+		when(databaseManager.getPlayerAchievementNames(PLAYER_UUID)).thenReturn(Collections.singleton("connect_1"));
+		underTest.playerConnected(PLAYER_UUID);
+		underTest.playerConnected(OTHER_PLAYER_UUID);
+	}
+
+	@Test
+	void shouldRemoveReceivedAchievementsOfDisconnectedPlayers() {
+		underTest.hasPlayerAchievement(PLAYER_UUID, "connect_1");
+		underTest.playerDisconnected(PLAYER_UUID);
+
+		underTest.hasPlayerAchievement(PLAYER_UUID, "connect_1");
+		underTest.cleanPlayerData();
+		underTest.hasPlayerAchievement(PLAYER_UUID, "connect_1");
+
+		verify(databaseManager, times(2)).getPlayerAchievementNames(PLAYER_UUID);
+	}
+
+	@Test
+	void shouldRemoveWrittenStatisticsOfDisconnectedPlayers() {
+		underTest.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 1);
+		underTest.getAndIncrementStatisticAmount(NormalAchievements.BEDS, OTHER_PLAYER_UUID, 1);
+		underTest.playerDisconnected(PLAYER_UUID);
+		underTest.playerDisconnected(OTHER_PLAYER_UUID);
+		underTest.cleanPlayerData();
+		underTest.takeDirtyStatistics(OTHER_PLAYER_UUID, mock(PlayerStatBlock.StatisticVisitor.class));
+		underTest.completeDatabaseWrite(OTHER_PLAYER_UUID);
+
+		underTest.evictStalePlayers(Arrays.asList(PLAYER_UUID, OTHER_PLAYER_UUID));
+
+		// Statistics that were not written to the database are kept until the next attempt.
+		assertNotNull(underTest.getStatBlock(PLAYER_UUID));
+		assertNull(underTest.getStatBlock(OTHER_PLAYER_UUID));
+
+		underTest.takeDirtyStatistics(PLAYER_UUID, mock(PlayerStatBlock.StatisticVisitor.class));
+		underTest.evictStalePlayers(Collections.singletonList(PLAYER_UUID));
+
+		// Statistics being written are kept until the outcome of the write is known.
+		assertNotNull(underTest.getStatBlock(PLAYER_UUID));
+
+		underTest.completeDatabaseWrite(PLAYER_UUID);
+		underTest.evictStalePlayers(Collections.singletonList(PLAYER_UUID));
+
+		assertNull(underTest.getStatBlock(PLAYER_UUID));
+	}
+
+	@Test
+	void shouldRetrieveStatisticBeforeRestoringFailedWriteOfUnloadedStatistic() {
+		when(databaseManager.getNormalAchievementAmountAsync(PLAYER_UUID, NormalAchievements.BEDS))
+				.thenReturn(CompletableFuture.completedFuture(10L));
+		PlayerStatBlock.StatisticVisitor databaseWriter = mock(PlayerStatBlock.StatisticVisitor.class);
+		underTest.getAndIncrementStatisticAmount(NormalAchievements.EGGS, PLAYER_UUID, 1);
+		underTest.takeDirtyStatistics(PLAYER_UUID, databaseWriter);
+
+		underTest.cancelDatabaseWrite(NormalAchievements.BEDS, PLAYER_UUID, 2L, false);
+		underTest.completeDatabaseWrite(PLAYER_UUID);
+
+		assertTrue(underTest.getStatBlock(PLAYER_UUID).isLoaded(NormalAchievements.BEDS));
+		underTest.takeDirtyStatistics(PLAYER_UUID, databaseWriter);
+		verify(databaseWriter).visit(NormalAchievements.BEDS, 12L, 2L, false);
+	}
+
+	@Test
+	void shouldKeepStatisticsOfReconnectedPlayers() {
+		underTest.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 1);
+		underTest.takeDirtyStatistics(PLAYER_UUID, mock(PlayerStatBlock.StatisticVisitor.class));
+		underTest.completeDatabaseWrite(PLAYER_UUID);
+		underTest.playerDisconnected(PLAYER_UUID);
+		underTest.cleanPlayerData();
+		underTest.playerConnected(PLAYER_UUID);
+
+		underTest.evictStalePlayers(Collections.singletonList(PLAYER_UUID));
+
+		assertNotNull(underTest.getStatBlock(PLAYER_UUID));
+	}
+
+	@Test
+	void shouldNotQueryDatabaseOnceProfileLoaded() {
+		PlayerProfile profile = new PlayerProfile();
+		profile.addStatistic("beds", null, 4L, true);
+		profile.addStatistic("kills", "zombie", 5L, true);
+		profile.addAchievement("connect_1");
+		when(databaseManager.getPlayerProfiles(Collections.singleton(PLAYER_UUID)))
+				.thenReturn(Collections.singletonMap(PLAYER_UUID, profile));
+
+		underTest.loadPlayerProfiles(Collections.singleton(PLAYER_UUID));
+
+		assertEquals(5L, underTest.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 1));
+		assertEquals(0L, underTest.getAndIncrementStatisticAmount(NormalAchievements.EGGS, PLAYER_UUID, 0));
+		assertEquals(6L, underTest.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, "zombie", PLAYER_UUID, 1));
+		assertEquals(0L, underTest.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, "skeleton", PLAYER_UUID, 0));
+		assertEquals(1L,
+				underTest.getAndIncrementStatisticAmount(MultipleAchievements.JOBSREBORN, "hunter", PLAYER_UUID, 0));
+		assertTrue(underTest.hasPlayerAchievement(PLAYER_UUID, "connect_1"));
+		verify(databaseManager, never()).getNormalAchievementAmount(any(), any());
+		verify(databaseManager, never()).getMultipleAchievementAmount(any(), any(), any());
+		verify(databaseManager, never()).getPlayerAchievementNames(any());
+	}
+
+	@Test
+	void shouldBufferIncrementsUntilStatisticLoaded() {
+		CompletableFuture<Long> beds = new CompletableFuture<>();
+		when(databaseManager.getNormalAchievementAmountAsync(PLAYER_UUID, NormalAchievements.BEDS)).thenReturn(beds);
+		PlayerStatBlock.StatisticVisitor databaseWriter = mock(PlayerStatBlock.StatisticVisitor.class);
+
+		assertEquals(1L, underTest.incrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 1));
+		assertEquals(3L, underTest.incrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 2));
+		assertFalse(underTest.getStatBlock(PLAYER_UUID).isDirty());
+		beds.complete(10L);
+
+		assertEquals(14L, underTest.incrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 1));
+		underTest.takeDirtyStatistics(PLAYER_UUID, databaseWriter);
+		verify(databaseWriter).visit(NormalAchievements.BEDS, 14L, 4L, false);
+		verify(databaseManager).getNormalAchievementAmountAsync(PLAYER_UUID, NormalAchievements.BEDS);
+		verify(databaseManager, never()).getNormalAchievementAmount(any(), any());
+	}
+
+	@Test
+	void shouldWaitForStatisticsBeingLoaded() throws Exception {
+		CompletableFuture<Long> kills = new CompletableFuture<>();
+		when(databaseManager.getMultipleAchievementAmountAsync(PLAYER_UUID, MultipleAchievements.KILLS, "zombie"))
+				.thenReturn(kills);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		underTest.incrementStatisticAmount(MultipleAchievements.KILLS, "zombie", PLAYER_UUID, 1);
+		Future<Long> amount = executor.submit(
+				() -> underTest.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, "zombie", PLAYER_UUID, 0));
+		kills.complete(5L);
+
+		assertEquals(6L, amount.get(5, TimeUnit.SECONDS));
+		executor.shutdown();
+		verify(databaseManager, never()).getMultipleAchievementAmount(any(), any(), any());
+	}
+
+	@Test
+	void shouldRetrieveReceivedAchievementsAsynchronously() {
+		CompletableFuture<Set<String>> achievementNames = new CompletableFuture<>();
+		when(databaseManager.getPlayerAchievementNamesAsync(OTHER_PLAYER_UUID)).thenReturn(achievementNames);
+
+		assertFalse(underTest.requestReceivedAchievements(OTHER_PLAYER_UUID));
+		assertFalse(underTest.requestReceivedAchievements(OTHER_PLAYER_UUID));
+		achievementNames.complete(Collections.singleton("connect_1"));
+
+		assertTrue(underTest.requestReceivedAchievements(OTHER_PLAYER_UUID));
+		assertTrue(underTest.hasPlayerAchievement(OTHER_PLAYER_UUID, "connect_1"));
+		verify(databaseManager).getPlayerAchievementNamesAsync(OTHER_PLAYER_UUID);
+		verify(databaseManager, never()).getPlayerAchievementNames(OTHER_PLAYER_UUID);
+	}
+
+	@Test
+	void shouldOnlyRunTasksImmediatelyOnceReceivedAchievementsAreCached() {
+		CompletableFuture<Set<String>> achievementNames = new CompletableFuture<>();
+		when(databaseManager.getPlayerAchievementNamesAsync(OTHER_PLAYER_UUID)).thenReturn(achievementNames);
+		List<String> tasks = new ArrayList<>();
+
+		underTest.whenReceivedAchievementsCached(OTHER_PLAYER_UUID, () -> tasks.add("uncached"));
+		underTest.hasPlayerAchievement(PLAYER_UUID, "connect_1");
+		underTest.whenReceivedAchievementsCached(PLAYER_UUID, () -> tasks.add("cached"));
+
+		assertEquals(Collections.singletonList("cached"), tasks);
+		verify(databaseManager).getPlayerAchievementNamesAsync(OTHER_PLAYER_UUID);
+		verify(databaseManager, never()).getPlayerAchievementNames(OTHER_PLAYER_UUID);
+	}
+
+	@Test
+	void shouldNotLoseIncrementsOfConcurrentThreads() throws Exception {
+		int threads = 8;
+		int increments = 20_000;
+		UUID offlinePlayer = UUID.randomUUID();
+		AtomicLong writtenBeds = new AtomicLong();
+		AtomicLong writtenKills = new AtomicLong();
+		// Offline players are evicted as soon as their statistics are written, they are then loaded again from the
+		// simulated database.
+		YamlConfiguration mainConfig = new YamlConfiguration();
+		mainConfig.set("OfflineCacheMaxEntries", 0);
+		OfflinePlayerTier offlinePlayerTier = new OfflinePlayerTier(mainConfig);
+		offlinePlayerTier.extractConfigurationParameters();
+		AdvancedAchievements plugin = mock(AdvancedAchievements.class);
+		CacheManager cacheManager = new CacheManager(plugin, databaseManager,
+				new StatisticsJournal(mainConfig, Logger.getLogger("CacheTestLogger"), plugin), new AchievementMap(),
+				offlinePlayerTier);
+		when(databaseManager.getNormalAchievementAmount(offlinePlayer, NormalAchievements.BEDS))
+				.thenAnswer(invocation -> writtenBeds.get());
+		when(databaseManager.getMultipleAchievementAmount(offlinePlayer, MultipleAchievements.KILLS, "zombie"))
+				.thenAnswer(invocation -> writtenKills.get());
+		when(databaseManager.getNormalAchievementAmountAsync(offlinePlayer, NormalAchievements.BEDS))
+				.thenAnswer(invocation -> CompletableFuture.supplyAsync(writtenBeds::get));
+		when(databaseManager.getMultipleAchievementAmountAsync(offlinePlayer, MultipleAchievements.KILLS, "zombie"))
+				.thenAnswer(invocation -> CompletableFuture.supplyAsync(writtenKills::get));
+		int zombieId = cacheManager.getSubcategoryId("zombie");
+		PlayerStatBlock.StatisticVisitor databaseWriter = new PlayerStatBlock.StatisticVisitor() {
+
+			@Override
+			public void visit(NormalAchievements category, long value, long delta, boolean overwrite) {
+				writtenBeds.addAndGet(delta);
+			}
+
+			@Override
+			public void visit(MultipleAchievements category, int subcategoryId, long value, long delta,
+					boolean overwrite) {
+				writtenKills.addAndGet(delta);
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> incrementers = new ArrayList<>();
+		for (int thread = 0; thread < threads; ++thread) {
+			// Half of the threads do not wait for the statistics to be loaded.
+			boolean blocking = thread % 2 == 0;
+			incrementers.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < increments; ++i) {
+					if (blocking) {
+						cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, offlinePlayer, 1);
+						cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, zombieId, offlinePlayer, 1);
+					} else {
+						cacheManager.incrementStatisticAmount(NormalAchievements.BEDS, offlinePlayer, 1);
+						cacheManager.incrementStatisticAmount(MultipleAchievements.KILLS, zombieId, offlinePlayer, 1);
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		while (!incrementers.stream().allMatch(Future::isDone)) {
+			if (cacheManager.takeDirtyStatistics(offlinePlayer, databaseWriter) != 0L) {
+				cacheManager.completeDatabaseWrite(offlinePlayer);
+			}
+			cacheManager.cleanStaleCaches();
+		}
+		for (Future<?> incrementer : incrementers) {
+			incrementer.get();
+		}
+		executor.shutdown();
+		// Wait for the statistics retrieved for the last non-blocking increments.
+		PlayerStatBlock statBlock;
+		while ((statBlock = cacheManager.getStatBlock(offlinePlayer)) != null && statBlock.hasPendingIncrements()) {
+			Thread.yield();
+		}
+		cacheManager.takeDirtyStatistics(offlinePlayer, databaseWriter);
+
+		assertEquals(threads * increments, writtenBeds.get());
+		assertEquals(threads * increments, writtenKills.get());
+		assertEquals(threads * increments,
+				cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, offlinePlayer, 0));
+		assertEquals(threads * increments,
+				cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, zombieId, offlinePlayer, 0));
+	}
+}
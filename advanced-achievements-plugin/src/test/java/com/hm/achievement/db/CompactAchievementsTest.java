@@ -0,0 +1,145 @@
+package com.hm.achievement.db;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.db.data.AwardedDBAchievement;
+
+/**
+ * Class for testing the compact achievements schema and the migration of existing achievements against a H2 database.
+ *
+ * @author Pyves
+ */
+class CompactAchievementsTest {
+
+	private static final Logger LOGGER = Logger.getLogger("DBTestLogger");
+	private static final UUID MIGRATED_PLAYER = UUID.randomUUID();
+	private static final int MIGRATED_ACHIEVEMENTS = DatabaseUpdater.MIGRATION_BATCH_SIZE + 1;
+
+	private static AdvancedAchievements plugin;
+	private static H2DatabaseManager db;
+
+	@BeforeAll
+	static void setUpClass(@TempDir Path tempDir) throws Exception {
+		plugin = mock(AdvancedAchievements.class);
+		when(plugin.getDataFolder()).thenReturn(Paths.get("").toAbsolutePath().relativize(tempDir).toFile());
+
+		// Populate the achievements table, with enough rows to require several migration batches.
+		H2DatabaseManager legacyDb = createDatabaseManager(false);
+		for (int i = 0; i < MIGRATED_ACHIEVEMENTS; ++i) {
+			legacyDb.registerAchievement(MIGRATED_PLAYER, "achievement" + i, 1000L + i);
+		}
+		try (Connection connection = legacyDb.getWriteConnection(); Statement st = connection.createStatement()) {
+			st.execute("INSERT INTO achievements VALUES ('Notch','achievement0',CURRENT_TIMESTAMP)");
+		}
+		legacyDb.shutdown();
+
+		db = createDatabaseManager(true);
+	}
+
+	@AfterAll
+	static void tearDownClass() {
+		db.shutdown();
+	}
+
+	@Test
+	void shouldMigrateAchievementsWithWellFormedPlayerUUIDs() {
+		assertEquals(MIGRATED_ACHIEVEMENTS, db.getPlayerAchievementNames(MIGRATED_PLAYER).size());
+		assertNotNull(db.getPlayerAchievementDate(MIGRATED_PLAYER, "achievement42"));
+		assertEquals(Integer.valueOf(MIGRATED_ACHIEVEMENTS), db.getPlayersAchievementsAmount().get(MIGRATED_PLAYER));
+		List<AwardedDBAchievement> recipients = db.getAchievementsRecipientList("achievement0");
+		assertEquals(1, recipients.size());
+		assertEquals(1000L, recipients.get(0).getDateAwarded());
+	}
+
+	@Test
+	void shouldStoreAchievementsInCompactTable() throws Exception {
+		UUID player = UUID.randomUUID();
+		db.synchroniseAchievementIds(Arrays.asList("first", "second"));
+		db.registerAchievement(player, "first", 2000L);
+		db.registerAchievement(player, "second", 3000L);
+		db.registerAchievement(player, "unsynchronised", 4000L);
+
+		assertEquals(new HashSet<>(Arrays.asList("first", "second", "unsynchronised")),
+				db.getPlayerAchievementNames(player));
+		assertEquals("first", db.getPlayerAchievementsList(player).get(2).getName());
+		Map<String, Integer> topList = db.getTopList(2500L);
+		assertEquals(Integer.valueOf(2), topList.get(player.toString()));
+		assertFalse(topList.containsKey(MIGRATED_PLAYER.toString()));
+		assertFalse(hasLegacyRow(player));
+
+		db.deletePlayerAchievement(player, "second");
+		assertEquals(new HashSet<>(Arrays.asList("first", "unsynchronised")), db.getPlayerAchievementNames(player));
+		db.deleteAllPlayerAchievements(player);
+		assertTrue(db.getPlayerAchievementNames(player).isEmpty());
+	}
+
+	@Test
+	void shouldLoadProfilesOfSeveralPlayersFromCompactTable() {
+		UUID player = UUID.randomUUID();
+		db.registerAchievement(player, "profile", 2000L);
+
+		Map<UUID, PlayerProfile> profiles = db.getPlayerProfiles(Arrays.asList(player, MIGRATED_PLAYER));
+
+		assertEquals(Collections.singleton("profile"), profiles.get(player).getAchievementNames());
+		assertEquals(MIGRATED_ACHIEVEMENTS, profiles.get(MIGRATED_PLAYER).getAchievementNames().size());
+	}
+
+	@Test
+	void shouldNotFindAchievementsThatWereNeverReceived() {
+		UUID player = UUID.randomUUID();
+		db.deletePlayerAchievement(player, "unknown");
+
+		assertNull(db.getPlayerAchievementDate(player, "unknown"));
+		assertEquals(Collections.emptyList(), db.getAchievementsRecipientList("unknown"));
+	}
+
+	private static H2DatabaseManager createDatabaseManager(boolean compact) throws Exception {
+		YamlConfiguration config = YamlConfiguration.loadConfiguration(
+				new InputStreamReader(CompactAchievementsTest.class.getResourceAsStream("/config-h2.yml")));
+		config.set("CompactAchievementsSchema", compact);
+		H2DatabaseManager databaseManager = new H2DatabaseManager(config, LOGGER, new DatabaseUpdater(LOGGER), plugin,
+				newDirectExecutorService(), newDirectExecutorService());
+		databaseManager.initialise();
+		databaseManager.extractConfigurationParameters();
+		return databaseManager;
+	}
+
+	private boolean hasLegacyRow(UUID player) throws Exception {
+		try (Connection connection = db.getReadConnection();
+				PreparedStatement ps = connection.prepareStatement("SELECT * FROM achievements WHERE playername = ?")) {
+			ps.setString(1, player.toString());
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next();
+			}
+		}
+	}
+}
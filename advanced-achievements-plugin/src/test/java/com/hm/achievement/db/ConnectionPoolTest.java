@@ -0,0 +1,212 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class for testing the connection pool, using in-memory H2 databases.
+ *
+ * @author Pyves
+ */
+class ConnectionPoolTest {
+
+	private static final Logger LOGGER = Logger.getLogger("DBTestLogger");
+
+	private final List<String> executedQueries = new ArrayList<>();
+	private ConnectionPool underTest;
+
+	@BeforeEach
+	void setUp() {
+		underTest = new ConnectionPool("test", LOGGER, () -> DriverManager.getConnection("jdbc:h2:mem:"), 2, 100, 0, false,
+				2, sql -> !sql.endsWith("uncached"), (sql, nanos) -> executedQueries.add(sql));
+	}
+
+	@AfterEach
+	void tearDown() {
+		underTest.close();
+	}
+
+	@Test
+	void shouldReuseReturnedConnections() throws SQLException {
+		Connection first = underTest.borrow();
+		Connection physicalConnection = first.unwrap(Connection.class);
+		first.close();
+
+		assertEquals(1, underTest.getIdleCount());
+		assertEquals(0, underTest.getLeasedCount());
+		try (Connection second = underTest.borrow()) {
+			assertSame(physicalConnection, second.unwrap(Connection.class));
+		}
+	}
+
+	@Test
+	void shouldTimeOutWhenAllConnectionsAreInUse() throws SQLException {
+		try (Connection first = underTest.borrow(); Connection second = underTest.borrow()) {
+			assertEquals(2, underTest.getLeasedCount());
+			assertThrows(SQLTransientConnectionException.class, underTest::borrow);
+		}
+	}
+
+	@Test
+	void shouldDiscardAbortedConnections() throws SQLException {
+		Connection first = underTest.borrow();
+		Connection physicalConnection = first.unwrap(Connection.class);
+		first.abort(Runnable::run);
+
+		assertEquals(0, underTest.getIdleCount());
+		assertTrue(physicalConnection.isClosed());
+		try (Connection second = underTest.borrow()) {
+			assertNotSame(physicalConnection, second.unwrap(Connection.class));
+		}
+	}
+
+	@Test
+	void shouldPreventUseOfReturnedConnections() throws SQLException {
+		Connection connection = underTest.borrow();
+		connection.close();
+
+		assertTrue(connection.isClosed());
+		assertThrows(SQLException.class, connection::createStatement);
+	}
+
+	@Test
+	void shouldReuseCachedStatementsAcrossBorrows() throws SQLException {
+		PreparedStatement physicalStatement;
+		try (Connection connection = underTest.borrow();
+				PreparedStatement ps = connection.prepareStatement("SELECT 1")) {
+			physicalStatement = ps.unwrap(PreparedStatement.class);
+			ps.executeQuery().close();
+		}
+
+		try (Connection connection = underTest.borrow();
+				PreparedStatement ps = connection.prepareStatement("SELECT 1")) {
+			assertSame(physicalStatement, ps.unwrap(PreparedStatement.class));
+			assertFalse(physicalStatement.isClosed());
+		}
+		assertEquals(Collections.singletonList("SELECT 1"), executedQueries);
+	}
+
+	@Test
+	void shouldPrepareSeparateStatementWhenCachedOneIsInUse() throws SQLException {
+		try (Connection connection = underTest.borrow();
+				PreparedStatement first = connection.prepareStatement("SELECT 1");
+				PreparedStatement second = connection.prepareStatement("SELECT 1")) {
+			assertNotSame(first.unwrap(PreparedStatement.class), second.unwrap(PreparedStatement.class));
+		}
+	}
+
+	@Test
+	void shouldCloseLeastRecentlyUsedStatementsOnceCacheFull() throws SQLException {
+		try (Connection connection = underTest.borrow()) {
+			PreparedStatement first = connection.prepareStatement("SELECT 1");
+			PreparedStatement physicalStatement = first.unwrap(PreparedStatement.class);
+			first.close();
+			connection.prepareStatement("SELECT 2").close();
+			connection.prepareStatement("SELECT 3").close();
+
+			assertTrue(physicalStatement.isClosed());
+		}
+	}
+
+	@Test
+	void shouldNotCacheStatementsThatAreNotCacheable() throws SQLException {
+		try (Connection connection = underTest.borrow()) {
+			PreparedStatement first = connection.prepareStatement("SELECT 1 AS uncached");
+			PreparedStatement physicalStatement = first.unwrap(PreparedStatement.class);
+			first.executeQuery().close();
+			first.close();
+
+			assertTrue(physicalStatement.isClosed());
+			try (PreparedStatement second = connection.prepareStatement("SELECT 1 AS uncached")) {
+				assertNotSame(physicalStatement, second.unwrap(PreparedStatement.class));
+			}
+		}
+		assertEquals(Collections.singletonList("SELECT 1 AS uncached"), executedQueries);
+	}
+
+	@Test
+	void shouldReportLeaksOnceWithoutFurtherBorrows() throws Exception {
+		List<LogRecord> warnings = reportLeaks(false);
+
+		assertEquals(1, warnings.size());
+		assertEquals(Level.WARNING, warnings.get(0).getLevel());
+		assertTrue(warnings.get(0).getMessage().contains("leak"));
+		assertTrue(warnings.get(0).getMessage().contains(Thread.currentThread().getName()));
+		assertNull(warnings.get(0).getThrown());
+	}
+
+	@Test
+	void shouldReportWhereLeakedConnectionsWereBorrowedIfEnabled() throws Exception {
+		List<LogRecord> warnings = reportLeaks(true);
+
+		assertEquals(1, warnings.size());
+		assertTrue(Arrays.stream(warnings.get(0).getThrown().getStackTrace())
+				.anyMatch(element -> element.getClassName().equals(ConnectionPoolTest.class.getName())));
+	}
+
+	@Test
+	void shouldCloseCachedStatementsOfDiscardedConnections() throws SQLException {
+		Connection connection = underTest.borrow();
+		PreparedStatement ps = connection.prepareStatement("SELECT 1");
+		PreparedStatement physicalStatement = ps.unwrap(PreparedStatement.class);
+		ps.close();
+		connection.abort(Runnable::run);
+
+		assertTrue(physicalStatement.isClosed());
+	}
+
+	private List<LogRecord> reportLeaks(boolean leakTraces) throws Exception {
+		List<LogRecord> warnings = new ArrayList<>();
+		Logger logger = Logger.getLogger("ConnectionPoolLeakTestLogger");
+		logger.setUseParentHandlers(false);
+		for (Handler handler : logger.getHandlers()) {
+			logger.removeHandler(handler);
+		}
+		logger.addHandler(new Handler() {
+
+			@Override
+			public void publish(LogRecord record) {
+				warnings.add(record);
+			}
+
+			@Override
+			public void flush() {}
+
+			@Override
+			public void close() {}
+		});
+		ConnectionPool pool = new ConnectionPool("leak", logger, () -> DriverManager.getConnection("jdbc:h2:mem:"), 2,
+				100, 1, leakTraces, 2, sql -> true, (sql, nanos) -> {});
+		try (Connection connection = pool.borrow()) {
+			Thread.sleep(10);
+			pool.reportLeaks();
+			pool.reportLeaks();
+		} finally {
+			pool.close();
+		}
+		return warnings;
+	}
+}
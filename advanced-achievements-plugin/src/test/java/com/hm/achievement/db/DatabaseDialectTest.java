@@ -0,0 +1,77 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class for testing the statements built by the SQL dialects and the selection of their version specific variants.
+ *
+ * @author Pyves
+ */
+class DatabaseDialectTest {
+
+	private static final String[] KEY_COLUMNS = { "playername", "item" };
+	private static final String[] VALUE_COLUMNS = { "crafts" };
+
+	@Test
+	void shouldCompareVersions() {
+		assertTrue(DatabaseDialect.isAtLeast("8.0.19", 8, 0, 19));
+		assertTrue(DatabaseDialect.isAtLeast("8.4.0", 8, 0, 19));
+		assertTrue(DatabaseDialect.isAtLeast("3.36.0.3", 3, 24, 0));
+		assertTrue(DatabaseDialect.isAtLeast("3.24", 3, 24, 0));
+		assertFalse(DatabaseDialect.isAtLeast("8.0.18-log", 8, 0, 19));
+		assertFalse(DatabaseDialect.isAtLeast("3.8.11.2", 3, 24, 0));
+		assertFalse(DatabaseDialect.isAtLeast("unknown", 8, 0, 19));
+	}
+
+	@Test
+	void shouldSelectVariantMatchingServerVersion() throws SQLException {
+		assertEquals(DatabaseDialect.MYSQL_ROW_ALIAS, DatabaseDialect.MYSQL.forServer(metaData("8.0.35")));
+		assertEquals(DatabaseDialect.MYSQL, DatabaseDialect.MYSQL.forServer(metaData("5.7.44")));
+		assertEquals(DatabaseDialect.MYSQL, DatabaseDialect.MYSQL.forServer(metaData("5.5.5-10.11.6-MariaDB")));
+		assertEquals(DatabaseDialect.MYSQL, DatabaseDialect.MYSQL.forServer(metaData("11.4.2-MariaDB")));
+		assertEquals(DatabaseDialect.SQLITE, DatabaseDialect.SQLITE.forServer(metaData("3.45.1")));
+		assertEquals(DatabaseDialect.SQLITE_LEGACY, DatabaseDialect.SQLITE.forServer(metaData("3.8.11.2")));
+		assertEquals(DatabaseDialect.H2, DatabaseDialect.H2.forServer(metaData("2.2.224 (2023-09-17)")));
+	}
+
+	@Test
+	void shouldReferToInsertedRowsWithAliasOnRecentMySQL() {
+		assertEquals("INSERT INTO aach_crafts (playername,item,crafts) VALUES (?,?,?),(?,?,?) AS new"
+				+ " ON DUPLICATE KEY UPDATE crafts=new.crafts",
+				DatabaseDialect.MYSQL_ROW_ALIAS.upsert("aach_crafts", KEY_COLUMNS, VALUE_COLUMNS, 2));
+		assertEquals("INSERT INTO aach_crafts (playername,item,crafts) VALUES (?,?,?) AS new"
+				+ " ON DUPLICATE KEY UPDATE crafts=crafts+new.crafts",
+				DatabaseDialect.MYSQL_ROW_ALIAS.additiveUpsert("aach_crafts", KEY_COLUMNS, VALUE_COLUMNS, 1));
+		assertEquals("INSERT INTO aach_crafts (playername,item,crafts) VALUES (?,?,?)"
+				+ " ON DUPLICATE KEY UPDATE crafts=VALUES(crafts)",
+				DatabaseDialect.MYSQL.upsert("aach_crafts", KEY_COLUMNS, VALUE_COLUMNS, 1));
+	}
+
+	@Test
+	void shouldReplaceRowsOnOldSQLite() {
+		assertEquals("INSERT OR REPLACE INTO aach_crafts (playername,item,crafts) VALUES (?,?,?),(?,?,?)",
+				DatabaseDialect.SQLITE_LEGACY.upsert("aach_crafts", KEY_COLUMNS, VALUE_COLUMNS, 2));
+		assertEquals("INSERT OR REPLACE INTO aach_crafts (playername,item,crafts)"
+				+ " SELECT n.playername,n.item,n.crafts+COALESCE(t.crafts,0)"
+				+ " FROM (SELECT ? AS playername,? AS item,? AS crafts UNION ALL SELECT ?,?,?) n"
+				+ " LEFT JOIN aach_crafts t ON t.playername=n.playername AND t.item=n.item",
+				DatabaseDialect.SQLITE_LEGACY.additiveUpsert("aach_crafts", KEY_COLUMNS, VALUE_COLUMNS, 2));
+		assertEquals("INSERT OR IGNORE INTO aach_crafts (playername,item,crafts) VALUES (?,?,?)",
+				DatabaseDialect.SQLITE_LEGACY.insertIgnore("aach_crafts", KEY_COLUMNS, VALUE_COLUMNS, 1));
+	}
+
+	private static DatabaseMetaData metaData(String version) throws SQLException {
+		DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+		when(metaData.getDatabaseProductVersion()).thenReturn(version);
+		return metaData;
+	}
+}
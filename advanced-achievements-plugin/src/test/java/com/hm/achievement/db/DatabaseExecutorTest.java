@@ -0,0 +1,192 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class for testing the bounded executors running database operations.
+ *
+ * @author Pyves
+ */
+class DatabaseExecutorTest {
+
+	private static final Logger LOGGER = Logger.getLogger("DatabaseExecutorTestLogger");
+
+	private final YamlConfiguration mainConfig = new YamlConfiguration();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private DatabaseExecutor underTest;
+
+	@BeforeEach
+	void setUp() {
+		mainConfig.set("DatabaseReadThreads", 1);
+		mainConfig.set("DatabaseReadTaskQueueSize", 1);
+		mainConfig.set("DatabaseWriteThreads", 1);
+		mainConfig.set("DatabaseWriteTaskQueueSize", 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		underTest.shutdownNow();
+	}
+
+	@Test
+	void shouldRunTasksOnNamedThreads() throws Exception {
+		underTest = new DatabaseExecutor(DatabaseExecutor.Type.READ, mainConfig, LOGGER);
+		AtomicReference<String> threadName = new AtomicReference<>();
+
+		underTest.submit(() -> threadName.set(Thread.currentThread().getName())).get(5, TimeUnit.SECONDS);
+
+		assertEquals("AdvancedAchievements-DatabaseRead-1", threadName.get());
+		assertEquals(1, underTest.getCompletedTasks());
+	}
+
+	@Test
+	void shouldRejectReadsOnceQueueFull() throws Exception {
+		underTest = new DatabaseExecutor(DatabaseExecutor.Type.READ, mainConfig, LOGGER);
+		CountDownLatch started = new CountDownLatch(1);
+		underTest.execute(() -> blockUntilReleased(started));
+		started.await(5, TimeUnit.SECONDS);
+		underTest.execute(() -> {});
+
+		assertThrows(RejectedExecutionException.class, () -> underTest.execute(() -> {}));
+		assertEquals(1, underTest.getActiveThreads());
+		assertEquals(1, underTest.getQueuedTasks());
+		assertEquals(1, underTest.getRejectedTasks());
+	}
+
+	@Test
+	void shouldRunWritesOnSubmittingThreadOnceQueueFull() throws Exception {
+		underTest = new DatabaseExecutor(DatabaseExecutor.Type.WRITE, mainConfig, LOGGER, () -> false);
+		CountDownLatch started = new CountDownLatch(1);
+		underTest.execute(() -> blockUntilReleased(started));
+		started.await(5, TimeUnit.SECONDS);
+		underTest.execute(() -> {});
+		AtomicReference<Thread> writingThread = new AtomicReference<>();
+
+		underTest.execute(() -> writingThread.set(Thread.currentThread()));
+
+		assertEquals(Thread.currentThread(), writingThread.get());
+		assertEquals(1, underTest.getCallerRunTasks());
+	}
+
+	@Test
+	void shouldQueueWritesOfPrimaryThreadOnceQueueFull() throws Exception {
+		underTest = new DatabaseExecutor(DatabaseExecutor.Type.WRITE, mainConfig, LOGGER, () -> true);
+		CountDownLatch started = new CountDownLatch(1);
+		underTest.execute(() -> blockUntilReleased(started));
+		started.await(5, TimeUnit.SECONDS);
+		underTest.execute(() -> {});
+		AtomicReference<Thread> writingThread = new AtomicReference<>();
+		CountDownLatch written = new CountDownLatch(1);
+
+		underTest.execute(() -> {
+			writingThread.set(Thread.currentThread());
+			written.countDown();
+		});
+
+		assertNull(writingThread.get());
+		assertEquals(2, underTest.getQueuedTasks());
+		assertEquals(1, underTest.getOverflowTasks());
+		assertEquals(0, underTest.getCallerRunTasks());
+		release.countDown();
+		assertTrue(written.await(5, TimeUnit.SECONDS));
+		assertNotEquals(Thread.currentThread(), writingThread.get());
+	}
+
+	@Test
+	void shouldMeasureQueueWaitAndUtilisation() throws Exception {
+		underTest = new DatabaseExecutor(DatabaseExecutor.Type.READ, mainConfig, LOGGER);
+		CountDownLatch started = new CountDownLatch(1);
+		underTest.execute(() -> blockUntilReleased(started));
+		started.await(5, TimeUnit.SECONDS);
+		CountDownLatch finished = new CountDownLatch(1);
+		underTest.execute(finished::countDown);
+
+		Thread.sleep(50);
+		release.countDown();
+		finished.await(5, TimeUnit.SECONDS);
+
+		assertTrue(underTest.getMaxQueueWaitMillis() >= 50);
+		assertTrue(underTest.getAverageQueueWaitMillis() > 0.0);
+		assertTrue(underTest.getUtilisation() > 0.0);
+	}
+
+	@Test
+	void shouldFallBackToPlatformThreadsWithoutVirtualThreads() throws Exception {
+		mainConfig.set("DatabaseVirtualThreads", true);
+		underTest = new DatabaseExecutor(DatabaseExecutor.Type.WRITE, mainConfig, LOGGER);
+		AtomicReference<String> threadName = new AtomicReference<>();
+
+		underTest.submit(() -> threadName.set(Thread.currentThread().getName())).get(5, TimeUnit.SECONDS);
+
+		assertEquals("AdvancedAchievements-DatabaseWrite-1", threadName.get());
+	}
+
+	@Test
+	void shouldLimitRunningTasksWithVirtualThreads() throws Exception {
+		assumeTrue(isVirtualThreadAvailable());
+		mainConfig.set("DatabaseVirtualThreads", true);
+		underTest = new DatabaseExecutor(DatabaseExecutor.Type.READ, mainConfig, LOGGER);
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicReference<Thread> readingThread = new AtomicReference<>();
+		underTest.execute(() -> {
+			readingThread.set(Thread.currentThread());
+			blockUntilReleased(started);
+		});
+		started.await(5, TimeUnit.SECONDS);
+		CountDownLatch finished = new CountDownLatch(1);
+		underTest.execute(finished::countDown);
+
+		assertFalse(finished.await(50, TimeUnit.MILLISECONDS));
+		assertEquals(1, underTest.getActiveThreads());
+		assertEquals(1, underTest.getQueuedTasks());
+		assertThrows(RejectedExecutionException.class, () -> underTest.execute(() -> {}));
+		assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(readingThread.get()));
+		release.countDown();
+		assertTrue(finished.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void shouldRejectTasksOnceShutDown() {
+		underTest = new DatabaseExecutor(DatabaseExecutor.Type.WRITE, mainConfig, LOGGER);
+		underTest.shutdown();
+
+		assertTrue(underTest.isTerminated());
+		assertThrows(RejectedExecutionException.class, () -> underTest.execute(() -> {}));
+	}
+
+	private static boolean isVirtualThreadAvailable() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private void blockUntilReleased(CountDownLatch started) {
+		started.countDown();
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,196 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hm.achievement.db.DatabaseWriteQueue.QueuedWrite;
+
+/**
+ * Class for testing the batching, coalescing and backpressure of the database write queue.
+ *
+ * @author Pyves
+ */
+class DatabaseWriteQueueTest {
+
+	private static final Logger LOGGER = Logger.getLogger("DBTestLogger");
+
+	private final AbstractDatabaseManager databaseManager = mock(AbstractDatabaseManager.class);
+	private final Connection connection = mock(Connection.class);
+	private final PreparedStatement ps = mock(PreparedStatement.class);
+	private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+	private final Executor executor = pendingTasks::add;
+	private final List<String> writtenKeys = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		when(databaseManager.getWriteConnection()).thenReturn(connection);
+		when(connection.prepareStatement(anyString())).thenReturn(ps);
+	}
+
+	@Test
+	void shouldWriteQueuedWritesInSingleTransaction() throws SQLException {
+		DatabaseWriteQueue underTest = new DatabaseWriteQueue(LOGGER, databaseManager, executor, () -> false, 10, 10, 0);
+		underTest.submit(createWrite("a", false, "sql1"));
+		underTest.submit(createWrite("b", false, "sql1"));
+		underTest.submit(createWrite("c", false, "sql2"));
+
+		assertEquals(3, underTest.getDepth());
+		runPendingTasks();
+
+		assertEquals(Arrays.asList("a", "b", "c"), writtenKeys);
+		assertEquals(0, underTest.getDepth());
+		assertEquals(3, underTest.getMaxDepth());
+		assertEquals(1, underTest.getBatches());
+		// Consecutive writes sharing the same statement are sent as a single JDBC batch.
+		verify(connection).prepareStatement("sql1");
+		verify(connection).prepareStatement("sql2");
+		verify(ps, times(3)).addBatch();
+		verify(ps, times(2)).executeBatch();
+		verify(connection).commit();
+	}
+
+	@Test
+	void shouldOnlyWriteMostRecentWriteToSameRow() {
+		DatabaseWriteQueue underTest = new DatabaseWriteQueue(LOGGER, databaseManager, executor, () -> false, 10, 10, 0);
+		underTest.submit(createWrite("a", false, "register"));
+		underTest.submit(createWrite("b", false, "register"));
+		underTest.submit(createWrite("a", false, "delete"));
+
+		runPendingTasks();
+
+		assertEquals(Arrays.asList("b", "a"), writtenKeys);
+		assertEquals(1, underTest.getCoalescedWrites());
+	}
+
+	@Test
+	void shouldSupersedeRowWritesWithPlayerWideWrite() {
+		DatabaseWriteQueue underTest = new DatabaseWriteQueue(LOGGER, databaseManager, executor, () -> false, 10, 10, 0);
+		underTest.submit(createWrite("player|x", false, "register"));
+		underTest.submit(createWrite("other|x", false, "register"));
+		underTest.submit(createWrite("player", true, "deleteAll"));
+		underTest.submit(createWrite("player|y", false, "register"));
+
+		runPendingTasks();
+
+		assertEquals(Arrays.asList("other|x", "player", "player|y"), writtenKeys);
+	}
+
+	@Test
+	void shouldSplitWritesIntoBatches() {
+		DatabaseWriteQueue underTest = new DatabaseWriteQueue(LOGGER, databaseManager, executor, () -> false, 10, 2, 0);
+		for (int i = 0; i < 5; ++i) {
+			underTest.submit(createWrite(Integer.toString(i), false, "sql"));
+		}
+
+		runPendingTasks();
+
+		assertEquals(Arrays.asList("0", "1", "2", "3", "4"), writtenKeys);
+		assertEquals(3, underTest.getBatches());
+	}
+
+	@Test
+	void shouldBlockSubmittersWhenQueueIsFull() throws Exception {
+		DatabaseWriteQueue underTest = new DatabaseWriteQueue(LOGGER, databaseManager, executor, () -> false, 1, 10, 0);
+		underTest.submit(createWrite("a", false, "sql"));
+		Thread submitter = new Thread(() -> underTest.submit(createWrite("b", false, "sql")));
+		submitter.start();
+
+		while (underTest.getThrottledSubmissions() == 0) {
+			Thread.sleep(1);
+		}
+		assertTrue(submitter.isAlive());
+		runPendingTasks();
+		submitter.join(TimeUnit.SECONDS.toMillis(5));
+		runPendingTasks();
+
+		assertEquals(Arrays.asList("a", "b"), writtenKeys);
+	}
+
+	@Test
+	void shouldAcceptWritesPastCapacityWithoutWaitingOnPrimaryThread() {
+		DatabaseWriteQueue underTest = new DatabaseWriteQueue(LOGGER, databaseManager, executor, () -> true, 1, 10, 0);
+		underTest.submit(createWrite("a", false, "sql"));
+		long start = System.nanoTime();
+		underTest.submit(createWrite("b", false, "sql"));
+
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+		assertEquals(2, underTest.getDepth());
+		assertEquals(1, underTest.getOverflowedSubmissions());
+		runPendingTasks();
+
+		assertEquals(Arrays.asList("a", "b"), writtenKeys);
+		// Writes accepted past the capacity do not free up space once written.
+		underTest.submit(createWrite("c", false, "sql"));
+		assertEquals(1, underTest.getOverflowedSubmissions());
+	}
+
+	@Test
+	void shouldKeepWritesOfInterruptedSubmitters() {
+		DatabaseWriteQueue underTest = new DatabaseWriteQueue(LOGGER, databaseManager, executor, () -> false, 1, 10, 0);
+		underTest.submit(createWrite("a", false, "sql"));
+		Thread.currentThread().interrupt();
+		underTest.submit(createWrite("b", false, "sql"));
+
+		assertTrue(Thread.interrupted());
+		runPendingTasks();
+
+		assertEquals(Arrays.asList("a", "b"), writtenKeys);
+		assertEquals(1, underTest.getOverflowedSubmissions());
+	}
+
+	@Test
+	void shouldOnlyDiscardFailingWriteWhenBatchCannotBeWritten() throws SQLException {
+		List<String> committedKeys = new ArrayList<>();
+		doAnswer(invocation -> {
+			writtenKeys.clear();
+			return null;
+		}).when(connection).setAutoCommit(false);
+		doAnswer(invocation -> {
+			committedKeys.addAll(writtenKeys);
+			return null;
+		}).when(connection).commit();
+		DatabaseWriteQueue underTest = new DatabaseWriteQueue(LOGGER, databaseManager, executor, () -> false, 10, 10, 0);
+		underTest.submit(createWrite("a", false, "sql"));
+		underTest.submit(new QueuedWrite("b", false, "sql", (c, p) -> {
+			throw new SQLException("Constraint violation");
+		}, null));
+		underTest.submit(createWrite("c", false, "sql"));
+
+		runPendingTasks();
+
+		assertEquals(Arrays.asList("a", "c"), committedKeys);
+		assertEquals(0, underTest.getDepth());
+	}
+
+	private QueuedWrite createWrite(String key, boolean playerWide, String sql) {
+		return new QueuedWrite(key, playerWide, sql, (c, p) -> writtenKeys.add(key), null);
+	}
+
+	private void runPendingTasks() {
+		Runnable task;
+		while ((task = pendingTasks.poll()) != null) {
+			task.run();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Class for testing the decisions and the backoff of the statistics flush policy.
+ *
+ * @author Pyves
+ */
+class FlushPolicyTest {
+
+	private final FlushPolicy underTest = new FlushPolicy(1000L, 4, 100, 500L);
+
+	@Test
+	void shouldNotFlushWhenNothingWasModified() {
+		assertFalse(underTest.shouldFlush(10000L, 0, 0L));
+	}
+
+	@Test
+	void shouldFlushOnceOldestModificationReachesInterval() {
+		assertFalse(underTest.shouldFlush(1999L, 1, 1000L));
+		assertTrue(underTest.shouldFlush(2000L, 1, 1000L));
+	}
+
+	@Test
+	void shouldFlushEarlyWhenManyStatisticsWereModified() {
+		assertFalse(underTest.shouldFlush(1000L, 99, 1000L));
+		assertTrue(underTest.shouldFlush(1000L, 100, 1000L));
+	}
+
+	@Test
+	void shouldBackOffWhenFlushesAreSlowAndRecoverWhenFast() {
+		underTest.recordFlush(600L);
+		assertEquals(2000L, underTest.getIntervalMillis());
+		assertFalse(underTest.shouldFlush(1000L, 100, 1000L));
+		assertTrue(underTest.shouldFlush(1000L, 200, 1000L));
+
+		underTest.recordFlush(600L);
+		underTest.recordFlush(600L);
+		assertEquals(4000L, underTest.getIntervalMillis());
+		assertEquals(600L, underTest.getLastFlushDurationMillis());
+
+		underTest.recordFlush(10L);
+		assertEquals(2000L, underTest.getIntervalMillis());
+		underTest.recordFlush(10L);
+		underTest.recordFlush(10L);
+		assertEquals(1000L, underTest.getIntervalMillis());
+	}
+}
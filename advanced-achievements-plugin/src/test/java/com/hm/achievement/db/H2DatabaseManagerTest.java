@@ -4,13 +4,16 @@ import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorS
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -43,6 +46,7 @@ import com.hm.achievement.db.data.ConnectionInformation;
 class H2DatabaseManagerTest {
 
 	private static final String TEST_ACHIEVEMENT = "testachievement";
+	private static final String OTHER_ACHIEVEMENT = "otherachievement";
 	private static final Logger LOGGER = Logger.getLogger("DBTestLogger");
 
 	private static H2DatabaseManager db;
@@ -55,7 +59,8 @@ class H2DatabaseManagerTest {
 		when(plugin.getDataFolder()).thenReturn(tempDir.relativize(Paths.get("").toAbsolutePath()).toFile());
 		YamlConfiguration config = YamlConfiguration
 				.loadConfiguration(new InputStreamReader(H2DatabaseManagerTest.class.getResourceAsStream("/config-h2.yml")));
-		db = new H2DatabaseManager(config, LOGGER, new DatabaseUpdater(LOGGER), plugin, newDirectExecutorService());
+		db = new H2DatabaseManager(config, LOGGER, new DatabaseUpdater(LOGGER), plugin, newDirectExecutorService(),
+				newDirectExecutorService());
 		db.initialise();
 		db.extractConfigurationParameters();
 	}
@@ -211,8 +216,8 @@ class H2DatabaseManagerTest {
 		assertEquals(0, db.getNormalAchievementAmount(testUUID, NormalAchievements.BEDS));
 
 		((SQLWriteOperation) () -> {
-			try (PreparedStatement ps = db.getConnection()
-					.prepareStatement("REPLACE INTO beds VALUES ('" + testUUID + "',5)")) {
+			try (Connection connection = db.getWriteConnection();
+					PreparedStatement ps = connection.prepareStatement("REPLACE INTO beds VALUES ('" + testUUID + "',5)")) {
 				ps.execute();
 			}
 		}).executeOperation(db.writeExecutor, LOGGER, "Writing beds statistics");
@@ -225,8 +230,9 @@ class H2DatabaseManagerTest {
 		assertEquals(0, db.getMultipleAchievementAmount(testUUID, MultipleAchievements.CRAFTS, "diamond_axe"));
 
 		((SQLWriteOperation) () -> {
-			try (PreparedStatement ps = db.getConnection()
-					.prepareStatement("REPLACE INTO crafts VALUES ('" + testUUID + "','diamond_axe',7)")) {
+			try (Connection connection = db.getWriteConnection();
+					PreparedStatement ps = connection
+							.prepareStatement("REPLACE INTO crafts VALUES ('" + testUUID + "','diamond_axe',7)")) {
 				ps.execute();
 			}
 		}).executeOperation(db.writeExecutor, LOGGER, "Writing crafts statistics");
@@ -234,6 +240,42 @@ class H2DatabaseManagerTest {
 		assertEquals(7, db.getMultipleAchievementAmount(testUUID, MultipleAchievements.CRAFTS, "diamond_axe"));
 	}
 
+	@Test
+	void testGetPlayerProfiles() {
+		UUID otherUUID = UUID.randomUUID();
+		UUID unknownUUID = UUID.randomUUID();
+		db.registerAchievement(testUUID, TEST_ACHIEVEMENT, System.currentTimeMillis());
+		db.registerAchievement(otherUUID, OTHER_ACHIEVEMENT, System.currentTimeMillis());
+		db.updateConnectionInformation(testUUID, 2);
+		((SQLWriteOperation) () -> {
+			try (Connection connection = db.getWriteConnection();
+					PreparedStatement ps = connection.prepareStatement(
+							"REPLACE INTO beds VALUES ('" + testUUID + "',5), ('" + otherUUID + "',3)");
+					PreparedStatement ps2 = connection
+							.prepareStatement("REPLACE INTO crafts VALUES ('" + testUUID + "','diamond_axe',7)")) {
+				ps.execute();
+				ps2.execute();
+			}
+		}).executeOperation(db.writeExecutor, LOGGER, "Writing statistics");
+
+		Map<UUID, PlayerProfile> profiles = db.getPlayerProfiles(Arrays.asList(testUUID, otherUUID, unknownUUID));
+
+		assertEquals(3, profiles.size());
+		PlayerProfile profile = profiles.get(testUUID);
+
+		assertEquals(Collections.singleton(TEST_ACHIEVEMENT), profile.getAchievementNames());
+		assertEquals(5, profile.getNormalAmount(NormalAchievements.BEDS));
+		assertEquals(2, profile.getNormalAmount(NormalAchievements.CONNECTIONS));
+		assertEquals(0, profile.getNormalAmount(NormalAchievements.EGGS));
+		assertEquals(Collections.singletonMap("diamond_axe", 7L), profile.getMultipleAmounts(MultipleAchievements.CRAFTS));
+		assertEquals(Collections.emptyMap(), profile.getMultipleAmounts(MultipleAchievements.KILLS));
+		PlayerProfile otherProfile = profiles.get(otherUUID);
+		assertEquals(Collections.singleton(OTHER_ACHIEVEMENT), otherProfile.getAchievementNames());
+		assertEquals(3, otherProfile.getNormalAmount(NormalAchievements.BEDS));
+		assertEquals(Collections.emptyMap(), otherProfile.getMultipleAmounts(MultipleAchievements.CRAFTS));
+		assertTrue(profiles.get(unknownUUID).getAchievementNames().isEmpty());
+	}
+
 	@Test
 	void testGetDefaultJobsRebornAchievementAmount() {
 		assertEquals(1, db.getMultipleAchievementAmount(testUUID, MultipleAchievements.JOBSREBORN, "hunter"));
@@ -241,7 +283,8 @@ class H2DatabaseManagerTest {
 
 	private void clearDatabase() {
 		((SQLWriteOperation) () -> {
-			try (PreparedStatement ps = db.getConnection().prepareStatement("DELETE FROM achievements")) {
+			try (Connection connection = db.getWriteConnection();
+					PreparedStatement ps = connection.prepareStatement("DELETE FROM achievements")) {
 				ps.execute();
 			}
 		}).executeOperation(db.writeExecutor, LOGGER, "Clearing achievements table");
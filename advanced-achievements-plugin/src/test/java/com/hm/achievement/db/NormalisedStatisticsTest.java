@@ -0,0 +1,167 @@
+package com.hm.achievement.db;
+
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+
+/**
+ * Class for testing the normalised statistics layout and the migration of existing statistics against a H2 database.
+ *
+ * @author Pyves
+ */
+class NormalisedStatisticsTest {
+
+	private static final Logger LOGGER = Logger.getLogger("DBTestLogger");
+	private static final UUID MIGRATED_PLAYER = UUID.randomUUID();
+	private static final int MIGRATED_PLAYERS = DatabaseUpdater.MIGRATION_BATCH_SIZE + 1;
+
+	private static AdvancedAchievements plugin;
+	private static H2DatabaseManager db;
+
+	@BeforeAll
+	static void setUpClass(@TempDir Path tempDir) throws Exception {
+		plugin = mock(AdvancedAchievements.class);
+		when(plugin.getDataFolder()).thenReturn(Paths.get("").toAbsolutePath().relativize(tempDir).toFile());
+
+		// Populate the per-category tables, with enough players to require several migration batches.
+		H2DatabaseManager legacyDb = createDatabaseManager(false);
+		CacheManager legacyCacheManager = createCacheManager(legacyDb);
+		legacyCacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, MIGRATED_PLAYER, 3);
+		for (int i = 1; i < MIGRATED_PLAYERS; ++i) {
+			legacyCacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, UUID.randomUUID(), 1);
+		}
+		legacyCacheManager.getAndIncrementStatisticAmount(MultipleAchievements.CRAFTS, "diamond_axe", MIGRATED_PLAYER, 4);
+		new AsyncCachedRequestsSender(new YamlConfiguration(), LOGGER, legacyCacheManager, legacyDb,
+				new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin)).sendBatchedRequests();
+		legacyDb.shutdown();
+
+		db = createDatabaseManager(true);
+		db.awaitStatisticsMigration();
+	}
+
+	@AfterAll
+	static void tearDownClass() {
+		db.shutdown();
+	}
+
+	@Test
+	void shouldMigrateStatisticsFromPerCategoryTables() throws Exception {
+		assertTrue(db.isNormalisedStatistics());
+		assertEquals(3, db.getNormalAchievementAmount(MIGRATED_PLAYER, NormalAchievements.BEDS));
+		assertEquals(4, db.getMultipleAchievementAmount(MIGRATED_PLAYER, MultipleAchievements.CRAFTS, "diamond_axe"));
+		assertEquals(MIGRATED_PLAYERS, countRows(NormalAchievements.BEDS.toDBName()));
+	}
+
+	@Test
+	void shouldWriteStatisticsToNormalisedTable() throws Exception {
+		UUID player = UUID.randomUUID();
+		CacheManager cacheManager = createCacheManager(db);
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.EGGS, player, 5);
+		cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, "zombie", player, 6);
+		new AsyncCachedRequestsSender(new YamlConfiguration(), LOGGER, cacheManager, db,
+				new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin)).sendBatchedRequests();
+
+		assertEquals(5, db.getNormalAchievementAmount(player, NormalAchievements.EGGS));
+		assertEquals(6, db.getMultipleAchievementAmount(player, MultipleAchievements.KILLS, "zombie"));
+		assertEquals(0, db.getMultipleAchievementAmount(player, MultipleAchievements.KILLS, "skeleton"));
+		assertFalse(hasRow("eggs", player));
+	}
+
+	@Test
+	void shouldLoadProfileFromNormalisedTable() {
+		UUID player = UUID.randomUUID();
+		CacheManager cacheManager = createCacheManager(db);
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.EGGS, player, 2);
+		cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, "zombie", player, 3);
+		new AsyncCachedRequestsSender(new YamlConfiguration(), LOGGER, cacheManager, db,
+				new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin)).sendBatchedRequests();
+
+		PlayerProfile profile = db.getPlayerProfiles(Collections.singleton(player)).get(player);
+
+		assertEquals(2, profile.getNormalAmount(NormalAchievements.EGGS));
+		assertEquals(0, profile.getNormalAmount(NormalAchievements.BEDS));
+		assertEquals(Collections.singletonMap("zombie", 3L), profile.getMultipleAmounts(MultipleAchievements.KILLS));
+		assertTrue(profile.getAchievementNames().isEmpty());
+	}
+
+	@Test
+	void shouldResumeMigrationWithoutOverwritingMoreRecentStatistics() throws Exception {
+		UUID player = UUID.randomUUID();
+		try (Connection connection = db.getWriteConnection(); Statement st = connection.createStatement()) {
+			st.execute("INSERT INTO fish VALUES ('" + player + "', 7)");
+			st.execute("DELETE FROM migration_progress");
+		}
+		CacheManager cacheManager = createCacheManager(db);
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, MIGRATED_PLAYER, 1);
+		new AsyncCachedRequestsSender(new YamlConfiguration(), LOGGER, cacheManager, db,
+				new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin)).sendBatchedRequests();
+
+		assertTrue(new DatabaseUpdater(LOGGER).migrateToNormalisedStatistics(db));
+
+		assertEquals(7, db.getNormalAchievementAmount(player, NormalAchievements.FISH));
+		assertEquals(4, db.getNormalAchievementAmount(MIGRATED_PLAYER, NormalAchievements.BEDS));
+	}
+
+	private static H2DatabaseManager createDatabaseManager(boolean normalised) throws Exception {
+		YamlConfiguration config = YamlConfiguration.loadConfiguration(
+				new InputStreamReader(NormalisedStatisticsTest.class.getResourceAsStream("/config-h2.yml")));
+		config.set("NormalisedStatistics", normalised);
+		H2DatabaseManager databaseManager = new H2DatabaseManager(config, LOGGER, new DatabaseUpdater(LOGGER), plugin,
+				newDirectExecutorService(), newDirectExecutorService());
+		databaseManager.initialise();
+		databaseManager.extractConfigurationParameters();
+		return databaseManager;
+	}
+
+	private static CacheManager createCacheManager(AbstractDatabaseManager databaseManager) {
+		return new CacheManager(plugin, databaseManager, new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin),
+				new AchievementMap(), new OfflinePlayerTier(new YamlConfiguration()));
+	}
+
+	private int countRows(String category) throws Exception {
+		try (Connection connection = db.getReadConnection();
+				PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM statistics s JOIN "
+						+ "statistics_dictionary d ON s.category_id = d.id WHERE d.name = ?")) {
+			ps.setString(1, category);
+			try (ResultSet rs = ps.executeQuery()) {
+				rs.next();
+				return rs.getInt(1);
+			}
+		}
+	}
+
+	private boolean hasRow(String table, UUID player) throws Exception {
+		try (Connection connection = db.getReadConnection();
+				PreparedStatement ps = connection.prepareStatement("SELECT * FROM " + table + " WHERE playername = ?")) {
+			ps.setString(1, player.toString());
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next();
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+
+/**
+ * Class for testing the eviction of the cached data of players who are not connected.
+ *
+ * @author Pyves
+ */
+class OfflinePlayerTierTest {
+
+	private final List<UUID> players = new ArrayList<>();
+	private final YamlConfiguration mainConfig = new YamlConfiguration();
+	private final OfflinePlayerTier underTest = new OfflinePlayerTier(mainConfig);
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < 5; ++i) {
+			players.add(UUID.randomUUID());
+		}
+		mainConfig.set("OfflineCacheMaxEntries", 3);
+		mainConfig.set("OfflineCacheExpiry", 60);
+		underTest.extractConfigurationParameters();
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedPlayers() {
+		for (UUID player : players) {
+			underTest.recordAccess(player, 1000L);
+		}
+		underTest.recordAccess(players.get(0), 2000L);
+		List<UUID> evictedPlayers = new ArrayList<>();
+
+		assertEquals(2, underTest.evict(3000L, evictedPlayers::add));
+
+		assertEquals(players.subList(1, 3), evictedPlayers);
+		assertEquals(3, underTest.size());
+		assertEquals(1, underTest.getHitCount());
+		assertEquals(5, underTest.getMissCount());
+		assertEquals(2, underTest.getEvictionCount());
+	}
+
+	@Test
+	void shouldEvictExpiredPlayers() {
+		underTest.recordAccess(players.get(0), 1000L);
+		underTest.recordAccess(players.get(1), 30_000L);
+
+		assertEquals(1, underTest.evict(61_000L, player -> true));
+
+		assertEquals(1, underTest.size());
+		assertEquals(1, underTest.evict(90_000L, player -> true));
+	}
+
+	@Test
+	void shouldKeepPlayersThatCannotBeEvicted() {
+		for (UUID player : players) {
+			underTest.recordAccess(player, 1000L);
+		}
+
+		List<UUID> evictedPlayers = new ArrayList<>();
+
+		assertEquals(0, underTest.evict(2000L, player -> false));
+		assertEquals(2, underTest.evict(2000L, evictedPlayers::add));
+
+		assertEquals(players.subList(0, 2), evictedPlayers);
+		assertEquals(3, underTest.size());
+		assertEquals(2, underTest.getEvictionCount());
+	}
+
+	@Test
+	void shouldOnlyEvictOfflinePlayerStatisticsOnceWritten() {
+		AdvancedAchievements plugin = mock(AdvancedAchievements.class);
+		CacheManager cacheManager = new CacheManager(plugin, mock(AbstractDatabaseManager.class),
+				new StatisticsJournal(mainConfig, Logger.getLogger("OfflineTestLogger"), plugin), new AchievementMap(),
+				underTest);
+		UUID onlinePlayer = UUID.randomUUID();
+		cacheManager.playerConnected(onlinePlayer);
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, onlinePlayer, 0);
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, players.get(0), 1);
+		for (UUID player : players.subList(1, 5)) {
+			cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, player, 0);
+		}
+
+		cacheManager.cleanStaleCaches();
+
+		assertEquals(3, underTest.size());
+		assertNotNull(cacheManager.getStatBlock(onlinePlayer));
+		assertTrue(cacheManager.getStatBlock(players.get(0)).isDirty());
+		assertNull(cacheManager.getStatBlock(players.get(1)));
+		assertNull(cacheManager.getStatBlock(players.get(2)));
+		assertNotNull(cacheManager.getStatBlock(players.get(3)));
+
+		cacheManager.takeDirtyStatistics(players.get(0), mock(PlayerStatBlock.StatisticVisitor.class));
+		cacheManager.completeDatabaseWrite(players.get(0));
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, UUID.randomUUID(), 0);
+		cacheManager.cleanStaleCaches();
+
+		assertNull(cacheManager.getStatBlock(players.get(0)));
+		assertFalse(cacheManager.getStatBlock(players.get(4)).isDirty());
+	}
+}
@@ -0,0 +1,193 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+import com.hm.achievement.db.PlayerStatBlock.StatisticVisitor;
+
+/**
+ * Class for testing the primitive storage and dirty tracking of the statistics of a player.
+ *
+ * @author Pyves
+ */
+class PlayerStatBlockTest {
+
+	private final PlayerStatBlock underTest = new PlayerStatBlock(0L);
+	private final List<String> visitedStatistics = new ArrayList<>();
+	private final StatisticVisitor visitor = new StatisticVisitor() {
+
+		@Override
+		public void visit(NormalAchievements category, long value, long delta, boolean overwrite) {
+			visitedStatistics.add(category + "=" + value + "/" + delta + "/" + overwrite);
+		}
+
+		@Override
+		public void visit(MultipleAchievements category, int subcategoryId, long value, long delta, boolean overwrite) {
+			visitedStatistics.add(category + "." + subcategoryId + "=" + value + "/" + delta + "/" + overwrite);
+		}
+	};
+
+	@Test
+	void shouldOnlyReportBlockTransitionForFirstModifiedStatistic() {
+		underTest.load(NormalAchievements.BEDS, 5L);
+
+		assertEquals(PlayerStatBlock.STATISTIC_DIRTY | PlayerStatBlock.BLOCK_DIRTY,
+				underTest.setValue(NormalAchievements.BEDS, 6L));
+		assertEquals(0, underTest.setValue(NormalAchievements.BEDS, 7L));
+		assertEquals(PlayerStatBlock.STATISTIC_DIRTY, underTest.setValue(MultipleAchievements.BREAKS, 1, 2L));
+		assertEquals(0, underTest.setValue(MultipleAchievements.BREAKS, 1, 3L));
+
+		underTest.takeDirtyStatistics(visitor, 1L);
+
+		assertEquals(2, visitedStatistics.size());
+		assertTrue(visitedStatistics.contains("BEDS=7/2/false"));
+		assertTrue(visitedStatistics.contains("BREAKS.1=3/3/false"));
+		assertFalse(underTest.isDirty());
+		assertEquals(PlayerStatBlock.STATISTIC_DIRTY | PlayerStatBlock.BLOCK_DIRTY,
+				underTest.setValue(MultipleAchievements.BREAKS, 1, 4L));
+	}
+
+	@Test
+	void shouldRestoreDeltaAndOverwriteFlagAfterFailedWrite() {
+		underTest.overwriteValue(NormalAchievements.EGGS, 0L);
+		underTest.setValue(NormalAchievements.EGGS, 2L);
+		underTest.takeDirtyStatistics(visitor, 1L);
+
+		assertEquals(PlayerStatBlock.STATISTIC_DIRTY | PlayerStatBlock.BLOCK_DIRTY,
+				underTest.cancelDatabaseWrite(NormalAchievements.EGGS, 2L, true));
+		assertEquals(0, underTest.setValue(NormalAchievements.EGGS, 3L));
+		underTest.visitDirtyStatistics(visitor);
+
+		assertEquals(2, visitedStatistics.size());
+		assertEquals("EGGS=2/2/true", visitedStatistics.get(0));
+		assertEquals("EGGS=3/3/true", visitedStatistics.get(1));
+	}
+
+	@Test
+	void shouldBufferDeltaOfFailedWriteIfStatisticNotLoaded() {
+		assertEquals(0, underTest.cancelDatabaseWrite(NormalAchievements.BEDS, 2L, false));
+		assertEquals(0, underTest.cancelDatabaseWrite(MultipleAchievements.KILLS, 1, 3L, false));
+
+		assertFalse(underTest.isDirty());
+		assertFalse(underTest.isLoaded(MultipleAchievements.KILLS, 1));
+		assertEquals(2L, underTest.load(NormalAchievements.BEDS, 10L));
+		assertEquals(3L, underTest.load(MultipleAchievements.KILLS, 1, 20L));
+	}
+
+	@Test
+	void shouldNotEvictBlockWhileStatisticsAreBeingWritten() {
+		underTest.setValue(NormalAchievements.BEDS, 1L);
+		underTest.takeDirtyStatistics(visitor, 1L);
+
+		assertFalse(underTest.evict());
+
+		underTest.completeDatabaseWrite();
+		assertTrue(underTest.evict());
+	}
+
+	@Test
+	void shouldStoreManyMultipleStatistics() {
+		for (int subcategoryId = 0; subcategoryId < 1000; ++subcategoryId) {
+			underTest.load(MultipleAchievements.KILLS, subcategoryId, subcategoryId);
+			underTest.setValue(MultipleAchievements.PLACES, subcategoryId, -subcategoryId);
+		}
+
+		for (int subcategoryId = 0; subcategoryId < 1000; ++subcategoryId) {
+			assertTrue(underTest.isLoaded(MultipleAchievements.KILLS, subcategoryId));
+			assertFalse(underTest.isDirty(MultipleAchievements.KILLS, subcategoryId));
+			assertEquals(subcategoryId, underTest.getValue(MultipleAchievements.KILLS, subcategoryId));
+			assertTrue(underTest.isDirty(MultipleAchievements.PLACES, subcategoryId));
+			assertEquals(-subcategoryId, underTest.getValue(MultipleAchievements.PLACES, subcategoryId));
+		}
+		assertFalse(underTest.isLoaded(MultipleAchievements.BREAKS, 0));
+		underTest.takeDirtyStatistics(visitor, 1L);
+		assertEquals(1000, visitedStatistics.size());
+	}
+
+	@Test
+	void shouldBufferIncrementsOfStatisticsBeingLoaded() {
+		underTest.addPendingIncrement(NormalAchievements.BEDS, 2L);
+		underTest.addPendingIncrement(NormalAchievements.BEDS, 3L);
+		underTest.addPendingIncrement(MultipleAchievements.KILLS, 1, 4L);
+		underTest.addPendingIncrement(MultipleAchievements.BREAKS, 1, 1L);
+
+		assertFalse(underTest.isLoaded(NormalAchievements.BEDS));
+		assertFalse(underTest.isLoaded(MultipleAchievements.KILLS, 1));
+		assertEquals(5L, underTest.getValue(NormalAchievements.BEDS));
+		assertFalse(underTest.isDirty());
+		assertFalse(underTest.evict());
+
+		assertEquals(5L, underTest.load(NormalAchievements.BEDS, 10L));
+		assertEquals(4L, underTest.load(MultipleAchievements.KILLS, 1, 20L));
+		assertEquals(0L, underTest.load(MultipleAchievements.KILLS, 1, 30L));
+		assertTrue(underTest.isLoaded(MultipleAchievements.KILLS, 1));
+		assertEquals(20L, underTest.getValue(MultipleAchievements.KILLS, 1));
+		assertTrue(underTest.hasPendingIncrements());
+
+		// Overwritten statistics no longer depend on the database value.
+		underTest.overwriteValue(MultipleAchievements.BREAKS, 1, 0L);
+		assertEquals(0L, underTest.load(MultipleAchievements.BREAKS, 1, 7L));
+		assertFalse(underTest.hasPendingIncrements());
+	}
+
+	@Test
+	void shouldNotAllocateWhenIncrementingCachedStatistics(@TempDir Path tempDir) {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		AdvancedAchievements plugin = mock(AdvancedAchievements.class);
+		when(plugin.getDataFolder()).thenReturn(tempDir.toFile());
+		StatisticsJournal statisticsJournal = new StatisticsJournal(new YamlConfiguration(),
+				Logger.getLogger("StatTestLogger"), plugin);
+		CacheManager cacheManager = new CacheManager(plugin, mock(AbstractDatabaseManager.class), statisticsJournal,
+				new AchievementMap(), new OfflinePlayerTier(new YamlConfiguration()));
+		// Increments are journaled, as they are by default.
+		cacheManager.replayJournal();
+		assertTrue(statisticsJournal.isEnabled());
+		UUID player = UUID.randomUUID();
+		long threadId = Thread.currentThread().getId();
+		int increments = 100_000;
+		// Warm up, so that the statistics are cached, journal segments were started and the measurement is initialised.
+		int subcategoryId = cacheManager.getSubcategoryId("zombie");
+		incrementStatistics(cacheManager, player, subcategoryId, 1000);
+		statisticsJournal.rotate();
+		threadMXBean.getThreadAllocatedBytes(threadId);
+
+		long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+		incrementStatistics(cacheManager, player, subcategoryId, increments);
+		long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		statisticsJournal.close();
+
+		// Allow for a few unrelated allocations, e.g. by the JIT, the measurement itself or new journal segments.
+		assertTrue(allocatedBytes < increments, "Allocated " + allocatedBytes + " bytes.");
+	}
+
+	private void incrementStatistics(CacheManager cacheManager, UUID player, int subcategoryId, int increments) {
+		for (int i = 0; i < increments; ++i) {
+			cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, player, 1);
+			cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.BREAKS, "stone", player, 1);
+			cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.KILLS, subcategoryId, player, 1);
+			cacheManager.incrementStatisticAmount(NormalAchievements.BEDS, player, 1);
+			cacheManager.incrementStatisticAmount(MultipleAchievements.KILLS, subcategoryId, player, 1);
+		}
+	}
+}
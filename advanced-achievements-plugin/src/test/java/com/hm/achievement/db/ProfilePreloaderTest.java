@@ -0,0 +1,104 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+
+/**
+ * Class for testing the batched loading of the data of players logging in.
+ *
+ * @author Pyves
+ */
+class ProfilePreloaderTest {
+
+	private static final Logger LOGGER = Logger.getLogger("PreloaderTestLogger");
+
+	private final AbstractDatabaseManager databaseManager = mock(AbstractDatabaseManager.class);
+	private final YamlConfiguration mainConfig = new YamlConfiguration();
+	private CacheManager cacheManager;
+	private ProfilePreloader underTest;
+
+	@BeforeEach
+	void setUp() {
+		AdvancedAchievements plugin = mock(AdvancedAchievements.class);
+		cacheManager = new CacheManager(plugin, databaseManager, new StatisticsJournal(mainConfig, LOGGER, plugin),
+				new AchievementMap(), new OfflinePlayerTier(mainConfig));
+		when(databaseManager.getPlayerProfiles(any())).thenAnswer(invocation -> {
+			Map<UUID, PlayerProfile> profiles = new HashMap<>();
+			for (UUID player : invocation.<Collection<UUID>> getArgument(0)) {
+				PlayerProfile profile = new PlayerProfile();
+				profile.addStatistic("beds", null, 3L, true);
+				profiles.put(player, profile);
+			}
+			return profiles;
+		});
+		mainConfig.set("ProfilePreloadWindow", 60_000);
+		mainConfig.set("ProfilePreloadBatchSize", 2);
+		underTest = new ProfilePreloader(mainConfig, LOGGER, cacheManager);
+		underTest.extractConfigurationParameters();
+	}
+
+	@AfterEach
+	void tearDown() {
+		underTest.shutdown();
+	}
+
+	@Test
+	void shouldLoadPlayersInBatchesOnceFull() throws Exception {
+		UUID player1 = UUID.randomUUID();
+		UUID player2 = UUID.randomUUID();
+		UUID player3 = UUID.randomUUID();
+
+		CompletableFuture<Void> future1 = underTest.preload(player1);
+		CompletableFuture<Void> future2 = underTest.preload(player2);
+		CompletableFuture<Void> future3 = underTest.preload(player3);
+		future1.get(5, TimeUnit.SECONDS);
+		future2.get(5, TimeUnit.SECONDS);
+
+		verify(databaseManager).getPlayerProfiles(new HashSet<>(Arrays.asList(player1, player2)));
+		assertFalse(future3.isDone());
+		assertEquals(4L, cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, player1, 1));
+		verify(databaseManager, never()).getNormalAchievementAmount(any(), any());
+	}
+
+	@Test
+	void shouldLoadPendingPlayersOnceWindowElapsed() throws Exception {
+		mainConfig.set("ProfilePreloadWindow", 10);
+		underTest.extractConfigurationParameters();
+		UUID player = UUID.randomUUID();
+
+		underTest.preload(player).get(5, TimeUnit.SECONDS);
+
+		assertEquals(3L, cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, player, 0));
+	}
+
+	@Test
+	void shouldMergeRepeatedLoginsOfSamePlayer() {
+		UUID player = UUID.randomUUID();
+
+		assertEquals(underTest.preload(player), underTest.preload(player));
+	}
+}
@@ -0,0 +1,71 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+import com.hm.achievement.domain.Achievement.AchievementBuilder;
+
+/**
+ * Class for testing the bitset of the achievements received by a player.
+ *
+ * @author Pyves
+ */
+class ReceivedAchievementsTest {
+
+	private final AchievementMap achievementMap = new AchievementMap();
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < 150; ++i) {
+			achievementMap.put(new AchievementBuilder().category(i < 100 ? NormalAchievements.BEDS : NormalAchievements.EGGS)
+					.name("ach" + i).displayName("Display " + i).build());
+		}
+	}
+
+	@Test
+	void shouldBehaveAsSetOfAchievementNames() {
+		ReceivedAchievements underTest = new ReceivedAchievements(achievementMap, Arrays.asList("ach1", "ach120"));
+
+		assertTrue(underTest.add("ach99"));
+		assertFalse(underTest.add("ach1"));
+		assertTrue(underTest.contains("ach120"));
+		assertFalse(underTest.contains("ach2"));
+		assertFalse(underTest.contains("unknown"));
+		assertEquals(3, underTest.size());
+		assertEquals(new HashSet<>(Arrays.asList("ach1", "ach99", "ach120")), new HashSet<>(underTest));
+
+		assertTrue(underTest.removeAll(Arrays.asList("ach1", "ach2")));
+		assertFalse(underTest.remove("unknown"));
+		assertEquals(new HashSet<>(Arrays.asList("ach99", "ach120")), underTest);
+	}
+
+	@Test
+	void shouldKeepAchievementsThatAreNoLongerConfigured() {
+		ReceivedAchievements underTest = new ReceivedAchievements(achievementMap,
+				Collections.singletonList("removed_achievement"));
+
+		assertTrue(underTest.contains("removed_achievement"));
+		assertEquals(Collections.singleton("removed_achievement"), underTest);
+	}
+
+	@Test
+	void shouldCountReceivedAchievementsInCategory() {
+		ReceivedAchievements underTest = new ReceivedAchievements(achievementMap,
+				Arrays.asList("ach0", "ach63", "ach64", "ach99", "ach100", "ach149", "removed_achievement"));
+
+		assertEquals(4, underTest.count(achievementMap.getMaskForCategory(NormalAchievements.BEDS)));
+		assertEquals(2, underTest.count(achievementMap.getMaskForCategory(NormalAchievements.EGGS)));
+		assertEquals(0, underTest.count(achievementMap.getMaskForCategory(NormalAchievements.FISH)));
+		assertEquals(7, underTest.size());
+	}
+}
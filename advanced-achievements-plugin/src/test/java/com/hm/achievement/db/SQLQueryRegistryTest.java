@@ -0,0 +1,73 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.db.SQLQueryRegistry.Query;
+
+/**
+ * Class for testing the registry of the SQL queries run by the database manager.
+ *
+ * @author Pyves
+ */
+class SQLQueryRegistryTest {
+
+	private static final Logger LOGGER = Logger.getLogger("DBTestLogger");
+
+	private final SQLQueryRegistry underTest = new SQLQueryRegistry("aach_", DatabaseDialect.H2, LOGGER, 0);
+
+	@Test
+	void shouldPrefixTablesOfQueries() {
+		assertEquals("SELECT achievement FROM aach_achievements WHERE playername = ?",
+				underTest.get(Query.ACHIEVEMENT_NAMES, false));
+		assertEquals("DELETE FROM aach_achievements_compact WHERE playername = ?",
+				underTest.get(Query.DELETE_ALL_ACHIEVEMENTS, true));
+		assertEquals("SELECT beds FROM aach_beds WHERE playername = ?", underTest.getStatistic(NormalAchievements.BEDS));
+		assertEquals("SELECT crafts FROM aach_crafts WHERE playername = ? AND item = ?",
+				underTest.getStatistic(MultipleAchievements.CRAFTS));
+	}
+
+	@Test
+	void shouldOnlyIncludeRequestedProfileSelects() {
+		List<String> selects = underTest.getProfileSelects(true, false, true);
+
+		assertEquals(3, selects.size());
+		assertTrue(selects.get(0).contains("aach_statistics st"));
+		assertTrue(selects.get(1).contains("aach_connections"));
+		assertTrue(selects.get(2).contains("aach_achievements"));
+	}
+
+	@Test
+	void shouldRecordExecutionsByName() {
+		underTest.recordExecution(underTest.get(Query.TOP_LIST, true), 3_000_000L);
+		underTest.recordExecution(underTest.get(Query.TOP_LIST, true), 1_000_000L);
+		underTest.recordExecution(underTest.getStatistic(NormalAchievements.BEDS), 1_000_000L);
+		underTest.recordExecution("SELECT 1", 1_000_000L);
+
+		assertEquals(2L, underTest.getExecutions().get("top_list_compact"));
+		assertEquals(1L, underTest.getExecutions().get("statistic_beds"));
+		assertEquals(1L, underTest.getExecutions().get(SQLQueryRegistry.UNREGISTERED));
+		assertEquals(4L, underTest.getExecutionMillis("top_list_compact"));
+		assertEquals(3L, underTest.getMaxExecutionMillis("top_list_compact"));
+	}
+
+	@Test
+	void shouldOnlyConsiderRegisteredQueriesAndBatchUpsertsAsRegistered() {
+		String batchUpsert = "INSERT INTO aach_beds VALUES (?,?),(?,?)";
+		underTest.registerBatchUpsert(batchUpsert);
+
+		assertTrue(underTest.isRegistered(underTest.get(Query.TOP_LIST, true)));
+		assertTrue(underTest.isRegistered(batchUpsert));
+		assertFalse(underTest.isRegistered("SELECT 1"));
+		underTest.recordExecution(batchUpsert, 1_000_000L);
+		assertEquals(1L, underTest.getExecutions().get(SQLQueryRegistry.BATCH_UPSERT));
+	}
+}
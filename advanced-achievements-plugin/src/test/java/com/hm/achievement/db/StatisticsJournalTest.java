@@ -0,0 +1,162 @@
+package com.hm.achievement.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+
+/**
+ * Class for testing the journaling and replaying of statistics not yet written to the database.
+ *
+ * @author Pyves
+ */
+class StatisticsJournalTest {
+
+	private static final Logger LOGGER = Logger.getLogger("JournalTestLogger");
+	private static final UUID PLAYER_UUID = UUID.randomUUID();
+
+	private final AbstractDatabaseManager databaseManager = mock(AbstractDatabaseManager.class);
+	private final AdvancedAchievements plugin = mock(AdvancedAchievements.class);
+
+	@TempDir
+	Path tempDir;
+
+	@BeforeEach
+	void setUp() {
+		when(plugin.getDataFolder()).thenReturn(tempDir.toFile());
+	}
+
+	@Test
+	void shouldReplayJournaledStatisticsAfterRestart() {
+		StatisticsJournal journal = new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin);
+		CacheManager cacheManager = new CacheManager(plugin, databaseManager, journal, new AchievementMap(),
+				new OfflinePlayerTier(new YamlConfiguration()));
+		cacheManager.replayJournal();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 3);
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 2);
+		cacheManager.getAndIncrementStatisticAmount(MultipleAchievements.BREAKS, "stone", PLAYER_UUID, 7);
+		journal.close();
+
+		CacheManager restartedCacheManager = restart();
+
+		PlayerStatBlock statBlock = restartedCacheManager.getStatBlock(PLAYER_UUID);
+		assertEquals(5, statBlock.getValue(NormalAchievements.BEDS));
+		assertTrue(statBlock.isDirty(NormalAchievements.BEDS));
+		assertTrue(restartedCacheManager.getDirtyPlayers().contains(PLAYER_UUID));
+		assertEquals(7,
+				restartedCacheManager.getAndIncrementStatisticAmount(MultipleAchievements.BREAKS, "stone", PLAYER_UUID, 0));
+	}
+
+	@Test
+	void shouldNotReplayCommittedStatistics() {
+		StatisticsJournal journal = new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin);
+		CacheManager cacheManager = new CacheManager(plugin, databaseManager, journal, new AchievementMap(),
+				new OfflinePlayerTier(new YamlConfiguration()));
+		cacheManager.replayJournal();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 3);
+		long sequence = journal.rotate();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.EGGS, PLAYER_UUID, 4);
+		journal.commit(sequence);
+		journal.close();
+
+		CacheManager restartedCacheManager = restart();
+
+		assertFalse(restartedCacheManager.getStatBlock(PLAYER_UUID).isLoaded(NormalAchievements.BEDS));
+		assertEquals(4, restartedCacheManager.getStatBlock(PLAYER_UUID).getValue(NormalAchievements.EGGS));
+	}
+
+	@Test
+	void shouldRecycleCommittedSegments() {
+		StatisticsJournal journal = new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin);
+		CacheManager cacheManager = new CacheManager(plugin, databaseManager, journal, new AchievementMap(),
+				new OfflinePlayerTier(new YamlConfiguration()));
+		cacheManager.replayJournal();
+		for (int i = 0; i < 10; ++i) {
+			cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 1);
+			journal.commit(journal.rotate());
+			journal.sync();
+		}
+		journal.close();
+
+		// The current segment, and the committed segments kept for reuse.
+		assertEquals(3, new File(tempDir.toFile(), "journal").listFiles((d, n) -> n.endsWith(".journal")).length);
+		assertNull(restart().getStatBlock(PLAYER_UUID));
+	}
+
+	@Test
+	void shouldStartNewSegmentsWhenFull() {
+		StatisticsJournal journal = new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin);
+		CacheManager cacheManager = new CacheManager(plugin, databaseManager, journal, new AchievementMap(),
+				new OfflinePlayerTier(new YamlConfiguration()));
+		cacheManager.replayJournal();
+		int increments = StatisticsJournal.SEGMENT_SIZE / 16;
+		for (int i = 0; i < increments; ++i) {
+			cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 1);
+		}
+		journal.close();
+
+		CacheManager restartedCacheManager = restart();
+
+		assertTrue(new File(tempDir.toFile(), "journal").listFiles((d, n) -> n.endsWith(".journal")).length > 1);
+		assertEquals(increments, restartedCacheManager.getStatBlock(PLAYER_UUID).getValue(NormalAchievements.BEDS));
+	}
+
+	@Test
+	void shouldKeepOlderSegmentsWhenSpillingWhileStatisticsAreStillBeingWritten() {
+		StatisticsJournal journal = new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin);
+		CacheManager cacheManager = new CacheManager(plugin, databaseManager, journal, new AchievementMap(),
+				new OfflinePlayerTier(new YamlConfiguration()));
+		cacheManager.replayJournal();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 3);
+		// Taken from the cache by a write that has not completed.
+		cacheManager.takeDirtyStatistics(PLAYER_UUID, mock(PlayerStatBlock.StatisticVisitor.class));
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.EGGS, PLAYER_UUID, 4);
+
+		journal.spill(cacheManager::journalDirtyStatistics, false);
+		journal.close();
+
+		PlayerStatBlock statBlock = restart().getStatBlock(PLAYER_UUID);
+		assertEquals(3, statBlock.getValue(NormalAchievements.BEDS));
+		assertEquals(4, statBlock.getValue(NormalAchievements.EGGS));
+	}
+
+	@Test
+	void shouldNotJournalWhenDisabled() {
+		YamlConfiguration config = new YamlConfiguration();
+		config.set("StatisticsJournal", false);
+		StatisticsJournal journal = new StatisticsJournal(config, LOGGER, plugin);
+		CacheManager cacheManager = new CacheManager(plugin, databaseManager, journal, new AchievementMap(),
+				new OfflinePlayerTier(new YamlConfiguration()));
+		cacheManager.replayJournal();
+		cacheManager.getAndIncrementStatisticAmount(NormalAchievements.BEDS, PLAYER_UUID, 3);
+
+		assertFalse(journal.isEnabled());
+		assertFalse(new File(tempDir.toFile(), "journal").exists());
+	}
+
+	private CacheManager restart() {
+		StatisticsJournal journal = new StatisticsJournal(new YamlConfiguration(), LOGGER, plugin);
+		CacheManager cacheManager = new CacheManager(plugin, databaseManager, journal, new AchievementMap(),
+				new OfflinePlayerTier(new YamlConfiguration()));
+		cacheManager.replayJournal();
+		journal.close();
+		return cacheManager;
+	}
+}
@@ -12,6 +12,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 import org.bukkit.Server;
@@ -27,6 +28,8 @@ import com.hm.achievement.AdvancedAchievements;
 import com.hm.achievement.config.AchievementMap;
 import com.hm.achievement.db.AbstractDatabaseManager;
 import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.db.OfflinePlayerTier;
+import com.hm.achievement.db.StatisticsJournal;
 import com.hm.achievement.domain.Achievement;
 import com.hm.achievement.domain.Achievement.AchievementBuilder;
 import com.hm.achievement.utils.FancyMessageSender;
@@ -53,6 +56,8 @@ class PlayerAdvancedAchievementListenerTest {
 	private AbstractDatabaseManager abstractDatabaseManager;
 	@Mock
 	private AdvancedAchievements plugin;
+	@Mock
+	private StatisticsJournal statisticsJournal;
 
 	private PlayerAdvancedAchievementListener underTest;
 
@@ -66,8 +71,9 @@ class PlayerAdvancedAchievementListenerTest {
 		YamlConfiguration langConfig = YamlConfiguration
 				.loadConfiguration(new InputStreamReader(getClass().getResourceAsStream("/lang.yml")));
 		underTest = new PlayerAdvancedAchievementListener(mainConfig, langConfig, mock(Logger.class),
-				new StringBuilder(PLUGIN_HEADER), new CacheManager(plugin, abstractDatabaseManager), plugin, null,
-				achievementMap, abstractDatabaseManager, null, new FancyMessageSender(16));
+				new StringBuilder(PLUGIN_HEADER), new CacheManager(plugin, abstractDatabaseManager, statisticsJournal,
+						achievementMap, new OfflinePlayerTier(new YamlConfiguration())),
+				plugin, null, achievementMap, abstractDatabaseManager, null, new FancyMessageSender(16));
 		underTest.extractConfigurationParameters();
 		when(player.getUniqueId()).thenReturn(PLAYER_UUID);
 		when(player.getName()).thenReturn("DarkPyves");
@@ -75,7 +81,8 @@ class PlayerAdvancedAchievementListenerTest {
 		doReturn(Arrays.asList(player)).when(server).getOnlinePlayers();
 		Set<String> receivedAchievements = new HashSet<>();
 		receivedAchievements.add("connect_1");
-		when(abstractDatabaseManager.getPlayerAchievementNames(PLAYER_UUID)).thenReturn(receivedAchievements);
+		when(abstractDatabaseManager.getPlayerAchievementNamesAsync(PLAYER_UUID))
+				.thenReturn(CompletableFuture.completedFuture(receivedAchievements));
 		Achievement achievement = new AchievementBuilder()
 				.name("connect_1")
 				.displayName("Good Choice")
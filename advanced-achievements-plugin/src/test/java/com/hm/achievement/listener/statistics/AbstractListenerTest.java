@@ -0,0 +1,100 @@
+package com.hm.achievement.listener.statistics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.EntityType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hm.achievement.category.MultipleAchievements;
+import com.hm.achievement.config.AchievementMap;
+import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.listener.statistics.AbstractListener.MatchedSubcategories;
+import com.hm.achievement.utils.PermissionCache;
+
+/**
+ * Class for testing the matching of identifiers against groups of sub-categories.
+ *
+ * @author Pyves
+ */
+class AbstractListenerTest {
+
+	private final AchievementMap achievementMap = mock(AchievementMap.class);
+	private final CacheManager cacheManager = mock(CacheManager.class);
+	private AbstractListener underTest;
+
+	@BeforeEach
+	void setUp() {
+		when(cacheManager.getSubcategoryId("skeleton|wither_skeleton")).thenReturn(7);
+		when(achievementMap.getSubcategoriesForCategory(MultipleAchievements.KILLS)).thenReturn(new LinkedHashSet<>(
+				Arrays.asList("zombie", "zombie|pig_zombie|zombie_horse", "skeleton|wither_skeleton", "pig")));
+		underTest = new AbstractListener(MultipleAchievements.KILLS, new YamlConfiguration(), achievementMap,
+				cacheManager, new PermissionCache(new YamlConfiguration())) {};
+		underTest.extractConfigurationParameters();
+	}
+
+	@Test
+	void shouldMatchAllGroupsContainingIdentifier() {
+		Set<String> matchingSubcategories = new HashSet<>();
+		underTest.addMatchingSubcategories(matchingSubcategories, "zombie");
+
+		assertEquals(new HashSet<>(Arrays.asList("zombie", "zombie|pig_zombie|zombie_horse")), matchingSubcategories);
+	}
+
+	@Test
+	void shouldNotMatchPartialGroupMembers() {
+		Set<String> matchingSubcategories = new HashSet<>();
+		underTest.addMatchingSubcategories(matchingSubcategories, "zomb");
+		underTest.addMatchingSubcategories(matchingSubcategories, "wither");
+
+		assertTrue(matchingSubcategories.isEmpty());
+	}
+
+	@Test
+	void shouldMatchIdentifiersSpanningSeveralGroupMembers() {
+		Set<String> matchingSubcategories = new HashSet<>();
+		underTest.addMatchingSubcategories(matchingSubcategories, "pig_zombie|zombie_horse");
+
+		assertEquals(new HashSet<>(Arrays.asList("zombie|pig_zombie|zombie_horse")), matchingSubcategories);
+	}
+
+	@Test
+	void shouldRebuildIndexOnReload() {
+		when(achievementMap.getSubcategoriesForCategory(MultipleAchievements.KILLS))
+				.thenReturn(new HashSet<>(Arrays.asList("creeper|zombie")));
+		underTest.extractConfigurationParameters();
+
+		Set<String> matchingSubcategories = new HashSet<>();
+		underTest.addMatchingSubcategories(matchingSubcategories, "zombie");
+		underTest.addMatchingSubcategories(matchingSubcategories, "pig");
+
+		assertEquals(new HashSet<>(Arrays.asList("creeper|zombie")), matchingSubcategories);
+	}
+
+	@Test
+	void shouldPrecomputeMatchedSubcategoriesOfEnumConstants() {
+		Map<EntityType, MatchedSubcategories> matchedSubcategories = underTest
+				.buildMatchedSubcategories(EntityType.class);
+
+		assertFalse(matchedSubcategories.containsKey(EntityType.CREEPER));
+		MatchedSubcategories skeleton = matchedSubcategories.get(EntityType.SKELETON);
+		assertEquals("achievement.count.kills.skeleton", skeleton.permission);
+		assertArrayEquals(new String[] { "skeleton|wither_skeleton" }, skeleton.subcategories);
+		assertArrayEquals(new int[] { 7 }, skeleton.subcategoryIds);
+		assertEquals(2, matchedSubcategories.get(EntityType.ZOMBIE).subcategories.length);
+		assertTrue(matchedSubcategories.containsKey(EntityType.PIG));
+		assertTrue(matchedSubcategories.containsKey(EntityType.WITHER_SKELETON));
+	}
+}
@@ -0,0 +1,91 @@
+package com.hm.achievement.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionCacheTest {
+
+	private static final UUID PLAYER_UUID = UUID.randomUUID();
+
+	@Mock
+	private Player player;
+
+	private YamlConfiguration mainConfig;
+	private PermissionCache underTest;
+
+	@BeforeEach
+	void setUp() {
+		mainConfig = new YamlConfiguration();
+		underTest = new PermissionCache(mainConfig);
+		underTest.extractConfigurationParameters();
+	}
+
+	@Test
+	void shouldOnlyCheckEachPermissionOnce() {
+		when(player.getUniqueId()).thenReturn(PLAYER_UUID);
+		when(player.hasPermission("achievement.count.breaks.stone")).thenReturn(true);
+		when(player.hasPermission("achievement.count.breaks.dirt")).thenReturn(false);
+
+		for (int i = 0; i < 3; ++i) {
+			assertTrue(underTest.hasPermission(player, "achievement.count.breaks.stone"));
+			assertFalse(underTest.hasPermission(player, "achievement.count.breaks.dirt"));
+		}
+
+		verify(player).hasPermission("achievement.count.breaks.stone");
+		verify(player).hasPermission("achievement.count.breaks.dirt");
+	}
+
+	@Test
+	void shouldCheckPermissionAgainAfterInvalidation() {
+		when(player.getUniqueId()).thenReturn(PLAYER_UUID);
+		when(player.hasPermission("achievement.diamonds")).thenReturn(false, true);
+
+		assertFalse(underTest.hasAchievementPermission(player, "diamonds"));
+		assertFalse(underTest.hasAchievementPermission(player, "diamonds"));
+		underTest.invalidate(PLAYER_UUID);
+
+		assertTrue(underTest.hasAchievementPermission(player, "diamonds"));
+		verify(player, times(2)).hasPermission("achievement.diamonds");
+	}
+
+	@Test
+	void shouldCheckPermissionsOfPlayerWhenCachingDisabled() {
+		mainConfig.set("PermissionCacheDuration", 0);
+		underTest.extractConfigurationParameters();
+		when(player.hasPermission("achievement.count.kills.zombie")).thenReturn(true);
+
+		assertTrue(underTest.hasPermission(player, "achievement.count.kills.zombie"));
+		assertTrue(underTest.hasPermission(player, "achievement.count.kills.zombie"));
+
+		verify(player, times(2)).hasPermission("achievement.count.kills.zombie");
+	}
+
+	@Test
+	void shouldStoreManyPermissions() {
+		when(player.getUniqueId()).thenReturn(PLAYER_UUID);
+		when(player.hasPermission("achievement.count.places.block100")).thenReturn(true);
+
+		for (int i = 0; i < 200; ++i) {
+			assertEquals(i == 100, underTest.hasPermission(player, "achievement.count.places.block" + i));
+		}
+
+		assertTrue(underTest.hasPermission(player, "achievement.count.places.block100"));
+		assertFalse(underTest.hasPermission(player, "achievement.count.places.block0"));
+		verify(player).hasPermission("achievement.count.places.block100");
+	}
+}
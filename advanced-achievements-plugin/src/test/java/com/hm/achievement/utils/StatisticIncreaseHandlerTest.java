@@ -0,0 +1,114 @@
+package com.hm.achievement.utils;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hm.achievement.AdvancedAchievements;
+import com.hm.achievement.category.NormalAchievements;
+import com.hm.achievement.config.AchievementMap;
+import com.hm.achievement.db.AbstractDatabaseManager;
+import com.hm.achievement.db.CacheManager;
+import com.hm.achievement.db.OfflinePlayerTier;
+import com.hm.achievement.db.StatisticsJournal;
+import com.hm.achievement.domain.Achievement;
+import com.hm.achievement.domain.Achievement.AchievementBuilder;
+
+/**
+ * Class for testing the comparison of statistics to achievement thresholds.
+ *
+ * @author Pyves
+ */
+class StatisticIncreaseHandlerTest {
+
+	private static final UUID PLAYER_UUID = UUID.randomUUID();
+
+	private final AchievementMap achievementMap = new AchievementMap();
+	private final Player player = mock(Player.class);
+	private CacheManager cacheManager;
+	private StatisticIncreaseHandler underTest;
+
+	@BeforeEach
+	void setUp() {
+		Set<String> receivedAchievements = new HashSet<>();
+		List<Achievement> achievements = new ArrayList<>();
+		for (int i = 1; i <= 40; ++i) {
+			achievements.add(new AchievementBuilder().name("beds" + i).displayName("Beds " + i)
+					.category(NormalAchievements.BEDS).threshold(i).build());
+			receivedAchievements.add("beds" + i);
+		}
+		achievements.add(new AchievementBuilder().name("beds100").displayName("Beds 100")
+				.category(NormalAchievements.BEDS).threshold(100).build());
+		achievements.forEach(achievementMap::put);
+
+		AdvancedAchievements plugin = mock(AdvancedAchievements.class);
+		AbstractDatabaseManager databaseManager = mock(AbstractDatabaseManager.class);
+		when(databaseManager.getPlayerAchievementNamesAsync(PLAYER_UUID))
+				.thenReturn(CompletableFuture.completedFuture(receivedAchievements));
+		cacheManager = spy(new CacheManager(plugin, databaseManager,
+				new StatisticsJournal(new YamlConfiguration(), Logger.getLogger("StatTestLogger"), plugin),
+				achievementMap, new OfflinePlayerTier(new YamlConfiguration())));
+		when(player.getUniqueId()).thenReturn(PLAYER_UUID);
+		YamlConfiguration mainConfig = new YamlConfiguration();
+		underTest = new StatisticIncreaseHandler(mainConfig, achievementMap, cacheManager,
+				new PermissionCache(mainConfig));
+		underTest.extractConfigurationParameters();
+	}
+
+	@Test
+	void shouldOnlyCompareNextThresholdOnceAchievementsReceived() {
+		underTest.checkThresholdsAndAchievements(player, NormalAchievements.BEDS, 50);
+		verify(cacheManager, times(40)).hasPlayerAchievement(eq(PLAYER_UUID), anyString());
+		clearInvocations(cacheManager);
+
+		underTest.checkThresholdsAndAchievements(player, NormalAchievements.BEDS, 51);
+		underTest.checkThresholdsAndAchievements(player, NormalAchievements.BEDS, 52);
+
+		verify(cacheManager, never()).hasPlayerAchievement(eq(PLAYER_UUID), anyString());
+	}
+
+	@Test
+	void shouldCompareThresholdsAgainAfterAchievementsDeleted() {
+		underTest.checkThresholdsAndAchievements(player, NormalAchievements.BEDS, 50);
+		cacheManager.removePreviouslyReceivedAchievements(PLAYER_UUID, Collections.singletonList("beds20"));
+		clearInvocations(cacheManager);
+
+		underTest.checkThresholdsAndAchievements(player, NormalAchievements.BEDS, 51);
+		underTest.checkThresholdsAndAchievements(player, NormalAchievements.BEDS, 52);
+
+		// The player has no permission to receive the deleted achievement, all achievements before it were received.
+		verify(cacheManager, times(40 + 21)).hasPlayerAchievement(eq(PLAYER_UUID), anyString());
+		verify(player, times(2)).hasPermission("achievement.beds20");
+	}
+
+	@Test
+	void shouldCompareThresholdsAgainAfterReload() {
+		underTest.checkThresholdsAndAchievements(player, NormalAchievements.BEDS, 50);
+		underTest.extractConfigurationParameters();
+		clearInvocations(cacheManager);
+
+		underTest.checkThresholdsAndAchievements(player, NormalAchievements.BEDS, 51);
+
+		verify(cacheManager, times(40)).hasPlayerAchievement(eq(PLAYER_UUID), anyString());
+	}
+}